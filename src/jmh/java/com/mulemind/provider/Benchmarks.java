@@ -0,0 +1,80 @@
+package com.mulemind.provider;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.model.CompletionRequest;
+
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+
+/**
+ * Fixtures shared by the benchmarks
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Build a configuration as the runtime would, without mocks that would
+     * show up in the allocation figures
+     */
+    static LlmConfiguration configuration(LlmProvider provider, String apiBaseUrl) {
+        LlmConfiguration configuration = new LlmConfiguration();
+        set(configuration, "configName", "benchmark");
+        set(configuration, "provider", provider);
+        set(configuration, "apiKey", "benchmark-key");
+        set(configuration, "apiBaseUrl", apiBaseUrl != null ? apiBaseUrl : provider.getDefaultBaseUrl());
+        set(configuration, "timeoutSeconds", 30);
+        set(configuration, "temperature", 0.0);
+        return configuration;
+    }
+
+    /**
+     * Build a request whose user message carries roughly the given amount of context
+     */
+    static CompletionRequest request(String model, int contextChars) {
+        return CompletionRequest.builder()
+            .model(model)
+            .temperature(0.0)
+            .maxTokens(256)
+            .addSystemMessage("Answer from the context only.")
+            .addUserMessage(context(contextChars))
+            .build();
+    }
+
+    static String context(int chars) {
+        StringBuilder context = new StringBuilder(chars + 100);
+        while (context.length() < chars) {
+            context.append("Line ").append(context.length()).append(" of the retrieved context, with \"quotes\" and ünïcödé.\n");
+        }
+        return context.toString();
+    }
+
+    private static void set(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name, e);
+        }
+    }
+
+    /**
+     * Output stream that only counts bytes, so serialization is measured without a copy
+     */
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
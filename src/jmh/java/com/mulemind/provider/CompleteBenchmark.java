@@ -0,0 +1,99 @@
+package com.mulemind.provider;
+
+import com.mulemind.config.LlmProvider;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.stub.StubLlmServer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end provider calls over loopback HTTP against the in-process stub server,
+ * measuring the client-side cost of a call: request serialization, the
+ * pooled connection, and response decoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CompleteBenchmark {
+
+    @Param({"OPENAI", "ANTHROPIC"})
+    private LlmProvider provider;
+
+    @Param({"200", "100000"})
+    private int contextChars;
+
+    private StubLlmServer server;
+    private LlmConnection connection;
+    private LlmProviderClient client;
+    private String context;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = StubLlmServer.builder().responseText("Paris").start();
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(20)
+            .setMaxConnPerRoute(20)
+            .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .disableAutomaticRetries()
+            .build();
+        PoolingAsyncClientConnectionManager asyncConnectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(20)
+            .setMaxConnPerRoute(20)
+            .build();
+        CloseableHttpAsyncClient asyncClient = HttpAsyncClients.custom()
+            .setConnectionManager(asyncConnectionManager)
+            .disableAutomaticRetries()
+            .build();
+        asyncClient.start();
+        connection = new LlmConnection(httpClient, connectionManager, asyncClient, asyncConnectionManager);
+
+        client = connection.getClient(Benchmarks.configuration(provider, server.getBaseUrl()));
+        context = Benchmarks.context(contextChars);
+    }
+
+    @TearDown
+    public void tearDown() {
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public CompletionResponse complete() throws LlmProviderException {
+        return client.complete(request());
+    }
+
+    @Benchmark
+    public CompletionResponse completeAsync() {
+        return client.completeAsync(request()).join();
+    }
+
+    private CompletionRequest request() {
+        return CompletionRequest.builder()
+            .addSystemMessage("Answer from the context only.")
+            .addUserMessage(context)
+            .build();
+    }
+}
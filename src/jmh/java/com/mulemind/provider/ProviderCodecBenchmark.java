@@ -0,0 +1,101 @@
+package com.mulemind.provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request building, serialization and response decoding of the providers,
+ * for a short prompt and for one carrying about 100 KB of context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProviderCodecBenchmark {
+
+    @Param({"200", "100000"})
+    private int contextChars;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String context;
+    private CompletionRequest request;
+    private AnthropicProvider anthropic;
+    private byte[] openAiResponse;
+    private byte[] anthropicResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = Benchmarks.context(contextChars);
+        request = Benchmarks.request("gpt-4", contextChars);
+        anthropic = new AnthropicProvider(Benchmarks.configuration(LlmProvider.ANTHROPIC, null),
+            new LlmConnection(null, null, null, null));
+
+        // Responses echo a fifth of the context, so the large case is a large reply too
+        String answer = objectMapper.writeValueAsString(context.substring(0, contextChars / 5));
+        openAiResponse = ("{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1700000000,\"model\":\"gpt-4\"," +
+            "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":" + answer + "},\"finish_reason\":\"stop\"}]," +
+            "\"usage\":{\"prompt_tokens\":25000,\"completion_tokens\":5000,\"total_tokens\":30000}}")
+            .getBytes(StandardCharsets.UTF_8);
+        anthropicResponse = ("{\"id\":\"msg_1\",\"type\":\"message\",\"role\":\"assistant\",\"model\":\"claude-3-5-sonnet-20241022\"," +
+            "\"content\":[{\"type\":\"text\",\"text\":" + answer + "}],\"stop_reason\":\"end_turn\",\"stop_sequence\":null," +
+            "\"usage\":{\"input_tokens\":25000,\"output_tokens\":5000}}")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CompletionRequest buildRequest() {
+        return CompletionRequest.builder()
+            .model("gpt-4")
+            .temperature(0.0)
+            .maxTokens(256)
+            .addSystemMessage("Answer from the context only.")
+            .addUserMessage(context)
+            .build();
+    }
+
+    @Benchmark
+    public long writeOpenAiRequest() throws IOException {
+        Benchmarks.CountingOutputStream out = new Benchmarks.CountingOutputStream();
+        new JsonEntity(objectMapper.getFactory(), generator -> OpenAiProvider.REQUEST_WRITER.writeValue(generator, request))
+            .writeTo(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long writeAnthropicRequest() throws IOException {
+        Benchmarks.CountingOutputStream out = new Benchmarks.CountingOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            anthropic.writeAnthropicRequest(generator, request, false);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public CompletionResponse readOpenAiResponse() throws IOException {
+        return OpenAiProvider.RESPONSE_READER.readValue(new ByteArrayInputStream(openAiResponse));
+    }
+
+    @Benchmark
+    public CompletionResponse readAnthropicResponse() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(new ByteArrayInputStream(anthropicResponse))) {
+            return AnthropicProvider.convertFromAnthropicFormat(parser);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.mulemind.batch;
+
+import com.mulemind.model.BatchItemResult;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a list of completion requests concurrently with a cap on the number
+ * of requests in flight.
+ *
+ * Requests are dispatched on the async client by a fixed number of lanes:
+ * each lane sends the next pending request when its previous one completes,
+ * so no thread waits for a slot. Results keep the input order and a failed
+ * request is reported on its own item instead of failing the batch.
+ */
+public class BatchCompletionExecutor {
+
+    private final LlmProviderClient client;
+    private final List<CompletionRequest> requests;
+    private final int maxConcurrency;
+
+    private final BatchItemResult[] results;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final CompletableFuture<List<BatchItemResult>> completion = new CompletableFuture<>();
+
+    private BatchCompletionExecutor(LlmProviderClient client, List<CompletionRequest> requests, int maxConcurrency) {
+        this.client = client;
+        this.requests = requests;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.results = new BatchItemResult[requests.size()];
+        this.remaining = new AtomicInteger(requests.size());
+    }
+
+    /**
+     * Execute the requests
+     *
+     * @param client the provider client
+     * @param requests the requests, in order
+     * @param maxConcurrency the maximum number of requests in flight
+     * @return a future completed with one result per request, in input order; it never fails
+     */
+    public static CompletableFuture<List<BatchItemResult>> execute(
+            LlmProviderClient client, List<CompletionRequest> requests, int maxConcurrency) {
+        if (requests.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        BatchCompletionExecutor executor = new BatchCompletionExecutor(client, requests, maxConcurrency);
+        int lanes = Math.min(executor.maxConcurrency, requests.size());
+        for (int i = 0; i < lanes; i++) {
+            executor.runLane();
+        }
+        return executor.completion;
+    }
+
+    private void runLane() {
+        // Loop while requests complete synchronously (e.g. cache hits) to avoid deep recursion
+        while (true) {
+            int index = next.getAndIncrement();
+            if (index >= requests.size()) {
+                return;
+            }
+            CompletableFuture<CompletionResponse> future = start(index);
+            if (!future.isDone()) {
+                future.whenComplete((response, error) -> {
+                    record(index, response, error);
+                    runLane();
+                });
+                return;
+            }
+            try {
+                record(index, future.join(), null);
+            } catch (RuntimeException e) {
+                record(index, null, e);
+            }
+        }
+    }
+
+    private CompletableFuture<CompletionResponse> start(int index) {
+        try {
+            return client.completeAsync(requests.get(index));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void record(int index, CompletionResponse response, Throwable error) {
+        if (error == null) {
+            results[index] = BatchItemResult.success(index, response);
+        } else {
+            Throwable cause = Futures.unwrap(error);
+            Integer statusCode = null;
+            if (cause instanceof LlmProviderException && ((LlmProviderException) cause).getStatusCode() > 0) {
+                statusCode = ((LlmProviderException) cause).getStatusCode();
+            }
+            results[index] = BatchItemResult.failure(index, cause.getMessage(), statusCode);
+        }
+        if (remaining.decrementAndGet() == 0) {
+            completion.complete(Arrays.asList(results));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.mulemind.batch;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.model.BatchItemResult;
+import com.mulemind.model.BatchJob;
+import com.mulemind.provider.BatchCapable;
+import org.mule.runtime.extension.api.runtime.streaming.PagingProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Streams the results of a finished batch job to the flow page by page,
+ * so large result files are never held in memory
+ */
+public class BatchResultPagingProvider implements PagingProvider<LlmConnection, BatchItemResult> {
+
+    private final LlmConfiguration configuration;
+    private final BatchJob job;
+    private final int pageSize;
+
+    private BatchResultReader reader;
+    private boolean exhausted;
+
+    public BatchResultPagingProvider(LlmConfiguration configuration, BatchJob job, int pageSize) {
+        this.configuration = configuration;
+        this.job = job;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @Override
+    public List<BatchItemResult> getPage(LlmConnection connection) {
+        if (exhausted) {
+            return Collections.emptyList();
+        }
+        try {
+            if (reader == null) {
+                reader = connection.getClient(configuration).unwrap(BatchCapable.class).openBatchResults(job);
+            }
+            List<BatchItemResult> page = new ArrayList<>(pageSize);
+            while (page.size() < pageSize) {
+                BatchItemResult result = reader.next();
+                if (result == null) {
+                    exhausted = true;
+                    reader.close();
+                    break;
+                }
+                page.add(result);
+            }
+            return page;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read results of batch " + job.getId() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<Integer> getTotalResults(LlmConnection connection) {
+        return Optional.ofNullable(job.getRequestCount());
+    }
+
+    @Override
+    public void close(LlmConnection connection) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
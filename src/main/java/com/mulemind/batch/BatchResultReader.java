@@ -0,0 +1,92 @@
+package com.mulemind.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mulemind.model.BatchItemResult;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the JSONL results of a provider batch job one line at a time.
+ *
+ * A job may publish its results in several locations (OpenAI writes failed
+ * requests to a separate error file); they are opened one after the other as
+ * the reader advances, so only the line being decoded is held in memory.
+ */
+public class BatchResultReader implements Closeable {
+
+    /**
+     * Opens the content of a result location
+     */
+    @FunctionalInterface
+    public interface Opener {
+        InputStream open(String location) throws IOException;
+    }
+
+    /**
+     * Decodes a single JSONL result line
+     */
+    @FunctionalInterface
+    public interface Decoder {
+        BatchItemResult decode(JsonNode line) throws IOException;
+    }
+
+    private final Iterator<String> locations;
+    private final Opener opener;
+    private final Decoder decoder;
+    private final ObjectMapper objectMapper;
+
+    private BufferedReader reader;
+    private boolean closed;
+
+    public BatchResultReader(List<String> locations, Opener opener, Decoder decoder, ObjectMapper objectMapper) {
+        this.locations = locations.iterator();
+        this.opener = opener;
+        this.decoder = decoder;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read the next result
+     *
+     * @return the result, or null once every location has been read
+     * @throws IOException if a location cannot be read or a line cannot be parsed
+     */
+    public BatchItemResult next() throws IOException {
+        while (!closed) {
+            if (reader == null) {
+                if (!locations.hasNext()) {
+                    return null;
+                }
+                reader = new BufferedReader(new InputStreamReader(
+                    opener.open(locations.next()), StandardCharsets.UTF_8));
+            }
+            String line = reader.readLine();
+            if (line == null) {
+                reader.close();
+                reader = null;
+            } else if (!line.isBlank()) {
+                return decoder.decode(objectMapper.readTree(line));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (reader != null) {
+            reader.close();
+        }
+    }
+}
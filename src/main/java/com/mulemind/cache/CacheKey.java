@@ -0,0 +1,160 @@
+package com.mulemind.cache;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Canonical SHA-256 fingerprint of the effective completion request.
+ *
+ * Configuration defaults are applied before hashing, so a request that relies
+ * on the configured model or temperature maps to the same key as one that sets
+ * them explicitly. Every field is length-prefixed to keep the encoding
+ * unambiguous.
+ */
+public final class CacheKey {
+
+    private static final byte NULL = 0;
+    private static final byte PRESENT = 1;
+
+    private final byte[] digest;
+    private final int hashCode;
+
+    private CacheKey(byte[] digest) {
+        this.digest = digest;
+        this.hashCode = Arrays.hashCode(digest);
+    }
+
+    /**
+     * Compute the key of a request as it will be sent with the given configuration
+     */
+    public static CacheKey of(LlmConfiguration configuration, CompletionRequest request) {
+        MessageDigest sha = sha256();
+        int count = request.getMessages() != null ? request.getMessages().size() : 0;
+        update(sha, configuration, request, count);
+        return new CacheKey(sha.digest());
+    }
+
+    /**
+     * Compute the key of everything a request sends except its final message,
+     * which identifies the conversation the final message is asked in
+     */
+    public static CacheKey ofContext(LlmConfiguration configuration, CompletionRequest request) {
+        MessageDigest sha = sha256();
+        update(sha, "context");
+        int count = request.getMessages() != null ? request.getMessages().size() : 0;
+        update(sha, configuration, request, Math.max(0, count - 1));
+        return new CacheKey(sha.digest());
+    }
+
+    private static void update(MessageDigest sha, LlmConfiguration configuration, CompletionRequest request, int count) {
+        String model = request.getModel() != null ? request.getModel() : configuration.getEffectiveModel();
+        Double temperature = request.getTemperature() != null ? request.getTemperature() : configuration.getTemperature();
+        Integer maxTokens = request.getMaxTokens() != null ? request.getMaxTokens() : configuration.getMaxTokens();
+
+        update(sha, configuration.getProvider().name());
+        update(sha, model);
+        update(sha, temperature);
+        update(sha, maxTokens != null ? maxTokens.doubleValue() : null);
+        update(sha, request.getTopP());
+        update(sha, request.getFrequencyPenalty());
+        update(sha, request.getPresencePenalty());
+
+        updateInt(sha, count);
+        for (int i = 0; i < count; i++) {
+            Message message = request.getMessages().get(i);
+            update(sha, message.getRole());
+            update(sha, message.getContent());
+        }
+    }
+
+    /**
+     * Compute the key of the embedding of a text by a model of the configured provider
+     */
+    public static CacheKey ofEmbedding(LlmConfiguration configuration, String model, String text) {
+        MessageDigest sha = sha256();
+        update(sha, "embedding");
+        update(sha, configuration.getProvider().name());
+        update(sha, model);
+        update(sha, text);
+        return new CacheKey(sha.digest());
+    }
+
+    /**
+     * Restore a key from its serialized digest
+     */
+    public static CacheKey fromBytes(byte[] digest) {
+        return new CacheKey(digest.clone());
+    }
+
+    /**
+     * Get a copy of the 32-byte digest
+     */
+    public byte[] toBytes() {
+        return digest.clone();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void update(MessageDigest sha, String value) {
+        if (value == null) {
+            sha.update(NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        sha.update(PRESENT);
+        updateInt(sha, bytes.length);
+        sha.update(bytes);
+    }
+
+    private static void update(MessageDigest sha, Double value) {
+        if (value == null) {
+            sha.update(NULL);
+            return;
+        }
+        sha.update(PRESENT);
+        long bits = Double.doubleToLongBits(value);
+        updateInt(sha, (int) (bits >>> 32));
+        updateInt(sha, (int) bits);
+    }
+
+    private static void updateInt(MessageDigest sha, int value) {
+        sha.update((byte) (value >>> 24));
+        sha.update((byte) (value >>> 16));
+        sha.update((byte) (value >>> 8));
+        sha.update((byte) value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof CacheKey && Arrays.equals(digest, ((CacheKey) o).digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
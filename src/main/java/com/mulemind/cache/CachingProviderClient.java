@@ -0,0 +1,138 @@
+package com.mulemind.cache;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves repeated identical requests from a response store.
+ *
+ * Responses are stored serialized, so each hit returns an independent copy
+ * marked as cached. Requests sampled with a non-zero temperature are only
+ * cached when explicitly allowed, since their responses are not deterministic.
+ * Streaming requests are never cached.
+ */
+public class CachingProviderClient extends DelegatingProviderClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingProviderClient.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ResponseStore store;
+    private final boolean cacheNonZeroTemperature;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingProviderClient(LlmProviderClient delegate, ResponseStore store, boolean cacheNonZeroTemperature) {
+        super(delegate);
+        this.store = store;
+        this.cacheNonZeroTemperature = cacheNonZeroTemperature;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        CacheKey key = keyFor(request);
+        if (key == null) {
+            return delegate.complete(request);
+        }
+        CompletionResponse cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletionResponse response = delegate.complete(request);
+        save(key, response);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        CacheKey key = keyFor(request);
+        if (key == null) {
+            return delegate.completeAsync(request);
+        }
+        CompletionResponse cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return delegate.completeAsync(request).thenApply(response -> {
+            save(key, response);
+            return response;
+        });
+    }
+
+    /**
+     * Get the key of a cacheable request, or null if the request must not be cached
+     */
+    private CacheKey keyFor(CompletionRequest request) {
+        if (Boolean.TRUE.equals(request.getStream())) {
+            return null;
+        }
+        LlmConfiguration configuration = getConfiguration();
+        double temperature = request.getTemperature() != null ? request.getTemperature() : configuration.getTemperature();
+        if (temperature != 0.0 && !cacheNonZeroTemperature) {
+            return null;
+        }
+        return CacheKey.of(configuration, request);
+    }
+
+    private CompletionResponse lookup(CacheKey key) {
+        byte[] value = store.get(key);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        try {
+            CompletionResponse response = OBJECT_MAPPER.readValue(value, CompletionResponse.class);
+            response.setCached(true);
+            hits.increment();
+            LOGGER.debug("Response cache hit for {}", key);
+            return response;
+        } catch (IOException e) {
+            LOGGER.warn("Discarding unreadable cached response for {}", key, e);
+            misses.increment();
+            return null;
+        }
+    }
+
+    private void save(CacheKey key, CompletionResponse response) {
+        try {
+            store.put(key, OBJECT_MAPPER.writeValueAsBytes(response));
+        } catch (IOException e) {
+            LOGGER.warn("Failed to cache response for {}", key, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (store instanceof Closeable) {
+            try {
+                ((Closeable) store).close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close response store", e);
+            }
+        }
+        super.close();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public ResponseStore getStore() {
+        return store;
+    }
+}
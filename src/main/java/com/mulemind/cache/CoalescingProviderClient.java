@@ -0,0 +1,136 @@
+package com.mulemind.cache;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces identical concurrent requests into a single upstream call.
+ *
+ * The first caller for a request key registers its pending result in a
+ * concurrent map and makes the call; callers with the same key that arrive
+ * while it is in flight wait for that result instead of calling the provider
+ * themselves. All of them receive the same response instance, or the same
+ * error. The entry is removed as soon as the call completes, so the map only
+ * ever holds calls in flight. Each caller gets its own view of the result, so
+ * cancelling one caller does not cancel the shared call.
+ *
+ * Requests sampled with a non-zero temperature are only coalesced when
+ * explicitly allowed, and streaming requests never are.
+ */
+public class CoalescingProviderClient extends DelegatingProviderClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingProviderClient.class);
+
+    private final ConcurrentMap<CacheKey, CompletableFuture<CompletionResponse>> inFlight = new ConcurrentHashMap<>();
+    private final boolean coalesceNonZeroTemperature;
+    private final LongAdder coalesced = new LongAdder();
+
+    public CoalescingProviderClient(LlmProviderClient delegate, boolean coalesceNonZeroTemperature) {
+        super(delegate);
+        this.coalesceNonZeroTemperature = coalesceNonZeroTemperature;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        CacheKey key = keyFor(request);
+        if (key == null) {
+            return delegate.complete(request);
+        }
+        CompletableFuture<CompletionResponse> call = new CompletableFuture<>();
+        CompletableFuture<CompletionResponse> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return join(key, existing);
+        }
+        CompletionResponse response;
+        try {
+            response = delegate.complete(request);
+        } catch (LlmProviderException | RuntimeException | Error e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        // Removed before completing so that no new caller joins a finished call
+        inFlight.remove(key, call);
+        call.complete(response);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        CacheKey key = keyFor(request);
+        if (key == null) {
+            return delegate.completeAsync(request);
+        }
+        CompletableFuture<CompletionResponse> call = new CompletableFuture<>();
+        CompletableFuture<CompletionResponse> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            LOGGER.debug("Joining in-flight request for {}", key);
+            return existing.copy();
+        }
+        CompletableFuture<CompletionResponse> upstream;
+        try {
+            upstream = delegate.completeAsync(request);
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((response, error) -> {
+            // Removed before completing so that no new caller joins a finished call
+            inFlight.remove(key, call);
+            if (error == null) {
+                call.complete(response);
+            } else {
+                call.completeExceptionally(Futures.unwrap(error));
+            }
+        });
+        return call.copy();
+    }
+
+    private CompletionResponse join(CacheKey key, CompletableFuture<CompletionResponse> existing)
+            throws LlmProviderException {
+        coalesced.increment();
+        LOGGER.debug("Joining in-flight request for {}", key);
+        return Futures.await(existing.copy(), getConfiguration().getProvider().getDisplayName());
+    }
+
+    /**
+     * Get the key of a request that may be coalesced, or null if it must be sent on its own
+     */
+    private CacheKey keyFor(CompletionRequest request) {
+        if (Boolean.TRUE.equals(request.getStream())) {
+            return null;
+        }
+        LlmConfiguration configuration = getConfiguration();
+        double temperature = request.getTemperature() != null ? request.getTemperature() : configuration.getTemperature();
+        if (temperature != 0.0 && !coalesceNonZeroTemperature) {
+            return null;
+        }
+        return CacheKey.of(configuration, request);
+    }
+
+    /**
+     * Get the number of calls currently in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Get the number of requests that were served by joining another caller's call
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+}
@@ -0,0 +1,287 @@
+package com.mulemind.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent response store backed by a single append-only, memory-mapped
+ * segment file.
+ *
+ * Records are appended to the segment and located through an in-memory index
+ * that is rebuilt by scanning the segment when the store is opened, so cached
+ * responses survive restarts. When the segment is full, live records are
+ * compacted towards the start of the file in place; if they still do not fit,
+ * the oldest records are dropped. A record that fails its checksum ends the
+ * scan, so a torn write only loses the records after it.
+ *
+ * Record layout: magic (4) | crc32 (4) | expires-at millis (8) | value length (4) | key (32) | value
+ */
+public class DiskResponseStore implements ResponseStore, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskResponseStore.class);
+
+    static final String SEGMENT_FILE = "responses.seg";
+    private static final String LOCK_FILE = "responses.lock";
+
+    private static final int MAGIC = 0x4D4D5243;
+    private static final int KEY_LENGTH = 32;
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 4 + KEY_LENGTH;
+    private static final int END_MARKER = 0;
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final FileChannel lockChannel;
+    private final MappedByteBuffer segment;
+    private final int capacity;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final Map<CacheKey, IndexEntry> index = new HashMap<>();
+    private int writePosition;
+    private long liveBytes;
+    private boolean closed;
+
+    public DiskResponseStore(Path directory, long maxBytes, long ttlSeconds) throws IOException {
+        this(directory, maxBytes, ttlSeconds, System::currentTimeMillis);
+    }
+
+    DiskResponseStore(Path directory, long maxBytes, long ttlSeconds, LongSupplier clock) throws IOException {
+        if (maxBytes <= HEADER_LENGTH || maxBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Disk cache size must be between " + HEADER_LENGTH + " bytes and 2 GB");
+        }
+        this.capacity = (int) maxBytes;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.clock = clock;
+
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Already held by another store in this JVM
+            acquired = null;
+        }
+        this.lock = acquired;
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Disk cache directory " + directory + " is in use by another store");
+        }
+
+        this.channel = FileChannel.open(directory.resolve(SEGMENT_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        recover();
+        LOGGER.info("Opened disk response cache at {} with {} entries ({} bytes)", directory, index.size(), liveBytes);
+    }
+
+    @Override
+    public synchronized byte[] get(CacheKey key) {
+        if (closed) {
+            return null;
+        }
+        IndexEntry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            drop(key, entry);
+            return null;
+        }
+        byte[] value = new byte[entry.valueLength];
+        segment.get(entry.offset + HEADER_LENGTH, value);
+        return value;
+    }
+
+    @Override
+    public synchronized void put(CacheKey key, byte[] value) {
+        int recordLength = HEADER_LENGTH + value.length;
+        if (closed || recordLength > capacity / 2) {
+            return;
+        }
+        if (writePosition + recordLength > capacity) {
+            compact(recordLength);
+        }
+
+        int offset = writePosition;
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        byte[] keyBytes = key.toBytes();
+
+        segment.putLong(offset + 8, expiresAt);
+        segment.putInt(offset + 16, value.length);
+        segment.put(offset + 20, keyBytes);
+        segment.put(offset + HEADER_LENGTH, value);
+        segment.putInt(offset + 4, checksum(offset, recordLength));
+        // The magic is written last so a torn record is never recognised
+        segment.putInt(offset, MAGIC);
+
+        writePosition = offset + recordLength;
+        markEnd();
+
+        IndexEntry previous = index.put(key, new IndexEntry(offset, value.length, expiresAt));
+        if (previous != null) {
+            liveBytes -= previous.recordLength();
+        }
+        liveBytes += recordLength;
+    }
+
+    /**
+     * Rebuild the index by scanning the segment from the start
+     */
+    private void recover() {
+        long now = clock.getAsLong();
+        int position = 0;
+        byte[] keyBytes = new byte[KEY_LENGTH];
+
+        while (position + HEADER_LENGTH <= capacity && segment.getInt(position) == MAGIC) {
+            int valueLength = segment.getInt(position + 16);
+            int recordLength = HEADER_LENGTH + valueLength;
+            if (valueLength < 0 || position + recordLength > capacity
+                    || segment.getInt(position + 4) != checksum(position, recordLength)) {
+                LOGGER.warn("Disk response cache truncated at offset {} (corrupt record)", position);
+                break;
+            }
+
+            long expiresAt = segment.getLong(position + 8);
+            segment.get(position + 20, keyBytes);
+            CacheKey key = CacheKey.fromBytes(keyBytes);
+
+            IndexEntry previous = index.remove(key);
+            if (previous != null) {
+                liveBytes -= previous.recordLength();
+            }
+            if (expiresAt > now) {
+                index.put(key, new IndexEntry(position, valueLength, expiresAt));
+                liveBytes += recordLength;
+            }
+            position += recordLength;
+        }
+
+        writePosition = position;
+        markEnd();
+    }
+
+    /**
+     * Slide live records to the start of the segment, dropping the oldest ones
+     * if needed to make room for a record of the given length
+     */
+    private void compact(int requiredLength) {
+        long now = clock.getAsLong();
+        List<Map.Entry<CacheKey, IndexEntry>> live = new ArrayList<>(index.entrySet());
+        live.removeIf(entry -> entry.getValue().expiresAt <= now);
+        live.sort(Comparator.comparingInt(entry -> entry.getValue().offset));
+
+        // Drop the oldest records until the survivors and the new record fit
+        long keptBytes = 0;
+        for (Map.Entry<CacheKey, IndexEntry> entry : live) {
+            keptBytes += entry.getValue().recordLength();
+        }
+        Iterator<Map.Entry<CacheKey, IndexEntry>> oldest = live.iterator();
+        while (keptBytes + requiredLength > capacity && oldest.hasNext()) {
+            keptBytes -= oldest.next().getValue().recordLength();
+            oldest.remove();
+        }
+
+        index.clear();
+        liveBytes = 0;
+        int position = 0;
+        byte[] buffer = new byte[0];
+        for (Map.Entry<CacheKey, IndexEntry> entry : live) {
+            IndexEntry record = entry.getValue();
+            int recordLength = record.recordLength();
+            if (record.offset != position) {
+                if (buffer.length < recordLength) {
+                    buffer = new byte[recordLength];
+                }
+                segment.get(record.offset, buffer, 0, recordLength);
+                segment.put(position, buffer, 0, recordLength);
+            }
+            index.put(entry.getKey(), new IndexEntry(position, record.valueLength, record.expiresAt));
+            liveBytes += recordLength;
+            position += recordLength;
+        }
+
+        LOGGER.debug("Compacted disk response cache from {} to {} bytes", writePosition, position);
+        writePosition = position;
+        markEnd();
+        segment.force();
+    }
+
+    private void markEnd() {
+        if (writePosition + 4 <= capacity) {
+            segment.putInt(writePosition, END_MARKER);
+        }
+    }
+
+    private void drop(CacheKey key, IndexEntry entry) {
+        index.remove(key);
+        liveBytes -= entry.recordLength();
+    }
+
+    private int checksum(int offset, int recordLength) {
+        CRC32 crc = new CRC32();
+        crc.update(segment.slice(offset + 8, recordLength - 8));
+        return (int) crc.getValue();
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        index.clear();
+        try {
+            segment.force();
+            channel.close();
+        } finally {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    private static final class IndexEntry {
+        private final int offset;
+        private final int valueLength;
+        private final long expiresAt;
+
+        private IndexEntry(int offset, int valueLength, long expiresAt) {
+            this.offset = offset;
+            this.valueLength = valueLength;
+            this.expiresAt = expiresAt;
+        }
+
+        private int recordLength() {
+            return HEADER_LENGTH + valueLength;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.mulemind.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Approximate nearest-neighbour index over float vectors using a hierarchical
+ * navigable small world graph.
+ *
+ * Vectors are normalized on insert, so similarity is the cosine of the angle
+ * between vectors. Nodes are addressed by int ids that are reused after
+ * removal; the vectors and per-level neighbour lists are plain arrays. When a
+ * node is removed its neighbours are reconnected among themselves, so the
+ * graph stays navigable under continuous eviction. Not thread-safe.
+ */
+final class HnswIndex {
+
+    private static final int MAX_LEVEL = 16;
+
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private float[][] vectors = new float[16][];
+    // links[node][level] holds the neighbour count followed by the neighbour ids
+    private int[][][] links = new int[16][][];
+    private int[] visited = new int[16];
+    private int visitEpoch;
+    private int[] free = new int[16];
+    private int freeCount;
+    private int next;
+    private int size;
+    private int dimensions = -1;
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    /**
+     * @param m neighbours kept per node on the upper levels, twice as many on the bottom level
+     * @param efConstruction candidates considered when connecting a new node
+     * @param efSearch candidates considered by a query
+     */
+    HnswIndex(int m, int efConstruction, int efSearch, Random random) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2");
+        }
+        this.m = m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(efSearch, 1);
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = random;
+    }
+
+    /**
+     * Add a vector
+     *
+     * @return the id of the new node
+     */
+    int add(float[] vector) {
+        if (dimensions == -1) {
+            dimensions = vector.length;
+        } else if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions, got " + vector.length);
+        }
+        int node = allocate();
+        float[] normalized = normalize(vector);
+        int level = randomLevel();
+        vectors[node] = normalized;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[maxNeighbours(l) + 1];
+        }
+        size++;
+
+        if (entryPoint == -1) {
+            entryPoint = node;
+            topLevel = level;
+            return node;
+        }
+        int current = entryPoint;
+        for (int l = topLevel; l > level; l--) {
+            current = greedy(normalized, current, l);
+        }
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            List<Neighbour> candidates = searchLayer(normalized, current, efConstruction, l);
+            List<Neighbour> selected = select(candidates, m);
+            for (Neighbour neighbour : selected) {
+                // A stale link to a reused id can lead the search back to the new node
+                if (neighbour.id == node) {
+                    continue;
+                }
+                append(node, l, neighbour.id);
+                connect(neighbour.id, l, node);
+            }
+            current = candidates.get(0).id;
+        }
+        if (level > topLevel) {
+            entryPoint = node;
+            topLevel = level;
+        }
+        return node;
+    }
+
+    /**
+     * Remove a node and reconnect its neighbours
+     */
+    void remove(int node) {
+        if (node < 0 || node >= next || vectors[node] == null) {
+            return;
+        }
+        int[][] removed = links[node];
+        vectors[node] = null;
+        links[node] = null;
+        size--;
+        release(node);
+
+        for (int l = 0; l < removed.length; l++) {
+            int[] neighbours = removed[l];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (vectors[neighbour] != null && l < links[neighbour].length) {
+                    repair(neighbour, l, node, neighbours);
+                }
+            }
+        }
+        if (node == entryPoint) {
+            electEntryPoint();
+        }
+    }
+
+    /**
+     * Find the stored vector most similar to a query
+     *
+     * @return the nearest node, or null if the index is empty
+     */
+    Neighbour nearest(float[] query) {
+        if (entryPoint == -1 || query.length != dimensions) {
+            return null;
+        }
+        float[] normalized = normalize(query);
+        int current = entryPoint;
+        for (int l = topLevel; l > 0; l--) {
+            current = greedy(normalized, current, l);
+        }
+        return searchLayer(normalized, current, efSearch, 0).get(0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Walk one level towards the query, moving to the most similar neighbour until none is closer
+     */
+    private int greedy(float[] query, int start, int level) {
+        int current = start;
+        float best = similarity(query, vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int candidate = neighbours[i];
+                if (!isLinked(candidate, level)) {
+                    continue;
+                }
+                float s = similarity(query, vectors[candidate]);
+                if (s > best) {
+                    best = s;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one level
+     *
+     * @return up to ef nodes, most similar first
+     */
+    private List<Neighbour> searchLayer(float[] query, int start, int ef, int level) {
+        int epoch = nextEpoch();
+        PriorityQueue<Neighbour> candidates = new PriorityQueue<>(Neighbour.MOST_SIMILAR);
+        PriorityQueue<Neighbour> results = new PriorityQueue<>(Neighbour.LEAST_SIMILAR);
+        Neighbour first = new Neighbour(start, similarity(query, vectors[start]));
+        visited[start] = epoch;
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Neighbour closest = candidates.poll();
+            if (results.size() >= ef && closest.similarity < results.peek().similarity) {
+                break;
+            }
+            int[] neighbours = links[closest.id][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int candidate = neighbours[i];
+                if (visited[candidate] == epoch || !isLinked(candidate, level)) {
+                    continue;
+                }
+                visited[candidate] = epoch;
+                float s = similarity(query, vectors[candidate]);
+                if (results.size() < ef || s > results.peek().similarity) {
+                    Neighbour neighbour = new Neighbour(candidate, s);
+                    candidates.add(neighbour);
+                    results.add(neighbour);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Neighbour> sorted = new ArrayList<>(results);
+        sorted.sort(Neighbour.MOST_SIMILAR);
+        return sorted;
+    }
+
+    /**
+     * Pick up to max neighbours from candidates sorted most similar first,
+     * skipping candidates closer to an already picked neighbour than to the
+     * query so that the links spread out in different directions
+     */
+    private List<Neighbour> select(List<Neighbour> candidates, int max) {
+        List<Neighbour> selected = new ArrayList<>(max);
+        List<Neighbour> skipped = new ArrayList<>();
+        for (Neighbour candidate : candidates) {
+            if (selected.size() == max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Neighbour picked : selected) {
+                if (similarity(vectors[candidate.id], vectors[picked.id]) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : skipped).add(candidate);
+        }
+        // Fill up with the nearest skipped candidates to keep the graph connected
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * Link a node to a new neighbour, pruning its links if they overflow
+     */
+    private void connect(int node, int level, int neighbour) {
+        int[] current = links[node][level];
+        for (int i = 1; i <= current[0]; i++) {
+            if (current[i] == neighbour) {
+                return;
+            }
+        }
+        if (current[0] < current.length - 1) {
+            append(node, level, neighbour);
+            return;
+        }
+        List<Neighbour> candidates = new ArrayList<>(current[0] + 1);
+        candidates.add(new Neighbour(neighbour, similarity(vectors[node], vectors[neighbour])));
+        for (int i = 1; i <= current[0]; i++) {
+            candidates.add(new Neighbour(current[i], similarity(vectors[node], vectors[current[i]])));
+        }
+        relink(node, level, candidates);
+    }
+
+    /**
+     * Drop a removed node from a neighbour's links and reconnect the neighbour
+     * through the removed node's other neighbours
+     */
+    private void repair(int node, int level, int removed, int[] removedNeighbours) {
+        int[] current = links[node][level];
+        List<Neighbour> candidates = new ArrayList<>(current[0] + removedNeighbours[0]);
+        int epoch = nextEpoch();
+        visited[node] = epoch;
+        addCandidates(node, level, current, removed, epoch, candidates);
+        addCandidates(node, level, removedNeighbours, removed, epoch, candidates);
+        relink(node, level, candidates);
+    }
+
+    private void addCandidates(int node, int level, int[] neighbours, int removed, int epoch, List<Neighbour> candidates) {
+        for (int i = 1; i <= neighbours[0]; i++) {
+            int candidate = neighbours[i];
+            if (candidate == removed || visited[candidate] == epoch || !isLinked(candidate, level)) {
+                continue;
+            }
+            visited[candidate] = epoch;
+            candidates.add(new Neighbour(candidate, similarity(vectors[node], vectors[candidate])));
+        }
+    }
+
+    private void relink(int node, int level, List<Neighbour> candidates) {
+        candidates.sort(Neighbour.MOST_SIMILAR);
+        int[] current = links[node][level];
+        current[0] = 0;
+        for (Neighbour neighbour : select(candidates, current.length - 1)) {
+            current[++current[0]] = neighbour.id;
+        }
+    }
+
+    private void append(int node, int level, int neighbour) {
+        int[] current = links[node][level];
+        current[++current[0]] = neighbour;
+    }
+
+    private void electEntryPoint() {
+        entryPoint = -1;
+        topLevel = -1;
+        for (int node = 0; node < next; node++) {
+            if (vectors[node] != null && links[node].length - 1 > topLevel) {
+                entryPoint = node;
+                topLevel = links[node].length - 1;
+            }
+        }
+    }
+
+    /**
+     * Whether a link points to a live node that exists on the level; links to
+     * removed nodes that a neighbour did not link back to are left behind, and
+     * their ids may have been reused by a node on fewer levels
+     */
+    private boolean isLinked(int node, int level) {
+        return vectors[node] != null && level < links[node].length;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        if (next == vectors.length) {
+            int capacity = vectors.length * 2;
+            vectors = Arrays.copyOf(vectors, capacity);
+            links = Arrays.copyOf(links, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+        }
+        return next++;
+    }
+
+    private void release(int node) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = node;
+    }
+
+    private int nextEpoch() {
+        if (++visitEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitEpoch = 1;
+        }
+        return visitEpoch;
+    }
+
+    private int randomLevel() {
+        double level = -Math.log(1 - random.nextDouble()) * levelMultiplier;
+        return (int) Math.min(level, MAX_LEVEL);
+    }
+
+    private int maxNeighbours(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private static float similarity(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    /**
+     * A node and its similarity to a query
+     */
+    static final class Neighbour {
+
+        static final Comparator<Neighbour> MOST_SIMILAR = (a, b) -> Float.compare(b.similarity, a.similarity);
+        static final Comparator<Neighbour> LEAST_SIMILAR = (a, b) -> Float.compare(a.similarity, b.similarity);
+
+        final int id;
+        final float similarity;
+
+        Neighbour(int id, float similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+    }
+}
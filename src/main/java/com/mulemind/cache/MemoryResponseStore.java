@@ -0,0 +1,117 @@
+package com.mulemind.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory LRU response store bounded by entry count and total bytes.
+ *
+ * Entries expire after a fixed time-to-live. Expired entries are dropped when
+ * they are looked up or reach the head of the LRU order.
+ */
+public class MemoryResponseStore implements ResponseStore {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder evictions = new LongAdder();
+    private long totalBytes;
+
+    public MemoryResponseStore(int maxEntries, long maxBytes, long ttlSeconds) {
+        this(maxEntries, maxBytes, ttlSeconds, System::nanoTime);
+    }
+
+    MemoryResponseStore(int maxEntries, long maxBytes, long ttlSeconds, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.clock = clock;
+    }
+
+    @Override
+    public byte[] get(CacheKey key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(clock.getAsLong())) {
+                remove(key, entry);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    @Override
+    public void put(CacheKey key, byte[] value) {
+        if (value.length > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(value, clock.getAsLong() + ttlNanos));
+            if (previous != null) {
+                totalBytes -= previous.value.length;
+            }
+            totalBytes += value.length;
+            evict();
+        }
+    }
+
+    private void evict() {
+        long now = clock.getAsLong();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            boolean overCapacity = entries.size() > maxEntries || totalBytes > maxBytes;
+            if (!overCapacity && !eldest.isExpired(now)) {
+                break;
+            }
+            iterator.remove();
+            totalBytes -= eldest.value.length;
+            evictions.increment();
+        }
+    }
+
+    private void remove(CacheKey key, Entry entry) {
+        entries.remove(key);
+        totalBytes -= entry.value.length;
+        evictions.increment();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getTotalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        private Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.mulemind.cache;
+
+/**
+ * Storage tier for serialized completion responses
+ */
+public interface ResponseStore {
+
+    /**
+     * Look up a response
+     *
+     * @param key the request key
+     * @return the serialized response, or null if absent or expired
+     */
+    byte[] get(CacheKey key);
+
+    /**
+     * Store a response, evicting older entries if the store is full
+     *
+     * @param key the request key
+     * @param value the serialized response
+     */
+    void put(CacheKey key, byte[] value);
+}
@@ -0,0 +1,302 @@
+package com.mulemind.cache;
+
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.model.Message;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Serves questions similar to ones answered before from stored responses.
+ *
+ * The final user message of a request is embedded and looked up in an
+ * approximate nearest-neighbour index; a stored response is returned when the
+ * cosine similarity reaches the threshold. Every other part of the request,
+ * system prompt and earlier turns included, must match exactly: each distinct
+ * context has its own index, so unrelated prompts never share answers.
+ * Entries are bounded in number, evicted least recently used first, and
+ * expire after a fixed time-to-live. If the question cannot be embedded the
+ * request is sent uncached. Streaming requests, and requests the connector
+ * issues itself such as history summaries, are never cached.
+ */
+public class SemanticCachingProviderClient extends DelegatingProviderClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SemanticCachingProviderClient.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final int LINKS = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 50;
+
+    private final String embeddingModel;
+    private final double threshold;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Random random = new Random();
+
+    private final Map<CacheKey, Namespace> namespaces = new HashMap<>();
+    private final LinkedHashMap<Entry, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicBoolean embeddingFailureLogged = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SemanticCachingProviderClient(LlmProviderClient delegate, String embeddingModel, double threshold,
+                                         int maxEntries, long ttlSeconds) {
+        this(delegate, embeddingModel, threshold, maxEntries, ttlSeconds, System::nanoTime);
+    }
+
+    SemanticCachingProviderClient(LlmProviderClient delegate, String embeddingModel, double threshold,
+                                  int maxEntries, long ttlSeconds, LongSupplier clock) {
+        super(delegate);
+        this.embeddingModel = embeddingModel;
+        this.threshold = threshold;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.clock = clock;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        String question = questionOf(request);
+        if (question == null) {
+            return delegate.complete(request);
+        }
+        float[] vector;
+        try {
+            vector = Futures.await(embed(question), getConfiguration().getProvider().getDisplayName());
+        } catch (LlmProviderException e) {
+            logEmbeddingFailure(e);
+            return delegate.complete(request);
+        }
+        CacheKey namespace = CacheKey.ofContext(getConfiguration(), request);
+        CompletionResponse cached = lookup(namespace, vector);
+        if (cached != null) {
+            return cached;
+        }
+        CompletionResponse response = delegate.complete(request);
+        save(namespace, vector, response);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        String question = questionOf(request);
+        if (question == null) {
+            return delegate.completeAsync(request);
+        }
+        CacheKey namespace = CacheKey.ofContext(getConfiguration(), request);
+        return embed(question).handle((vector, error) -> {
+            if (error != null) {
+                logEmbeddingFailure(Futures.unwrap(error));
+                return delegate.completeAsync(request);
+            }
+            CompletionResponse cached = lookup(namespace, vector);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            return delegate.completeAsync(request).thenApply(response -> {
+                save(namespace, vector, response);
+                return response;
+            });
+        }).thenCompose(future -> future);
+    }
+
+    /**
+     * Get the question of a cacheable request, or null if the request must not be cached
+     */
+    private static String questionOf(CompletionRequest request) {
+        // Summaries of conversation history must never be answered with another conversation's summary
+        if (Boolean.TRUE.equals(request.getStream()) || request.isInternal()) {
+            return null;
+        }
+        List<Message> messages = request.getMessages();
+        if (messages == null || messages.isEmpty()) {
+            return null;
+        }
+        Message last = messages.get(messages.size() - 1);
+        if (!"user".equals(last.getRole()) || last.getContent() == null || last.getContent().isBlank()) {
+            return null;
+        }
+        return last.getContent();
+    }
+
+    private CompletableFuture<float[]> embed(String question) {
+        return delegate.embedAsync(new EmbeddingRequest(embeddingModel, List.of(question)))
+            .thenApply(EmbeddingResponse::getEmbeddings)
+            .thenApply(embeddings -> embeddings.get(0));
+    }
+
+    private void logEmbeddingFailure(Throwable error) {
+        if (embeddingFailureLogged.compareAndSet(false, true)) {
+            LOGGER.warn("Semantic cache cannot embed questions with {}, requests are sent uncached", embeddingModel, error);
+        } else {
+            LOGGER.debug("Semantic cache failed to embed a question", error);
+        }
+    }
+
+    private CompletionResponse lookup(CacheKey namespaceKey, float[] vector) {
+        byte[] value;
+        synchronized (entries) {
+            Entry entry = nearest(namespaceKey, vector);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            entries.get(entry);
+            value = entry.value;
+        }
+        try {
+            CompletionResponse response = OBJECT_MAPPER.readValue(value, CompletionResponse.class);
+            response.setCached(true);
+            hits.increment();
+            LOGGER.debug("Semantic cache hit in {}", namespaceKey);
+            return response;
+        } catch (IOException e) {
+            LOGGER.warn("Discarding unreadable cached response in {}", namespaceKey, e);
+            misses.increment();
+            return null;
+        }
+    }
+
+    private void save(CacheKey namespaceKey, float[] vector, CompletionResponse response) {
+        byte[] value;
+        try {
+            value = OBJECT_MAPPER.writeValueAsBytes(response);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to cache response in {}", namespaceKey, e);
+            return;
+        }
+        synchronized (entries) {
+            // A concurrent call may have stored an answer to the same question meanwhile
+            if (nearest(namespaceKey, vector) != null) {
+                return;
+            }
+            Namespace namespace = namespaces.computeIfAbsent(namespaceKey,
+                key -> new Namespace(key, new HnswIndex(LINKS, EF_CONSTRUCTION, EF_SEARCH, random)));
+            int node;
+            try {
+                node = namespace.index.add(vector);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Not caching response in {}: {}", namespaceKey, e.getMessage());
+                return;
+            }
+            Entry entry = new Entry(namespace, node, value, clock.getAsLong() + ttlNanos);
+            namespace.entries.put(node, entry);
+            entries.put(entry, entry);
+            evict();
+        }
+    }
+
+    /**
+     * Find the live entry most similar to a vector, if it reaches the threshold
+     */
+    private Entry nearest(CacheKey namespaceKey, float[] vector) {
+        Namespace namespace = namespaces.get(namespaceKey);
+        if (namespace == null) {
+            return null;
+        }
+        HnswIndex.Neighbour neighbour = namespace.index.nearest(vector);
+        if (neighbour == null || neighbour.similarity < threshold) {
+            return null;
+        }
+        Entry entry = namespace.entries.get(neighbour.id);
+        if (entry.isExpired(clock.getAsLong())) {
+            remove(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private void evict() {
+        long now = clock.getAsLong();
+        Iterator<Entry> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            if (entries.size() <= maxEntries && !eldest.isExpired(now)) {
+                break;
+            }
+            iterator.remove();
+            drop(eldest);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry);
+        drop(entry);
+    }
+
+    private void drop(Entry entry) {
+        Namespace namespace = entry.namespace;
+        namespace.index.remove(entry.node);
+        namespace.entries.remove(entry.node);
+        if (namespace.entries.isEmpty()) {
+            namespaces.remove(namespace.key);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Namespace {
+
+        private final CacheKey key;
+        private final HnswIndex index;
+        private final Map<Integer, Entry> entries = new HashMap<>();
+
+        private Namespace(CacheKey key, HnswIndex index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Namespace namespace;
+        private final int node;
+        private final byte[] value;
+        private final long expiresAt;
+
+        private Entry(Namespace namespace, int node, byte[] value, long expiresAt) {
+            this.namespace = namespace;
+            this.node = node;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mulemind.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Two-level response store: a fast in-memory tier in front of a persistent tier.
+ *
+ * Hits in the persistent tier are promoted to the memory tier; writes go to both.
+ */
+public class TieredResponseStore implements ResponseStore, Closeable {
+
+    private final ResponseStore memory;
+    private final ResponseStore persistent;
+
+    public TieredResponseStore(ResponseStore memory, ResponseStore persistent) {
+        this.memory = memory;
+        this.persistent = persistent;
+    }
+
+    @Override
+    public byte[] get(CacheKey key) {
+        byte[] value = memory.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = persistent.get(key);
+        if (value != null) {
+            memory.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(CacheKey key, byte[] value) {
+        memory.put(key, value);
+        persistent.put(key, value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (persistent instanceof Closeable) {
+            ((Closeable) persistent).close();
+        }
+    }
+}
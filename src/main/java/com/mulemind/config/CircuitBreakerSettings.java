@@ -0,0 +1,92 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Circuit breaker settings
+ */
+public class CircuitBreakerSettings {
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable Circuit Breaker")
+    @Summary("Fail fast while the provider endpoint is failing or slow instead of waiting for every timeout; configurations with the same endpoint and breaker settings share one circuit")
+    private boolean circuitBreakerEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "20")
+    @DisplayName("Window Size")
+    @Summary("Number of most recent calls the failure and slow-call rates are computed over")
+    private int circuitBreakerWindowSize;
+
+    @Parameter
+    @Optional(defaultValue = "10")
+    @DisplayName("Minimum Calls")
+    @Summary("Number of calls recorded before the circuit can open")
+    private int circuitBreakerMinimumCalls;
+
+    @Parameter
+    @Optional(defaultValue = "50")
+    @DisplayName("Failure Rate Threshold (%)")
+    @Summary("Percentage of failed calls at which the circuit opens")
+    private int circuitBreakerFailureRateThreshold;
+
+    @Parameter
+    @Optional(defaultValue = "80")
+    @DisplayName("Slow Call Rate Threshold (%)")
+    @Summary("Percentage of slow calls at which the circuit opens")
+    private int circuitBreakerSlowCallRateThreshold;
+
+    @Parameter
+    @Optional(defaultValue = "30")
+    @DisplayName("Slow Call Duration (seconds)")
+    @Summary("Duration from which a call counts as slow")
+    private int circuitBreakerSlowCallSeconds;
+
+    @Parameter
+    @Optional(defaultValue = "30")
+    @DisplayName("Open Duration (seconds)")
+    @Summary("Time the circuit stays open before trial calls are let through")
+    private int circuitBreakerOpenSeconds;
+
+    @Parameter
+    @Optional(defaultValue = "3")
+    @DisplayName("Half-Open Calls")
+    @Summary("Number of trial calls that decide whether the circuit closes again")
+    private int circuitBreakerHalfOpenCalls;
+
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    public int getCircuitBreakerMinimumCalls() {
+        return circuitBreakerMinimumCalls;
+    }
+
+    public int getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+
+    public int getCircuitBreakerSlowCallRateThreshold() {
+        return circuitBreakerSlowCallRateThreshold;
+    }
+
+    public int getCircuitBreakerSlowCallSeconds() {
+        return circuitBreakerSlowCallSeconds;
+    }
+
+    public int getCircuitBreakerOpenSeconds() {
+        return circuitBreakerOpenSeconds;
+    }
+
+    public int getCircuitBreakerHalfOpenCalls() {
+        return circuitBreakerHalfOpenCalls;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mulemind.config;
+
+/**
+ * Content coding of compressed request bodies
+ */
+public enum CompressionCodec {
+    /** Send request bodies uncompressed */
+    NONE,
+    /** gzip, accepted by most gateways and servers */
+    GZIP,
+    /** zstd, faster and smaller than gzip; needs zstd-jni on the classpath and falls back to gzip without it */
+    ZSTD;
+
+    /**
+     * Get the Content-Encoding token of the codec
+     */
+    public String getToken() {
+        return name().toLowerCase();
+    }
+}
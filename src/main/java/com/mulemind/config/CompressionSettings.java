@@ -0,0 +1,42 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Request and response body compression settings
+ */
+public class CompressionSettings {
+
+    @Parameter
+    @Optional(defaultValue = "NONE")
+    @DisplayName("Request Compression")
+    @Summary("Compress large request bodies; only enable when the endpoint accepts compressed bodies, as self-hosted gateways usually do")
+    private CompressionCodec requestCompression;
+
+    @Parameter
+    @Optional(defaultValue = "16384")
+    @DisplayName("Request Compression Threshold (bytes)")
+    @Summary("Request bodies smaller than this are sent uncompressed")
+    private int requestCompressionThresholdBytes;
+
+    @Parameter
+    @Optional(defaultValue = "true")
+    @DisplayName("Accept Compressed Responses")
+    @Summary("Ask for gzip (and zstd when available) responses and decode them while they are read, streams included")
+    private boolean responseCompressionEnabled;
+
+    public CompressionCodec getRequestCompression() {
+        return requestCompression;
+    }
+
+    public int getRequestCompressionThresholdBytes() {
+        return requestCompressionThresholdBytes;
+    }
+
+    public boolean isResponseCompressionEnabled() {
+        return responseCompressionEnabled;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Pre-flight context window check settings
+ */
+public class ContextWindowSettings {
+
+    @Parameter
+    @Optional(defaultValue = "true")
+    @DisplayName("Enable Pre-flight Check")
+    @Summary("Count prompt tokens locally and reject prompts that do not fit in the model's context window before sending them")
+    private boolean preflightCheckEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Context Window (tokens)")
+    @Summary("Context window of the model (0 = the known window of the model; unknown models are not checked)")
+    private int contextWindowTokens;
+
+    @Parameter
+    @Optional(defaultValue = "CLAMP")
+    @DisplayName("When Max Tokens Does Not Fit")
+    @Summary("Lower max tokens to the room left after the prompt, or reject the request")
+    private MaxTokensAction maxTokensAction;
+
+    public boolean isPreflightCheckEnabled() {
+        return preflightCheckEnabled;
+    }
+
+    public int getContextWindowTokens() {
+        return contextWindowTokens;
+    }
+
+    public MaxTokensAction getMaxTokensAction() {
+        return maxTokensAction;
+    }
+}
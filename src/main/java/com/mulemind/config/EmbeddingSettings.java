@@ -0,0 +1,82 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Embedding model, micro-batching and vector cache settings
+ */
+public class EmbeddingSettings {
+
+    @Parameter
+    @Optional(defaultValue = "text-embedding-3-small")
+    @DisplayName("Embedding Model")
+    @Summary("Model used by the Create Embedding operation unless overridden")
+    private String embeddingModel;
+
+    @Parameter
+    @Optional(defaultValue = "64")
+    @DisplayName("Max Batch Size")
+    @Summary("Maximum number of concurrent single-text calls combined into one provider request (1 disables batching)")
+    private int embeddingBatchSize;
+
+    @Parameter
+    @Optional(defaultValue = "5")
+    @DisplayName("Batch Linger (ms)")
+    @Summary("Time a call waits for others to join its batch before the batch is sent")
+    private int embeddingLingerMillis;
+
+    @Parameter
+    @Optional(defaultValue = "true")
+    @DisplayName("Enable Embedding Cache")
+    @Summary("Serve embeddings of texts seen before from an in-memory cache keyed by content hash")
+    private boolean embeddingCacheEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "10000")
+    @DisplayName("Max Cached Embeddings")
+    @Summary("Maximum number of vectors kept in the cache")
+    private int embeddingCacheMaxEntries;
+
+    @Parameter
+    @Optional(defaultValue = "64")
+    @DisplayName("Max Embedding Cache Size (MB)")
+    @Summary("Maximum total size of the cached vectors")
+    private int embeddingCacheMaxSizeMb;
+
+    @Parameter
+    @Optional(defaultValue = "86400")
+    @DisplayName("Embedding Cache TTL (seconds)")
+    @Summary("Time after which a cached vector expires")
+    private int embeddingCacheTtlSeconds;
+
+    public String getEmbeddingModel() {
+        return embeddingModel;
+    }
+
+    public int getEmbeddingBatchSize() {
+        return embeddingBatchSize;
+    }
+
+    public int getEmbeddingLingerMillis() {
+        return embeddingLingerMillis;
+    }
+
+    public boolean isEmbeddingCacheEnabled() {
+        return embeddingCacheEnabled;
+    }
+
+    public int getEmbeddingCacheMaxEntries() {
+        return embeddingCacheMaxEntries;
+    }
+
+    public int getEmbeddingCacheMaxSizeMb() {
+        return embeddingCacheMaxSizeMb;
+    }
+
+    public int getEmbeddingCacheTtlSeconds() {
+        return embeddingCacheTtlSeconds;
+    }
+}
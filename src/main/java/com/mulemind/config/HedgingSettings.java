@@ -0,0 +1,42 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Hedged request settings
+ */
+public class HedgingSettings {
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable Hedged Requests")
+    @Summary("Send a second identical request when the first is slow and use whichever answers first")
+    private boolean hedgingEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Hedge Delay (ms)")
+    @Summary("Wait before sending the second request (0 = the observed p95 latency, or time to first token when streaming)")
+    private int hedgeDelayMillis;
+
+    @Parameter
+    @Optional(defaultValue = "10")
+    @DisplayName("Max Hedge Rate (%)")
+    @Summary("Maximum percentage of requests that are hedged, bounding the extra cost")
+    private int hedgeMaxRatePercent;
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    public int getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    public int getHedgeMaxRatePercent() {
+        return hedgeMaxRatePercent;
+    }
+}
@@ -0,0 +1,13 @@
+package com.mulemind.config;
+
+/**
+ * How conversation history is sent to the provider
+ */
+public enum HistoryMode {
+    /** Send the whole history */
+    FULL,
+    /** Drop the oldest turns that do not fit in the history token budget */
+    WINDOW,
+    /** Replace the oldest turns that do not fit with a running summary of them */
+    SUMMARIZE
+}
@@ -0,0 +1,42 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Conversation history management settings
+ */
+public class HistorySettings {
+
+    @Parameter
+    @Optional(defaultValue = "FULL")
+    @DisplayName("History Mode")
+    @Summary("Send the whole conversation history, only the most recent turns that fit the budget, or those turns plus a summary of the older ones")
+    private HistoryMode historyMode;
+
+    @Parameter
+    @Optional(defaultValue = "8000")
+    @DisplayName("History Token Budget")
+    @Summary("Tokens the system prompt, summary, history and new message may take together")
+    private int historyTokenBudget;
+
+    @Parameter
+    @Optional(defaultValue = "300")
+    @DisplayName("Summary Max Tokens")
+    @Summary("Maximum length of the running summary of older turns")
+    private int historySummaryMaxTokens;
+
+    public HistoryMode getHistoryMode() {
+        return historyMode;
+    }
+
+    public int getHistoryTokenBudget() {
+        return historyTokenBudget;
+    }
+
+    public int getHistorySummaryMaxTokens() {
+        return historySummaryMaxTokens;
+    }
+}
@@ -1,13 +1,19 @@
 package com.mulemind.config;
 
+import org.mule.runtime.api.lifecycle.Disposable;
 import org.mule.runtime.extension.api.annotation.Configuration;
 import org.mule.runtime.extension.api.annotation.Operations;
 import org.mule.runtime.extension.api.annotation.connectivity.ConnectionProviders;
 import org.mule.runtime.extension.api.annotation.param.Parameter;
 import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
+import org.mule.runtime.extension.api.annotation.param.RefName;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 import org.mule.runtime.extension.api.annotation.param.display.Summary;
 import org.mule.runtime.extension.api.annotation.param.display.Example;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import com.mulemind.connection.LlmConnectionProvider;
+import com.mulemind.metrics.ConnectorMetrics;
 import com.mulemind.operations.LlmOperations;
 
 /**
@@ -15,7 +21,11 @@ import com.mulemind.operations.LlmOperations;
  */
 @Configuration(name = "config")
 @Operations(LlmOperations.class)
-public class LlmConfiguration {
+@ConnectionProviders(LlmConnectionProvider.class)
+public class LlmConfiguration implements Disposable {
+
+    @RefName
+    private String configName;
 
     @Parameter
     @DisplayName("Provider")
@@ -65,7 +75,75 @@ public class LlmConfiguration {
     @Summary("Maximum tokens to generate")
     private Integer maxTokens;
 
+    @ParameterGroup(name = "Context Window")
+    @Placement(tab = "Advanced")
+    private ContextWindowSettings contextWindow;
+
+    @ParameterGroup(name = "Conversation History")
+    @Placement(tab = "Advanced")
+    private HistorySettings history;
+
+    @ParameterGroup(name = "Sessions")
+    @Placement(tab = "Advanced")
+    private SessionSettings session;
+
+    @ParameterGroup(name = "Compression")
+    @Placement(tab = "Advanced")
+    private CompressionSettings compression;
+
+    @ParameterGroup(name = "Response Cache")
+    @Placement(tab = "Caching")
+    private ResponseCacheSettings responseCache;
+
+    @ParameterGroup(name = "Semantic Cache")
+    @Placement(tab = "Caching")
+    private SemanticCacheSettings semanticCache;
+
+    @ParameterGroup(name = "Prompt Caching")
+    @Placement(tab = "Caching")
+    private PromptCacheSettings promptCache;
+
+    @ParameterGroup(name = "Embeddings")
+    @Placement(tab = "Embeddings")
+    private EmbeddingSettings embedding;
+
+    @ParameterGroup(name = "Retry")
+    @Placement(tab = "Resilience")
+    private RetrySettings retry;
+
+    @ParameterGroup(name = "Rate Limit")
+    @Placement(tab = "Resilience")
+    private RateLimitSettings rateLimit;
+
+    @ParameterGroup(name = "Circuit Breaker")
+    @Placement(tab = "Resilience")
+    private CircuitBreakerSettings circuitBreaker;
+
+    @ParameterGroup(name = "Hedged Requests")
+    @Placement(tab = "Resilience")
+    private HedgingSettings hedging;
+
+    @ParameterGroup(name = "Failover Routing")
+    @Placement(tab = "Routing")
+    private RoutingSettings routing;
+
+    @ParameterGroup(name = "Metrics")
+    @Placement(tab = "Monitoring")
+    private MetricsSettings metrics;
+
     // Getters
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Unpublish the metrics of this configuration when the application is stopped or undeployed
+     */
+    @Override
+    public void dispose() {
+        ConnectorMetrics.release(configName);
+    }
+
     public LlmProvider getProvider() {
         return provider;
     }
@@ -98,6 +176,62 @@ public class LlmConfiguration {
         return maxTokens;
     }
 
+    public ContextWindowSettings getContextWindow() {
+        return contextWindow;
+    }
+
+    public HistorySettings getHistory() {
+        return history;
+    }
+
+    public SessionSettings getSession() {
+        return session;
+    }
+
+    public CompressionSettings getCompression() {
+        return compression;
+    }
+
+    public ResponseCacheSettings getResponseCache() {
+        return responseCache;
+    }
+
+    public SemanticCacheSettings getSemanticCache() {
+        return semanticCache;
+    }
+
+    public PromptCacheSettings getPromptCache() {
+        return promptCache;
+    }
+
+    public EmbeddingSettings getEmbedding() {
+        return embedding;
+    }
+
+    public RetrySettings getRetry() {
+        return retry;
+    }
+
+    public RateLimitSettings getRateLimit() {
+        return rateLimit;
+    }
+
+    public CircuitBreakerSettings getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public HedgingSettings getHedging() {
+        return hedging;
+    }
+
+    public RoutingSettings getRouting() {
+        return routing;
+    }
+
+    public MetricsSettings getMetrics() {
+        return metrics;
+    }
+
     /**
      * Get the effective model name
      */
@@ -107,4 +241,33 @@ public class LlmConfiguration {
         }
         return provider.getDefaultModel();
     }
+
+    /**
+     * Derive the configuration of a failover target: the target's provider,
+     * credentials, model and endpoint with this configuration's request
+     * defaults, prompt caching, resilience and metrics settings. Response
+     * caching and routing are left to this configuration, and request
+     * compression is off since the target endpoint may not accept it.
+     */
+    public LlmConfiguration forTarget(RoutingTarget target) {
+        LlmConfiguration copy = new LlmConfiguration();
+        copy.configName = configName;
+        copy.provider = target.getProvider();
+        copy.apiKey = target.getApiKey();
+        copy.model = target.getModel();
+        copy.apiBaseUrl = target.getApiBaseUrl() != null && !target.getApiBaseUrl().isEmpty()
+            ? target.getApiBaseUrl()
+            : target.getProvider().getDefaultBaseUrl();
+        copy.timeoutSeconds = timeoutSeconds;
+        copy.streamingEnabled = streamingEnabled;
+        copy.temperature = temperature;
+        copy.maxTokens = maxTokens;
+        copy.promptCache = promptCache;
+        copy.retry = retry;
+        copy.rateLimit = rateLimit;
+        copy.circuitBreaker = circuitBreaker;
+        copy.hedging = hedging;
+        copy.metrics = metrics;
+        return copy;
+    }
 }
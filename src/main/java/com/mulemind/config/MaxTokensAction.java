@@ -0,0 +1,12 @@
+package com.mulemind.config;
+
+/**
+ * What the pre-flight check does when the prompt and the requested max tokens
+ * do not fit in the model's context window
+ */
+public enum MaxTokensAction {
+    /** Lower max tokens to the room left after the prompt */
+    CLAMP,
+    /** Reject the request */
+    REJECT
+}
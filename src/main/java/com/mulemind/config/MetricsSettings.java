@@ -0,0 +1,42 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Metrics settings
+ */
+public class MetricsSettings {
+
+    @Parameter
+    @Optional(defaultValue = "true")
+    @DisplayName("Enable Metrics")
+    @Summary("Record latency, time to first token, throughput, token and error metrics per provider and model")
+    private boolean metricsEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "true")
+    @DisplayName("Publish over JMX")
+    @Summary("Publish the metrics and HTTP connection pool statistics as MBeans in the com.mulemind domain")
+    private boolean metricsJmxEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Publish to Micrometer")
+    @Summary("Publish the metrics to the Micrometer global registry when Micrometer is on the classpath")
+    private boolean metricsMicrometerEnabled;
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public boolean isMetricsJmxEnabled() {
+        return metricsJmxEnabled;
+    }
+
+    public boolean isMetricsMicrometerEnabled() {
+        return metricsMicrometerEnabled;
+    }
+}
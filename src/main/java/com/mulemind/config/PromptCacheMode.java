@@ -0,0 +1,13 @@
+package com.mulemind.config;
+
+/**
+ * When prompt prefixes are marked for provider-side prompt caching
+ */
+public enum PromptCacheMode {
+    /** Mark the system prompt and conversation prefix once they repeat */
+    AUTO,
+    /** Mark the system prompt and conversation prefix on every request */
+    ALWAYS,
+    /** Never mark prefixes */
+    OFF
+}
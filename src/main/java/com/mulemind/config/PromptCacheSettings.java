@@ -0,0 +1,42 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Provider-side prompt caching settings
+ */
+public class PromptCacheSettings {
+
+    @Parameter
+    @Optional(defaultValue = "AUTO")
+    @DisplayName("Prompt Caching")
+    @Summary("Mark the system prompt and conversation prefix as cacheable by the provider once they repeat, always, or never")
+    private PromptCacheMode promptCacheMode;
+
+    @Parameter
+    @Optional(defaultValue = "1024")
+    @DisplayName("Minimum Prefix (tokens)")
+    @Summary("Prefixes shorter than this are not marked; providers do not cache shorter prefixes")
+    private int promptCacheMinTokens;
+
+    @Parameter
+    @Optional
+    @DisplayName("Prompt Cache Key")
+    @Summary("OpenAI prompt_cache_key sent with every request (default: derived from the system prompt)")
+    private String promptCacheKey;
+
+    public PromptCacheMode getPromptCacheMode() {
+        return promptCacheMode;
+    }
+
+    public int getPromptCacheMinTokens() {
+        return promptCacheMinTokens;
+    }
+
+    public String getPromptCacheKey() {
+        return promptCacheKey;
+    }
+}
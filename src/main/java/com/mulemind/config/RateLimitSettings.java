@@ -0,0 +1,52 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Client-side rate limit settings
+ */
+public class RateLimitSettings {
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable Rate Limiter")
+    @Summary("Keep requests within the per-model request and token budgets of the provider account; configurations with the same account, model and limits share one budget")
+    private boolean rateLimitEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Requests Per Minute")
+    @Summary("Request budget per model (0 = learn it from the provider's rate-limit headers)")
+    private int rateLimitRequestsPerMinute;
+
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Tokens Per Minute")
+    @Summary("Token budget per model (0 = learn it from the provider's rate-limit headers)")
+    private int rateLimitTokensPerMinute;
+
+    @Parameter
+    @Optional(defaultValue = "30000")
+    @DisplayName("Max Wait (ms)")
+    @Summary("Longest time a request waits for budget (0 = fail immediately when the budget is exhausted)")
+    private int rateLimitMaxWaitMillis;
+
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+
+    public int getRateLimitRequestsPerMinute() {
+        return rateLimitRequestsPerMinute;
+    }
+
+    public int getRateLimitTokensPerMinute() {
+        return rateLimitTokensPerMinute;
+    }
+
+    public int getRateLimitMaxWaitMillis() {
+        return rateLimitMaxWaitMillis;
+    }
+}
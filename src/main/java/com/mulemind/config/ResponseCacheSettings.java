@@ -0,0 +1,112 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Response cache settings
+ */
+public class ResponseCacheSettings {
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable Response Cache")
+    @Summary("Serve repeated identical requests from an in-memory cache")
+    private boolean cacheEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "1000")
+    @DisplayName("Max Cached Responses")
+    @Summary("Maximum number of responses kept in the cache")
+    private int cacheMaxEntries;
+
+    @Parameter
+    @Optional(defaultValue = "64")
+    @DisplayName("Max Cache Size (MB)")
+    @Summary("Maximum total size of the cached responses")
+    private int cacheMaxSizeMb;
+
+    @Parameter
+    @Optional(defaultValue = "3600")
+    @DisplayName("Cache TTL (seconds)")
+    @Summary("Time after which a cached response expires")
+    private int cacheTtlSeconds;
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Cache Non-Zero Temperature")
+    @Summary("Also cache requests sampled with a temperature above 0, whose responses are not deterministic")
+    private boolean cacheNonZeroTemperature;
+
+    @Parameter
+    @Optional(defaultValue = "true")
+    @DisplayName("Coalesce Identical Requests")
+    @Summary("Share one provider call between identical requests that are in flight at the same time (follows the temperature rule of the cache)")
+    private boolean coalesceRequests;
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable Disk Cache")
+    @Summary("Persist cached responses to a local segment file so they survive restarts")
+    private boolean diskCacheEnabled;
+
+    @Parameter
+    @Optional
+    @DisplayName("Disk Cache Directory")
+    @Summary("Directory of the disk cache (defaults to a per-config directory under mule.home or the temp directory)")
+    private String diskCacheDirectory;
+
+    @Parameter
+    @Optional(defaultValue = "256")
+    @DisplayName("Max Disk Cache Size (MB)")
+    @Summary("Size of the disk cache segment file (at most 2047 MB)")
+    private int diskCacheMaxSizeMb;
+
+    @Parameter
+    @Optional(defaultValue = "86400")
+    @DisplayName("Disk Cache TTL (seconds)")
+    @Summary("Time after which a persisted response expires")
+    private int diskCacheTtlSeconds;
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public int getCacheMaxSizeMb() {
+        return cacheMaxSizeMb;
+    }
+
+    public int getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public boolean isCacheNonZeroTemperature() {
+        return cacheNonZeroTemperature;
+    }
+
+    public boolean isCoalesceRequests() {
+        return coalesceRequests;
+    }
+
+    public boolean isDiskCacheEnabled() {
+        return diskCacheEnabled;
+    }
+
+    public String getDiskCacheDirectory() {
+        return diskCacheDirectory;
+    }
+
+    public int getDiskCacheMaxSizeMb() {
+        return diskCacheMaxSizeMb;
+    }
+
+    public int getDiskCacheTtlSeconds() {
+        return diskCacheTtlSeconds;
+    }
+}
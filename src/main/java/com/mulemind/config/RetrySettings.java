@@ -0,0 +1,52 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Retry settings
+ */
+public class RetrySettings {
+
+    @Parameter
+    @Optional(defaultValue = "3")
+    @DisplayName("Max Attempts")
+    @Summary("Total number of attempts per request, including the first call (1 disables retries)")
+    private int retryMaxAttempts;
+
+    @Parameter
+    @Optional(defaultValue = "500")
+    @DisplayName("Initial Backoff (ms)")
+    @Summary("Upper bound of the randomized wait before the first retry; doubles on every further retry")
+    private int retryInitialBackoffMillis;
+
+    @Parameter
+    @Optional(defaultValue = "60")
+    @DisplayName("Max Backoff (seconds)")
+    @Summary("Longest wait between attempts; a longer Retry-After from the provider fails the request instead")
+    private int retryMaxBackoffSeconds;
+
+    @Parameter
+    @Optional(defaultValue = "408,429,500,502,503,504,529")
+    @DisplayName("Retryable Status Codes")
+    @Summary("Comma-separated HTTP status codes that are retried; connection and timeout errors are always retried")
+    private String retryStatusCodes;
+
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public int getRetryInitialBackoffMillis() {
+        return retryInitialBackoffMillis;
+    }
+
+    public int getRetryMaxBackoffSeconds() {
+        return retryMaxBackoffSeconds;
+    }
+
+    public String getRetryStatusCodes() {
+        return retryStatusCodes;
+    }
+}
@@ -0,0 +1,34 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+import java.util.List;
+
+/**
+ * Failover routing settings
+ */
+public class RoutingSettings {
+
+    @Parameter
+    @Optional
+    @DisplayName("Failover Targets")
+    @Summary("Targets tried in order when the configured provider fails, has an open circuit or exceeds its latency budget")
+    private List<RoutingTarget> failoverTargets;
+
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("Target Latency Budget (seconds)")
+    @Summary("Time a target has to respond before the request fails over to the next one (0 = no budget)")
+    private int routingTargetTimeoutSeconds;
+
+    public List<RoutingTarget> getFailoverTargets() {
+        return failoverTargets;
+    }
+
+    public int getRoutingTargetTimeoutSeconds() {
+        return routingTargetTimeoutSeconds;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Example;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Provider and model that requests fail over to
+ */
+public class RoutingTarget {
+
+    @Parameter
+    @DisplayName("Provider")
+    @Summary("The LLM provider of this target")
+    private LlmProvider provider;
+
+    @Parameter
+    @DisplayName("API Key")
+    @Summary("API key for this target")
+    @Example("sk-...")
+    private String apiKey;
+
+    @Parameter
+    @Optional
+    @DisplayName("Model")
+    @Summary("The model to use on this target (defaults to the provider's default model)")
+    private String model;
+
+    @Parameter
+    @Optional
+    @DisplayName("API Base URL")
+    @Summary("Base URL of this target (defaults to the provider's public endpoint)")
+    private String apiBaseUrl;
+
+    public LlmProvider getProvider() {
+        return provider;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getApiBaseUrl() {
+        return apiBaseUrl;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Semantic response cache settings
+ */
+public class SemanticCacheSettings {
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Enable Semantic Cache")
+    @Summary("Answer questions similar to one answered before with the stored response, matched by embedding the final user message")
+    private boolean semanticCacheEnabled;
+
+    @Parameter
+    @Optional(defaultValue = "0.95")
+    @DisplayName("Similarity Threshold")
+    @Summary("Minimum cosine similarity between two questions for a stored response to be reused")
+    private double semanticCacheThreshold;
+
+    @Parameter
+    @Optional(defaultValue = "5000")
+    @DisplayName("Max Semantic Cache Entries")
+    @Summary("Maximum number of question vectors and responses kept; the least recently used are evicted")
+    private int semanticCacheMaxEntries;
+
+    @Parameter
+    @Optional(defaultValue = "3600")
+    @DisplayName("Semantic Cache TTL (seconds)")
+    @Summary("Time after which a stored response expires")
+    private int semanticCacheTtlSeconds;
+
+    @Parameter
+    @Optional
+    @DisplayName("Semantic Cache Embedding Model")
+    @Summary("Model used to embed questions (defaults to the Embedding Model)")
+    private String semanticCacheEmbeddingModel;
+
+    public boolean isSemanticCacheEnabled() {
+        return semanticCacheEnabled;
+    }
+
+    public double getSemanticCacheThreshold() {
+        return semanticCacheThreshold;
+    }
+
+    public int getSemanticCacheMaxEntries() {
+        return semanticCacheMaxEntries;
+    }
+
+    public int getSemanticCacheTtlSeconds() {
+        return semanticCacheTtlSeconds;
+    }
+
+    public String getSemanticCacheEmbeddingModel() {
+        return semanticCacheEmbeddingModel;
+    }
+}
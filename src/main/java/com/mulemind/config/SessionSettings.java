@@ -0,0 +1,52 @@
+package com.mulemind.config;
+
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+
+/**
+ * Settings of the conversation sessions kept by the Session Chat operation
+ */
+public class SessionSettings {
+
+    @Parameter
+    @Optional(defaultValue = "64")
+    @DisplayName("Max Session Memory (MB)")
+    @Summary("Off-heap memory for session transcripts; the least recently used sessions are evicted when it is full")
+    private int sessionMaxMemoryMb;
+
+    @Parameter
+    @Optional(defaultValue = "1800")
+    @DisplayName("Session Idle Timeout (seconds)")
+    @Summary("Time after which a session that was not used is discarded")
+    private int sessionIdleTimeoutSeconds;
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("Spill Sessions to Disk")
+    @Summary("Write evicted sessions to local disk instead of discarding them, so they can be resumed")
+    private boolean sessionDiskSpillEnabled;
+
+    @Parameter
+    @Optional
+    @DisplayName("Session Spill Directory")
+    @Summary("Directory of spilled sessions (defaults to a per-config directory under mule.home or the temp directory)")
+    private String sessionDiskDirectory;
+
+    public int getSessionMaxMemoryMb() {
+        return sessionMaxMemoryMb;
+    }
+
+    public int getSessionIdleTimeoutSeconds() {
+        return sessionIdleTimeoutSeconds;
+    }
+
+    public boolean isSessionDiskSpillEnabled() {
+        return sessionDiskSpillEnabled;
+    }
+
+    public String getSessionDiskDirectory() {
+        return sessionDiskDirectory;
+    }
+}
@@ -0,0 +1,365 @@
+package com.mulemind.connection;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.ComplexFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.http2.ssl.ApplicationProtocol;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.io.ModalCloseable;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the non-blocking requests of a connection.
+ *
+ * Without HTTP/2 every request goes through the pooled HTTP/1.1 client, which
+ * holds one connection per request in flight. With HTTP/2, requests to https
+ * endpoints are multiplexed over a single connection per endpoint, with at
+ * most the configured number of streams in flight; further requests wait for
+ * a stream to free up. The protocol is negotiated with ALPN: an endpoint that
+ * does not select h2 is served over HTTP/1.1 from then on, and the request
+ * that found out is sent again over HTTP/1.1. Streamed responses share the
+ * connection and the stream limit with the other requests, and hold their
+ * stream until the body has been read or closed.
+ */
+public class AsyncTransport implements ModalCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncTransport.class);
+
+    private final CloseableHttpAsyncClient http1Client;
+    private final CloseableHttpAsyncClient http2Client;
+    private final int maxConcurrentStreams;
+    private final boolean cleartextHttp2;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public AsyncTransport(CloseableHttpAsyncClient http1Client) {
+        this(http1Client, null, 0, false);
+    }
+
+    /**
+     * @param http2Client client multiplexing requests over one connection per endpoint,
+     *                    connecting with {@link #requireHttp2(TlsStrategy)}
+     */
+    public AsyncTransport(CloseableHttpAsyncClient http1Client, CloseableHttpAsyncClient http2Client,
+                          int maxConcurrentStreams) {
+        this(http1Client, http2Client, maxConcurrentStreams, false);
+    }
+
+    /**
+     * @param cleartextHttp2 whether http endpoints are also sent HTTP/2, with prior knowledge instead of ALPN
+     */
+    AsyncTransport(CloseableHttpAsyncClient http1Client, CloseableHttpAsyncClient http2Client,
+                   int maxConcurrentStreams, boolean cleartextHttp2) {
+        this.http1Client = http1Client;
+        this.http2Client = http2Client;
+        this.maxConcurrentStreams = Math.max(1, maxConcurrentStreams);
+        this.cleartextHttp2 = cleartextHttp2;
+    }
+
+    public Future<SimpleHttpResponse> execute(SimpleHttpRequest request, FutureCallback<SimpleHttpResponse> callback) {
+        Endpoint endpoint = http2Client != null ? endpointOf(request) : null;
+        if (endpoint == null || endpoint.http1) {
+            return http1Client.execute(request, callback);
+        }
+        ComplexFuture<SimpleHttpResponse> future = new ComplexFuture<>(callback);
+        endpoint.submit(() -> exchange(endpoint, request, future));
+        return future;
+    }
+
+    /**
+     * Send a request whose response body is read as it arrives
+     *
+     * @return future completed with the response as soon as its head is received
+     */
+    public Future<StreamedResponse> stream(SimpleHttpRequest request, FutureCallback<StreamedResponse> callback) {
+        ComplexFuture<StreamedResponse> future = new ComplexFuture<>(callback);
+        Endpoint endpoint = http2Client != null ? endpointOf(request) : null;
+        if (endpoint == null || endpoint.http1) {
+            stream(http1Client, null, request, future);
+            return future;
+        }
+        endpoint.submit(() -> {
+            if (future.isDone()) {
+                endpoint.release();
+            } else if (endpoint.http1) {
+                endpoint.release();
+                stream(http1Client, null, request, future);
+            } else {
+                stream(http2Client, endpoint, request, future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @param endpoint the endpoint whose stream is held until the exchange ends, or null over HTTP/1.1
+     */
+    private void stream(CloseableHttpAsyncClient client, Endpoint endpoint, SimpleHttpRequest request,
+                        ComplexFuture<StreamedResponse> future) {
+        StreamedResponse.Exchange exchange = new StreamedResponse.Exchange(forwardTo(future), endpoint != null);
+        exchange.setFuture(client.execute(SimpleRequestProducer.create(request), exchange, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                if (endpoint != null) {
+                    endpoint.release();
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (endpoint != null) {
+                    endpoint.release();
+                    if (!future.isDone() && isNegotiationFailure(e)) {
+                        endpoint.fallBack(e);
+                        stream(http1Client, null, request, future);
+                        return;
+                    }
+                }
+                future.failed(e);
+            }
+
+            @Override
+            public void cancelled() {
+                if (endpoint != null) {
+                    endpoint.release();
+                }
+                future.cancel();
+            }
+        }));
+        // Cancelling the future before the head is received abandons the exchange
+        future.setDependency(exchange::cancel);
+    }
+
+    public boolean isHttp2Enabled() {
+        return http2Client != null;
+    }
+
+    /**
+     * Whether requests to an endpoint have fallen back to HTTP/1.1
+     *
+     * @param endpoint scheme and authority, such as https://api.openai.com
+     */
+    public boolean isHttp1Fallback(String endpoint) {
+        Endpoint state = endpoints.get(endpoint.toLowerCase(Locale.ROOT));
+        return state != null && state.http1;
+    }
+
+    private Endpoint endpointOf(SimpleHttpRequest request) {
+        String scheme = request.getScheme();
+        if (scheme == null || request.getAuthority() == null) {
+            return null;
+        }
+        scheme = scheme.toLowerCase(Locale.ROOT);
+        if (!scheme.equals("https") && !(cleartextHttp2 && scheme.equals("http"))) {
+            return null;
+        }
+        String name = (scheme + "://" + request.getAuthority()).toLowerCase(Locale.ROOT);
+        return endpoints.computeIfAbsent(name, Endpoint::new);
+    }
+
+    private void exchange(Endpoint endpoint, SimpleHttpRequest request, ComplexFuture<SimpleHttpResponse> future) {
+        if (future.isDone()) {
+            // Cancelled while waiting for a stream
+            endpoint.release();
+            return;
+        }
+        if (endpoint.http1) {
+            endpoint.release();
+            future.setDependency(http1Client.execute(request, forwardTo(future)));
+            return;
+        }
+        // Not made a dependency of the future: the client closes the connection of a
+        // cancelled exchange, failing the other streams on it, so a cancelled
+        // request is left to complete and its response dropped
+        http2Client.execute(request, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                endpoint.release();
+                future.completed(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                endpoint.release();
+                if (isNegotiationFailure(e)) {
+                    endpoint.fallBack(e);
+                    future.setDependency(http1Client.execute(request, forwardTo(future)));
+                } else {
+                    future.failed(e);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                endpoint.release();
+                future.cancel();
+            }
+        });
+    }
+
+    private static <T> FutureCallback<T> forwardTo(ComplexFuture<T> future) {
+        return new FutureCallback<T>() {
+            @Override
+            public void completed(T response) {
+                future.completed(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.failed(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel();
+            }
+        };
+    }
+
+    private static boolean isNegotiationFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ProtocolNegotiationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wrap the TLS strategy of the HTTP/2 client so that connections to
+     * endpoints that do not select h2 with ALPN fail before anything is sent,
+     * instead of writing the HTTP/2 preface to an HTTP/1.1 server
+     */
+    public static TlsStrategy requireHttp2(TlsStrategy tlsStrategy) {
+        return new TlsStrategy() {
+            @Override
+            @SuppressWarnings("deprecation")
+            public boolean upgrade(TransportSecurityLayer session, HttpHost host, SocketAddress localAddress,
+                                   SocketAddress remoteAddress, Object attachment, Timeout handshakeTimeout) {
+                return tlsStrategy.upgrade(session, host, localAddress, remoteAddress, attachment, handshakeTimeout);
+            }
+
+            @Override
+            public void upgrade(TransportSecurityLayer session, NamedEndpoint endpoint, Object attachment,
+                                Timeout handshakeTimeout, FutureCallback<TransportSecurityLayer> callback) {
+                if (callback == null) {
+                    tlsStrategy.upgrade(session, endpoint, attachment, handshakeTimeout, null);
+                    return;
+                }
+                tlsStrategy.upgrade(session, endpoint, attachment, handshakeTimeout, new FutureCallback<TransportSecurityLayer>() {
+                    @Override
+                    public void completed(TransportSecurityLayer layer) {
+                        TlsDetails details = layer.getTlsDetails();
+                        String protocol = details != null ? details.getApplicationProtocol() : null;
+                        if (ApplicationProtocol.HTTP_2.id.equals(protocol)) {
+                            callback.completed(layer);
+                            return;
+                        }
+                        if (layer instanceof IOSession) {
+                            ((IOSession) layer).close(CloseMode.IMMEDIATE);
+                        }
+                        callback.failed(new ProtocolNegotiationException("ALPN: " + endpoint.getHostName()
+                            + (protocol == null || protocol.isEmpty() ? " selected no application protocol" : " selected " + protocol)));
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        callback.failed(e);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        callback.cancelled();
+                    }
+                });
+            }
+        };
+    }
+
+    @Override
+    public void close(CloseMode closeMode) {
+        if (http2Client != null) {
+            http2Client.close(closeMode);
+        }
+        http1Client.close(closeMode);
+    }
+
+    @Override
+    public void close() {
+        close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * Protocol and stream limit of one endpoint
+     */
+    private final class Endpoint {
+
+        private final String name;
+        private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger streams = new AtomicInteger();
+        private volatile boolean http1;
+
+        private Endpoint(String name) {
+            this.name = name;
+        }
+
+        private void submit(Runnable exchange) {
+            waiting.add(exchange);
+            dispatch();
+        }
+
+        private void release() {
+            streams.decrementAndGet();
+            dispatch();
+        }
+
+        /**
+         * Start waiting exchanges while streams are available
+         */
+        private void dispatch() {
+            while (!waiting.isEmpty()) {
+                int active = streams.get();
+                if (active >= maxConcurrentStreams) {
+                    return;
+                }
+                if (!streams.compareAndSet(active, active + 1)) {
+                    continue;
+                }
+                Runnable exchange = waiting.poll();
+                if (exchange == null) {
+                    streams.decrementAndGet();
+                    continue;
+                }
+                exchange.run();
+            }
+        }
+
+        private void fallBack(Exception cause) {
+            if (!http1) {
+                http1 = true;
+                LOGGER.warn("{} did not negotiate HTTP/2, falling back to HTTP/1.1: {}", name, cause.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.mulemind.connection;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.metrics.ConnectorMetrics;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderFactory;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Connection shared by all operations of a configuration.
+ *
+ * Owns the pooled blocking and async HTTP clients, and the optional HTTP/2
+ * client that multiplexes async requests, and caches one provider client per
+ * configuration so that providers are built once instead of on every
+ * operation call.
+ */
+public class LlmConnection implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LlmConnection.class);
+
+    private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient asyncClient;
+    private final PoolingAsyncClientConnectionManager asyncConnectionManager;
+    private final AsyncTransport asyncTransport;
+    private final Map<LlmConfiguration, LlmProviderClient> clients = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    public LlmConnection(CloseableHttpClient httpClient,
+                         PoolingHttpClientConnectionManager connectionManager,
+                         CloseableHttpAsyncClient asyncClient,
+                         PoolingAsyncClientConnectionManager asyncConnectionManager) {
+        this(httpClient, connectionManager, asyncClient, asyncConnectionManager, new AsyncTransport(asyncClient));
+    }
+
+    public LlmConnection(CloseableHttpClient httpClient,
+                         PoolingHttpClientConnectionManager connectionManager,
+                         CloseableHttpAsyncClient asyncClient,
+                         PoolingAsyncClientConnectionManager asyncConnectionManager,
+                         AsyncTransport asyncTransport) {
+        this.httpClient = httpClient;
+        this.connectionManager = connectionManager;
+        this.asyncClient = asyncClient;
+        this.asyncConnectionManager = asyncConnectionManager;
+        this.asyncTransport = asyncTransport;
+    }
+
+    /**
+     * Get the provider client for a configuration, creating it on first use
+     */
+    public LlmProviderClient getClient(LlmConfiguration configuration) {
+        return clients.computeIfAbsent(configuration, config -> LlmProviderFactory.createProvider(config, this));
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public CloseableHttpAsyncClient getAsyncClient() {
+        return asyncClient;
+    }
+
+    /**
+     * Get the transport of non-blocking requests, multiplexing them over HTTP/2 when enabled
+     */
+    public AsyncTransport getAsyncTransport() {
+        return asyncTransport;
+    }
+
+    /**
+     * Get the current statistics of the blocking HTTP connection pool
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Get the current statistics of the async HTTP connection pool
+     */
+    public PoolStats getAsyncPoolStats() {
+        return asyncConnectionManager.getTotalStats();
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        for (LlmProviderClient client : clients.values()) {
+            try {
+                client.close();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to close provider client", e);
+            }
+        }
+        clients.clear();
+        ConnectorMetrics.connectionClosed(this);
+        LOGGER.debug("Closing HTTP connection pools");
+        httpClient.close(CloseMode.GRACEFUL);
+        asyncTransport.close(CloseMode.GRACEFUL);
+    }
+}
@@ -0,0 +1,195 @@
+package com.mulemind.connection;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.mule.runtime.api.connection.CachedConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connection provider that owns the pooled HTTP clients of a configuration.
+ *
+ * The connection is cached by the runtime, so every operation executed against
+ * the same config shares the same connection pools: a classic pool for blocking
+ * calls and streams, and an async pool served by a small, fixed set of I/O
+ * reactor threads for non-blocking operations. With HTTP/2 enabled,
+ * non-blocking requests to https endpoints are multiplexed over one
+ * connection per endpoint instead, and the async pool only serves endpoints
+ * that do not negotiate HTTP/2. The pools are closed when the runtime
+ * disconnects the connection on config stop/dispose.
+ */
+@Alias("pooled")
+@DisplayName("Pooled Connection")
+public class LlmConnectionProvider implements CachedConnectionProvider<LlmConnection> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LlmConnectionProvider.class);
+
+    @Parameter
+    @Optional(defaultValue = "50")
+    @DisplayName("Max Connections")
+    @Summary("Maximum number of pooled connections across all routes")
+    private int maxConnections;
+
+    @Parameter
+    @Optional(defaultValue = "20")
+    @DisplayName("Max Connections Per Route")
+    @Summary("Maximum number of pooled connections per API endpoint")
+    private int maxConnectionsPerRoute;
+
+    @Parameter
+    @Optional(defaultValue = "10")
+    @DisplayName("Connect Timeout (seconds)")
+    @Summary("Timeout for establishing a new connection")
+    private int connectTimeoutSeconds;
+
+    @Parameter
+    @Optional(defaultValue = "60")
+    @DisplayName("Keep-Alive (seconds)")
+    @Summary("Maximum time an idle connection is kept alive when the server does not advertise a shorter one")
+    private int keepAliveSeconds;
+
+    @Parameter
+    @Optional(defaultValue = "30")
+    @DisplayName("Idle Eviction (seconds)")
+    @Summary("Connections idle for longer than this are evicted from the pool")
+    private int idleEvictionSeconds;
+
+    @Parameter
+    @Optional(defaultValue = "0")
+    @DisplayName("I/O Threads")
+    @Summary("Number of I/O reactor threads for non-blocking operations (0 = one per CPU core)")
+    private int ioThreads;
+
+    @Parameter
+    @Optional(defaultValue = "false")
+    @DisplayName("HTTP/2")
+    @Summary("Multiplex non-blocking requests and streamed completions over one HTTP/2 connection per endpoint, falling back to HTTP/1.1 for endpoints that do not negotiate HTTP/2")
+    private boolean http2Enabled;
+
+    @Parameter
+    @Optional(defaultValue = "100")
+    @DisplayName("Max Concurrent Streams")
+    @Summary("Maximum number of requests in flight on the HTTP/2 connection to an endpoint; further requests wait for a stream")
+    private int maxConcurrentStreams;
+
+    @Override
+    public LlmConnection connect() throws ConnectionException {
+        try {
+            ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofSeconds(connectTimeoutSeconds))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build();
+
+            TimeValue maxKeepAlive = TimeValue.ofSeconds(keepAliveSeconds);
+            ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+                TimeValue advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return TimeValue.isPositive(advertised) && advertised.compareTo(maxKeepAlive) < 0 ? advertised : maxKeepAlive;
+            };
+
+            PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(connectionConfig)
+                .build();
+
+            // Retries are left to the retry policy of the configuration, which
+            // would otherwise multiply with the client's own retry of 429 and 503
+            CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+
+            PoolingAsyncClientConnectionManagerBuilder asyncConnectionManagerBuilder = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(connectionConfig);
+            if (http2Enabled) {
+                // The pool leases an HTTP/2 connection to a single request at a
+                // time, so it is kept to HTTP/1.1 for the endpoints that fell back
+                asyncConnectionManagerBuilder.setDefaultTlsConfig(TlsConfig.custom()
+                    .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1)
+                    .build());
+            }
+            PoolingAsyncClientConnectionManager asyncConnectionManager = asyncConnectionManagerBuilder.build();
+
+            IOReactorConfig.Builder reactorConfig = IOReactorConfig.custom();
+            if (ioThreads > 0) {
+                reactorConfig.setIoThreadCount(ioThreads);
+            }
+
+            CloseableHttpAsyncClient asyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(asyncConnectionManager)
+                .setIOReactorConfig(reactorConfig.build())
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+            asyncClient.start();
+
+            AsyncTransport asyncTransport;
+            if (http2Enabled) {
+                CloseableHttpAsyncClient http2Client = HttpAsyncClients.customHttp2()
+                    .setTlsStrategy(AsyncTransport.requireHttp2(DefaultClientTlsStrategy.getDefault()))
+                    .setH2Config(H2Config.custom()
+                        .setMaxConcurrentStreams(maxConcurrentStreams)
+                        .setPushEnabled(false)
+                        .build())
+                    .setIOReactorConfig(reactorConfig.build())
+                    .setDefaultConnectionConfig(connectionConfig)
+                    .disableAutomaticRetries()
+                    .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                    .build();
+                http2Client.start();
+                asyncTransport = new AsyncTransport(asyncClient, http2Client, maxConcurrentStreams);
+            } else {
+                asyncTransport = new AsyncTransport(asyncClient);
+            }
+
+            LOGGER.debug("Created HTTP connection pools (maxTotal={}, maxPerRoute={}, http2={})",
+                maxConnections, maxConnectionsPerRoute, http2Enabled);
+            return new LlmConnection(httpClient, connectionManager, asyncClient, asyncConnectionManager, asyncTransport);
+        } catch (RuntimeException e) {
+            throw new ConnectionException("Failed to create HTTP connection pool: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void disconnect(LlmConnection connection) {
+        connection.close();
+    }
+
+    @Override
+    public ConnectionValidationResult validate(LlmConnection connection) {
+        if (connection.isOpen()) {
+            return ConnectionValidationResult.success();
+        }
+        return ConnectionValidationResult.failure("HTTP connection pool has been closed", null);
+    }
+}
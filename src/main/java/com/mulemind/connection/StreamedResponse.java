@@ -0,0 +1,288 @@
+package com.mulemind.connection;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.support.classic.SharedInputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Response of a non-blocking request whose body is read as it arrives, such
+ * as a server-sent event stream.
+ *
+ * The body is handed over as soon as the response head is received and is
+ * read from a bounded buffer; the server is only allowed to send more once
+ * the reader has made room. Closing the response before the body has been
+ * read to the end cancels the exchange over HTTP/1.1. Over HTTP/2 the client
+ * would close the connection shared with the other streams, so the rest of
+ * the body is discarded as it arrives instead.
+ */
+public final class StreamedResponse implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final HttpResponse response;
+    private final Exchange exchange;
+    private final InputStream body;
+
+    private StreamedResponse(HttpResponse response, Exchange exchange) {
+        this.response = response;
+        this.exchange = exchange;
+        this.body = new Body(exchange);
+    }
+
+    /**
+     * Get the status line and headers
+     */
+    public HttpResponse getResponse() {
+        return response;
+    }
+
+    public int getCode() {
+        return response.getCode();
+    }
+
+    /**
+     * Get the body, blocking on read until data arrives
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public void close() {
+        exchange.abort();
+    }
+
+    /**
+     * Consumer of one exchange, completing the given future with the response
+     * head and feeding the body to the buffer
+     */
+    static final class Exchange implements AsyncResponseConsumer<HttpResponse> {
+
+        private final FutureCallback<StreamedResponse> headCallback;
+        private final boolean multiplexed;
+        private final SharedInputBuffer buffer = new SharedInputBuffer(BUFFER_SIZE);
+
+        private HttpResponse response;
+        private FutureCallback<HttpResponse> resultCallback;
+        private CapacityChannel capacityChannel;
+        private Future<?> future;
+        private volatile Exception failure;
+        private boolean delivered;
+        private boolean ended;
+        private boolean aborted;
+
+        /**
+         * @param multiplexed whether the exchange shares an HTTP/2 connection; the client
+         *                    closes the connection of a cancelled exchange, so an abandoned
+         *                    exchange is read to the end and discarded instead
+         */
+        Exchange(FutureCallback<StreamedResponse> headCallback, boolean multiplexed) {
+            this.headCallback = headCallback;
+            this.multiplexed = multiplexed;
+        }
+
+        /**
+         * Attach the future of the exchange, used to cancel it
+         */
+        void setFuture(Future<?> future) {
+            boolean cancel;
+            synchronized (this) {
+                this.future = future;
+                cancel = aborted && !multiplexed;
+            }
+            if (cancel) {
+                future.cancel(true);
+            }
+        }
+
+        /**
+         * Abandon the exchange unless the response has been handed over, after
+         * which abandoning it is up to its reader
+         */
+        boolean cancel() {
+            synchronized (this) {
+                if (delivered) {
+                    return false;
+                }
+            }
+            abort();
+            return true;
+        }
+
+        @Override
+        public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+                                    FutureCallback<HttpResponse> resultCallback) {
+            synchronized (this) {
+                this.response = response;
+                this.resultCallback = resultCallback;
+                this.delivered = true;
+            }
+            if (entityDetails == null) {
+                end();
+            }
+            headCallback.completed(new StreamedResponse(response, this));
+        }
+
+        @Override
+        public void informationResponse(HttpResponse response, HttpContext context) {
+        }
+
+        @Override
+        public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+            synchronized (this) {
+                this.capacityChannel = capacityChannel;
+                if (aborted) {
+                    capacityChannel.update(Integer.MAX_VALUE);
+                    return;
+                }
+            }
+            buffer.updateCapacity(capacityChannel);
+        }
+
+        @Override
+        public synchronized void consume(ByteBuffer src) throws IOException {
+            if (aborted) {
+                int discarded = src.remaining();
+                src.position(src.limit());
+                if (capacityChannel != null) {
+                    capacityChannel.update(discarded);
+                }
+                return;
+            }
+            buffer.fill(src);
+        }
+
+        @Override
+        public void streamEnd(List<? extends Header> trailers) {
+            end();
+        }
+
+        private void end() {
+            FutureCallback<HttpResponse> callback;
+            synchronized (this) {
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                callback = resultCallback;
+            }
+            buffer.markEndStream();
+            if (callback != null) {
+                callback.completed(response);
+            }
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            failure = cause;
+            buffer.abort();
+        }
+
+        @Override
+        public void releaseResources() {
+            synchronized (this) {
+                if (ended) {
+                    return;
+                }
+            }
+            // Cancelled or reset before the end of the body
+            buffer.abort();
+        }
+
+        void abort() {
+            Future<?> toCancel;
+            CapacityChannel toRelease;
+            synchronized (this) {
+                if (aborted) {
+                    return;
+                }
+                aborted = true;
+                toCancel = ended || multiplexed ? null : future;
+                toRelease = multiplexed && !ended ? capacityChannel : null;
+            }
+            buffer.abort();
+            if (toRelease != null) {
+                // Hand back the window held by unread data, at most the buffer, so the rest of the body keeps flowing
+                try {
+                    toRelease.update(BUFFER_SIZE);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (toCancel != null) {
+                toCancel.cancel(true);
+            }
+        }
+
+        private synchronized boolean isEnded() {
+            return ended;
+        }
+
+        private synchronized boolean isAborted() {
+            return aborted;
+        }
+    }
+
+    /**
+     * Reader side of the buffer, failing if the exchange broke off before the end of the body
+     */
+    private static final class Body extends InputStream {
+
+        private final Exchange exchange;
+
+        private Body(Exchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (exchange.isAborted()) {
+                return -1;
+            }
+            return check(exchange.buffer.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (exchange.isAborted()) {
+                return -1;
+            }
+            return check(exchange.buffer.read(b, off, len));
+        }
+
+        @Override
+        public int available() {
+            return exchange.buffer.length();
+        }
+
+        private int check(int result) throws IOException {
+            if (result == -1 && !exchange.isEnded() && !exchange.isAborted()) {
+                Exception failure = exchange.failure;
+                throw failure instanceof IOException
+                    ? (IOException) failure
+                    : new IOException("Response body ended prematurely", failure);
+            }
+            return result;
+        }
+
+        @Override
+        public void close() {
+            exchange.abort();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.mulemind.embedding;
+
+import com.mulemind.cache.CacheKey;
+import com.mulemind.cache.ResponseStore;
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.LlmProviderClient;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provider client that serves embeddings of texts seen before from a store.
+ *
+ * Vectors are keyed by a SHA-256 hash of the provider, model and text, and
+ * stored as packed float32 bytes. Only the texts of a request that miss are
+ * sent to the provider, so a single-text miss still goes through
+ * micro-batching.
+ */
+public class CachingEmbeddingProviderClient extends DelegatingProviderClient {
+
+    private final ResponseStore store;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingEmbeddingProviderClient(LlmProviderClient delegate, ResponseStore store) {
+        super(delegate);
+        this.store = store;
+    }
+
+    @Override
+    public CompletableFuture<EmbeddingResponse> embedAsync(EmbeddingRequest request) {
+        List<String> input = request.getInput();
+        if (input == null || input.isEmpty()) {
+            return delegate.embedAsync(request);
+        }
+        float[][] vectors = new float[input.size()][];
+        CacheKey[] keys = new CacheKey[input.size()];
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < input.size(); i++) {
+            keys[i] = CacheKey.ofEmbedding(getConfiguration(), request.getModel(), input.get(i));
+            byte[] value = store.get(keys[i]);
+            if (value != null) {
+                vectors[i] = unpack(value);
+                hits.increment();
+            } else {
+                missing.add(input.get(i));
+                misses.increment();
+            }
+        }
+        if (missing.isEmpty()) {
+            EmbeddingResponse response = new EmbeddingResponse(request.getModel(), Arrays.asList(vectors));
+            response.setCached(true);
+            return CompletableFuture.completedFuture(response);
+        }
+        return delegate.embedAsync(new EmbeddingRequest(request.getModel(), missing)).thenApply(response -> {
+            int next = 0;
+            for (int i = 0; i < vectors.length; i++) {
+                if (vectors[i] == null) {
+                    vectors[i] = response.getEmbeddings().get(next++);
+                    store.put(keys[i], pack(vectors[i]));
+                }
+            }
+            EmbeddingResponse merged = new EmbeddingResponse(response.getModel(), Arrays.asList(vectors));
+            merged.setPromptTokens(response.getPromptTokens());
+            return merged;
+        });
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static byte[] pack(float[] vector) {
+        ByteBuffer bytes = ByteBuffer.allocate(vector.length * Float.BYTES);
+        bytes.asFloatBuffer().put(vector);
+        return bytes.array();
+    }
+
+    private static float[] unpack(byte[] value) {
+        float[] vector = new float[value.length / Float.BYTES];
+        ByteBuffer.wrap(value).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
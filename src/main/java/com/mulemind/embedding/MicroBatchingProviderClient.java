@@ -0,0 +1,116 @@
+package com.mulemind.embedding;
+
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.LlmProviderClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provider client that combines concurrent single-text embedding calls into
+ * one provider request.
+ *
+ * The first call for a model opens a batch that later calls join; the batch
+ * is sent when it reaches the maximum size or when the linger time since it
+ * was opened has passed, whichever comes first. Identical texts in a batch
+ * are embedded once. A failed batch fails every call in it. Calls with more
+ * than one text are sent as they are.
+ */
+public class MicroBatchingProviderClient extends DelegatingProviderClient {
+
+    private final int maxBatchSize;
+    private final Duration linger;
+
+    private final Map<String, Batch> open = new HashMap<>();
+
+    public MicroBatchingProviderClient(LlmProviderClient delegate, int maxBatchSize, Duration linger) {
+        super(delegate);
+        this.maxBatchSize = maxBatchSize;
+        this.linger = linger;
+    }
+
+    @Override
+    public CompletableFuture<EmbeddingResponse> embedAsync(EmbeddingRequest request) {
+        if (request.getInput() == null || request.getInput().size() != 1) {
+            return delegate.embedAsync(request);
+        }
+        CompletableFuture<EmbeddingResponse> result = new CompletableFuture<>();
+        Batch full = null;
+        Batch opened = null;
+        synchronized (open) {
+            Batch batch = open.get(request.getModel());
+            if (batch == null) {
+                batch = new Batch(request.getModel());
+                open.put(request.getModel(), batch);
+                opened = batch;
+            }
+            batch.add(request.getInput().get(0), result);
+            if (batch.size() >= maxBatchSize) {
+                open.remove(request.getModel());
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(full);
+        } else if (opened != null) {
+            Batch lingering = opened;
+            CompletableFuture.delayedExecutor(linger.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                synchronized (open) {
+                    // Already sent if it filled up in the meantime
+                    if (!open.remove(lingering.model, lingering)) {
+                        return;
+                    }
+                }
+                send(lingering);
+            });
+        }
+        return result;
+    }
+
+    private void send(Batch batch) {
+        List<String> texts = new ArrayList<>(batch.callers.keySet());
+        delegate.embedAsync(new EmbeddingRequest(batch.model, texts)).whenComplete((response, error) -> {
+            for (int i = 0; i < texts.size(); i++) {
+                for (CompletableFuture<EmbeddingResponse> caller : batch.callers.get(texts.get(i))) {
+                    if (error != null) {
+                        caller.completeExceptionally(error);
+                    } else {
+                        caller.complete(new EmbeddingResponse(response.getModel(),
+                            Collections.singletonList(response.getEmbeddings().get(i))));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Calls waiting for the same request, grouped by text
+     */
+    private static final class Batch {
+        private final String model;
+        private final Map<String, List<CompletableFuture<EmbeddingResponse>>> callers = new LinkedHashMap<>();
+        private int size;
+
+        Batch(String model) {
+            this.model = model;
+        }
+
+        void add(String text, CompletableFuture<EmbeddingResponse> caller) {
+            callers.computeIfAbsent(text, t -> new ArrayList<>(1)).add(caller);
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
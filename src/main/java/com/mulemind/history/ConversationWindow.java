@@ -0,0 +1,274 @@
+package com.mulemind.history;
+
+import com.mulemind.config.HistoryMode;
+import com.mulemind.config.HistorySettings;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.Message;
+import com.mulemind.provider.Fingerprints;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.tokenizer.Tokenizer;
+import com.mulemind.tokenizer.Tokenizers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps the conversation history of chat requests within a token budget.
+ *
+ * The leading system messages and the new message are always sent; of the
+ * history in between, the most recent turns are kept and the older ones are
+ * dropped, or folded into a running summary that is appended to the system
+ * prompt. The window always starts at a user message.
+ *
+ * Trimming is incremental. Where each conversation's window starts, and its
+ * summary, are remembered across calls, so a turn only counts the tokens of
+ * the kept window and only summarizes the turns that newly fall out of it;
+ * per-message token counts are cached. Conversations are looked up by how
+ * they open, and those that open the same way are told apart by the turns
+ * their window has moved past. When the budget is exceeded the
+ * window is cut to half of the room left, so the start of the window, and
+ * the summarization call, move in steps rather than on every turn, which
+ * also keeps the prompt prefix stable for provider-side prompt caching.
+ */
+public final class ConversationWindow {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversationWindow.class);
+
+    private static final int MAX_OPENINGS = 10_000;
+    private static final int MAX_CONVERSATIONS_PER_OPENING = 16;
+    private static final int MAX_COUNTED_MESSAGES = 100_000;
+
+    static final String SUMMARY_HEADER = "Summary of the earlier conversation:\n";
+    private static final String SUMMARY_INSTRUCTIONS =
+        "Summarize the conversation below for your own later reference. Keep names, facts, decisions, "
+            + "preferences and open questions; leave out pleasantries. If a previous summary is given, "
+            + "merge it with the new turns. Reply with the summary only.";
+
+    private static final Map<Long, List<Conversation>> CONVERSATIONS = Fingerprints.lru(MAX_OPENINGS);
+    private static final Map<Long, Integer> TOKEN_COUNTS = Fingerprints.lru(MAX_COUNTED_MESSAGES);
+
+    private ConversationWindow() {
+    }
+
+    /**
+     * Fit the history of a request in the configured budget
+     *
+     * @param request the request with its full history
+     * @param configuration the configuration it is sent with
+     * @param client the client that summarizes older turns
+     * @return the request to send, which is the given request when nothing was trimmed
+     */
+    public static CompletableFuture<CompletionRequest> apply(CompletionRequest request, LlmConfiguration configuration,
+                                                             LlmProviderClient client) {
+        HistorySettings settings = configuration.getHistory();
+        if (settings == null || settings.getHistoryMode() == null || settings.getHistoryMode() == HistoryMode.FULL) {
+            return CompletableFuture.completedFuture(request);
+        }
+        List<Message> messages = request.getMessages();
+        int head = leadingSystemMessages(messages);
+        int last = messages.size() - 1;
+        if (last <= head) {
+            return CompletableFuture.completedFuture(request);
+        }
+        List<Message> history = messages.subList(head, last);
+        String model = request.getModel() != null ? request.getModel() : configuration.getEffectiveModel();
+        Tokenizer tokenizer = Tokenizers.forModel(model);
+
+        long key = conversationKey(configuration.getConfigName(), messages.subList(0, head + 1));
+        Conversation previous = find(key, history);
+        int start = previous != null ? previous.covered : 0;
+        String summary = previous != null ? previous.summary : null;
+
+        int fixed = Tokenizers.countTokens(tokenizer, messages.subList(0, head)) + countTokens(tokenizer, messages.get(last));
+        int summaryTokens = summary != null ? tokenizer.countTokens(SUMMARY_HEADER) + tokenizer.countTokens(summary) : 0;
+        int windowTokens = 0;
+        for (int i = start; i < history.size(); i++) {
+            windowTokens += countTokens(tokenizer, history.get(i));
+        }
+        int budget = settings.getHistoryTokenBudget();
+        if (fixed + summaryTokens + windowTokens <= budget) {
+            return CompletableFuture.completedFuture(build(request, head, summary, history.subList(start, history.size())));
+        }
+
+        // Keep the most recent turns that fill half of the room left
+        int reserve = settings.getHistoryMode() == HistoryMode.SUMMARIZE ? settings.getHistorySummaryMaxTokens() : 0;
+        int target = Math.max(0, (budget - fixed - reserve) / 2);
+        int boundary = history.size();
+        int kept = 0;
+        for (int i = history.size() - 1; i >= start; i--) {
+            int tokens = countTokens(tokenizer, history.get(i));
+            if (kept + tokens > target) {
+                break;
+            }
+            kept += tokens;
+            boundary = i;
+        }
+        while (boundary < history.size() && !"user".equals(history.get(boundary).getRole())) {
+            boundary++;
+        }
+
+        List<Message> dropped = history.subList(start, boundary);
+        List<Message> window = history.subList(boundary, history.size());
+        long covered = Fingerprints.of(previous != null ? previous.fingerprint : Fingerprints.SEED, dropped);
+        int newBoundary = boundary;
+        LOGGER.debug("Dropping {} older messages to fit the history token budget of {}", dropped.size(), budget);
+
+        if (settings.getHistoryMode() != HistoryMode.SUMMARIZE || dropped.isEmpty()) {
+            remember(key, previous, new Conversation(newBoundary, covered, summary));
+            return CompletableFuture.completedFuture(build(request, head, summary, window));
+        }
+        return client.completeAsync(summaryRequest(summary, dropped, settings.getHistorySummaryMaxTokens()))
+            .handle((response, error) -> {
+                if (error != null) {
+                    // Sent without the dropped turns; they are summarized again on the next turn
+                    LOGGER.warn("Failed to summarize older conversation turns, sending the recent turns only",
+                        Futures.unwrap(error));
+                    return build(request, head, summary, window);
+                }
+                String newSummary = response.getContent();
+                remember(key, previous, new Conversation(newBoundary, covered, newSummary));
+                return build(request, head, newSummary, window);
+            });
+    }
+
+    /**
+     * Find the state of the conversation a history continues, furthest along first
+     */
+    private static Conversation find(long key, List<Message> history) {
+        List<Conversation> conversations = CONVERSATIONS.get(key);
+        if (conversations == null) {
+            return null;
+        }
+        synchronized (conversations) {
+            Conversation found = null;
+            for (Conversation conversation : conversations) {
+                if ((found == null || conversation.covered > found.covered) && conversation.matches(history)) {
+                    found = conversation;
+                }
+            }
+            if (found != null) {
+                conversations.remove(found);
+                conversations.add(0, found);
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Record the new state of a conversation in place of the one it continues, evicting the least recently used
+     */
+    private static void remember(long key, Conversation previous, Conversation next) {
+        List<Conversation> conversations = CONVERSATIONS.computeIfAbsent(key, k -> new ArrayList<>());
+        synchronized (conversations) {
+            if (previous != null) {
+                conversations.remove(previous);
+            }
+            conversations.add(0, next);
+            if (conversations.size() > MAX_CONVERSATIONS_PER_OPENING) {
+                conversations.remove(conversations.size() - 1);
+            }
+        }
+    }
+
+    private static int leadingSystemMessages(List<Message> messages) {
+        int count = 0;
+        while (count < messages.size() && "system".equals(messages.get(count).getRole())) {
+            count++;
+        }
+        return count;
+    }
+
+    private static CompletionRequest build(CompletionRequest request, int head, String summary, List<Message> window) {
+        List<Message> messages = request.getMessages();
+        if (summary == null && window.size() == messages.size() - head - 1) {
+            return request;
+        }
+        List<Message> windowed = new ArrayList<>(head + window.size() + 2);
+        for (int i = 0; i < head; i++) {
+            windowed.add(messages.get(i));
+        }
+        if (summary != null) {
+            // Appended to the system prompt, as some providers keep only one
+            if (head > 0) {
+                String system = messages.get(head - 1).getContent();
+                windowed.set(head - 1, Message.system(system + "\n\n" + SUMMARY_HEADER + summary));
+            } else {
+                windowed.add(Message.system(SUMMARY_HEADER + summary));
+            }
+        }
+        windowed.addAll(window);
+        windowed.add(messages.get(messages.size() - 1));
+        CompletionRequest copy = request.copy();
+        copy.setMessages(windowed);
+        return copy;
+    }
+
+    private static CompletionRequest summaryRequest(String summary, List<Message> dropped, int maxTokens) {
+        StringBuilder transcript = new StringBuilder();
+        if (summary != null) {
+            transcript.append("Previous summary:\n").append(summary).append("\n\nNew turns:\n");
+        }
+        for (Message message : dropped) {
+            transcript.append(message.getRole()).append(": ").append(message.getContent()).append('\n');
+        }
+        return CompletionRequest.builder()
+            .addSystemMessage(SUMMARY_INSTRUCTIONS)
+            .addUserMessage(transcript.toString())
+            .temperature(0.0)
+            .maxTokens(maxTokens)
+            .internal(true)
+            .build();
+    }
+
+    private static int countTokens(Tokenizer tokenizer, Message message) {
+        long key = Fingerprints.of(tokenizer.getEncoding().hashCode(), message);
+        Integer count = TOKEN_COUNTS.get(key);
+        if (count == null) {
+            count = Tokenizers.countTokens(tokenizer, message);
+            TOKEN_COUNTS.put(key, count);
+        }
+        return count;
+    }
+
+    private static long conversationKey(String configName, List<Message> opening) {
+        long fingerprint = Fingerprints.SEED;
+        if (configName != null) {
+            fingerprint = Fingerprints.of(fingerprint, configName);
+        }
+        return Fingerprints.of(fingerprint, opening);
+    }
+
+    /**
+     * Where the window of a conversation starts and what the turns before it are summarized as
+     */
+    private static final class Conversation {
+        private final int covered;
+        private final long fingerprint;
+        private final String summary;
+
+        Conversation(int covered, long fingerprint, String summary) {
+            this.covered = covered;
+            this.fingerprint = fingerprint;
+            this.summary = summary;
+        }
+
+        /**
+         * Whether a history continues the conversation this state was recorded for
+         */
+        boolean matches(List<Message> history) {
+            return covered <= history.size()
+                && Fingerprints.of(Fingerprints.SEED, history.subList(0, covered)) == fingerprint;
+        }
+    }
+
+    static void clear() {
+        CONVERSATIONS.clear();
+        TOKEN_COUNTS.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package com.mulemind.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Byte counts of the compressed request and response bodies of a configuration.
+ *
+ * Only compressed bodies are counted, so the savings compare each body with
+ * its own uncompressed size. Response bytes are added as the body is read.
+ */
+public class CompressionMetrics implements CompressionMetricsMXBean {
+
+    private final LongAdder compressedRequests = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder requestBytesSent = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder responseBytesReceived = new LongAdder();
+    private final LongAdder responseBytesDecoded = new LongAdder();
+
+    /**
+     * Record a compressed request body
+     *
+     * @param uncompressed size of the body before compression
+     * @param sent size of the body as sent
+     */
+    public void recordRequest(long uncompressed, long sent) {
+        compressedRequests.increment();
+        requestBytes.add(uncompressed);
+        requestBytesSent.add(sent);
+    }
+
+    public void recordResponse() {
+        compressedResponses.increment();
+    }
+
+    public void addResponseBytesReceived(long bytes) {
+        responseBytesReceived.add(bytes);
+    }
+
+    public void addResponseBytesDecoded(long bytes) {
+        responseBytesDecoded.add(bytes);
+    }
+
+    @Override
+    public long getCompressedRequests() {
+        return compressedRequests.sum();
+    }
+
+    @Override
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    @Override
+    public long getRequestBytesSent() {
+        return requestBytesSent.sum();
+    }
+
+    @Override
+    public long getRequestBytesSaved() {
+        return getRequestBytes() - getRequestBytesSent();
+    }
+
+    @Override
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    @Override
+    public long getResponseBytesReceived() {
+        return responseBytesReceived.sum();
+    }
+
+    @Override
+    public long getResponseBytesDecoded() {
+        return responseBytesDecoded.sum();
+    }
+
+    @Override
+    public long getResponseBytesSaved() {
+        return getResponseBytesDecoded() - getResponseBytesReceived();
+    }
+}
@@ -0,0 +1,35 @@
+package com.mulemind.metrics;
+
+/**
+ * JMX view of the request and response body compression of a configuration
+ */
+public interface CompressionMetricsMXBean {
+
+    long getCompressedRequests();
+
+    /**
+     * Size of the compressed request bodies before compression
+     */
+    long getRequestBytes();
+
+    /**
+     * Size of the compressed request bodies as sent
+     */
+    long getRequestBytesSent();
+
+    long getRequestBytesSaved();
+
+    long getCompressedResponses();
+
+    /**
+     * Size of the compressed response bodies as received
+     */
+    long getResponseBytesReceived();
+
+    /**
+     * Size of the compressed response bodies after decoding, as far as they were read
+     */
+    long getResponseBytesDecoded();
+
+    long getResponseBytesSaved();
+}
@@ -0,0 +1,78 @@
+package com.mulemind.metrics;
+
+import com.mulemind.connection.LlmConnection;
+import org.apache.hc.core5.pool.PoolStats;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Statistics of the blocking and async HTTP connection pools of a configuration.
+ *
+ * Follows the configuration's current connection, so the same MBean and
+ * meters keep reporting across reconnects. A closed connection reports zero.
+ */
+public class ConnectionPoolMetrics implements ConnectionPoolMetricsMXBean {
+
+    private volatile LlmConnection connection;
+
+    synchronized void setConnection(LlmConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Stop following a connection that is closed, unless a newer one replaced it
+     */
+    synchronized void clearConnection(LlmConnection closed) {
+        if (connection == closed) {
+            connection = null;
+        }
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        return stat(false, PoolStats::getLeased);
+    }
+
+    @Override
+    public int getAvailableConnections() {
+        return stat(false, PoolStats::getAvailable);
+    }
+
+    @Override
+    public int getPendingRequests() {
+        return stat(false, PoolStats::getPending);
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return stat(false, PoolStats::getMax);
+    }
+
+    @Override
+    public int getAsyncLeasedConnections() {
+        return stat(true, PoolStats::getLeased);
+    }
+
+    @Override
+    public int getAsyncAvailableConnections() {
+        return stat(true, PoolStats::getAvailable);
+    }
+
+    @Override
+    public int getAsyncPendingRequests() {
+        return stat(true, PoolStats::getPending);
+    }
+
+    @Override
+    public int getAsyncMaxConnections() {
+        return stat(true, PoolStats::getMax);
+    }
+
+    private int stat(boolean async, ToIntFunction<PoolStats> stat) {
+        LlmConnection current = connection;
+        if (current == null || !current.isOpen()) {
+            return 0;
+        }
+        return stat.applyAsInt(async ? current.getAsyncPoolStats() : current.getPoolStats());
+    }
+}
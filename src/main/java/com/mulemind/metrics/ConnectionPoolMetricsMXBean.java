@@ -0,0 +1,23 @@
+package com.mulemind.metrics;
+
+/**
+ * JMX view of the HTTP connection pools of a configuration
+ */
+public interface ConnectionPoolMetricsMXBean {
+
+    int getLeasedConnections();
+
+    int getAvailableConnections();
+
+    int getPendingRequests();
+
+    int getMaxConnections();
+
+    int getAsyncLeasedConnections();
+
+    int getAsyncAvailableConnections();
+
+    int getAsyncPendingRequests();
+
+    int getAsyncMaxConnections();
+}
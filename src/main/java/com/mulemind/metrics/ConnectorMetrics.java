@@ -0,0 +1,181 @@
+package com.mulemind.metrics;
+
+import com.mulemind.connection.LlmConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the connector's metrics, shared by every client of the application.
+ *
+ * Metrics are kept per configuration, provider and model, and are published
+ * when first created: as MBeans under the {@code com.mulemind} JMX domain,
+ * and to the Micrometer global registry when Micrometer is on the classpath.
+ * They are unpublished when their configuration is disposed, so that an
+ * undeployed application leaves nothing behind in the platform MBean server
+ * or the global registry.
+ */
+public final class ConnectorMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorMetrics.class);
+
+    private static final String DOMAIN = "com.mulemind";
+    private static final boolean MICROMETER_PRESENT = isPresent("io.micrometer.core.instrument.MeterRegistry");
+
+    private static final Map<String, ProviderMetrics> PROVIDERS = new ConcurrentHashMap<>();
+    private static final Map<String, ConnectionPoolMetrics> POOLS = new ConcurrentHashMap<>();
+    private static final Map<String, CompressionMetrics> COMPRESSION = new ConcurrentHashMap<>();
+
+    private ConnectorMetrics() {
+    }
+
+    /**
+     * Get the metrics of a model, creating and publishing them on first use
+     */
+    public static ProviderMetrics forModel(String configName, String provider, String model,
+                                           boolean jmx, boolean micrometer) {
+        String key = configName + "|" + provider + "|" + model;
+        ProviderMetrics metrics = PROVIDERS.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+        return PROVIDERS.computeIfAbsent(key, k -> {
+            ProviderMetrics created = new ProviderMetrics(provider, model);
+            if (jmx) {
+                register(created, "type=ProviderMetrics,config=" + quote(configName)
+                    + ",provider=" + quote(provider) + ",model=" + quote(model));
+            }
+            if (micrometer && MICROMETER_PRESENT) {
+                MicrometerMetrics.bindGlobal(configName, created);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Publish the connection pool statistics of a configuration, following its current connection
+     */
+    public static ConnectionPoolMetrics forPool(String configName, LlmConnection connection,
+                                                boolean jmx, boolean micrometer) {
+        ConnectionPoolMetrics metrics = POOLS.computeIfAbsent(configName, k -> {
+            ConnectionPoolMetrics created = new ConnectionPoolMetrics();
+            if (jmx) {
+                register(created, "type=ConnectionPool,config=" + quote(configName));
+            }
+            if (micrometer && MICROMETER_PRESENT) {
+                MicrometerMetrics.bindGlobal(configName, created);
+            }
+            return created;
+        });
+        metrics.setConnection(connection);
+        return metrics;
+    }
+
+    /**
+     * Get the compression metrics of a configuration, creating and publishing them on first use
+     */
+    public static CompressionMetrics forCompression(String configName, boolean jmx, boolean micrometer) {
+        return COMPRESSION.computeIfAbsent(String.valueOf(configName), k -> {
+            CompressionMetrics created = new CompressionMetrics();
+            if (jmx) {
+                register(created, "type=Compression,config=" + quote(configName));
+            }
+            if (micrometer && MICROMETER_PRESENT) {
+                MicrometerMetrics.bindGlobal(configName, created);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Unpublish and forget the metrics of a configuration
+     */
+    public static void release(String configName) {
+        String prefix = configName + "|";
+        Iterator<Map.Entry<String, ProviderMetrics>> providers = PROVIDERS.entrySet().iterator();
+        while (providers.hasNext()) {
+            Map.Entry<String, ProviderMetrics> entry = providers.next();
+            if (entry.getKey().startsWith(prefix)) {
+                entry.getValue().removeStatusListeners();
+                providers.remove();
+            }
+        }
+        if (configName != null) {
+            ConnectionPoolMetrics pool = POOLS.remove(configName);
+            if (pool != null) {
+                pool.setConnection(null);
+            }
+        }
+        COMPRESSION.remove(String.valueOf(configName));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName(DOMAIN + ":config=" + quote(configName) + ",*"), null)) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (InstanceNotFoundException e) {
+                    // Unregistered meanwhile
+                }
+            }
+        } catch (JMException | RuntimeException e) {
+            LOGGER.warn("Failed to unregister metrics MBeans of {}", configName, e);
+        }
+        if (MICROMETER_PRESENT) {
+            MicrometerMetrics.unbindGlobal(configName);
+        }
+    }
+
+    /**
+     * Stop reporting the pool statistics of a closed connection
+     */
+    public static void connectionClosed(LlmConnection connection) {
+        for (ConnectionPoolMetrics pool : POOLS.values()) {
+            pool.clearConnection(connection);
+        }
+    }
+
+    private static void register(Object mbean, String properties) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            // Left behind by a previous deployment of the application
+            try {
+                server.unregisterMBean(name);
+            } catch (InstanceNotFoundException e) {
+                // Not registered
+            }
+            server.registerMBean(mbean, name);
+        } catch (JMException | RuntimeException e) {
+            LOGGER.warn("Failed to register metrics MBean {}:{}", DOMAIN, properties, e);
+        }
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "default";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (",=:\"*?\n".indexOf(value.charAt(i)) >= 0) {
+                return ObjectName.quote(value);
+            }
+        }
+        return value;
+    }
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, ConnectorMetrics.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
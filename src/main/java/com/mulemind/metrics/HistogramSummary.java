@@ -0,0 +1,67 @@
+package com.mulemind.metrics;
+
+/**
+ * Summary statistics of a {@link Histogram}, exposed as a composite value over JMX
+ */
+public class HistogramSummary {
+
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p95;
+    private final double p99;
+    private final double max;
+
+    private HistogramSummary(long count, double mean, double p50, double p95, double p99, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * Summarize a snapshot, dividing the recorded values by a scale, e.g. 1000 for microseconds to milliseconds
+     */
+    static HistogramSummary of(Histogram.Snapshot snapshot, double scale) {
+        return new HistogramSummary(
+            snapshot.getCount(),
+            snapshot.getMean() / scale,
+            snapshot.getPercentile(50) / scale,
+            snapshot.getPercentile(95) / scale,
+            snapshot.getPercentile(99) / scale,
+            snapshot.getMax() / scale
+        );
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1f, p50=%.1f, p95=%.1f, p99=%.1f, max=%.1f",
+            count, mean, p50, p95, p99, max);
+    }
+}
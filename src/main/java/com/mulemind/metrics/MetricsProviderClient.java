@@ -0,0 +1,120 @@
+package com.mulemind.metrics;
+
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.streaming.CompletionStream;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Provider client that records the {@link ProviderMetrics} of every call.
+ *
+ * Sits directly around the provider, so each attempt made by the retry and
+ * hedging layers is measured on its own. Calls are attributed to the model of
+ * the request, or the configured model when the request does not name one.
+ * A stream is measured until it ends; streams closed before the end of the
+ * generation count as cancelled.
+ */
+public class MetricsProviderClient extends DelegatingProviderClient {
+
+    private final Function<String, ProviderMetrics> metricsByModel;
+
+    public MetricsProviderClient(LlmProviderClient delegate, Function<String, ProviderMetrics> metricsByModel) {
+        super(delegate);
+        this.metricsByModel = metricsByModel;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        ProviderMetrics metrics = metricsFor(request);
+        long start = metrics.recordStart();
+        try {
+            CompletionResponse response = delegate.complete(request);
+            metrics.recordSuccess(start, 0, response);
+            return response;
+        } catch (LlmProviderException | RuntimeException e) {
+            metrics.recordFailure(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        ProviderMetrics metrics = metricsFor(request);
+        long start = metrics.recordStart();
+        CompletableFuture<CompletionResponse> call;
+        try {
+            call = delegate.completeAsync(request);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(start, e);
+            throw e;
+        }
+        call.whenComplete((response, error) -> {
+            Throwable cause = error != null ? Futures.unwrap(error) : null;
+            if (cause == null) {
+                metrics.recordSuccess(start, 0, response);
+            } else if (cause instanceof CancellationException) {
+                metrics.recordCancelled(start);
+            } else {
+                metrics.recordFailure(start, cause);
+            }
+        });
+        return call;
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        ProviderMetrics metrics = metricsFor(request);
+        long start = metrics.recordStart();
+        CompletionStream stream;
+        try {
+            stream = delegate.stream(request);
+        } catch (LlmProviderException | RuntimeException e) {
+            metrics.recordFailure(start, e);
+            throw e;
+        }
+        stream.addListener(new StreamListener(metrics, start));
+        return stream;
+    }
+
+    private ProviderMetrics metricsFor(CompletionRequest request) {
+        String model = request.getModel() != null && !request.getModel().isEmpty()
+            ? request.getModel()
+            : getConfiguration().getEffectiveModel();
+        return metricsByModel.apply(model);
+    }
+
+    private static final class StreamListener implements CompletionStream.Listener {
+        private final ProviderMetrics metrics;
+        private final long start;
+        private long firstText;
+
+        StreamListener(ProviderMetrics metrics, long start) {
+            this.metrics = metrics;
+            this.start = start;
+        }
+
+        @Override
+        public void onFirstText(CompletionStream stream) {
+            firstText = metrics.recordFirstText(start);
+        }
+
+        @Override
+        public void onEnd(CompletionStream stream, IOException error) {
+            if (error != null) {
+                metrics.recordFailure(start, error);
+            } else if (stream.isComplete()) {
+                metrics.recordSuccess(start, firstText, stream.getResponse());
+            } else {
+                metrics.recordCancelled(start);
+            }
+        }
+    }
+}
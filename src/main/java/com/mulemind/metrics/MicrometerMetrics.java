@@ -0,0 +1,155 @@
+package com.mulemind.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Binds the connector's metrics to Micrometer meters.
+ *
+ * Only loaded when Micrometer is on the classpath. The meters read the
+ * connector's own counters when the registry is scraped, so recording does
+ * not go through Micrometer at all.
+ */
+final class MicrometerMetrics {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private MicrometerMetrics() {
+    }
+
+    static void bindGlobal(String configName, ProviderMetrics metrics) {
+        bind(Metrics.globalRegistry, configName, metrics);
+    }
+
+    static void bindGlobal(String configName, ConnectionPoolMetrics metrics) {
+        bind(Metrics.globalRegistry, configName, metrics);
+    }
+
+    static void bindGlobal(String configName, CompressionMetrics metrics) {
+        bind(Metrics.globalRegistry, configName, metrics);
+    }
+
+    /**
+     * Remove the meters of a configuration from the global registry
+     */
+    static void unbindGlobal(String configName) {
+        unbind(Metrics.globalRegistry, configName);
+    }
+
+    static void unbind(MeterRegistry registry, String configName) {
+        String config = String.valueOf(configName);
+        for (Meter meter : registry.getMeters()) {
+            if (meter.getId().getName().startsWith("mulemind.") && config.equals(meter.getId().getTag("config"))) {
+                registry.remove(meter);
+            }
+        }
+    }
+
+    static void bind(MeterRegistry registry, String configName, ProviderMetrics metrics) {
+        String[] tags = {"config", String.valueOf(configName), "provider", metrics.getProvider(), "model", metrics.getModel()};
+
+        FunctionCounter.builder("mulemind.requests", metrics, ProviderMetrics::getRequestCount)
+            .tags(tags)
+            .description("Calls made to the provider, including retries and hedges")
+            .register(registry);
+        Gauge.builder("mulemind.requests.active", metrics, ProviderMetrics::getInFlight)
+            .tags(tags)
+            .description("Calls to the provider in flight")
+            .register(registry);
+        FunctionCounter.builder("mulemind.tokens", metrics, ProviderMetrics::getPromptTokens)
+            .tags(tags)
+            .tag("type", "prompt")
+            .baseUnit("tokens")
+            .register(registry);
+        FunctionCounter.builder("mulemind.tokens", metrics, ProviderMetrics::getCompletionTokens)
+            .tags(tags)
+            .tag("type", "completion")
+            .baseUnit("tokens")
+            .register(registry);
+        FunctionCounter.builder("mulemind.tokens", metrics, ProviderMetrics::getCacheReadTokens)
+            .tags(tags)
+            .tag("type", "cache_read")
+            .baseUnit("tokens")
+            .register(registry);
+        FunctionCounter.builder("mulemind.tokens", metrics, ProviderMetrics::getCacheWriteTokens)
+            .tags(tags)
+            .tag("type", "cache_write")
+            .baseUnit("tokens")
+            .register(registry);
+        metrics.addStatusListener(statusCode ->
+            FunctionCounter.builder("mulemind.errors", metrics, m -> m.getErrorCount(statusCode))
+                .tags(tags)
+                .tag("status", String.valueOf(statusCode))
+                .description("Failed calls to the provider by HTTP status, -1 for failures without a status")
+                .register(registry));
+
+        for (double quantile : QUANTILES) {
+            String tag = String.valueOf(quantile);
+            Gauge.builder("mulemind.latency", metrics, m -> m.latencyHistogram().snapshot().getPercentile(quantile * 100) / 1e6)
+                .tags(tags)
+                .tag("quantile", tag)
+                .baseUnit("seconds")
+                .register(registry);
+            Gauge.builder("mulemind.time.to.first.token", metrics,
+                    m -> m.timeToFirstTokenHistogram().snapshot().getPercentile(quantile * 100) / 1e6)
+                .tags(tags)
+                .tag("quantile", tag)
+                .baseUnit("seconds")
+                .register(registry);
+            Gauge.builder("mulemind.tokens.per.second", metrics,
+                    m -> m.tokensPerSecondHistogram().snapshot().getPercentile(quantile * 100))
+                .tags(tags)
+                .tag("quantile", tag)
+                .register(registry);
+        }
+    }
+
+    static void bind(MeterRegistry registry, String configName, ConnectionPoolMetrics metrics) {
+        poolGauge(registry, configName, metrics, "blocking", "leased", ConnectionPoolMetrics::getLeasedConnections);
+        poolGauge(registry, configName, metrics, "blocking", "available", ConnectionPoolMetrics::getAvailableConnections);
+        poolGauge(registry, configName, metrics, "blocking", "pending", ConnectionPoolMetrics::getPendingRequests);
+        poolGauge(registry, configName, metrics, "blocking", "max", ConnectionPoolMetrics::getMaxConnections);
+        poolGauge(registry, configName, metrics, "async", "leased", ConnectionPoolMetrics::getAsyncLeasedConnections);
+        poolGauge(registry, configName, metrics, "async", "available", ConnectionPoolMetrics::getAsyncAvailableConnections);
+        poolGauge(registry, configName, metrics, "async", "pending", ConnectionPoolMetrics::getAsyncPendingRequests);
+        poolGauge(registry, configName, metrics, "async", "max", ConnectionPoolMetrics::getAsyncMaxConnections);
+    }
+
+    static void bind(MeterRegistry registry, String configName, CompressionMetrics metrics) {
+        String config = String.valueOf(configName);
+        FunctionCounter.builder("mulemind.compression.bodies", metrics, CompressionMetrics::getCompressedRequests)
+            .tags("config", config, "direction", "request")
+            .description("Compressed request and response bodies")
+            .register(registry);
+        FunctionCounter.builder("mulemind.compression.bodies", metrics, CompressionMetrics::getCompressedResponses)
+            .tags("config", config, "direction", "response")
+            .description("Compressed request and response bodies")
+            .register(registry);
+        compressionCounter(registry, config, metrics, "request", "uncompressed", CompressionMetrics::getRequestBytes);
+        compressionCounter(registry, config, metrics, "request", "compressed", CompressionMetrics::getRequestBytesSent);
+        compressionCounter(registry, config, metrics, "response", "uncompressed", CompressionMetrics::getResponseBytesDecoded);
+        compressionCounter(registry, config, metrics, "response", "compressed", CompressionMetrics::getResponseBytesReceived);
+    }
+
+    private static void compressionCounter(MeterRegistry registry, String config, CompressionMetrics metrics,
+                                           String direction, String form, ToDoubleFunction<CompressionMetrics> bytes) {
+        FunctionCounter.builder("mulemind.compression.bytes", metrics, bytes)
+            .tags("config", config, "direction", direction, "form", form)
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    private static void poolGauge(MeterRegistry registry, String configName, ConnectionPoolMetrics metrics,
+                                  String pool, String state, ToIntFunction<ConnectionPoolMetrics> stat) {
+        ToDoubleFunction<ConnectionPoolMetrics> value = stat::applyAsInt;
+        Gauge.builder("mulemind.pool.connections", metrics, value)
+            .tags("config", String.valueOf(configName), "pool", pool, "state", state)
+            .register(registry);
+    }
+}
@@ -0,0 +1,223 @@
+package com.mulemind.metrics;
+
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.LlmProviderException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Latency, throughput, token and error metrics of one provider and model.
+ *
+ * Recording only touches striped counters, so it is cheap on the request
+ * path even when many threads call the same model. Latencies are recorded in
+ * microseconds and reported in milliseconds.
+ */
+public class ProviderMetrics implements ProviderMetricsMXBean {
+
+    private final String provider;
+    private final String model;
+
+    private final Histogram latency = new Histogram();
+    private final Histogram timeToFirstToken = new Histogram();
+    private final Histogram tokensPerSecond = new Histogram();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder completionTokens = new LongAdder();
+    private final LongAdder cacheReadTokens = new LongAdder();
+    private final LongAdder cacheWriteTokens = new LongAdder();
+    private final Map<Integer, LongAdder> errorsByStatus = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<IntConsumer> statusListeners = new CopyOnWriteArrayList<>();
+
+    public ProviderMetrics(String provider, String model) {
+        this.provider = provider;
+        this.model = model;
+    }
+
+    /**
+     * Record the start of a call
+     *
+     * @return the start time to pass to the other record methods
+     */
+    public long recordStart() {
+        requests.increment();
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the arrival of the first text of a stream
+     *
+     * @return the arrival time
+     */
+    public long recordFirstText(long start) {
+        long now = System.nanoTime();
+        timeToFirstToken.record(TimeUnit.NANOSECONDS.toMicros(now - start));
+        return now;
+    }
+
+    /**
+     * Record a successful call
+     *
+     * @param firstText the arrival time of the first text of a stream, or 0;
+     *                  the throughput of a stream is measured from it
+     */
+    public void recordSuccess(long start, long firstText, CompletionResponse response) {
+        long end = System.nanoTime();
+        inFlight.decrement();
+        latency.record(TimeUnit.NANOSECONDS.toMicros(end - start));
+        CompletionResponse.Usage usage = response != null ? response.getUsage() : null;
+        if (usage == null) {
+            return;
+        }
+        if (usage.getPromptTokens() != null) {
+            promptTokens.add(usage.getPromptTokens());
+        }
+        if (usage.getCacheReadTokens() != null) {
+            cacheReadTokens.add(usage.getCacheReadTokens());
+        }
+        if (usage.getCacheWriteTokens() != null) {
+            cacheWriteTokens.add(usage.getCacheWriteTokens());
+        }
+        if (usage.getCompletionTokens() != null && usage.getCompletionTokens() > 0) {
+            completionTokens.add(usage.getCompletionTokens());
+            long generation = end - (firstText != 0 ? firstText : start);
+            if (generation > 0) {
+                tokensPerSecond.record(Math.round(usage.getCompletionTokens() * 1e9 / generation));
+            }
+        }
+    }
+
+    /**
+     * Record a failed call
+     */
+    public void recordFailure(long start, Throwable error) {
+        inFlight.decrement();
+        errors.increment();
+        int statusCode = error instanceof LlmProviderException ? ((LlmProviderException) error).getStatusCode() : -1;
+        LongAdder counter = errorsByStatus.get(statusCode);
+        if (counter == null) {
+            counter = errorsByStatus.computeIfAbsent(statusCode, code -> new LongAdder());
+            for (IntConsumer listener : statusListeners) {
+                listener.accept(statusCode);
+            }
+        }
+        counter.increment();
+    }
+
+    /**
+     * Record a call abandoned by the caller, e.g. the losing call of a hedge
+     */
+    public void recordCancelled(long start) {
+        inFlight.decrement();
+    }
+
+    /**
+     * Get the number of errors with a status code, or 0 if there were none
+     */
+    public long getErrorCount(int statusCode) {
+        LongAdder counter = errorsByStatus.get(statusCode);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Notify a listener of every status code already seen and of each new one
+     */
+    void removeStatusListeners() {
+        statusListeners.clear();
+    }
+
+    void addStatusListener(IntConsumer listener) {
+        statusListeners.add(listener);
+        for (Integer statusCode : errorsByStatus.keySet()) {
+            listener.accept(statusCode);
+        }
+    }
+
+    Histogram latencyHistogram() {
+        return latency;
+    }
+
+    Histogram timeToFirstTokenHistogram() {
+        return timeToFirstToken;
+    }
+
+    Histogram tokensPerSecondHistogram() {
+        return tokensPerSecond;
+    }
+
+    @Override
+    public String getProvider() {
+        return provider;
+    }
+
+    @Override
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByStatus() {
+        Map<String, Long> counts = new TreeMap<>();
+        errorsByStatus.forEach((statusCode, counter) -> counts.put(String.valueOf(statusCode), counter.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public long getPromptTokens() {
+        return promptTokens.sum();
+    }
+
+    @Override
+    public long getCompletionTokens() {
+        return completionTokens.sum();
+    }
+
+    @Override
+    public long getCacheReadTokens() {
+        return cacheReadTokens.sum();
+    }
+
+    @Override
+    public long getCacheWriteTokens() {
+        return cacheWriteTokens.sum();
+    }
+
+    @Override
+    public HistogramSummary getLatency() {
+        return HistogramSummary.of(latency.snapshot(), 1000.0);
+    }
+
+    @Override
+    public HistogramSummary getTimeToFirstToken() {
+        return HistogramSummary.of(timeToFirstToken.snapshot(), 1000.0);
+    }
+
+    @Override
+    public HistogramSummary getTokensPerSecond() {
+        return HistogramSummary.of(tokensPerSecond.snapshot(), 1.0);
+    }
+}
@@ -0,0 +1,56 @@
+package com.mulemind.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of one provider and model
+ */
+public interface ProviderMetricsMXBean {
+
+    String getProvider();
+
+    String getModel();
+
+    /**
+     * Number of calls made to the provider, including retries and hedges
+     */
+    long getRequestCount();
+
+    long getErrorCount();
+
+    /**
+     * Number of failed calls by HTTP status code; "-1" counts failures without a status such as I/O errors
+     */
+    Map<String, Long> getErrorsByStatus();
+
+    long getInFlight();
+
+    long getPromptTokens();
+
+    long getCompletionTokens();
+
+    /**
+     * Prompt tokens read from the provider's prompt cache, included in the prompt tokens
+     */
+    long getCacheReadTokens();
+
+    /**
+     * Prompt tokens written to the provider's prompt cache, included in the prompt tokens
+     */
+    long getCacheWriteTokens();
+
+    /**
+     * Latency of successful calls in milliseconds, until the whole response was received
+     */
+    HistogramSummary getLatency();
+
+    /**
+     * Time to the first text of successful streams in milliseconds
+     */
+    HistogramSummary getTimeToFirstToken();
+
+    /**
+     * Generation throughput of successful calls in completion tokens per second
+     */
+    HistogramSummary getTokensPerSecond();
+}
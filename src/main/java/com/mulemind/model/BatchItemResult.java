@@ -0,0 +1,110 @@
+package com.mulemind.model;
+
+/**
+ * Outcome of a single request in a batch completion or provider batch job
+ */
+public class BatchItemResult {
+
+    private int index;
+    private String customId;
+    private boolean success;
+    private String content;
+    private CompletionResponse response;
+    private String errorMessage;
+    private Integer statusCode;
+
+    public static BatchItemResult success(int index, CompletionResponse response) {
+        BatchItemResult result = new BatchItemResult();
+        result.index = index;
+        result.success = true;
+        result.response = response;
+        result.content = response.getContent();
+        return result;
+    }
+
+    public static BatchItemResult failure(int index, String errorMessage, Integer statusCode) {
+        BatchItemResult result = new BatchItemResult();
+        result.index = index;
+        result.success = false;
+        result.errorMessage = errorMessage;
+        result.statusCode = statusCode;
+        return result;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Get the id that correlates the result with its request in a provider
+     * batch job, or null for a batch completion
+     */
+    public String getCustomId() {
+        return customId;
+    }
+
+    public void setCustomId(String customId) {
+        this.customId = customId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public CompletionResponse getResponse() {
+        return response;
+    }
+
+    public void setResponse(CompletionResponse response) {
+        this.response = response;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Get the HTTP status code returned by the provider for a failed item, or null
+     * if the failure did not come from an HTTP response
+     */
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(Integer statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+                "index=" + index +
+                ", customId='" + customId + '\'' +
+                ", success=" + success +
+                ", content='" + content + '\'' +
+                ", errorMessage='" + errorMessage + '\'' +
+                ", statusCode=" + statusCode +
+                '}';
+    }
+}
@@ -0,0 +1,133 @@
+package com.mulemind.model;
+
+/**
+ * Provider-side batch job, as reported by the OpenAI Batch or Anthropic
+ * Message Batches API
+ */
+public class BatchJob {
+
+    /**
+     * Provider-independent job status
+     */
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED,
+        FAILED,
+        EXPIRED,
+        CANCELLING,
+        CANCELLED
+    }
+
+    private String id;
+    private String provider;
+    private Status status;
+    private String providerStatus;
+    private Integer requestCount;
+    private Integer succeededCount;
+    private Integer failedCount;
+    private String outputLocation;
+    private String errorLocation;
+
+    /**
+     * Whether the provider has finished processing the job and no results will be added
+     */
+    public boolean isDone() {
+        return status != Status.IN_PROGRESS && status != Status.CANCELLING;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Get the status exactly as reported by the provider (e.g. "finalizing", "ended")
+     */
+    public String getProviderStatus() {
+        return providerStatus;
+    }
+
+    public void setProviderStatus(String providerStatus) {
+        this.providerStatus = providerStatus;
+    }
+
+    public Integer getRequestCount() {
+        return requestCount;
+    }
+
+    public void setRequestCount(Integer requestCount) {
+        this.requestCount = requestCount;
+    }
+
+    public Integer getSucceededCount() {
+        return succeededCount;
+    }
+
+    public void setSucceededCount(Integer succeededCount) {
+        this.succeededCount = succeededCount;
+    }
+
+    public Integer getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(Integer failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    /**
+     * Get where the results are read from: the output file id for OpenAI,
+     * the results URL for Anthropic
+     */
+    public String getOutputLocation() {
+        return outputLocation;
+    }
+
+    public void setOutputLocation(String outputLocation) {
+        this.outputLocation = outputLocation;
+    }
+
+    /**
+     * Get the error file id of an OpenAI job, or null
+     */
+    public String getErrorLocation() {
+        return errorLocation;
+    }
+
+    public void setErrorLocation(String errorLocation) {
+        this.errorLocation = errorLocation;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchJob{" +
+                "id='" + id + '\'' +
+                ", provider='" + provider + '\'' +
+                ", status=" + status +
+                ", providerStatus='" + providerStatus + '\'' +
+                ", requestCount=" + requestCount +
+                ", succeededCount=" + succeededCount +
+                ", failedCount=" + failedCount +
+                '}';
+    }
+}
@@ -1,5 +1,6 @@
 package com.mulemind.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
@@ -20,6 +21,9 @@ public class CompletionRequest {
     
     private Boolean stream;
     
+    @JsonProperty("stream_options")
+    private StreamOptions streamOptions;
+    
     @JsonProperty("top_p")
     private Double topP;
     
@@ -28,6 +32,13 @@ public class CompletionRequest {
     
     @JsonProperty("presence_penalty")
     private Double presencePenalty;
+    
+    @JsonProperty("prompt_cache_key")
+    private String promptCacheKey;
+
+    // Issued by the connector itself, such as a history summary; the flag is not sent to the provider
+    @JsonIgnore
+    private boolean internal;
 
     public CompletionRequest() {
         this.messages = new ArrayList<>();
@@ -98,6 +109,11 @@ public class CompletionRequest {
             return this;
         }
 
+        public Builder internal(boolean internal) {
+            request.internal = internal;
+            return this;
+        }
+
         public CompletionRequest build() {
             return request;
         }
@@ -144,6 +160,14 @@ public class CompletionRequest {
         this.stream = stream;
     }
 
+    public StreamOptions getStreamOptions() {
+        return streamOptions;
+    }
+
+    public void setStreamOptions(StreamOptions streamOptions) {
+        this.streamOptions = streamOptions;
+    }
+
     public Double getTopP() {
         return topP;
     }
@@ -167,4 +191,67 @@ public class CompletionRequest {
     public void setPresencePenalty(Double presencePenalty) {
         this.presencePenalty = presencePenalty;
     }
+
+    public String getPromptCacheKey() {
+        return promptCacheKey;
+    }
+
+    public void setPromptCacheKey(String promptCacheKey) {
+        this.promptCacheKey = promptCacheKey;
+    }
+
+    /**
+     * Whether the connector issued the request itself rather than a flow; such
+     * requests are never answered from the semantic cache
+     */
+    @JsonIgnore
+    public boolean isInternal() {
+        return internal;
+    }
+
+    @JsonIgnore
+    public void setInternal(boolean internal) {
+        this.internal = internal;
+    }
+
+    /**
+     * Create a copy that can be sent, and defaulted, independently of this request
+     */
+    public CompletionRequest copy() {
+        CompletionRequest copy = new CompletionRequest(model, new ArrayList<>(messages));
+        copy.temperature = temperature;
+        copy.maxTokens = maxTokens;
+        copy.stream = stream;
+        copy.streamOptions = streamOptions;
+        copy.topP = topP;
+        copy.frequencyPenalty = frequencyPenalty;
+        copy.presencePenalty = presencePenalty;
+        copy.promptCacheKey = promptCacheKey;
+        copy.internal = internal;
+        return copy;
+    }
+
+    /**
+     * Options for streamed responses
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class StreamOptions {
+        @JsonProperty("include_usage")
+        private Boolean includeUsage;
+
+        public StreamOptions() {
+        }
+
+        public StreamOptions(Boolean includeUsage) {
+            this.includeUsage = includeUsage;
+        }
+
+        public Boolean getIncludeUsage() {
+            return includeUsage;
+        }
+
+        public void setIncludeUsage(Boolean includeUsage) {
+            this.includeUsage = includeUsage;
+        }
+    }
 }
@@ -1,8 +1,11 @@
 package com.mulemind.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Universal LLM completion response model
@@ -19,6 +22,14 @@ public class CompletionResponse {
     
     @JsonProperty("system_fingerprint")
     private String systemFingerprint;
+    
+    private boolean cached;
+    
+    @JsonIgnore
+    private RateLimits rateLimits;
+    
+    @JsonProperty("served_by")
+    private String servedBy;
 
     // Getters and Setters
     public String getId() {
@@ -77,6 +88,40 @@ public class CompletionResponse {
         this.systemFingerprint = systemFingerprint;
     }
 
+    /**
+     * Whether this response was served from the connector's response cache
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    /**
+     * Get the rate-limit state the provider reported with this response, or null
+     */
+    public RateLimits getRateLimits() {
+        return rateLimits;
+    }
+
+    public void setRateLimits(RateLimits rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
+    /**
+     * Get the routing target that served this response (e.g. "Anthropic:claude-3-5-sonnet-20241022"),
+     * or null if failover routing is not configured
+     */
+    public String getServedBy() {
+        return servedBy;
+    }
+
+    public void setServedBy(String servedBy) {
+        this.servedBy = servedBy;
+    }
+
     /**
      * Convenience method to get the first choice content
      */
@@ -133,6 +178,12 @@ public class CompletionResponse {
         
         @JsonProperty("total_tokens")
         private Integer totalTokens;
+        
+        @JsonProperty("cache_read_tokens")
+        private Integer cacheReadTokens;
+        
+        @JsonProperty("cache_write_tokens")
+        private Integer cacheWriteTokens;
 
         public Integer getPromptTokens() {
             return promptTokens;
@@ -158,12 +209,46 @@ public class CompletionResponse {
             this.totalTokens = totalTokens;
         }
 
+        /**
+         * Prompt tokens read from the provider's prompt cache, included in the prompt tokens
+         */
+        public Integer getCacheReadTokens() {
+            return cacheReadTokens;
+        }
+
+        public void setCacheReadTokens(Integer cacheReadTokens) {
+            this.cacheReadTokens = cacheReadTokens;
+        }
+
+        /**
+         * Prompt tokens written to the provider's prompt cache, included in the prompt tokens
+         */
+        public Integer getCacheWriteTokens() {
+            return cacheWriteTokens;
+        }
+
+        public void setCacheWriteTokens(Integer cacheWriteTokens) {
+            this.cacheWriteTokens = cacheWriteTokens;
+        }
+
+        /**
+         * OpenAI reports cached prompt tokens in the prompt token details
+         */
+        @JsonSetter("prompt_tokens_details")
+        private void setPromptTokensDetails(Map<String, Object> details) {
+            if (details != null && details.get("cached_tokens") instanceof Number) {
+                cacheReadTokens = ((Number) details.get("cached_tokens")).intValue();
+            }
+        }
+
         @Override
         public String toString() {
             return "Usage{" +
                     "promptTokens=" + promptTokens +
                     ", completionTokens=" + completionTokens +
                     ", totalTokens=" + totalTokens +
+                    ", cacheReadTokens=" + cacheReadTokens +
+                    ", cacheWriteTokens=" + cacheWriteTokens +
                     '}';
         }
     }
@@ -175,6 +260,8 @@ public class CompletionResponse {
                 ", model='" + model + '\'' +
                 ", content='" + getContent() + '\'' +
                 ", usage=" + usage +
+                ", cached=" + cached +
+                ", servedBy='" + servedBy + '\'' +
                 '}';
     }
 }
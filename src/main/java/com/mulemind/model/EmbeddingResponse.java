@@ -0,0 +1,60 @@
+package com.mulemind.model;
+
+import java.util.List;
+
+/**
+ * Embedding vectors, one per input text, in input order
+ */
+public class EmbeddingResponse {
+
+    private String model;
+    private List<float[]> embeddings;
+    private Integer promptTokens;
+    private boolean cached;
+
+    public EmbeddingResponse() {
+    }
+
+    public EmbeddingResponse(String model, List<float[]> embeddings) {
+        this.model = model;
+        this.embeddings = embeddings;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public List<float[]> getEmbeddings() {
+        return embeddings;
+    }
+
+    public void setEmbeddings(List<float[]> embeddings) {
+        this.embeddings = embeddings;
+    }
+
+    /**
+     * Get the tokens billed for the request, or null if unknown, e.g. for a share of a batch
+     */
+    public Integer getPromptTokens() {
+        return promptTokens;
+    }
+
+    public void setPromptTokens(Integer promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+
+    /**
+     * Whether every vector was served from the embedding cache
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mulemind.model;
+
+/**
+ * Rate-limit state reported by the provider with a response
+ */
+public class RateLimits {
+
+    private Long requestLimit;
+    private Long requestsRemaining;
+    private Long tokenLimit;
+    private Long tokensRemaining;
+
+    /**
+     * Get the request budget per minute, or null if not reported
+     */
+    public Long getRequestLimit() {
+        return requestLimit;
+    }
+
+    public void setRequestLimit(Long requestLimit) {
+        this.requestLimit = requestLimit;
+    }
+
+    public Long getRequestsRemaining() {
+        return requestsRemaining;
+    }
+
+    public void setRequestsRemaining(Long requestsRemaining) {
+        this.requestsRemaining = requestsRemaining;
+    }
+
+    /**
+     * Get the token budget per minute, or null if not reported
+     */
+    public Long getTokenLimit() {
+        return tokenLimit;
+    }
+
+    public void setTokenLimit(Long tokenLimit) {
+        this.tokenLimit = tokenLimit;
+    }
+
+    public Long getTokensRemaining() {
+        return tokensRemaining;
+    }
+
+    public void setTokensRemaining(Long tokensRemaining) {
+        this.tokensRemaining = tokensRemaining;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimits{" +
+                "requestLimit=" + requestLimit +
+                ", requestsRemaining=" + requestsRemaining +
+                ", tokenLimit=" + tokenLimit +
+                ", tokensRemaining=" + tokensRemaining +
+                '}';
+    }
+}
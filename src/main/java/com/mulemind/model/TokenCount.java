@@ -0,0 +1,71 @@
+package com.mulemind.model;
+
+/**
+ * Result of counting the tokens of a text or conversation locally
+ */
+public class TokenCount {
+
+    private String model;
+    private String encoding;
+    private int tokens;
+    private boolean exact;
+    private Integer contextWindow;
+
+    // Getters and Setters
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    /**
+     * Get the name of the encoding the tokens were counted with, or
+     * "approximate" for an estimate
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    public int getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(int tokens) {
+        this.tokens = tokens;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public void setExact(boolean exact) {
+        this.exact = exact;
+    }
+
+    /**
+     * Get the context window of the model, or null if it is not known
+     */
+    public Integer getContextWindow() {
+        return contextWindow;
+    }
+
+    public void setContextWindow(Integer contextWindow) {
+        this.contextWindow = contextWindow;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenCount{" +
+                "model='" + model + '\'' +
+                ", encoding='" + encoding + '\'' +
+                ", tokens=" + tokens +
+                ", exact=" + exact +
+                '}';
+    }
+}
@@ -1,26 +1,54 @@
 package com.mulemind.operations;
 
+import com.mulemind.batch.BatchCompletionExecutor;
+import com.mulemind.batch.BatchResultPagingProvider;
 import com.mulemind.config.LlmConfiguration;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.history.ConversationWindow;
+import com.mulemind.model.BatchItemResult;
+import com.mulemind.model.BatchJob;
 import com.mulemind.model.CompletionRequest;
 import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.EmbeddingRequest;
 import com.mulemind.model.Message;
+import com.mulemind.model.TokenCount;
+import com.mulemind.provider.BatchCapable;
+import com.mulemind.provider.Futures;
 import com.mulemind.provider.LlmProviderClient;
 import com.mulemind.provider.LlmProviderException;
-import com.mulemind.provider.LlmProviderFactory;
+import com.mulemind.session.SessionStore;
+import com.mulemind.streaming.CompletionStream;
+import com.mulemind.tokenizer.ContextWindows;
+import com.mulemind.tokenizer.PreflightCheck;
+import com.mulemind.tokenizer.Tokenizer;
+import com.mulemind.tokenizer.Tokenizers;
 import org.mule.runtime.extension.api.annotation.param.Config;
+import org.mule.runtime.extension.api.annotation.param.Connection;
+import org.mule.runtime.extension.api.annotation.param.MediaType;
 import org.mule.runtime.extension.api.annotation.param.Optional;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 import org.mule.runtime.extension.api.annotation.param.display.Summary;
 import org.mule.runtime.extension.api.annotation.param.display.Text;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
+import org.mule.runtime.extension.api.runtime.streaming.PagingProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * LLM Connector Operations
+ *
+ * Completion operations are non-blocking: the request is sent on the async
+ * HTTP client and the flow resumes through the completion callback, so no Mule
+ * thread is parked while the provider generates the response.
  */
 public class LlmOperations {
 
@@ -30,71 +58,96 @@ public class LlmOperations {
      * Chat Completion - Send a chat message to the LLM
      *
      * @param configuration the connector configuration
+     * @param connection the pooled connection
      * @param userMessage the user's message
      * @param systemPrompt optional system prompt to set context
      * @param conversationHistory optional conversation history
      * @param temperature optional temperature override
      * @param maxTokens optional max tokens override
-     * @return the LLM's response
+     * @param callback completed with the LLM's response
      */
     @DisplayName("Chat Completion")
     @Summary("Send a chat message to the LLM and get a response")
-    public String chatCompletion(
+    public void chatCompletion(
             @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
             @DisplayName("User Message") @Text String userMessage,
             @Optional @DisplayName("System Prompt") @Text String systemPrompt,
             @Optional @DisplayName("Conversation History") List<Map<String, String>> conversationHistory,
             @Optional @DisplayName("Temperature") Double temperature,
-            @Optional @DisplayName("Max Tokens") Integer maxTokens
-    ) throws LlmProviderException {
+            @Optional @DisplayName("Max Tokens") Integer maxTokens,
+            CompletionCallback<String, Void> callback
+    ) {
         
         LOGGER.info("Executing chat completion with provider: {}", configuration.getProvider());
         
-        LlmProviderClient provider = LlmProviderFactory.createProvider(configuration);
+        LlmProviderClient provider = connection.getClient(configuration);
         
-        CompletionRequest.Builder requestBuilder = CompletionRequest.builder();
-        
-        // Add system prompt if provided
-        if (systemPrompt != null && !systemPrompt.trim().isEmpty()) {
-            requestBuilder.addSystemMessage(systemPrompt);
-        }
+        CompletionRequest request = buildChatRequest(userMessage, systemPrompt, conversationHistory, temperature, maxTokens);
         
-        // Add conversation history if provided
-        if (conversationHistory != null) {
-            for (Map<String, String> msg : conversationHistory) {
-                String role = msg.get("role");
-                String content = msg.get("content");
-                if (role != null && content != null) {
-                    requestBuilder.addMessage(role, content);
-                }
+        ConversationWindow.apply(request, configuration, provider).thenCompose(windowed -> {
+            try {
+                PreflightCheck.apply(windowed, configuration);
+            } catch (LlmProviderException e) {
+                return CompletableFuture.<CompletionResponse>failedFuture(e);
             }
-        }
-        
-        // Add current user message
-        requestBuilder.addUserMessage(userMessage);
-        
-        // Override temperature if provided
-        if (temperature != null) {
-            requestBuilder.temperature(temperature);
-        }
+            return provider.completeAsync(windowed);
+        }).whenComplete((response, error) -> {
+            if (error != null) {
+                callback.error(Futures.unwrap(error));
+                return;
+            }
+            LOGGER.info("Chat completion successful. Tokens used: {}", response.getUsage());
+            callback.success(Result.<String, Void>builder().output(response.getContent()).build());
+        });
+    }
+
+    /**
+     * Stream Chat Completion - Send a chat message and stream the response as it is generated
+     *
+     * @param configuration the connector configuration
+     * @param connection the pooled connection
+     * @param userMessage the user's message
+     * @param systemPrompt optional system prompt to set context
+     * @param conversationHistory optional conversation history
+     * @param temperature optional temperature override
+     * @param maxTokens optional max tokens override
+     * @return the generated text as a stream, with the response metadata as attributes
+     */
+    @DisplayName("Stream Chat Completion")
+    @Summary("Send a chat message to the LLM and stream the response as it is generated")
+    @MediaType(value = MediaType.TEXT_PLAIN, strict = false)
+    public Result<InputStream, CompletionResponse> streamChatCompletion(
+            @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
+            @DisplayName("User Message") @Text String userMessage,
+            @Optional @DisplayName("System Prompt") @Text String systemPrompt,
+            @Optional @DisplayName("Conversation History") List<Map<String, String>> conversationHistory,
+            @Optional @DisplayName("Temperature") Double temperature,
+            @Optional @DisplayName("Max Tokens") Integer maxTokens
+    ) throws LlmProviderException {
         
-        // Override max tokens if provided
-        if (maxTokens != null) {
-            requestBuilder.maxTokens(maxTokens);
-        }
+        LOGGER.info("Executing streaming chat completion with provider: {}", configuration.getProvider());
         
-        CompletionRequest request = requestBuilder.build();
-        CompletionResponse response = provider.complete(request);
+        LlmProviderClient provider = connection.getClient(configuration);
         
-        LOGGER.info("Chat completion successful. Tokens used: {}", response.getUsage());
+        CompletionRequest request = buildChatRequest(userMessage, systemPrompt, conversationHistory, temperature, maxTokens);
+        request = Futures.await(ConversationWindow.apply(request, configuration, provider),
+            configuration.getProvider().getDisplayName());
+        CompletionStream stream = provider.stream(request);
         
-        return response.getContent();
+        // The attributes are filled in as the stream is consumed
+        return Result.<InputStream, CompletionResponse>builder()
+            .output(stream)
+            .attributes(stream.getResponse())
+            .build();
     }
 
     /**
      * Advanced Chat - Send a chat request with full control
      *
      * @param configuration the connector configuration
+     * @param connection the pooled connection
      * @param messages list of messages in the conversation
      * @param model optional model override
      * @param temperature optional temperature
@@ -102,24 +155,26 @@ public class LlmOperations {
      * @param topP optional top P
      * @param frequencyPenalty optional frequency penalty
      * @param presencePenalty optional presence penalty
-     * @return the complete response object
+     * @param callback completed with the complete response object
      */
     @DisplayName("Advanced Chat")
     @Summary("Send a chat request with full control over all parameters")
-    public CompletionResponse advancedChat(
+    public void advancedChat(
             @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
             @DisplayName("Messages") List<Map<String, String>> messages,
             @Optional @DisplayName("Model Override") String model,
             @Optional @DisplayName("Temperature") Double temperature,
             @Optional @DisplayName("Max Tokens") Integer maxTokens,
             @Optional @DisplayName("Top P") Double topP,
             @Optional @DisplayName("Frequency Penalty") Double frequencyPenalty,
-            @Optional @DisplayName("Presence Penalty") Double presencePenalty
-    ) throws LlmProviderException {
+            @Optional @DisplayName("Presence Penalty") Double presencePenalty,
+            CompletionCallback<CompletionResponse, Void> callback
+    ) {
         
         LOGGER.info("Executing advanced chat with provider: {}", configuration.getProvider());
         
-        LlmProviderClient provider = LlmProviderFactory.createProvider(configuration);
+        LlmProviderClient provider = connection.getClient(configuration);
         
         CompletionRequest.Builder requestBuilder = CompletionRequest.builder();
         
@@ -141,45 +196,369 @@ public class LlmOperations {
         if (presencePenalty != null) requestBuilder.presencePenalty(presencePenalty);
         
         CompletionRequest request = requestBuilder.build();
-        CompletionResponse response = provider.complete(request);
-        
-        LOGGER.info("Advanced chat successful. Tokens used: {}", response.getUsage());
+        try {
+            PreflightCheck.apply(request, configuration);
+        } catch (LlmProviderException e) {
+            callback.error(e);
+            return;
+        }
         
-        return response;
+        provider.completeAsync(request).whenComplete((response, error) -> {
+            if (error != null) {
+                callback.error(Futures.unwrap(error));
+                return;
+            }
+            LOGGER.info("Advanced chat successful. Tokens used: {}", response.getUsage());
+            callback.success(Result.<CompletionResponse, Void>builder().output(response).build());
+        });
     }
 
     /**
      * Simple Prompt - Send a simple prompt and get a response
      *
      * @param configuration the connector configuration
+     * @param connection the pooled connection
      * @param prompt the prompt text
-     * @return the LLM's response
+     * @param callback completed with the LLM's response
      */
     @DisplayName("Simple Prompt")
     @Summary("Send a simple prompt to the LLM")
-    public String simplePrompt(
+    public void simplePrompt(
             @Config LlmConfiguration configuration,
-            @DisplayName("Prompt") @Text String prompt
-    ) throws LlmProviderException {
+            @Connection LlmConnection connection,
+            @DisplayName("Prompt") @Text String prompt,
+            CompletionCallback<String, Void> callback
+    ) {
         
         LOGGER.info("Executing simple prompt with provider: {}", configuration.getProvider());
         
-        return chatCompletion(configuration, prompt, null, null, null, null);
+        chatCompletion(configuration, connection, prompt, null, null, null, null, callback);
+    }
+
+    /**
+     * Session Chat - Send a chat message in a conversation whose history the connector keeps
+     *
+     * Only the new message is passed in; the earlier turns of the session are
+     * read from the session store and the exchange is appended to it once the
+     * response arrives. A failed call leaves the session unchanged.
+     *
+     * @param configuration the connector configuration
+     * @param connection the pooled connection
+     * @param sessionId the conversation's session id
+     * @param userMessage the user's message
+     * @param systemPrompt optional system prompt to set context
+     * @param temperature optional temperature override
+     * @param maxTokens optional max tokens override
+     * @param callback completed with the LLM's response
+     */
+    @DisplayName("Session Chat")
+    @Summary("Send a chat message in a conversation whose history is kept by the connector")
+    public void sessionChat(
+            @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
+            @DisplayName("Session ID") String sessionId,
+            @DisplayName("User Message") @Text String userMessage,
+            @Optional @DisplayName("System Prompt") @Text String systemPrompt,
+            @Optional @DisplayName("Temperature") Double temperature,
+            @Optional @DisplayName("Max Tokens") Integer maxTokens,
+            CompletionCallback<String, Void> callback
+    ) {
+        
+        LOGGER.info("Executing session chat with provider: {}", configuration.getProvider());
+        
+        LlmProviderClient provider = connection.getClient(configuration);
+        SessionStore sessions = SessionStore.forConfiguration(configuration);
+        
+        CompletionRequest.Builder requestBuilder = CompletionRequest.builder();
+        if (systemPrompt != null && !systemPrompt.trim().isEmpty()) {
+            requestBuilder.addSystemMessage(systemPrompt);
+        }
+        for (Message message : sessions.load(sessionId)) {
+            requestBuilder.addMessage(message.getRole(), message.getContent());
+        }
+        requestBuilder.addUserMessage(userMessage);
+        if (temperature != null) requestBuilder.temperature(temperature);
+        if (maxTokens != null) requestBuilder.maxTokens(maxTokens);
+        
+        ConversationWindow.apply(requestBuilder.build(), configuration, provider).thenCompose(windowed -> {
+            try {
+                PreflightCheck.apply(windowed, configuration);
+            } catch (LlmProviderException e) {
+                return CompletableFuture.<CompletionResponse>failedFuture(e);
+            }
+            return provider.completeAsync(windowed);
+        }).whenComplete((response, error) -> {
+            if (error != null) {
+                callback.error(Futures.unwrap(error));
+                return;
+            }
+            sessions.append(sessionId, List.of(Message.user(userMessage), Message.assistant(response.getContent())));
+            LOGGER.info("Session chat successful. Tokens used: {}", response.getUsage());
+            callback.success(Result.<String, Void>builder().output(response.getContent()).build());
+        });
+    }
+
+    /**
+     * End Session - Discard the history the connector keeps for a session
+     *
+     * @param configuration the connector configuration
+     * @param sessionId the conversation's session id
+     * @return true if the session existed
+     */
+    @DisplayName("End Session")
+    @Summary("Discard the conversation history kept for a session")
+    public boolean endSession(
+            @Config LlmConfiguration configuration,
+            @DisplayName("Session ID") String sessionId
+    ) {
+        return SessionStore.forConfiguration(configuration).remove(sessionId);
+    }
+
+    /**
+     * Batch Completion - Send many prompts concurrently
+     *
+     * @param configuration the connector configuration
+     * @param connection the pooled connection
+     * @param prompts user prompts, one request each
+     * @param conversations message lists, one request each (alternative to prompts)
+     * @param systemPrompt optional system prompt added to every request
+     * @param temperature optional temperature override
+     * @param maxTokens optional max tokens override
+     * @param maxConcurrency maximum number of requests in flight
+     * @param callback completed with one result per input, in input order
+     */
+    @DisplayName("Batch Completion")
+    @Summary("Send many prompts concurrently and get one result per prompt, in order")
+    public void batchCompletion(
+            @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
+            @Optional @DisplayName("Prompts") List<String> prompts,
+            @Optional @DisplayName("Conversations") List<List<Map<String, String>>> conversations,
+            @Optional @DisplayName("System Prompt") @Text String systemPrompt,
+            @Optional @DisplayName("Temperature") Double temperature,
+            @Optional @DisplayName("Max Tokens") Integer maxTokens,
+            @Optional(defaultValue = "10") @DisplayName("Max Concurrency") int maxConcurrency,
+            CompletionCallback<List<BatchItemResult>, Void> callback
+    ) {
+        
+        if ((prompts == null) == (conversations == null)) {
+            callback.error(new IllegalArgumentException("Exactly one of Prompts or Conversations must be provided"));
+            return;
+        }
+        
+        List<CompletionRequest> requests = new ArrayList<>();
+        if (prompts != null) {
+            for (String prompt : prompts) {
+                requests.add(buildChatRequest(prompt, systemPrompt, null, temperature, maxTokens));
+            }
+        } else {
+            for (List<Map<String, String>> conversation : conversations) {
+                requests.add(buildConversationRequest(systemPrompt, conversation, temperature, maxTokens));
+            }
+        }
+        
+        LOGGER.info("Executing batch completion of {} requests with provider: {} (max concurrency {})",
+            requests.size(), configuration.getProvider(), maxConcurrency);
+        
+        LlmProviderClient provider = connection.getClient(configuration);
+        
+        BatchCompletionExecutor.execute(provider, requests, maxConcurrency).thenAccept(results -> {
+            long failed = results.stream().filter(result -> !result.isSuccess()).count();
+            LOGGER.info("Batch completion finished: {} succeeded, {} failed", results.size() - failed, failed);
+            callback.success(Result.<List<BatchItemResult>, Void>builder().output(results).build());
+        });
+    }
+
+    /**
+     * Submit Batch Job - Submit prompts to the provider's offline batch API
+     *
+     * @param configuration the connector configuration
+     * @param connection the pooled connection
+     * @param prompts user prompts, one request each
+     * @param conversations message lists, one request each (alternative to prompts)
+     * @param systemPrompt optional system prompt added to every request
+     * @param temperature optional temperature override
+     * @param maxTokens optional max tokens override
+     * @return the created batch job
+     * @throws LlmProviderException if the provider does not support batch jobs or rejects the job
+     */
+    @DisplayName("Submit Batch Job")
+    @Summary("Submit prompts as an offline batch job; results are available once the job has ended")
+    public BatchJob submitBatchJob(
+            @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
+            @Optional @DisplayName("Prompts") List<String> prompts,
+            @Optional @DisplayName("Conversations") List<List<Map<String, String>>> conversations,
+            @Optional @DisplayName("System Prompt") @Text String systemPrompt,
+            @Optional @DisplayName("Temperature") Double temperature,
+            @Optional @DisplayName("Max Tokens") Integer maxTokens
+    ) throws LlmProviderException {
+        
+        if ((prompts == null) == (conversations == null)) {
+            throw new IllegalArgumentException("Exactly one of Prompts or Conversations must be provided");
+        }
+        
+        LOGGER.info("Submitting batch job with provider: {}", configuration.getProvider());
+        
+        // Requests are built one at a time as the provider writes its batch input
+        Iterator<CompletionRequest> requests;
+        if (prompts != null) {
+            requests = prompts.stream()
+                .map(prompt -> buildChatRequest(prompt, systemPrompt, null, temperature, maxTokens))
+                .iterator();
+        } else {
+            requests = conversations.stream()
+                .map(conversation -> buildConversationRequest(systemPrompt, conversation, temperature, maxTokens))
+                .iterator();
+        }
+        
+        return batchProvider(configuration, connection).submitBatch(requests);
+    }
+
+    /**
+     * Get Batch Job - Get the status of a batch job
+     *
+     * @param configuration the connector configuration
+     * @param connection the pooled connection
+     * @param batchId the batch job id
+     * @return the batch job
+     * @throws LlmProviderException if the job cannot be retrieved
+     */
+    @DisplayName("Get Batch Job")
+    @Summary("Get the status and request counts of a batch job")
+    public BatchJob getBatchJob(
+            @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
+            @DisplayName("Batch ID") String batchId
+    ) throws LlmProviderException {
+        return batchProvider(configuration, connection).getBatch(batchId);
+    }
+
+    /**
+     * Get Batch Job Results - Stream the results of a finished batch job
+     *
+     * Results arrive in the order the provider wrote them; each carries the
+     * custom id and index of its request.
+     *
+     * @param configuration the connector configuration
+     * @param connection the pooled connection
+     * @param batchId the batch job id
+     * @param pageSize number of results fetched per page
+     * @return the paged results
+     * @throws LlmProviderException if the job cannot be retrieved or has not ended
+     */
+    @DisplayName("Get Batch Job Results")
+    @Summary("Stream the results of a finished batch job")
+    public PagingProvider<LlmConnection, BatchItemResult> getBatchJobResults(
+            @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
+            @DisplayName("Batch ID") String batchId,
+            @Optional(defaultValue = "100") @DisplayName("Page Size") int pageSize
+    ) throws LlmProviderException {
+        
+        BatchJob job = batchProvider(configuration, connection).getBatch(batchId);
+        if (!job.isDone()) {
+            throw new LlmProviderException(
+                "Batch " + batchId + " has not ended yet (status: " + job.getProviderStatus() + ")",
+                job.getProvider()
+            );
+        }
+        return new BatchResultPagingProvider(configuration, job, pageSize);
+    }
+
+    /**
+     * Create Embedding - Embed a text as a vector
+     *
+     * Concurrent calls are combined into one provider request and vectors of
+     * texts seen before are served from the embedding cache, as configured.
+     *
+     * @param configuration the connector configuration
+     * @param connection the pooled connection
+     * @param text the text to embed
+     * @param model optional embedding model override
+     * @param callback completed with the embedding vector
+     */
+    @DisplayName("Create Embedding")
+    @Summary("Embed a text as a vector; concurrent calls are batched and repeated texts are cached")
+    public void createEmbedding(
+            @Config LlmConfiguration configuration,
+            @Connection LlmConnection connection,
+            @DisplayName("Text") @Text String text,
+            @Optional @DisplayName("Model Override") String model,
+            CompletionCallback<float[], Void> callback
+    ) {
+        
+        LlmProviderClient provider = connection.getClient(configuration);
+        String effectiveModel = model != null ? model
+            : configuration.getEmbedding() != null ? configuration.getEmbedding().getEmbeddingModel() : null;
+        
+        provider.embedAsync(new EmbeddingRequest(effectiveModel, List.of(text))).whenComplete((response, error) -> {
+            if (error != null) {
+                callback.error(Futures.unwrap(error));
+                return;
+            }
+            callback.success(Result.<float[], Void>builder().output(response.getEmbeddings().get(0)).build());
+        });
+    }
+
+    /**
+     * Count Tokens - Count the tokens of a text or conversation without calling the provider
+     *
+     * Counts are exact for OpenAI models whose tiktoken vocabulary is available
+     * and estimated otherwise. Conversations include the tokens the chat format
+     * adds around every message.
+     *
+     * @param configuration the connector configuration
+     * @param text the text to count (alternative to messages)
+     * @param messages the conversation to count, as role/content messages
+     * @param model optional model override
+     * @return the token count
+     */
+    @DisplayName("Count Tokens")
+    @Summary("Count the tokens of a text or conversation locally, without calling the provider")
+    public TokenCount countTokens(
+            @Config LlmConfiguration configuration,
+            @Optional @DisplayName("Text") @Text String text,
+            @Optional @DisplayName("Messages") List<Map<String, String>> messages,
+            @Optional @DisplayName("Model Override") String model
+    ) {
+        
+        if ((text == null) == (messages == null)) {
+            throw new IllegalArgumentException("Exactly one of Text or Messages must be provided");
+        }
+        
+        String effectiveModel = model != null ? model : configuration.getEffectiveModel();
+        Tokenizer tokenizer = Tokenizers.forModel(effectiveModel);
+        
+        TokenCount count = new TokenCount();
+        count.setModel(effectiveModel);
+        count.setEncoding(tokenizer.getEncoding());
+        count.setExact(tokenizer.isExact());
+        if (text != null) {
+            count.setTokens(tokenizer.countTokens(text));
+        } else {
+            count.setTokens(Tokenizers.countTokens(tokenizer,
+                buildConversationRequest(null, messages, null, null).getMessages()));
+        }
+        int contextWindow = ContextWindows.forModel(effectiveModel);
+        count.setContextWindow(contextWindow > 0 ? contextWindow : null);
+        return count;
     }
 
     /**
      * Test Connection - Test the connection to the LLM provider
      *
      * @param configuration the connector configuration
+     * @param connection the pooled connection
      * @return connection status message
      */
     @DisplayName("Test Connection")
     @Summary("Test the connection to the configured LLM provider")
-    public String testConnection(@Config LlmConfiguration configuration) {
+    public String testConnection(@Config LlmConfiguration configuration, @Connection LlmConnection connection) {
         LOGGER.info("Testing connection to provider: {}", configuration.getProvider());
         
         try {
-            LlmProviderClient provider = LlmProviderFactory.createProvider(configuration);
+            LlmProviderClient provider = connection.getClient(configuration);
             boolean success = provider.testConnection();
             
             if (success) {
@@ -197,4 +576,82 @@ public class LlmOperations {
             return message;
         }
     }
+
+    /**
+     * Get the batch API of the configured provider
+     */
+    private BatchCapable batchProvider(LlmConfiguration configuration, LlmConnection connection) throws LlmProviderException {
+        BatchCapable provider = connection.getClient(configuration).unwrap(BatchCapable.class);
+        if (provider == null) {
+            throw new LlmProviderException(
+                "Batch jobs are not supported by " + configuration.getProvider().getDisplayName(),
+                configuration.getProvider().getDisplayName()
+            );
+        }
+        return provider;
+    }
+
+    /**
+     * Build a chat request from the chat completion parameters
+     */
+    private CompletionRequest buildChatRequest(
+            String userMessage,
+            String systemPrompt,
+            List<Map<String, String>> conversationHistory,
+            Double temperature,
+            Integer maxTokens
+    ) {
+        List<Map<String, String>> messages = new ArrayList<>();
+        if (conversationHistory != null) {
+            messages.addAll(conversationHistory);
+        }
+        
+        // Add current user message
+        Map<String, String> user = new HashMap<>();
+        user.put("role", "user");
+        user.put("content", userMessage);
+        messages.add(user);
+        
+        return buildConversationRequest(systemPrompt, messages, temperature, maxTokens);
+    }
+
+    /**
+     * Build a request from an optional system prompt and a list of role/content messages
+     */
+    private CompletionRequest buildConversationRequest(
+            String systemPrompt,
+            List<Map<String, String>> messages,
+            Double temperature,
+            Integer maxTokens
+    ) {
+        CompletionRequest.Builder requestBuilder = CompletionRequest.builder();
+        
+        // Add system prompt if provided
+        if (systemPrompt != null && !systemPrompt.trim().isEmpty()) {
+            requestBuilder.addSystemMessage(systemPrompt);
+        }
+        
+        // Add messages, skipping incomplete entries
+        if (messages != null) {
+            for (Map<String, String> msg : messages) {
+                String role = msg.get("role");
+                String content = msg.get("content");
+                if (role != null && content != null) {
+                    requestBuilder.addMessage(role, content);
+                }
+            }
+        }
+        
+        // Override temperature if provided
+        if (temperature != null) {
+            requestBuilder.temperature(temperature);
+        }
+        
+        // Override max tokens if provided
+        if (maxTokens != null) {
+            requestBuilder.maxTokens(maxTokens);
+        }
+        
+        return requestBuilder.build();
+    }
 }
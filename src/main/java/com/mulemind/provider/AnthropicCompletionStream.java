@@ -0,0 +1,93 @@
+package com.mulemind.provider;
+
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.streaming.CompletionStream;
+import com.mulemind.streaming.ServerSentEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes Anthropic /messages stream events
+ */
+class AnthropicCompletionStream extends CompletionStream {
+
+    private final ObjectMapper objectMapper;
+    private final CompletionResponse.Choice choice = new CompletionResponse.Choice();
+    private final CompletionResponse.Usage usage = new CompletionResponse.Usage();
+
+    AnthropicCompletionStream(InputStream body, Closeable resource, ObjectMapper objectMapper) {
+        super(body, resource);
+        this.objectMapper = objectMapper;
+
+        choice.setIndex(0);
+        List<CompletionResponse.Choice> choices = new ArrayList<>();
+        choices.add(choice);
+        getResponse().setObject("chat.completion");
+        getResponse().setChoices(choices);
+    }
+
+    @Override
+    protected String onEvent(ServerSentEvent event) throws IOException {
+        switch (event.getEvent()) {
+            case "content_block_delta": {
+                JsonNode delta = objectMapper.readTree(event.getData()).path("delta");
+                JsonNode text = delta.get("text");
+                return text != null && !text.isNull() ? text.asText() : null;
+            }
+            case "message_start": {
+                JsonNode message = objectMapper.readTree(event.getData()).path("message");
+                getResponse().setId(message.path("id").asText(null));
+                getResponse().setModel(message.path("model").asText(null));
+                updateUsage(message.get("usage"));
+                return null;
+            }
+            case "message_delta": {
+                JsonNode node = objectMapper.readTree(event.getData());
+                JsonNode stopReason = node.path("delta").get("stop_reason");
+                if (stopReason != null && !stopReason.isNull()) {
+                    choice.setFinishReason(stopReason.asText());
+                }
+                updateUsage(node.get("usage"));
+                return null;
+            }
+            case "message_stop":
+                complete();
+                return null;
+            case "error": {
+                JsonNode error = objectMapper.readTree(event.getData()).path("error");
+                throw new IOException("Anthropic stream error: " + error.path("message").asText());
+            }
+            default:
+                // ping, content_block_start, content_block_stop
+                return null;
+        }
+    }
+
+    private void updateUsage(JsonNode usageNode) {
+        if (usageNode == null || usageNode.isNull()) {
+            return;
+        }
+        if (usageNode.has("cache_read_input_tokens")) {
+            usage.setCacheReadTokens(usageNode.get("cache_read_input_tokens").asInt());
+        }
+        if (usageNode.has("cache_creation_input_tokens")) {
+            usage.setCacheWriteTokens(usageNode.get("cache_creation_input_tokens").asInt());
+        }
+        if (usageNode.has("input_tokens")) {
+            usage.setPromptTokens(AnthropicProvider.promptTokens(usageNode.get("input_tokens").asInt(), usage));
+        }
+        if (usageNode.has("output_tokens")) {
+            usage.setCompletionTokens(usageNode.get("output_tokens").asInt());
+        }
+        int prompt = usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+        int completion = usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0;
+        usage.setTotalTokens(prompt + completion);
+        getResponse().setUsage(usage);
+    }
+}
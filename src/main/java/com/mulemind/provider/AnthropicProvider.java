@@ -1,80 +1,188 @@
 package com.mulemind.provider;
 
+import com.mulemind.batch.BatchResultReader;
 import com.mulemind.config.LlmConfiguration;
+import com.mulemind.connection.AsyncTransport;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.connection.StreamedResponse;
+import com.mulemind.model.BatchItemResult;
+import com.mulemind.model.BatchJob;
 import com.mulemind.model.CompletionRequest;
 import com.mulemind.model.CompletionResponse;
 import com.mulemind.model.Message;
+import com.mulemind.streaming.CompletionStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.FileEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 /**
  * Anthropic Claude API provider implementation
  */
-public class AnthropicProvider implements LlmProviderClient {
+public class AnthropicProvider implements LlmProviderClient, BatchCapable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AnthropicProvider.class);
     private static final String MESSAGES_ENDPOINT = "/messages";
+    private static final String BATCHES_ENDPOINT = "/messages/batches";
     private static final String ANTHROPIC_VERSION = "2023-06-01";
     
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectWriter MESSAGE_WRITER = OBJECT_MAPPER.writerFor(Message.class);
+    
     private final LlmConfiguration configuration;
     private final ObjectMapper objectMapper;
     private final CloseableHttpClient httpClient;
+    private final AsyncTransport asyncTransport;
+    private final RequestConfig requestConfig;
+    private final RequestConfig completionConfig;
+    private final PromptCaching promptCaching;
+    private final HttpCompression compression;
 
-    public AnthropicProvider(LlmConfiguration configuration) {
+    public AnthropicProvider(LlmConfiguration configuration, LlmConnection connection) {
         this.configuration = configuration;
-        this.objectMapper = new ObjectMapper();
-        this.httpClient = HttpClients.createDefault();
+        this.objectMapper = OBJECT_MAPPER;
+        this.httpClient = connection.getHttpClient();
+        this.asyncTransport = connection.getAsyncTransport();
+        this.requestConfig = RequestConfig.custom()
+            .setResponseTimeout(Timeout.ofSeconds(configuration.getTimeoutSeconds()))
+            .build();
+        this.promptCaching = new PromptCaching(configuration);
+        this.compression = HttpCompression.forConfiguration(configuration);
+        this.completionConfig = compression.requestConfig(requestConfig);
     }
 
     @Override
     public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
-        String endpoint = configuration.getApiBaseUrl() + MESSAGES_ENDPOINT;
+        try {
+            // The OpenAI-style request is converted to Anthropic format as it is written
+            PromptCaching.Plan plan = promptCaching.plan(request);
+            JsonEntity.Body body = generator -> writeAnthropicRequest(generator, request, false, plan);
+            logRequest("Anthropic Request: {}", body);
+            
+            try (CloseableHttpResponse response = httpClient.execute(createPost(body, request))) {
+                return handleResponse(response);
+            }
+        } catch (IOException e) {
+            throw new LlmProviderException(
+                "Failed to communicate with Anthropic API: " + e.getMessage(),
+                e,
+                "Anthropic"
+            );
+        }
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        SimpleHttpRequest httpRequest;
+        try {
+            PromptCaching.Plan plan = promptCaching.plan(request);
+            JsonEntity.Body body = generator -> writeAnthropicRequest(generator, request, false, plan);
+            logRequest("Anthropic Request: {}", body);
+            
+            // The async client needs the whole body; generate bytes without an intermediate tree or String
+            httpRequest = createAsyncPost(JsonEntity.toBytes(objectMapper.getFactory(), body));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new LlmProviderException(
+                "Failed to serialize Anthropic request: " + e.getMessage(),
+                e,
+                "Anthropic"
+            ));
+        }
         
-        HttpPost httpPost = new HttpPost(endpoint);
-        httpPost.setHeader("x-api-key", configuration.getApiKey());
-        httpPost.setHeader("anthropic-version", ANTHROPIC_VERSION);
-        httpPost.setHeader("Content-Type", "application/json");
+        CompletableFuture<CompletionResponse> result = new CompletableFuture<>();
+        Future<SimpleHttpResponse> exchange = asyncTransport.execute(httpRequest, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                try {
+                    result.complete(handleResponse(response));
+                } catch (Exception e) {
+                    result.completeExceptionally(Futures.toProviderException(e, "Anthropic"));
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(Futures.toProviderException(e, "Anthropic"));
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
         
+        // Abort the HTTP exchange when the caller cancels
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        CloseableHttpResponse response = null;
         try {
-            // Convert OpenAI-style request to Anthropic format
-            ObjectNode anthropicRequest = convertToAnthropicFormat(request);
+            PromptCaching.Plan plan = promptCaching.plan(request);
+            JsonEntity.Body body = generator -> writeAnthropicRequest(generator, request, true, plan);
+            logRequest("Anthropic Streaming Request: {}", body);
             
-            String jsonRequest = objectMapper.writeValueAsString(anthropicRequest);
-            LOGGER.debug("Anthropic Request: {}", jsonRequest);
-            
-            httpPost.setEntity(new StringEntity(jsonRequest, ContentType.APPLICATION_JSON));
+            if (asyncTransport.isHttp2Enabled()) {
+                return streamMultiplexed(createAsyncPost(JsonEntity.toBytes(objectMapper.getFactory(), body)));
+            }
+            response = httpClient.execute(createPost(body, request));
+            int statusCode = response.getCode();
             
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                int statusCode = response.getCode();
-                String responseBody = EntityUtils.toString(response.getEntity());
-                
-                LOGGER.debug("Anthropic Response ({}): {}", statusCode, responseBody);
-                
-                if (statusCode >= 200 && statusCode < 300) {
-                    return convertFromAnthropicFormat(responseBody);
-                } else {
-                    throw new LlmProviderException(
-                        "Anthropic API error: " + responseBody,
-                        statusCode,
-                        "Anthropic"
-                    );
-                }
+            if (statusCode < 200 || statusCode >= 300) {
+                String responseBody = compression.toString(response, response.getEntity());
+                response.close();
+                throw apiError(response, responseBody);
             }
+            
+            CompletionStream stream = new AnthropicCompletionStream(
+                compression.decode(response, response.getEntity().getContent()), response, objectMapper);
+            stream.getResponse().setRateLimits(RateLimitHeaders.limits(response));
+            return stream;
         } catch (IOException e) {
+            closeQuietly(response);
             throw new LlmProviderException(
                 "Failed to communicate with Anthropic API: " + e.getMessage(),
                 e,
@@ -84,84 +192,513 @@ public class AnthropicProvider implements LlmProviderClient {
     }
 
     /**
-     * Convert OpenAI-style request to Anthropic format
+     * Stream through the non-blocking transport, multiplexed over HTTP/2 with the other requests
+     */
+    private CompletionStream streamMultiplexed(SimpleHttpRequest httpRequest) throws IOException, LlmProviderException {
+        StreamedResponse response = Futures.await(asyncTransport.stream(httpRequest, null), "Anthropic");
+        try {
+            int statusCode = response.getCode();
+            if (statusCode < 200 || statusCode >= 300) {
+                throw apiError(response.getResponse(),
+                    compression.toString(response.getResponse(), response.getBody().readAllBytes()));
+            }
+            CompletionStream stream = new AnthropicCompletionStream(
+                compression.decode(response.getResponse(), response.getBody()), response, objectMapper);
+            stream.getResponse().setRateLimits(RateLimitHeaders.limits(response.getResponse()));
+            return stream;
+        } catch (IOException | LlmProviderException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchJob submitBatch(Iterator<CompletionRequest> requests) throws LlmProviderException {
+        Path file = null;
+        try {
+            file = Files.createTempFile("mulemind-batch-", ".json");
+            int count = writeBatchFile(file, requests);
+            if (count == 0) {
+                throw new LlmProviderException("Anthropic batch must contain at least one request", "Anthropic");
+            }
+            
+            HttpPost httpPost = authorize(new HttpPost(configuration.getApiBaseUrl() + BATCHES_ENDPOINT));
+            httpPost.setEntity(new FileEntity(file.toFile(), ContentType.APPLICATION_JSON));
+            
+            BatchJob job = toBatchJob(executeJson(httpPost));
+            LOGGER.info("Submitted Anthropic batch {} with {} requests", job.getId(), count);
+            return job;
+        } catch (IOException e) {
+            throw new LlmProviderException(
+                "Failed to submit Anthropic batch: " + e.getMessage(),
+                e,
+                "Anthropic"
+            );
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    @Override
+    public BatchJob getBatch(String batchId) throws LlmProviderException {
+        try {
+            return toBatchJob(executeJson(authorize(new HttpGet(configuration.getApiBaseUrl() + BATCHES_ENDPOINT + "/" + batchId))));
+        } catch (IOException e) {
+            throw new LlmProviderException(
+                "Failed to retrieve Anthropic batch: " + e.getMessage(),
+                e,
+                "Anthropic"
+            );
+        }
+    }
+
+    @Override
+    public BatchResultReader openBatchResults(BatchJob job) {
+        List<String> locations = job.getOutputLocation() != null
+            ? Collections.singletonList(job.getOutputLocation())
+            : Collections.emptyList();
+        return new BatchResultReader(locations, this::openResults, this::decodeBatchResult, objectMapper);
+    }
+
+    /**
+     * Write the batch creation body, converting each request as it is consumed
      */
-    private ObjectNode convertToAnthropicFormat(CompletionRequest request) {
-        ObjectNode anthropicRequest = objectMapper.createObjectNode();
+    private int writeBatchFile(Path file, Iterator<CompletionRequest> requests) throws IOException {
+        int count = 0;
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("requests");
+            while (requests.hasNext()) {
+                generator.writeStartObject();
+                generator.writeStringField("custom_id", BatchCapable.customId(count++));
+                generator.writeFieldName("params");
+                writeAnthropicRequest(generator, requests.next(), false);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return count;
+    }
+
+    private InputStream openResults(String resultsUrl) throws IOException {
+        CloseableHttpResponse response = httpClient.execute(authorize(new HttpGet(resultsUrl)));
+        int statusCode = response.getCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            try {
+                throw new IOException("Anthropic API error (" + statusCode + "): " + EntityUtils.toString(response.getEntity()));
+            } catch (ParseException e) {
+                throw new IOException("Anthropic API error (" + statusCode + ")", e);
+            } finally {
+                response.close();
+            }
+        }
+        return new FilterInputStream(response.getEntity().getContent()) {
+            @Override
+            public void close() throws IOException {
+                // Discard the connection instead of draining an abandoned download
+                response.close();
+            }
+        };
+    }
+
+    /**
+     * Decode a line of the batch results file
+     */
+    BatchItemResult decodeBatchResult(JsonNode line) throws IOException {
+        String customId = line.path("custom_id").asText(null);
+        int index = BatchCapable.indexOf(customId);
+        JsonNode result = line.path("result");
+        
+        BatchItemResult item;
+        switch (result.path("type").asText()) {
+            case "succeeded":
+                item = BatchItemResult.success(index, convertFromAnthropicFormat(result.path("message")));
+                break;
+            case "errored":
+                // The error is wrapped in an error response envelope
+                JsonNode error = result.path("error");
+                if (error.has("error")) {
+                    error = error.get("error");
+                }
+                item = BatchItemResult.failure(index,
+                    error.path("message").asText(error.path("type").asText("Request failed")), null);
+                break;
+            case "canceled":
+                item = BatchItemResult.failure(index, "Request was canceled before it was processed", null);
+                break;
+            case "expired":
+                item = BatchItemResult.failure(index, "Request expired before it was processed", null);
+                break;
+            default:
+                item = BatchItemResult.failure(index, "Unknown batch result type: " + result.path("type").asText(), null);
+        }
+        item.setCustomId(customId);
+        return item;
+    }
+
+    private BatchJob toBatchJob(JsonNode node) {
+        BatchJob job = new BatchJob();
+        job.setId(node.path("id").asText());
+        job.setProvider("Anthropic");
+        
+        String status = node.path("processing_status").asText();
+        job.setProviderStatus(status);
+        switch (status) {
+            case "ended":
+                job.setStatus(node.path("cancel_initiated_at").isTextual()
+                    ? BatchJob.Status.CANCELLED : BatchJob.Status.COMPLETED);
+                break;
+            case "canceling":
+                job.setStatus(BatchJob.Status.CANCELLING);
+                break;
+            default:
+                job.setStatus(BatchJob.Status.IN_PROGRESS);
+        }
+        
+        JsonNode counts = node.path("request_counts");
+        if (counts.isObject()) {
+            int succeeded = counts.path("succeeded").asInt();
+            int failed = counts.path("errored").asInt() + counts.path("canceled").asInt() + counts.path("expired").asInt();
+            job.setRequestCount(succeeded + failed + counts.path("processing").asInt());
+            job.setSucceededCount(succeeded);
+            job.setFailedCount(failed);
+        }
+        job.setOutputLocation(node.path("results_url").asText(null));
+        return job;
+    }
+
+    private JsonNode executeJson(ClassicHttpRequest request) throws IOException, LlmProviderException {
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getCode();
+            String responseBody = EntityUtils.toString(response.getEntity());
+            LOGGER.debug("Anthropic Response ({}): {}", statusCode, responseBody);
+            
+            if (statusCode < 200 || statusCode >= 300) {
+                throw apiError(response, responseBody);
+            }
+            return objectMapper.readTree(responseBody);
+        } catch (ParseException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private <T extends HttpUriRequestBase> T authorize(T request) {
+        request.setConfig(requestConfig);
+        request.setHeader("x-api-key", configuration.getApiKey());
+        request.setHeader("anthropic-version", ANTHROPIC_VERSION);
+        return request;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete batch input file {}", file, e);
+            }
+        }
+    }
+
+    private void logRequest(String message, JsonEntity.Body body) throws IOException {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(message, new String(JsonEntity.toBytes(objectMapper.getFactory(), body), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Map the HTTP status to a response parsed straight from the entity stream, or a provider error
+     */
+    private CompletionResponse handleResponse(ClassicHttpResponse response) throws LlmProviderException, IOException {
+        int statusCode = response.getCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            throw apiError(response, compression.toString(response, response.getEntity()));
+        }
+        CompletionResponse completion;
+        InputStream body = compression.decode(response, response.getEntity().getContent());
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            completion = convertFromAnthropicFormat(parser);
+        }
+        return received(response, completion);
+    }
+
+    /**
+     * Map the HTTP status to a response parsed from the buffered body, or a provider error
+     */
+    private CompletionResponse handleResponse(SimpleHttpResponse response) throws LlmProviderException, IOException {
+        byte[] body = response.getBodyBytes();
+        int statusCode = response.getCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            throw apiError(response, compression.toString(response, body));
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(compression.decode(response, body))) {
+            return received(response, convertFromAnthropicFormat(parser));
+        }
+    }
+
+    private CompletionResponse received(HttpResponse response, CompletionResponse completion) {
+        LOGGER.debug("Anthropic Response ({}): {}", response.getCode(), completion);
+        completion.setRateLimits(RateLimitHeaders.limits(response));
+        return completion;
+    }
+
+    /**
+     * Build the error for a non-2xx response, carrying the server's retry hint if any
+     */
+    private static LlmProviderException apiError(HttpResponse response, String responseBody) {
+        return new LlmProviderException(
+            "Anthropic API error: " + responseBody,
+            response.getCode(),
+            "Anthropic",
+            RateLimitHeaders.retryAfter(response)
+        );
+    }
+
+    private HttpPost createPost(JsonEntity.Body body, CompletionRequest request) {
+        HttpPost httpPost = new HttpPost(configuration.getApiBaseUrl() + MESSAGES_ENDPOINT);
+        httpPost.setConfig(completionConfig);
+        httpPost.setHeader("x-api-key", configuration.getApiKey());
+        httpPost.setHeader("anthropic-version", ANTHROPIC_VERSION);
+        httpPost.setHeader("Content-Type", "application/json");
+        compression.prepare(httpPost, new JsonEntity(objectMapper.getFactory(), body), HttpCompression.estimateSize(request));
+        return httpPost;
+    }
+
+    private SimpleHttpRequest createAsyncPost(byte[] jsonRequest) throws IOException {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.post(configuration.getApiBaseUrl() + MESSAGES_ENDPOINT)
+            .setHeader("x-api-key", configuration.getApiKey())
+            .setHeader("anthropic-version", ANTHROPIC_VERSION);
+        compression.prepare(builder, jsonRequest);
+        SimpleHttpRequest httpRequest = builder.build();
+        httpRequest.setConfig(completionConfig);
+        return httpRequest;
+    }
+
+    private static void closeQuietly(CloseableHttpResponse response) {
+        if (response != null) {
+            try {
+                response.close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close response", e);
+            }
+        }
+    }
+
+    /**
+     * Write an OpenAI-style request in Anthropic format, without cache breakpoints
+     */
+    void writeAnthropicRequest(JsonGenerator generator, CompletionRequest request, boolean stream) throws IOException {
+        writeAnthropicRequest(generator, request, stream, PromptCaching.Plan.NONE);
+    }
+
+    /**
+     * Write an OpenAI-style request in Anthropic format, marking the planned
+     * prefixes with cache breakpoints
+     */
+    void writeAnthropicRequest(JsonGenerator generator, CompletionRequest request, boolean stream,
+                               PromptCaching.Plan plan) throws IOException {
+        generator.writeStartObject();
         
         // Model
         String model = request.getModel() != null ? request.getModel() : configuration.getEffectiveModel();
-        anthropicRequest.put("model", model);
+        generator.writeStringField("model", model);
         
         // Max tokens (required by Anthropic)
         Integer maxTokens = request.getMaxTokens() != null ? request.getMaxTokens() : 
                            configuration.getMaxTokens() != null ? configuration.getMaxTokens() : 1024;
-        anthropicRequest.put("max_tokens", maxTokens);
+        generator.writeNumberField("max_tokens", maxTokens);
         
         // Temperature
         Double temperature = request.getTemperature() != null ? request.getTemperature() : configuration.getTemperature();
-        anthropicRequest.put("temperature", temperature);
+        generator.writeNumberField("temperature", temperature);
         
-        // Messages - separate system from user/assistant messages
+        // System prompt is a top-level field; the last system message wins
         String systemMessage = null;
-        List<Message> conversationMessages = new ArrayList<>();
-        
         for (Message msg : request.getMessages()) {
             if ("system".equals(msg.getRole())) {
                 systemMessage = msg.getContent();
-            } else {
-                conversationMessages.add(msg);
             }
         }
-        
-        if (systemMessage != null) {
-            anthropicRequest.put("system", systemMessage);
+        if (systemMessage != null && plan.isCacheSystem()) {
+            generator.writeArrayFieldStart("system");
+            writeCachedText(generator, systemMessage);
+            generator.writeEndArray();
+        } else if (systemMessage != null) {
+            generator.writeStringField("system", systemMessage);
         }
         
-        anthropicRequest.set("messages", objectMapper.valueToTree(conversationMessages));
+        generator.writeArrayFieldStart("messages");
+        List<Message> messages = request.getMessages();
+        for (int i = 0; i < messages.size(); i++) {
+            Message msg = messages.get(i);
+            if ("system".equals(msg.getRole())) {
+                continue;
+            }
+            if (plan.isBreakpoint(i)) {
+                // A breakpoint needs the content as blocks
+                generator.writeStartObject();
+                generator.writeStringField("role", msg.getRole());
+                generator.writeArrayFieldStart("content");
+                writeCachedText(generator, msg.getContent());
+                generator.writeEndArray();
+                generator.writeEndObject();
+            } else {
+                MESSAGE_WRITER.writeValue(generator, msg);
+            }
+        }
+        generator.writeEndArray();
         
-        return anthropicRequest;
+        if (stream) {
+            generator.writeBooleanField("stream", true);
+        }
+        generator.writeEndObject();
     }
 
     /**
-     * Convert Anthropic response to OpenAI-style format
+     * Write a text block that ends a cached prefix
      */
-    private CompletionResponse convertFromAnthropicFormat(String responseBody) throws IOException {
-        JsonNode anthropicResponse = objectMapper.readTree(responseBody);
-        
+    private static void writeCachedText(JsonGenerator generator, String text) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "text");
+        generator.writeStringField("text", text);
+        generator.writeObjectFieldStart("cache_control");
+        generator.writeStringField("type", "ephemeral");
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Convert an Anthropic message to OpenAI-style format
+     */
+    private CompletionResponse convertFromAnthropicFormat(JsonNode anthropicResponse) throws IOException {
+        try (JsonParser parser = anthropicResponse.traverse(objectMapper)) {
+            return convertFromAnthropicFormat(parser);
+        }
+    }
+
+    /**
+     * Convert an Anthropic message to OpenAI-style format, reading it token by
+     * token instead of building a tree
+     */
+    static CompletionResponse convertFromAnthropicFormat(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an Anthropic message object");
+        }
         CompletionResponse response = new CompletionResponse();
-        response.setId(anthropicResponse.get("id").asText());
-        response.setModel(anthropicResponse.get("model").asText());
         response.setObject("chat.completion");
-        
-        // Extract content
-        JsonNode contentArray = anthropicResponse.get("content");
         String content = "";
-        if (contentArray != null && contentArray.isArray() && contentArray.size() > 0) {
-            content = contentArray.get(0).get("text").asText();
+        String stopReason = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    response.setId(parser.getValueAsString());
+                    break;
+                case "model":
+                    response.setModel(parser.getValueAsString());
+                    break;
+                case "stop_reason":
+                    stopReason = parser.getValueAsString();
+                    break;
+                case "content":
+                    content = readFirstText(parser);
+                    break;
+                case "usage":
+                    response.setUsage(readUsage(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
         }
         
         // Create choice
         CompletionResponse.Choice choice = new CompletionResponse.Choice();
         choice.setIndex(0);
         choice.setMessage(Message.assistant(content));
-        choice.setFinishReason(anthropicResponse.get("stop_reason").asText());
+        choice.setFinishReason(stopReason);
         
         List<CompletionResponse.Choice> choices = new ArrayList<>();
         choices.add(choice);
         response.setChoices(choices);
-        
-        // Usage
-        JsonNode usageNode = anthropicResponse.get("usage");
-        if (usageNode != null) {
-            CompletionResponse.Usage usage = new CompletionResponse.Usage();
-            usage.setPromptTokens(usageNode.get("input_tokens").asInt());
-            usage.setCompletionTokens(usageNode.get("output_tokens").asInt());
+        return response;
+    }
+
+    /**
+     * Read the text of the first content block, skipping the rest of the array
+     */
+    private static String readFirstText(JsonParser parser) throws IOException {
+        String text = "";
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return text;
+        }
+        boolean first = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (first && parser.currentToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("text".equals(field)) {
+                        text = parser.getValueAsString("");
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+            first = false;
+        }
+        return text;
+    }
+
+    private static CompletionResponse.Usage readUsage(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        CompletionResponse.Usage usage = new CompletionResponse.Usage();
+        Integer inputTokens = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "input_tokens":
+                    inputTokens = parser.getValueAsInt();
+                    break;
+                case "output_tokens":
+                    usage.setCompletionTokens(parser.getValueAsInt());
+                    break;
+                case "cache_read_input_tokens":
+                    usage.setCacheReadTokens(parser.getValueAsInt());
+                    break;
+                case "cache_creation_input_tokens":
+                    usage.setCacheWriteTokens(parser.getValueAsInt());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        // Input tokens exclude the cached ones; prompt tokens include them, as with OpenAI
+        if (inputTokens != null) {
+            usage.setPromptTokens(promptTokens(inputTokens, usage));
+        }
+        if (usage.getPromptTokens() != null && usage.getCompletionTokens() != null) {
             usage.setTotalTokens(usage.getPromptTokens() + usage.getCompletionTokens());
-            response.setUsage(usage);
         }
-        
-        return response;
+        return usage;
+    }
+
+    /**
+     * Count the prompt tokens of an Anthropic usage, which reports cache reads and writes apart from the input
+     */
+    static int promptTokens(int inputTokens, CompletionResponse.Usage usage) {
+        return inputTokens
+            + (usage.getCacheReadTokens() != null ? usage.getCacheReadTokens() : 0)
+            + (usage.getCacheWriteTokens() != null ? usage.getCacheWriteTokens() : 0);
     }
 
     @Override
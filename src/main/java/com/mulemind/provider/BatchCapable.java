@@ -0,0 +1,72 @@
+package com.mulemind.provider;
+
+import com.mulemind.batch.BatchResultReader;
+import com.mulemind.model.BatchJob;
+import com.mulemind.model.CompletionRequest;
+
+import java.util.Iterator;
+
+/**
+ * Provider that supports offline batch jobs.
+ *
+ * Batch jobs trade latency for throughput and cost: requests are submitted in
+ * one upload, processed by the provider within its completion window, and the
+ * results are downloaded once the job has ended. Each request is tagged with
+ * a custom id derived from its position, so results can be correlated with
+ * their requests even though the provider returns them in any order.
+ */
+public interface BatchCapable {
+
+    /**
+     * Submit a batch job
+     *
+     * The requests are written to a temporary file as they are consumed, so
+     * the iterator may produce them lazily.
+     *
+     * @param requests the requests, in order
+     * @return the created job
+     * @throws LlmProviderException if the upload or job creation fails
+     */
+    BatchJob submitBatch(Iterator<CompletionRequest> requests) throws LlmProviderException;
+
+    /**
+     * Get the current state of a batch job
+     *
+     * @param batchId the job id
+     * @return the job
+     * @throws LlmProviderException if the job cannot be retrieved
+     */
+    BatchJob getBatch(String batchId) throws LlmProviderException;
+
+    /**
+     * Open the results of a finished batch job
+     *
+     * Results are downloaded lazily as the reader is consumed.
+     *
+     * @param job the finished job
+     * @return the reader; must be closed by the caller
+     */
+    BatchResultReader openBatchResults(BatchJob job);
+
+    /**
+     * Get the custom id of the request at the given position
+     */
+    static String customId(int index) {
+        return "request-" + index;
+    }
+
+    /**
+     * Get the position of the request with the given custom id, or -1 if the id
+     * was not assigned by {@link #customId(int)}
+     */
+    static int indexOf(String customId) {
+        if (customId != null && customId.startsWith("request-")) {
+            try {
+                return Integer.parseInt(customId.substring("request-".length()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,97 @@
+package com.mulemind.provider;
+
+import com.mulemind.metrics.CompressionMetrics;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Request entity that compresses another entity while it is written.
+ *
+ * The wrapped entity streams into the compressor, which streams into the
+ * connection, so the compressed body is never buffered either. Each write
+ * records the uncompressed and sent sizes. The body is sent with chunked
+ * transfer encoding.
+ */
+final class CompressingEntity extends HttpEntityWrapper {
+
+    /**
+     * Wraps a stream in a compressor
+     */
+    @FunctionalInterface
+    interface Encoder {
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+
+    private final String contentEncoding;
+    private final Encoder encoder;
+    private final CompressionMetrics metrics;
+
+    CompressingEntity(HttpEntity entity, String contentEncoding, Encoder encoder, CompressionMetrics metrics) {
+        super(entity);
+        this.contentEncoding = contentEncoding;
+        this.encoder = encoder;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        CountingOutputStream sent = new CountingOutputStream(out);
+        CountingOutputStream uncompressed = new CountingOutputStream(encoder.wrap(sent));
+        super.writeTo(uncompressed);
+        // Finishes the compressed stream; the connection tolerates its stream being closed
+        uncompressed.close();
+        metrics.recordRequest(uncompressed.count, sent.count);
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = encoder.wrap(buffer)) {
+            super.writeTo(out);
+        }
+        return new ByteArrayInputStream(buffer.toByteArray());
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
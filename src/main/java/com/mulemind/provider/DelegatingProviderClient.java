@@ -0,0 +1,72 @@
+package com.mulemind.provider;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.streaming.CompletionStream;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Base class for clients that add behaviour around another provider client.
+ *
+ * Every call is forwarded to the delegate; subclasses override the calls they
+ * decorate.
+ */
+public abstract class DelegatingProviderClient implements LlmProviderClient {
+
+    protected final LlmProviderClient delegate;
+
+    protected DelegatingProviderClient(LlmProviderClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        return delegate.complete(request);
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        return delegate.completeAsync(request);
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        return delegate.stream(request);
+    }
+
+    @Override
+    public CompletableFuture<EmbeddingResponse> embedAsync(EmbeddingRequest request) {
+        return delegate.embedAsync(request);
+    }
+
+    @Override
+    public boolean testConnection() {
+        return delegate.testConnection();
+    }
+
+    @Override
+    public LlmConfiguration getConfiguration() {
+        return delegate.getConfiguration();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : delegate.unwrap(type);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Get the client this client forwards to
+     */
+    public LlmProviderClient getDelegate() {
+        return delegate;
+    }
+}
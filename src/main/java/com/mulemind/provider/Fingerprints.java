@@ -0,0 +1,57 @@
+package com.mulemind.provider;
+
+import com.mulemind.model.Message;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 64-bit fingerprints of messages, and the bounded maps they are remembered in
+ */
+public final class Fingerprints {
+
+    /**
+     * Initial value of a fingerprint
+     */
+    public static final long SEED = 0xCBF29CE484222325L;
+
+    private Fingerprints() {
+    }
+
+    public static long of(long seed, List<Message> messages) {
+        long fingerprint = seed;
+        for (Message message : messages) {
+            fingerprint = of(fingerprint, message);
+        }
+        return fingerprint;
+    }
+
+    public static long of(long seed, Message message) {
+        return of(of(seed, message.getRole()), message.getContent());
+    }
+
+    // 64-bit FNV-1a over the chars of a value, terminated so that adjacent values cannot run together
+    public static long of(long seed, String value) {
+        long fingerprint = seed;
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                fingerprint = (fingerprint ^ value.charAt(i)) * 0x100000001B3L;
+            }
+        }
+        return (fingerprint ^ 0xFFFF) * 0x100000001B3L;
+    }
+
+    /**
+     * Create a synchronized map that evicts its least recently used entry beyond the given size
+     */
+    public static <K, V> Map<K, V> lru(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+}
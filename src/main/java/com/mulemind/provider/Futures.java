@@ -0,0 +1,60 @@
+package com.mulemind.provider;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Helpers for working with asynchronous provider calls
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Strip the CompletionException/ExecutionException wrappers added by CompletableFuture
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * Wait for an asynchronous provider call and rethrow its failure as an LlmProviderException
+     *
+     * @param future the pending call
+     * @param provider the provider name used when the failure is not an LlmProviderException
+     * @return the result of the call
+     * @throws LlmProviderException if the call failed
+     */
+    public static <T> T await(Future<T> future, String provider) throws LlmProviderException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new LlmProviderException("Interrupted while waiting for " + provider + " response", e, provider);
+        } catch (CancellationException e) {
+            throw new LlmProviderException("Request to " + provider + " was cancelled", e, provider);
+        } catch (ExecutionException e) {
+            throw toProviderException(e, provider);
+        }
+    }
+
+    /**
+     * Convert any failure of an asynchronous call to an LlmProviderException
+     */
+    public static LlmProviderException toProviderException(Throwable error, String provider) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof LlmProviderException) {
+            return (LlmProviderException) cause;
+        }
+        return new LlmProviderException("Failed to communicate with " + provider + " API: " + cause.getMessage(), cause, provider);
+    }
+}
@@ -0,0 +1,253 @@
+package com.mulemind.provider;
+
+import com.mulemind.config.CompressionCodec;
+import com.mulemind.config.CompressionSettings;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.MetricsSettings;
+import com.mulemind.metrics.CompressionMetrics;
+import com.mulemind.metrics.ConnectorMetrics;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.Message;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Request body compression and response body decoding of a configuration.
+ *
+ * Request bodies at or above the threshold are compressed with the configured
+ * codec. When compressed responses are accepted, the HTTP client's own
+ * decoding is turned off for the provider's requests and responses are
+ * decoded here, as a stream, so that both the received and decoded sizes can
+ * be counted. Without compression settings requests are sent as before and
+ * the HTTP client keeps its default behaviour.
+ */
+final class HttpCompression {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpCompression.class);
+    private static final boolean ZSTD_AVAILABLE = ZstdCodec.isAvailable();
+
+    private final CompressionCodec codec;
+    private final int thresholdBytes;
+    private final boolean decodeResponses;
+    private final CompressionMetrics metrics;
+
+    HttpCompression(CompressionCodec codec, int thresholdBytes, boolean decodeResponses, CompressionMetrics metrics) {
+        if (codec == CompressionCodec.ZSTD && !ZSTD_AVAILABLE) {
+            LOGGER.warn("zstd-jni is not available, compressing requests with gzip instead");
+            codec = CompressionCodec.GZIP;
+        }
+        this.codec = codec != null ? codec : CompressionCodec.NONE;
+        this.thresholdBytes = thresholdBytes;
+        this.decodeResponses = decodeResponses;
+        this.metrics = metrics;
+    }
+
+    static HttpCompression forConfiguration(LlmConfiguration configuration) {
+        CompressionSettings settings = configuration.getCompression();
+        MetricsSettings metricsSettings = configuration.getMetrics();
+        CompressionMetrics metrics = metricsSettings != null && metricsSettings.isMetricsEnabled()
+            ? ConnectorMetrics.forCompression(configuration.getConfigName(),
+                metricsSettings.isMetricsJmxEnabled(), metricsSettings.isMetricsMicrometerEnabled())
+            : new CompressionMetrics();
+        if (settings == null) {
+            return new HttpCompression(CompressionCodec.NONE, 0, false, metrics);
+        }
+        return new HttpCompression(settings.getRequestCompression(), settings.getRequestCompressionThresholdBytes(),
+            settings.isResponseCompressionEnabled(), metrics);
+    }
+
+    CompressionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Derive the request configuration of the provider's requests
+     */
+    RequestConfig requestConfig(RequestConfig base) {
+        if (!decodeResponses) {
+            return base;
+        }
+        return RequestConfig.copy(base).setContentCompressionEnabled(false).build();
+    }
+
+    /**
+     * Set the body of a blocking request, compressed if the estimated size reaches the threshold
+     *
+     * @param sizeHint estimated size of the body, known before it is generated
+     */
+    void prepare(ClassicHttpRequest request, HttpEntity entity, long sizeHint) {
+        if (isCompressed(sizeHint)) {
+            CompressionCodec used = codec;
+            request.setEntity(new CompressingEntity(entity, used.getToken(), out -> encoder(used, out), metrics));
+        } else {
+            request.setEntity(entity);
+        }
+        if (decodeResponses) {
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding());
+        }
+    }
+
+    /**
+     * Set the JSON body of an async request, compressed if it reaches the threshold
+     */
+    void prepare(SimpleRequestBuilder builder, byte[] json) throws IOException {
+        if (isCompressed(json.length)) {
+            byte[] compressed = compress(json);
+            builder.setBody(compressed, ContentType.APPLICATION_JSON);
+            builder.setHeader(HttpHeaders.CONTENT_ENCODING, codec.getToken());
+            metrics.recordRequest(json.length, compressed.length);
+        } else {
+            builder.setBody(json, ContentType.APPLICATION_JSON);
+        }
+        if (decodeResponses) {
+            builder.setHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding());
+        }
+    }
+
+    /**
+     * Decode a response body according to its Content-Encoding
+     */
+    InputStream decode(HttpResponse response, InputStream body) throws IOException {
+        Header header = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+        String encoding = header != null ? header.getValue().trim().toLowerCase(Locale.ROOT) : "";
+        if (encoding.isEmpty() || encoding.equals("identity")) {
+            return body;
+        }
+        metrics.recordResponse();
+        InputStream received = new CountingInputStream(body, true);
+        InputStream decoded = switch (encoding) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(received);
+            case "deflate" -> new InflaterInputStream(received);
+            case "zstd" -> {
+                if (!ZSTD_AVAILABLE) {
+                    throw new IOException("Cannot decode a zstd response without zstd-jni");
+                }
+                yield ZstdCodec.decompress(received);
+            }
+            default -> throw new IOException("Unsupported response Content-Encoding: " + encoding);
+        };
+        return new CountingInputStream(decoded, false);
+    }
+
+    InputStream decode(HttpResponse response, byte[] body) throws IOException {
+        return decode(response, new ByteArrayInputStream(body != null ? body : new byte[0]));
+    }
+
+    /**
+     * Decode a response body as text, for error messages
+     */
+    String toString(HttpResponse response, HttpEntity entity) throws IOException {
+        if (entity == null) {
+            return "";
+        }
+        try (InputStream body = decode(response, entity.getContent())) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    String toString(HttpResponse response, byte[] body) throws IOException {
+        try (InputStream decoded = decode(response, body)) {
+            return new String(decoded.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    byte[] compress(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (OutputStream out = encoder(codec, buffer)) {
+            out.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Estimate the size of a completion request body from its message text,
+     * which dominates the body of large requests
+     */
+    static long estimateSize(CompletionRequest request) {
+        long size = 0;
+        if (request.getMessages() != null) {
+            for (Message message : request.getMessages()) {
+                size += message.getContent() != null ? message.getContent().length() : 0;
+            }
+        }
+        return size;
+    }
+
+    private boolean isCompressed(long size) {
+        return codec != CompressionCodec.NONE && size >= thresholdBytes;
+    }
+
+    private static String acceptEncoding() {
+        return ZSTD_AVAILABLE ? "zstd, gzip" : "gzip";
+    }
+
+    private static OutputStream encoder(CompressionCodec codec, OutputStream out) throws IOException {
+        return codec == CompressionCodec.ZSTD ? ZstdCodec.compress(out) : new GZIPOutputStream(out, 8192);
+    }
+
+    /**
+     * Adds the bytes read through it to the received or decoded response size
+     */
+    private final class CountingInputStream extends FilterInputStream {
+
+        private final boolean received;
+
+        private CountingInputStream(InputStream in, boolean received) {
+            super(in);
+            this.received = received;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long bytes) {
+            if (received) {
+                metrics.addResponseBytesReceived(bytes);
+            } else {
+                metrics.addResponseBytesDecoded(bytes);
+            }
+        }
+    }
+}
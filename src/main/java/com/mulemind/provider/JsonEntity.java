@@ -0,0 +1,87 @@
+package com.mulemind.provider;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Request entity that generates its JSON body straight into the connection's
+ * output stream.
+ *
+ * Unlike a StringEntity, no String or byte array of the whole body is built
+ * first, so a large prompt is not copied before it is sent. The body is
+ * generated again on every write, which keeps the entity repeatable for
+ * retries. It is sent with chunked transfer encoding since its length is not
+ * known up front.
+ */
+final class JsonEntity extends AbstractHttpEntity {
+
+    /**
+     * Writes a JSON document to a generator
+     */
+    @FunctionalInterface
+    interface Body {
+        void writeTo(JsonGenerator generator) throws IOException;
+    }
+
+    private final JsonFactory factory;
+    private final Body body;
+
+    JsonEntity(JsonFactory factory, Body body) {
+        super(ContentType.APPLICATION_JSON, null, true);
+        this.factory = factory;
+        this.body = body;
+    }
+
+    /**
+     * Generate a body into a byte array, for clients that need the whole body up front
+     */
+    static byte[] toBytes(JsonFactory factory, Body body) throws IOException {
+        try (ByteArrayBuilder buffer = new ByteArrayBuilder()) {
+            try (JsonGenerator generator = factory.createGenerator(buffer)) {
+                body.writeTo(generator);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            // The connection owns the stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            body.writeTo(generator);
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new ByteArrayInputStream(toBytes(factory, body));
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public void close() {
+    }
+}
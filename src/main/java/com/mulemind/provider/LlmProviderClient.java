@@ -3,11 +3,16 @@ package com.mulemind.provider;
 import com.mulemind.config.LlmConfiguration;
 import com.mulemind.model.CompletionRequest;
 import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.streaming.CompletionStream;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for LLM providers
  */
-public interface LlmProviderClient {
+public interface LlmProviderClient extends AutoCloseable {
 
     /**
      * Send a completion request to the LLM
@@ -18,6 +23,39 @@ public interface LlmProviderClient {
      */
     CompletionResponse complete(CompletionRequest request) throws LlmProviderException;
 
+    /**
+     * Send a completion request without blocking the calling thread
+     *
+     * Cancelling the returned future aborts the underlying HTTP exchange.
+     *
+     * @param request the completion request
+     * @return a future completed with the response, or failed with an LlmProviderException
+     */
+    CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request);
+
+    /**
+     * Send a completion request and stream the generated text as it arrives
+     *
+     * @param request the completion request
+     * @return the stream of generated text; must be closed by the caller
+     * @throws LlmProviderException if the request is rejected
+     */
+    CompletionStream stream(CompletionRequest request) throws LlmProviderException;
+
+    /**
+     * Embed texts without blocking the calling thread
+     *
+     * @param request the texts and the embedding model
+     * @return a future completed with one vector per text, in order, or failed
+     *         with an LlmProviderException; providers without an embeddings
+     *         API always fail
+     */
+    default CompletableFuture<EmbeddingResponse> embedAsync(EmbeddingRequest request) {
+        String provider = getConfiguration().getProvider().getDisplayName();
+        return CompletableFuture.failedFuture(
+            new LlmProviderException("Embeddings are not supported by " + provider, provider));
+    }
+
     /**
      * Test the connection to the provider
      *
@@ -31,4 +69,21 @@ public interface LlmProviderClient {
      * @return the configuration
      */
     LlmConfiguration getConfiguration();
+
+    /**
+     * Get this client, or a client it decorates, as the given type
+     *
+     * @param type the capability to look for, e.g. {@link BatchCapable}
+     * @return the matching client, or null if there is none
+     */
+    default <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : null;
+    }
+
+    /**
+     * Release resources held by the client; the shared HTTP clients are owned by the connection
+     */
+    @Override
+    default void close() {
+    }
 }
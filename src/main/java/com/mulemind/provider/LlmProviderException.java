@@ -1,5 +1,7 @@
 package com.mulemind.provider;
 
+import java.time.Duration;
+
 /**
  * Exception thrown by LLM providers
  */
@@ -7,29 +9,41 @@ public class LlmProviderException extends Exception {
 
     private final int statusCode;
     private final String provider;
+    private final Duration retryAfter;
 
     public LlmProviderException(String message, String provider) {
         super(message);
         this.statusCode = -1;
         this.provider = provider;
+        this.retryAfter = null;
     }
 
     public LlmProviderException(String message, int statusCode, String provider) {
         super(message);
         this.statusCode = statusCode;
         this.provider = provider;
+        this.retryAfter = null;
     }
 
     public LlmProviderException(String message, Throwable cause, String provider) {
         super(message, cause);
         this.statusCode = -1;
         this.provider = provider;
+        this.retryAfter = null;
     }
 
     public LlmProviderException(String message, int statusCode, Throwable cause, String provider) {
         super(message, cause);
         this.statusCode = statusCode;
         this.provider = provider;
+        this.retryAfter = null;
+    }
+
+    public LlmProviderException(String message, int statusCode, String provider, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.provider = provider;
+        this.retryAfter = retryAfter;
     }
 
     public int getStatusCode() {
@@ -40,11 +54,20 @@ public class LlmProviderException extends Exception {
         return provider;
     }
 
+    /**
+     * Get how long the provider asked the client to wait before retrying, or
+     * null if the response carried no rate-limit hint
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
     @Override
     public String toString() {
         return "LlmProviderException{" +
                 "provider='" + provider + '\'' +
                 ", statusCode=" + statusCode +
+                ", retryAfter=" + retryAfter +
                 ", message='" + getMessage() + '\'' +
                 '}';
     }
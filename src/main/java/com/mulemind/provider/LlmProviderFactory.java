@@ -1,19 +1,302 @@
 package com.mulemind.provider;
 
+import com.mulemind.cache.CachingProviderClient;
+import com.mulemind.cache.CoalescingProviderClient;
+import com.mulemind.cache.DiskResponseStore;
+import com.mulemind.cache.MemoryResponseStore;
+import com.mulemind.cache.ResponseStore;
+import com.mulemind.cache.SemanticCachingProviderClient;
+import com.mulemind.cache.TieredResponseStore;
+import com.mulemind.config.CircuitBreakerSettings;
+import com.mulemind.config.EmbeddingSettings;
+import com.mulemind.config.HedgingSettings;
 import com.mulemind.config.LlmConfiguration;
 import com.mulemind.config.LlmProvider;
+import com.mulemind.config.MetricsSettings;
+import com.mulemind.config.RateLimitSettings;
+import com.mulemind.config.ResponseCacheSettings;
+import com.mulemind.config.RetrySettings;
+import com.mulemind.config.RoutingSettings;
+import com.mulemind.config.RoutingTarget;
+import com.mulemind.config.SemanticCacheSettings;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.embedding.CachingEmbeddingProviderClient;
+import com.mulemind.embedding.MicroBatchingProviderClient;
+import com.mulemind.metrics.ConnectorMetrics;
+import com.mulemind.metrics.MetricsProviderClient;
+import com.mulemind.resilience.CircuitBreaker;
+import com.mulemind.resilience.CircuitBreakerProviderClient;
+import com.mulemind.resilience.HedgingProviderClient;
+import com.mulemind.resilience.RateLimitingProviderClient;
+import com.mulemind.resilience.RetryPolicy;
+import com.mulemind.resilience.RetryingProviderClient;
+import com.mulemind.routing.FailoverProviderClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Factory for creating LLM provider clients
+ *
+ * The provider client for the configured vendor is wrapped with the optional
+ * client-side features enabled on the configuration.
  */
 public class LlmProviderFactory {
 
-    public static LlmProviderClient createProvider(LlmConfiguration configuration) {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LlmProviderFactory.class);
+    private static final String DEFAULT_EMBEDDING_MODEL = "text-embedding-3-small";
+
+    public static LlmProviderClient createProvider(LlmConfiguration configuration, LlmConnection connection) {
+        publishPoolMetrics(configuration, connection);
+        LlmProviderClient client = createTargetProvider(configuration, connection);
+        client = withFailover(client, configuration, connection);
+        // Embedding calls only; the vector cache hands its misses to the batcher,
+        // and the semantic cache embeds its questions through both
+        client = withEmbeddingBatching(client, configuration);
+        client = withEmbeddingCache(client, configuration);
+        // Inside the caches so that only misses are coalesced
+        client = withCoalescing(client, configuration);
+        client = withSemanticCache(client, configuration);
+        // The exact cache is outermost so that hits skip every other layer, embedding included
+        client = withResponseCache(client, configuration);
+        return client;
+    }
+
+    /**
+     * Create the client of a single provider endpoint with its resilience layers
+     */
+    private static LlmProviderClient createTargetProvider(LlmConfiguration configuration, LlmConnection connection) {
+        LlmProviderClient client = createBaseProvider(configuration, connection);
+        // Innermost so that every attempt is measured against the provider itself
+        client = withMetrics(client, configuration);
+        // Every attempt, including retries, draws from the rate limit budget
+        client = withRateLimit(client, configuration);
+        // Outside the rate limiter so an open circuit consumes no budget, and
+        // inside retry so every attempt is counted and an open circuit is not retried
+        client = withCircuitBreaker(client, configuration);
+        client = withRetry(client, configuration);
+        // A hedge is a whole second call, with its own retries
+        client = withHedging(client, configuration);
+        return client;
+    }
+
+    private static LlmProviderClient withFailover(LlmProviderClient client, LlmConfiguration configuration,
+                                                  LlmConnection connection) {
+        RoutingSettings routingSettings = configuration.getRouting();
+        if (routingSettings == null || routingSettings.getFailoverTargets() == null
+                || routingSettings.getFailoverTargets().isEmpty()) {
+            return client;
+        }
+        List<FailoverProviderClient.Target> targets = new ArrayList<>();
+        targets.add(new FailoverProviderClient.Target(targetName(configuration), client));
+        for (RoutingTarget routingTarget : routingSettings.getFailoverTargets()) {
+            LlmConfiguration targetConfiguration = configuration.forTarget(routingTarget);
+            targets.add(new FailoverProviderClient.Target(
+                targetName(targetConfiguration),
+                createTargetProvider(targetConfiguration, connection)
+            ));
+        }
+        return new FailoverProviderClient(targets, Duration.ofSeconds(routingSettings.getRoutingTargetTimeoutSeconds()));
+    }
+
+    private static String targetName(LlmConfiguration configuration) {
+        return configuration.getProvider().getDisplayName() + ":" + configuration.getEffectiveModel();
+    }
+
+    private static LlmProviderClient withMetrics(LlmProviderClient client, LlmConfiguration configuration) {
+        MetricsSettings metricsSettings = configuration.getMetrics();
+        if (metricsSettings == null || !metricsSettings.isMetricsEnabled()) {
+            return client;
+        }
+        String configName = configuration.getConfigName();
+        String providerName = configuration.getProvider().getDisplayName();
+        boolean jmx = metricsSettings.isMetricsJmxEnabled();
+        boolean micrometer = metricsSettings.isMetricsMicrometerEnabled();
+        return new MetricsProviderClient(client,
+            model -> ConnectorMetrics.forModel(configName, providerName, model, jmx, micrometer));
+    }
+
+    private static void publishPoolMetrics(LlmConfiguration configuration, LlmConnection connection) {
+        MetricsSettings metricsSettings = configuration.getMetrics();
+        if (metricsSettings == null || !metricsSettings.isMetricsEnabled()) {
+            return;
+        }
+        ConnectorMetrics.forPool(configuration.getConfigName(), connection,
+            metricsSettings.isMetricsJmxEnabled(), metricsSettings.isMetricsMicrometerEnabled());
+    }
+
+    private static LlmProviderClient withRateLimit(LlmProviderClient client, LlmConfiguration configuration) {
+        RateLimitSettings rateLimitSettings = configuration.getRateLimit();
+        if (rateLimitSettings == null || !rateLimitSettings.isRateLimitEnabled()) {
+            return client;
+        }
+        return new RateLimitingProviderClient(
+            client,
+            rateLimitSettings.getRateLimitRequestsPerMinute(),
+            rateLimitSettings.getRateLimitTokensPerMinute(),
+            Duration.ofMillis(rateLimitSettings.getRateLimitMaxWaitMillis())
+        );
+    }
+
+    private static LlmProviderClient withCircuitBreaker(LlmProviderClient client, LlmConfiguration configuration) {
+        CircuitBreakerSettings breakerSettings = configuration.getCircuitBreaker();
+        if (breakerSettings == null || !breakerSettings.isCircuitBreakerEnabled()) {
+            return client;
+        }
+        // One breaker per endpoint and settings, shared by every configuration that calls it
+        List<Object> endpoint = Arrays.asList(configuration.getProvider(), configuration.getApiBaseUrl());
+        CircuitBreaker breaker = CircuitBreaker.shared(endpoint, CircuitBreaker.builder()
+            .windowSize(breakerSettings.getCircuitBreakerWindowSize())
+            .minimumCalls(breakerSettings.getCircuitBreakerMinimumCalls())
+            .failureRateThreshold(breakerSettings.getCircuitBreakerFailureRateThreshold())
+            .slowCallRateThreshold(breakerSettings.getCircuitBreakerSlowCallRateThreshold())
+            .slowCallDuration(Duration.ofSeconds(breakerSettings.getCircuitBreakerSlowCallSeconds()))
+            .openDuration(Duration.ofSeconds(breakerSettings.getCircuitBreakerOpenSeconds()))
+            .halfOpenCalls(breakerSettings.getCircuitBreakerHalfOpenCalls()));
+        return new CircuitBreakerProviderClient(client, breaker);
+    }
+
+    private static LlmProviderClient withHedging(LlmProviderClient client, LlmConfiguration configuration) {
+        HedgingSettings hedgingSettings = configuration.getHedging();
+        if (hedgingSettings == null || !hedgingSettings.isHedgingEnabled() || hedgingSettings.getHedgeMaxRatePercent() <= 0) {
+            return client;
+        }
+        return new HedgingProviderClient(
+            client,
+            Duration.ofMillis(hedgingSettings.getHedgeDelayMillis()),
+            hedgingSettings.getHedgeMaxRatePercent()
+        );
+    }
+
+    private static LlmProviderClient withRetry(LlmProviderClient client, LlmConfiguration configuration) {
+        RetrySettings retrySettings = configuration.getRetry();
+        if (retrySettings == null || retrySettings.getRetryMaxAttempts() <= 1) {
+            return client;
+        }
+        RetryPolicy policy = new RetryPolicy(
+            retrySettings.getRetryMaxAttempts(),
+            Duration.ofMillis(retrySettings.getRetryInitialBackoffMillis()),
+            Duration.ofSeconds(retrySettings.getRetryMaxBackoffSeconds()),
+            RetryPolicy.parseStatusCodes(retrySettings.getRetryStatusCodes())
+        );
+        return new RetryingProviderClient(client, policy);
+    }
+
+    private static LlmProviderClient withCoalescing(LlmProviderClient client, LlmConfiguration configuration) {
+        ResponseCacheSettings cacheSettings = configuration.getResponseCache();
+        if (cacheSettings == null || !cacheSettings.isCoalesceRequests()) {
+            return client;
+        }
+        return new CoalescingProviderClient(client, cacheSettings.isCacheNonZeroTemperature());
+    }
+
+    private static LlmProviderClient withResponseCache(LlmProviderClient client, LlmConfiguration configuration) {
+        ResponseCacheSettings cacheSettings = configuration.getResponseCache();
+        if (cacheSettings == null) {
+            return client;
+        }
+        
+        ResponseStore memoryStore = null;
+        if (cacheSettings.isCacheEnabled()) {
+            memoryStore = new MemoryResponseStore(
+                cacheSettings.getCacheMaxEntries(),
+                cacheSettings.getCacheMaxSizeMb() * 1024L * 1024L,
+                cacheSettings.getCacheTtlSeconds()
+            );
+        }
+        
+        ResponseStore diskStore = null;
+        if (cacheSettings.isDiskCacheEnabled()) {
+            Path directory = diskCacheDirectory(configuration, cacheSettings);
+            try {
+                diskStore = new DiskResponseStore(
+                    directory,
+                    cacheSettings.getDiskCacheMaxSizeMb() * 1024L * 1024L,
+                    cacheSettings.getDiskCacheTtlSeconds()
+                );
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Disk response cache at {} is unavailable, continuing without it", directory, e);
+            }
+        }
+        
+        ResponseStore store;
+        if (memoryStore != null && diskStore != null) {
+            store = new TieredResponseStore(memoryStore, diskStore);
+        } else if (memoryStore != null) {
+            store = memoryStore;
+        } else if (diskStore != null) {
+            store = diskStore;
+        } else {
+            return client;
+        }
+        return new CachingProviderClient(client, store, cacheSettings.isCacheNonZeroTemperature());
+    }
+
+    private static LlmProviderClient withSemanticCache(LlmProviderClient client, LlmConfiguration configuration) {
+        SemanticCacheSettings semanticSettings = configuration.getSemanticCache();
+        if (semanticSettings == null || !semanticSettings.isSemanticCacheEnabled()) {
+            return client;
+        }
+        String model = semanticSettings.getSemanticCacheEmbeddingModel();
+        if (model == null || model.isEmpty()) {
+            EmbeddingSettings embeddingSettings = configuration.getEmbedding();
+            model = embeddingSettings != null ? embeddingSettings.getEmbeddingModel() : DEFAULT_EMBEDDING_MODEL;
+        }
+        return new SemanticCachingProviderClient(
+            client,
+            model,
+            semanticSettings.getSemanticCacheThreshold(),
+            semanticSettings.getSemanticCacheMaxEntries(),
+            semanticSettings.getSemanticCacheTtlSeconds()
+        );
+    }
+
+    private static LlmProviderClient withEmbeddingBatching(LlmProviderClient client, LlmConfiguration configuration) {
+        EmbeddingSettings embeddingSettings = configuration.getEmbedding();
+        if (embeddingSettings == null || embeddingSettings.getEmbeddingBatchSize() <= 1) {
+            return client;
+        }
+        return new MicroBatchingProviderClient(
+            client,
+            embeddingSettings.getEmbeddingBatchSize(),
+            Duration.ofMillis(embeddingSettings.getEmbeddingLingerMillis())
+        );
+    }
+
+    private static LlmProviderClient withEmbeddingCache(LlmProviderClient client, LlmConfiguration configuration) {
+        EmbeddingSettings embeddingSettings = configuration.getEmbedding();
+        if (embeddingSettings == null || !embeddingSettings.isEmbeddingCacheEnabled()) {
+            return client;
+        }
+        return new CachingEmbeddingProviderClient(client, new MemoryResponseStore(
+            embeddingSettings.getEmbeddingCacheMaxEntries(),
+            embeddingSettings.getEmbeddingCacheMaxSizeMb() * 1024L * 1024L,
+            embeddingSettings.getEmbeddingCacheTtlSeconds()
+        ));
+    }
+
+    private static Path diskCacheDirectory(LlmConfiguration configuration, ResponseCacheSettings cacheSettings) {
+        if (cacheSettings.getDiskCacheDirectory() != null && !cacheSettings.getDiskCacheDirectory().isEmpty()) {
+            return Paths.get(cacheSettings.getDiskCacheDirectory());
+        }
+        String base = System.getProperty("mule.home", System.getProperty("java.io.tmpdir"));
+        String configName = configuration.getConfigName() != null ? configuration.getConfigName() : "default";
+        return Paths.get(base, ".mulemind", "cache", configName);
+    }
+
+    private static LlmProviderClient createBaseProvider(LlmConfiguration configuration, LlmConnection connection) {
         LlmProvider provider = configuration.getProvider();
         
         return switch (provider) {
-            case OPENAI -> new OpenAiProvider(configuration);
-            case ANTHROPIC -> new AnthropicProvider(configuration);
+            case OPENAI -> new OpenAiProvider(configuration, connection);
+            case ANTHROPIC -> new AnthropicProvider(configuration, connection);
             case GOOGLE -> throw new UnsupportedOperationException("Google provider not yet implemented");
             case AWS_BEDROCK -> throw new UnsupportedOperationException("AWS Bedrock provider not yet implemented");
             case AZURE_OPENAI -> throw new UnsupportedOperationException("Azure OpenAI provider not yet implemented");
@@ -0,0 +1,76 @@
+package com.mulemind.provider;
+
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.streaming.CompletionStream;
+import com.mulemind.streaming.ServerSentEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes OpenAI /chat/completions chunk events
+ */
+class OpenAiCompletionStream extends CompletionStream {
+
+    private static final String DONE = "[DONE]";
+
+    private final ObjectMapper objectMapper;
+    private final CompletionResponse.Choice choice = new CompletionResponse.Choice();
+
+    OpenAiCompletionStream(InputStream body, Closeable resource, ObjectMapper objectMapper) {
+        super(body, resource);
+        this.objectMapper = objectMapper;
+
+        choice.setIndex(0);
+        List<CompletionResponse.Choice> choices = new ArrayList<>();
+        choices.add(choice);
+        getResponse().setObject("chat.completion");
+        getResponse().setChoices(choices);
+    }
+
+    @Override
+    protected String onEvent(ServerSentEvent event) throws IOException {
+        String data = event.getData();
+        if (DONE.equals(data)) {
+            complete();
+            return null;
+        }
+
+        JsonNode chunk = objectMapper.readTree(data);
+        JsonNode error = chunk.get("error");
+        if (error != null && !error.isNull()) {
+            throw new IOException("OpenAI stream error: " + error.path("message").asText());
+        }
+
+        CompletionResponse response = getResponse();
+        if (response.getId() == null && chunk.hasNonNull("id")) {
+            response.setId(chunk.get("id").asText());
+            response.setModel(chunk.path("model").asText(null));
+            if (chunk.hasNonNull("created")) {
+                response.setCreated(chunk.get("created").asLong());
+            }
+            response.setSystemFingerprint(chunk.path("system_fingerprint").asText(null));
+        }
+
+        JsonNode usage = chunk.get("usage");
+        if (usage != null && !usage.isNull()) {
+            response.setUsage(objectMapper.treeToValue(usage, CompletionResponse.Usage.class));
+        }
+
+        JsonNode choices = chunk.get("choices");
+        if (choices == null || !choices.isArray() || choices.size() == 0) {
+            return null;
+        }
+        JsonNode first = choices.get(0);
+        if (first.hasNonNull("finish_reason")) {
+            choice.setFinishReason(first.get("finish_reason").asText());
+        }
+        JsonNode content = first.path("delta").get("content");
+        return content != null && !content.isNull() ? content.asText() : null;
+    }
+}
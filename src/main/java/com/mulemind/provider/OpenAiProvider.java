@@ -1,83 +1,201 @@
 package com.mulemind.provider;
 
+import com.mulemind.batch.BatchResultReader;
 import com.mulemind.config.LlmConfiguration;
+import com.mulemind.connection.AsyncTransport;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.connection.StreamedResponse;
+import com.mulemind.model.BatchItemResult;
+import com.mulemind.model.BatchJob;
 import com.mulemind.model.CompletionRequest;
 import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.streaming.CompletionStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 /**
  * OpenAI API provider implementation
  */
-public class OpenAiProvider implements LlmProviderClient {
+public class OpenAiProvider implements LlmProviderClient, BatchCapable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OpenAiProvider.class);
     private static final String CHAT_COMPLETIONS_ENDPOINT = "/chat/completions";
+    private static final String EMBEDDINGS_ENDPOINT = "/embeddings";
+    private static final String DEFAULT_EMBEDDING_MODEL = "text-embedding-3-small";
+    private static final String FILES_ENDPOINT = "/files";
+    private static final String BATCHES_ENDPOINT = "/batches";
+    private static final String BATCH_TARGET_URL = "/v1/chat/completions";
+    private static final String BATCH_COMPLETION_WINDOW = "24h";
+    private static final ContentType JSONL = ContentType.create("application/jsonl", StandardCharsets.UTF_8);
+    
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    static final ObjectWriter REQUEST_WRITER = OBJECT_MAPPER.writerFor(CompletionRequest.class);
+    static final ObjectReader RESPONSE_READER = OBJECT_MAPPER.readerFor(CompletionResponse.class);
     
     private final LlmConfiguration configuration;
     private final ObjectMapper objectMapper;
     private final CloseableHttpClient httpClient;
+    private final AsyncTransport asyncTransport;
+    private final RequestConfig requestConfig;
+    private final RequestConfig completionConfig;
+    private final PromptCaching promptCaching;
+    private final HttpCompression compression;
 
-    public OpenAiProvider(LlmConfiguration configuration) {
+    public OpenAiProvider(LlmConfiguration configuration, LlmConnection connection) {
         this.configuration = configuration;
-        this.objectMapper = new ObjectMapper();
-        this.httpClient = HttpClients.createDefault();
+        this.objectMapper = OBJECT_MAPPER;
+        this.httpClient = connection.getHttpClient();
+        this.asyncTransport = connection.getAsyncTransport();
+        this.requestConfig = RequestConfig.custom()
+            .setResponseTimeout(Timeout.ofSeconds(configuration.getTimeoutSeconds()))
+            .build();
+        this.promptCaching = new PromptCaching(configuration);
+        this.compression = HttpCompression.forConfiguration(configuration);
+        this.completionConfig = compression.requestConfig(requestConfig);
     }
 
     @Override
     public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
-        String endpoint = configuration.getApiBaseUrl() + CHAT_COMPLETIONS_ENDPOINT;
-        
-        HttpPost httpPost = new HttpPost(endpoint);
-        httpPost.setHeader("Authorization", "Bearer " + configuration.getApiKey());
-        httpPost.setHeader("Content-Type", "application/json");
-        
         try {
-            // Set model from configuration if not specified in request
-            if (request.getModel() == null) {
-                request.setModel(configuration.getEffectiveModel());
+            applyDefaults(request);
+            logRequest("OpenAI Request: {}", request);
+            
+            try (CloseableHttpResponse response = httpClient.execute(createPost(request))) {
+                return handleResponse(response);
             }
+        } catch (IOException e) {
+            throw new LlmProviderException(
+                "Failed to communicate with OpenAI API: " + e.getMessage(),
+                e,
+                "OpenAI"
+            );
+        }
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        SimpleHttpRequest httpRequest;
+        try {
+            applyDefaults(request);
+            logRequest("OpenAI Request: {}", request);
             
-            // Apply configuration defaults
-            if (request.getTemperature() == null) {
-                request.setTemperature(configuration.getTemperature());
+            // The async client needs the whole body; serialize to bytes without an intermediate String
+            httpRequest = createAsyncPost(REQUEST_WRITER.writeValueAsBytes(request));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new LlmProviderException(
+                "Failed to serialize OpenAI request: " + e.getMessage(),
+                e,
+                "OpenAI"
+            ));
+        }
+        
+        CompletableFuture<CompletionResponse> result = new CompletableFuture<>();
+        Future<SimpleHttpResponse> exchange = asyncTransport.execute(httpRequest, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                try {
+                    result.complete(handleResponse(response));
+                } catch (Exception e) {
+                    result.completeExceptionally(Futures.toProviderException(e, "OpenAI"));
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(Futures.toProviderException(e, "OpenAI"));
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
             }
-            if (request.getMaxTokens() == null && configuration.getMaxTokens() != null) {
-                request.setMaxTokens(configuration.getMaxTokens());
+        });
+        
+        // Abort the HTTP exchange when the caller cancels
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
             }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        CloseableHttpResponse response = null;
+        try {
+            applyDefaults(request);
+            request.setStream(true);
+            request.setStreamOptions(new CompletionRequest.StreamOptions(true));
             
-            String jsonRequest = objectMapper.writeValueAsString(request);
-            LOGGER.debug("OpenAI Request: {}", jsonRequest);
+            logRequest("OpenAI Streaming Request: {}", request);
             
-            httpPost.setEntity(new StringEntity(jsonRequest, ContentType.APPLICATION_JSON));
+            if (asyncTransport.isHttp2Enabled()) {
+                return streamMultiplexed(createAsyncPost(REQUEST_WRITER.writeValueAsBytes(request)));
+            }
+            response = httpClient.execute(createPost(request));
+            int statusCode = response.getCode();
             
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                int statusCode = response.getCode();
-                String responseBody = EntityUtils.toString(response.getEntity());
-                
-                LOGGER.debug("OpenAI Response ({}): {}", statusCode, responseBody);
-                
-                if (statusCode >= 200 && statusCode < 300) {
-                    return objectMapper.readValue(responseBody, CompletionResponse.class);
-                } else {
-                    throw new LlmProviderException(
-                        "OpenAI API error: " + responseBody,
-                        statusCode,
-                        "OpenAI"
-                    );
-                }
+            if (statusCode < 200 || statusCode >= 300) {
+                String responseBody = compression.toString(response, response.getEntity());
+                response.close();
+                throw apiError(response, responseBody);
             }
+            
+            CompletionStream stream = new OpenAiCompletionStream(
+                compression.decode(response, response.getEntity().getContent()), response, objectMapper);
+            stream.getResponse().setRateLimits(RateLimitHeaders.limits(response));
+            return stream;
         } catch (IOException e) {
+            closeQuietly(response);
             throw new LlmProviderException(
                 "Failed to communicate with OpenAI API: " + e.getMessage(),
                 e,
@@ -86,6 +204,461 @@ public class OpenAiProvider implements LlmProviderClient {
         }
     }
 
+    /**
+     * Stream through the non-blocking transport, multiplexed over HTTP/2 with the other requests
+     */
+    private CompletionStream streamMultiplexed(SimpleHttpRequest httpRequest) throws IOException, LlmProviderException {
+        StreamedResponse response = Futures.await(asyncTransport.stream(httpRequest, null), "OpenAI");
+        try {
+            int statusCode = response.getCode();
+            if (statusCode < 200 || statusCode >= 300) {
+                throw apiError(response.getResponse(),
+                    compression.toString(response.getResponse(), response.getBody().readAllBytes()));
+            }
+            CompletionStream stream = new OpenAiCompletionStream(
+                compression.decode(response.getResponse(), response.getBody()), response, objectMapper);
+            stream.getResponse().setRateLimits(RateLimitHeaders.limits(response.getResponse()));
+            return stream;
+        } catch (IOException | LlmProviderException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<EmbeddingResponse> embedAsync(EmbeddingRequest request) {
+        String model = request.getModel() != null ? request.getModel() : DEFAULT_EMBEDDING_MODEL;
+        SimpleHttpRequest httpRequest;
+        try {
+            // Base64 float32 vectors are a quarter of the size of decimal arrays and decode without parsing numbers
+            httpRequest = createAsyncPost(EMBEDDINGS_ENDPOINT, JsonEntity.toBytes(objectMapper.getFactory(), generator -> {
+                generator.writeStartObject();
+                generator.writeStringField("model", model);
+                generator.writeArrayFieldStart("input");
+                for (String text : request.getInput()) {
+                    generator.writeString(text);
+                }
+                generator.writeEndArray();
+                generator.writeStringField("encoding_format", "base64");
+                generator.writeEndObject();
+            }));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new LlmProviderException(
+                "Failed to serialize OpenAI embeddings request: " + e.getMessage(),
+                e,
+                "OpenAI"
+            ));
+        }
+        
+        CompletableFuture<EmbeddingResponse> result = new CompletableFuture<>();
+        Future<SimpleHttpResponse> exchange = asyncTransport.execute(httpRequest, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                try {
+                    byte[] body = response.getBodyBytes();
+                    int statusCode = response.getCode();
+                    if (statusCode < 200 || statusCode >= 300) {
+                        throw apiError(response, compression.toString(response, body));
+                    }
+                    try (JsonParser parser = objectMapper.getFactory().createParser(compression.decode(response, body))) {
+                        result.complete(readEmbeddings(parser, request.getInput().size()));
+                    }
+                } catch (Exception e) {
+                    result.completeExceptionally(Futures.toProviderException(e, "OpenAI"));
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(Futures.toProviderException(e, "OpenAI"));
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        
+        // Abort the HTTP exchange when the caller cancels
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Read an embeddings response token by token, placing each vector at its index
+     */
+    static EmbeddingResponse readEmbeddings(JsonParser parser, int count) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an embeddings object");
+        }
+        float[][] vectors = new float[count][];
+        EmbeddingResponse response = new EmbeddingResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    int index = -1;
+                    float[] vector = null;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String itemField = parser.getCurrentName();
+                        JsonToken itemValue = parser.nextToken();
+                        if ("index".equals(itemField)) {
+                            index = parser.getIntValue();
+                        } else if ("embedding".equals(itemField) && itemValue == JsonToken.VALUE_STRING) {
+                            ByteBuffer bytes = ByteBuffer.wrap(Base64.getDecoder().decode(parser.getText()))
+                                .order(ByteOrder.LITTLE_ENDIAN);
+                            vector = new float[bytes.remaining() / Float.BYTES];
+                            bytes.asFloatBuffer().get(vector);
+                        } else if ("embedding".equals(itemField) && itemValue == JsonToken.START_ARRAY) {
+                            // Servers that ignore the encoding format send decimal arrays
+                            vector = new float[256];
+                            int length = 0;
+                            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                if (length == vector.length) {
+                                    vector = Arrays.copyOf(vector, length * 2);
+                                }
+                                vector[length++] = parser.getFloatValue();
+                            }
+                            vector = Arrays.copyOf(vector, length);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    if (index < 0 || index >= count || vector == null) {
+                        throw new JsonParseException(parser, "Embedding without a valid index or vector");
+                    }
+                    vectors[index] = vector;
+                }
+            } else if ("model".equals(field)) {
+                response.setModel(parser.getValueAsString());
+            } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String usageField = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("prompt_tokens".equals(usageField)) {
+                        response.setPromptTokens(parser.getValueAsInt());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        for (float[] vector : vectors) {
+            if (vector == null) {
+                throw new JsonParseException(parser, "Expected " + count + " embeddings");
+            }
+        }
+        response.setEmbeddings(Arrays.asList(vectors));
+        return response;
+    }
+
+    @Override
+    public BatchJob submitBatch(Iterator<CompletionRequest> requests) throws LlmProviderException {
+        Path file = null;
+        try {
+            file = Files.createTempFile("mulemind-batch-", ".jsonl");
+            int count = writeBatchFile(file, requests);
+            if (count == 0) {
+                throw new LlmProviderException("OpenAI batch must contain at least one request", "OpenAI");
+            }
+            
+            // Upload the input file, then create the job that processes it
+            HttpPost upload = authorize(new HttpPost(configuration.getApiBaseUrl() + FILES_ENDPOINT));
+            upload.setEntity(MultipartEntityBuilder.create()
+                .addTextBody("purpose", "batch")
+                .addBinaryBody("file", file.toFile(), JSONL, "batch.jsonl")
+                .build());
+            String inputFileId = executeJson(upload).path("id").asText();
+            
+            ObjectNode batchRequest = objectMapper.createObjectNode();
+            batchRequest.put("input_file_id", inputFileId);
+            batchRequest.put("endpoint", BATCH_TARGET_URL);
+            batchRequest.put("completion_window", BATCH_COMPLETION_WINDOW);
+            
+            HttpPost create = authorize(new HttpPost(configuration.getApiBaseUrl() + BATCHES_ENDPOINT));
+            create.setEntity(new StringEntity(objectMapper.writeValueAsString(batchRequest), ContentType.APPLICATION_JSON));
+            
+            BatchJob job = toBatchJob(executeJson(create));
+            LOGGER.info("Submitted OpenAI batch {} with {} requests", job.getId(), count);
+            return job;
+        } catch (IOException e) {
+            throw new LlmProviderException(
+                "Failed to submit OpenAI batch: " + e.getMessage(),
+                e,
+                "OpenAI"
+            );
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    @Override
+    public BatchJob getBatch(String batchId) throws LlmProviderException {
+        try {
+            return toBatchJob(executeJson(authorize(new HttpGet(configuration.getApiBaseUrl() + BATCHES_ENDPOINT + "/" + batchId))));
+        } catch (IOException e) {
+            throw new LlmProviderException(
+                "Failed to retrieve OpenAI batch: " + e.getMessage(),
+                e,
+                "OpenAI"
+            );
+        }
+    }
+
+    @Override
+    public BatchResultReader openBatchResults(BatchJob job) {
+        // Successful requests are written to the output file and failed ones to the error file
+        List<String> fileIds = new ArrayList<>();
+        if (job.getOutputLocation() != null) {
+            fileIds.add(job.getOutputLocation());
+        }
+        if (job.getErrorLocation() != null) {
+            fileIds.add(job.getErrorLocation());
+        }
+        return new BatchResultReader(fileIds, this::openFileContent, this::decodeBatchResult, objectMapper);
+    }
+
+    /**
+     * Write the requests as JSONL batch input, one request per line
+     */
+    private int writeBatchFile(Path file, Iterator<CompletionRequest> requests) throws IOException {
+        int count = 0;
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            while (requests.hasNext()) {
+                CompletionRequest request = requests.next();
+                applyDefaults(request);
+                
+                generator.writeStartObject();
+                generator.writeStringField("custom_id", BatchCapable.customId(count++));
+                generator.writeStringField("method", "POST");
+                generator.writeStringField("url", BATCH_TARGET_URL);
+                generator.writeFieldName("body");
+                objectMapper.writeValue(generator, request);
+                generator.writeEndObject();
+            }
+            generator.writeRaw('\n');
+        }
+        return count;
+    }
+
+    private InputStream openFileContent(String fileId) throws IOException {
+        CloseableHttpResponse response = httpClient.execute(
+            authorize(new HttpGet(configuration.getApiBaseUrl() + FILES_ENDPOINT + "/" + fileId + "/content")));
+        int statusCode = response.getCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            try {
+                throw new IOException("OpenAI API error (" + statusCode + "): " + EntityUtils.toString(response.getEntity()));
+            } catch (ParseException e) {
+                throw new IOException("OpenAI API error (" + statusCode + ")", e);
+            } finally {
+                response.close();
+            }
+        }
+        return new FilterInputStream(response.getEntity().getContent()) {
+            @Override
+            public void close() throws IOException {
+                // Discard the connection instead of draining an abandoned download
+                response.close();
+            }
+        };
+    }
+
+    /**
+     * Decode a line of a batch output or error file
+     */
+    BatchItemResult decodeBatchResult(JsonNode line) throws IOException {
+        String customId = line.path("custom_id").asText(null);
+        int index = BatchCapable.indexOf(customId);
+        JsonNode response = line.path("response");
+        int statusCode = response.path("status_code").asInt();
+        
+        BatchItemResult result;
+        if (statusCode >= 200 && statusCode < 300) {
+            result = BatchItemResult.success(index, objectMapper.treeToValue(response.get("body"), CompletionResponse.class));
+        } else {
+            JsonNode error = line.path("error").isObject() ? line.path("error") : response.path("body").path("error");
+            result = BatchItemResult.failure(index, error.path("message").asText("Request failed"),
+                statusCode > 0 ? statusCode : null);
+        }
+        result.setCustomId(customId);
+        return result;
+    }
+
+    private BatchJob toBatchJob(JsonNode node) {
+        BatchJob job = new BatchJob();
+        job.setId(node.path("id").asText());
+        job.setProvider("OpenAI");
+        
+        String status = node.path("status").asText();
+        job.setProviderStatus(status);
+        job.setStatus(switch (status) {
+            case "completed" -> BatchJob.Status.COMPLETED;
+            case "failed" -> BatchJob.Status.FAILED;
+            case "expired" -> BatchJob.Status.EXPIRED;
+            case "cancelling" -> BatchJob.Status.CANCELLING;
+            case "cancelled" -> BatchJob.Status.CANCELLED;
+            default -> BatchJob.Status.IN_PROGRESS;
+        });
+        
+        JsonNode counts = node.path("request_counts");
+        if (counts.isObject()) {
+            job.setRequestCount(counts.path("total").asInt());
+            job.setSucceededCount(counts.path("completed").asInt());
+            job.setFailedCount(counts.path("failed").asInt());
+        }
+        job.setOutputLocation(node.path("output_file_id").asText(null));
+        job.setErrorLocation(node.path("error_file_id").asText(null));
+        return job;
+    }
+
+    private JsonNode executeJson(ClassicHttpRequest request) throws IOException, LlmProviderException {
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getCode();
+            String responseBody = EntityUtils.toString(response.getEntity());
+            LOGGER.debug("OpenAI Response ({}): {}", statusCode, responseBody);
+            
+            if (statusCode < 200 || statusCode >= 300) {
+                throw apiError(response, responseBody);
+            }
+            return objectMapper.readTree(responseBody);
+        } catch (ParseException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private <T extends HttpUriRequestBase> T authorize(T request) {
+        request.setConfig(requestConfig);
+        request.setHeader("Authorization", "Bearer " + configuration.getApiKey());
+        return request;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete batch input file {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Apply configuration defaults to fields not set on the request
+     */
+    private void applyDefaults(CompletionRequest request) {
+        // Set model from configuration if not specified in request
+        if (request.getModel() == null) {
+            request.setModel(configuration.getEffectiveModel());
+        }
+        
+        if (request.getTemperature() == null) {
+            request.setTemperature(configuration.getTemperature());
+        }
+        if (request.getMaxTokens() == null && configuration.getMaxTokens() != null) {
+            request.setMaxTokens(configuration.getMaxTokens());
+        }
+        // OpenAI caches prefixes automatically; the key keeps requests sharing a system prompt on the same cache
+        if (request.getPromptCacheKey() == null) {
+            request.setPromptCacheKey(promptCaching.cacheKey(request));
+        }
+    }
+
+    private static void logRequest(String message, CompletionRequest request) throws IOException {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(message, REQUEST_WRITER.writeValueAsString(request));
+        }
+    }
+
+    /**
+     * Map the HTTP status to a response parsed straight from the entity stream, or a provider error
+     */
+    private CompletionResponse handleResponse(ClassicHttpResponse response) throws LlmProviderException, IOException {
+        int statusCode = response.getCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            throw apiError(response, compression.toString(response, response.getEntity()));
+        }
+        CompletionResponse completion;
+        try (InputStream body = compression.decode(response, response.getEntity().getContent())) {
+            completion = RESPONSE_READER.readValue(body);
+        }
+        return received(response, completion);
+    }
+
+    /**
+     * Map the HTTP status to a response parsed from the buffered body, or a provider error
+     */
+    private CompletionResponse handleResponse(SimpleHttpResponse response) throws LlmProviderException, IOException {
+        byte[] body = response.getBodyBytes();
+        int statusCode = response.getCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            throw apiError(response, compression.toString(response, body));
+        }
+        try (InputStream decoded = compression.decode(response, body)) {
+            return received(response, RESPONSE_READER.readValue(decoded));
+        }
+    }
+
+    private CompletionResponse received(HttpResponse response, CompletionResponse completion) {
+        LOGGER.debug("OpenAI Response ({}): {}", response.getCode(), completion);
+        completion.setRateLimits(RateLimitHeaders.limits(response));
+        return completion;
+    }
+
+    /**
+     * Build the error for a non-2xx response, carrying the server's retry hint if any
+     */
+    private static LlmProviderException apiError(HttpResponse response, String responseBody) {
+        return new LlmProviderException(
+            "OpenAI API error: " + responseBody,
+            response.getCode(),
+            "OpenAI",
+            RateLimitHeaders.retryAfter(response)
+        );
+    }
+
+    private HttpPost createPost(CompletionRequest request) {
+        HttpPost httpPost = new HttpPost(configuration.getApiBaseUrl() + CHAT_COMPLETIONS_ENDPOINT);
+        httpPost.setConfig(completionConfig);
+        httpPost.setHeader("Authorization", "Bearer " + configuration.getApiKey());
+        httpPost.setHeader("Content-Type", "application/json");
+        compression.prepare(httpPost,
+            new JsonEntity(OBJECT_MAPPER.getFactory(), generator -> REQUEST_WRITER.writeValue(generator, request)),
+            HttpCompression.estimateSize(request));
+        return httpPost;
+    }
+
+    private SimpleHttpRequest createAsyncPost(byte[] jsonRequest) throws IOException {
+        return createAsyncPost(CHAT_COMPLETIONS_ENDPOINT, jsonRequest);
+    }
+
+    private SimpleHttpRequest createAsyncPost(String endpoint, byte[] jsonRequest) throws IOException {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.post(configuration.getApiBaseUrl() + endpoint)
+            .setHeader("Authorization", "Bearer " + configuration.getApiKey());
+        compression.prepare(builder, jsonRequest);
+        SimpleHttpRequest httpRequest = builder.build();
+        httpRequest.setConfig(completionConfig);
+        return httpRequest;
+    }
+
+    private static void closeQuietly(CloseableHttpResponse response) {
+        if (response != null) {
+            try {
+                response.close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close response", e);
+            }
+        }
+    }
+
     @Override
     public boolean testConnection() {
         try {
@@ -0,0 +1,147 @@
+package com.mulemind.provider;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.PromptCacheMode;
+import com.mulemind.config.PromptCacheSettings;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.Message;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which prompt prefixes are marked for provider-side prompt caching.
+ *
+ * Two prefixes are cacheable: the system prompt, and the conversation up to
+ * the message before the new one. In AUTO mode a prefix is only marked once
+ * it repeats within the provider's cache lifetime, since Anthropic charges
+ * extra for cache writes: a system prompt that was sent before, or a history
+ * that extends the previous turn of the same conversation. Prefixes below the
+ * minimum size, estimated at four characters per token, are never marked.
+ *
+ * Prefixes are recognized by 64-bit fingerprints of their messages, kept in
+ * a bounded LRU map per provider.
+ */
+final class PromptCaching {
+
+    private static final int MAX_PREFIXES = 10_000;
+    private static final long CACHE_LIFETIME_NANOS = 5L * 60 * 1_000_000_000;
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final LlmConfiguration configuration;
+    private final Map<Long, Long> lastSeen = Fingerprints.lru(MAX_PREFIXES);
+
+    PromptCaching(LlmConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Decide which prefixes of a request to mark, recording them as seen
+     */
+    Plan plan(CompletionRequest request) {
+        PromptCacheSettings settings = configuration.getPromptCache();
+        if (settings == null || settings.getPromptCacheMode() == null
+                || settings.getPromptCacheMode() == PromptCacheMode.OFF || request.getMessages() == null) {
+            return Plan.NONE;
+        }
+        boolean always = settings.getPromptCacheMode() == PromptCacheMode.ALWAYS;
+        long minChars = (long) settings.getPromptCacheMinTokens() * CHARS_PER_TOKEN;
+        List<Message> messages = request.getMessages();
+
+        // The last system message is the system prompt
+        String system = null;
+        int conversationLength = 0;
+        for (Message message : messages) {
+            if ("system".equals(message.getRole())) {
+                system = message.getContent();
+            } else {
+                conversationLength++;
+            }
+        }
+        long now = System.nanoTime();
+        long fingerprint = Fingerprints.of(Fingerprints.SEED, system);
+        boolean cacheSystem = system != null && system.length() >= minChars && (seen(fingerprint, now) || always);
+
+        // The prefix of the previous turn ends before its reply and the new message
+        long chars = system != null ? system.length() : 0;
+        long previousTurn = 0;
+        int breakpoint = -1;
+        int position = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if ("system".equals(message.getRole())) {
+                continue;
+            }
+            if (position == conversationLength - 2) {
+                previousTurn = fingerprint;
+                breakpoint = i;
+            }
+            if (position < conversationLength - 1 && message.getContent() != null) {
+                chars += message.getContent().length();
+            }
+            fingerprint = Fingerprints.of(fingerprint, message);
+            position++;
+        }
+        boolean cacheHistory = breakpoint >= 0 && chars >= minChars && (seen(previousTurn, now) || always);
+        lastSeen.put(fingerprint, now);
+        return new Plan(cacheSystem, cacheHistory ? breakpoint : -1);
+    }
+
+    /**
+     * Get the key that routes requests sharing a system prompt to the same
+     * cache, or null if the system prompt is too short to be cached
+     */
+    String cacheKey(CompletionRequest request) {
+        PromptCacheSettings settings = configuration.getPromptCache();
+        if (settings == null || settings.getPromptCacheMode() == PromptCacheMode.OFF) {
+            return null;
+        }
+        if (settings.getPromptCacheKey() != null && !settings.getPromptCacheKey().isEmpty()) {
+            return settings.getPromptCacheKey();
+        }
+        String system = null;
+        for (Message message : request.getMessages()) {
+            if ("system".equals(message.getRole())) {
+                system = message.getContent();
+            }
+        }
+        if (system == null || system.length() < (long) settings.getPromptCacheMinTokens() * CHARS_PER_TOKEN) {
+            return null;
+        }
+        return "mulemind-" + Long.toHexString(Fingerprints.of(Fingerprints.SEED, system));
+    }
+
+    private boolean seen(long fingerprint, long now) {
+        Long previous = lastSeen.put(fingerprint, now);
+        return previous != null && now - previous < CACHE_LIFETIME_NANOS;
+    }
+
+    /**
+     * The prefixes marked in one request
+     */
+    static final class Plan {
+        static final Plan NONE = new Plan(false, -1);
+
+        private final boolean cacheSystem;
+        private final int breakpoint;
+
+        Plan(boolean cacheSystem, int breakpoint) {
+            this.cacheSystem = cacheSystem;
+            this.breakpoint = breakpoint;
+        }
+
+        /**
+         * Whether the system prompt is marked
+         */
+        boolean isCacheSystem() {
+            return cacheSystem;
+        }
+
+        /**
+         * Whether the message at an index of the request ends a marked prefix
+         */
+        boolean isBreakpoint(int index) {
+            return index == breakpoint;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.mulemind.provider;
+
+import com.mulemind.model.RateLimits;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.MessageHeaders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the rate-limit state and hints that providers return with their responses.
+ *
+ * <ul>
+ *   <li>{@code Retry-After}: delta-seconds or an HTTP date (all providers)</li>
+ *   <li>{@code retry-after-ms}: milliseconds (OpenAI)</li>
+ *   <li>{@code x-ratelimit-remaining-*} / {@code x-ratelimit-reset-*}: a duration such as {@code 6m0s} (OpenAI)</li>
+ *   <li>{@code anthropic-ratelimit-*-remaining} / {@code anthropic-ratelimit-*-reset}: an RFC 3339 timestamp (Anthropic)</li>
+ * </ul>
+ */
+public final class RateLimitHeaders {
+
+    private static final Pattern GO_DURATION = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private static final String[] OPENAI_LIMITS = {"requests", "tokens"};
+    private static final String[] ANTHROPIC_LIMITS = {"requests", "tokens", "input-tokens", "output-tokens"};
+
+    private RateLimitHeaders() {
+    }
+
+    /**
+     * Get the request and token budgets reported with a response
+     *
+     * @return the limits, or null if the response carries none
+     */
+    public static RateLimits limits(MessageHeaders headers) {
+        RateLimits limits = new RateLimits();
+        limits.setRequestLimit(first(headers, "x-ratelimit-limit-requests", "anthropic-ratelimit-requests-limit"));
+        limits.setRequestsRemaining(first(headers, "x-ratelimit-remaining-requests", "anthropic-ratelimit-requests-remaining"));
+        limits.setTokenLimit(first(headers, "x-ratelimit-limit-tokens", "anthropic-ratelimit-tokens-limit",
+            "anthropic-ratelimit-input-tokens-limit"));
+        limits.setTokensRemaining(first(headers, "x-ratelimit-remaining-tokens", "anthropic-ratelimit-tokens-remaining",
+            "anthropic-ratelimit-input-tokens-remaining"));
+        if (limits.getRequestLimit() == null && limits.getRequestsRemaining() == null
+                && limits.getTokenLimit() == null && limits.getTokensRemaining() == null) {
+            return null;
+        }
+        return limits;
+    }
+
+    /**
+     * Get how long to wait before retrying, or null if the response carries no hint
+     */
+    public static Duration retryAfter(MessageHeaders headers) {
+        return retryAfter(headers, Instant.now());
+    }
+
+    /**
+     * Get how long to wait before retrying, or null if the response carries no hint
+     *
+     * An explicit retry-after header wins. Otherwise the wait is the latest reset
+     * among the exhausted limits, or among all reported limits if the remaining
+     * counts are not reported.
+     *
+     * @param headers the response headers
+     * @param now the current time, used to resolve absolute timestamps
+     */
+    public static Duration retryAfter(MessageHeaders headers, Instant now) {
+        Header retryAfterMs = headers.getFirstHeader("retry-after-ms");
+        if (retryAfterMs != null) {
+            try {
+                return nonNegative(Duration.ofMillis((long) Double.parseDouble(retryAfterMs.getValue().trim())));
+            } catch (NumberFormatException e) {
+                // Fall through to the other headers
+            }
+        }
+        Header retryAfter = headers.getFirstHeader("Retry-After");
+        if (retryAfter != null) {
+            Duration wait = parseRetryAfter(retryAfter.getValue().trim(), now);
+            if (wait != null) {
+                return wait;
+            }
+        }
+
+        Duration wait = null;
+        for (String limit : OPENAI_LIMITS) {
+            wait = later(wait, exhaustedReset(headers,
+                "x-ratelimit-remaining-" + limit, "x-ratelimit-reset-" + limit, now, false));
+        }
+        for (String limit : ANTHROPIC_LIMITS) {
+            wait = later(wait, exhaustedReset(headers,
+                "anthropic-ratelimit-" + limit + "-remaining", "anthropic-ratelimit-" + limit + "-reset", now, true));
+        }
+        return wait;
+    }
+
+    private static Duration exhaustedReset(MessageHeaders headers, String remainingName, String resetName,
+                                           Instant now, boolean timestamp) {
+        Header reset = headers.getFirstHeader(resetName);
+        if (reset == null) {
+            return null;
+        }
+        Header remaining = headers.getFirstHeader(remainingName);
+        if (remaining != null) {
+            try {
+                if (Long.parseLong(remaining.getValue().trim()) > 0) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                // Treat an unreadable count as exhausted
+            }
+        }
+        String value = reset.getValue().trim();
+        return timestamp ? parseTimestamp(value, now) : parseDuration(value);
+    }
+
+    static Duration parseRetryAfter(String value, Instant now) {
+        try {
+            return nonNegative(Duration.ofMillis((long) (Double.parseDouble(value) * 1000)));
+        } catch (NumberFormatException e) {
+            try {
+                Instant at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return nonNegative(Duration.between(now, at));
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Parse a duration such as {@code 1s}, {@code 6m0s}, {@code 20ms} or {@code 1h2m3.5s}
+     */
+    static Duration parseDuration(String value) {
+        Matcher matcher = GO_DURATION.matcher(value);
+        double millis = 0;
+        boolean found = false;
+        while (matcher.find()) {
+            found = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h" -> millis += amount * 3_600_000;
+                case "m" -> millis += amount * 60_000;
+                case "s" -> millis += amount * 1_000;
+                default -> millis += amount;
+            }
+        }
+        return found ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+    }
+
+    private static Duration parseTimestamp(String value, Instant now) {
+        try {
+            return nonNegative(Duration.between(now, OffsetDateTime.parse(value).toInstant()));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Long first(MessageHeaders headers, String... names) {
+        for (String name : names) {
+            Header header = headers.getFirstHeader(name);
+            if (header != null) {
+                try {
+                    return Long.parseLong(header.getValue().trim());
+                } catch (NumberFormatException e) {
+                    // Try the next header
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Duration later(Duration current, Duration candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || candidate.compareTo(current) > 0 ? candidate : current;
+    }
+
+    private static Duration nonNegative(Duration duration) {
+        return duration.isNegative() ? Duration.ZERO : duration;
+    }
+}
@@ -0,0 +1,38 @@
+package com.mulemind.provider;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * zstd streams from zstd-jni.
+ *
+ * Only used once {@link #isAvailable()} confirmed that zstd-jni is on the
+ * classpath and its native library loads on this platform.
+ */
+final class ZstdCodec {
+
+    private ZstdCodec() {
+    }
+
+    static boolean isAvailable() {
+        try {
+            Native.load();
+            return true;
+        } catch (LinkageError | RuntimeException e) {
+            return false;
+        }
+    }
+
+    static OutputStream compress(OutputStream out) throws IOException {
+        return new ZstdOutputStream(out);
+    }
+
+    static InputStream decompress(InputStream in) throws IOException {
+        return new ZstdInputStream(in);
+    }
+}
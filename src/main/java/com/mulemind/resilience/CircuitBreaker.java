@@ -0,0 +1,326 @@
+package com.mulemind.resilience;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker over a count-based sliding window of call outcomes.
+ *
+ * While closed, every call is allowed and its outcome recorded. Once the
+ * window holds enough calls and the failure rate or the slow-call rate
+ * reaches its threshold, the circuit opens and calls are rejected without
+ * touching the network. After the open duration a limited number of trial
+ * calls is let through (half-open); their outcomes decide whether the circuit
+ * closes again or re-opens.
+ *
+ * Admission is a single volatile read while closed or open; only recording
+ * an outcome takes the window's lock.
+ */
+public class CircuitBreaker {
+
+    private static final SharedInstances<Settings, CircuitBreaker> SHARED = new SharedInstances<>("Circuit breaker");
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final int FAILURE = 1;
+    private static final int SLOW = 2;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private volatile long openedAt;
+
+    // Sliding window, guarded by this
+    private final byte[] outcomes;
+    private int position;
+    private int count;
+    private int failures;
+    private int slowCalls;
+
+    private CircuitBreaker(Builder builder) {
+        this.windowSize = Math.max(1, builder.windowSize);
+        this.minimumCalls = Math.max(1, Math.min(builder.minimumCalls, windowSize));
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallNanos = builder.slowCallDuration.toNanos();
+        this.openNanos = builder.openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, builder.halfOpenCalls);
+        this.clock = builder.clock;
+        this.outcomes = new byte[windowSize];
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the breaker shared under an endpoint and the builder's settings, creating it on first use
+     *
+     * @param endpoint the values identifying the endpoint, such as the provider and base URL
+     */
+    public static CircuitBreaker shared(List<?> endpoint, Builder builder) {
+        return SHARED.get(endpoint, builder.settings(), builder::build);
+    }
+
+    /**
+     * Ask for permission to make a call
+     *
+     * @return true if the call may proceed; its outcome must then be reported
+     *         through {@link #onSuccess}, {@link #onFailure} or {@link #onIgnored}
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                synchronized (this) {
+                    resetWindow();
+                }
+                halfOpenPermits.set(halfOpenCalls);
+            }
+        }
+        return state.get() != State.OPEN && halfOpenPermits.getAndDecrement() > 0;
+    }
+
+    /**
+     * Record a call that the endpoint served, however slowly
+     */
+    public void onSuccess(long durationNanos) {
+        record(durationNanos >= slowCallNanos ? SLOW : 0);
+    }
+
+    /**
+     * Record a call that failed because of the endpoint
+     */
+    public void onFailure(long durationNanos) {
+        record(FAILURE | (durationNanos >= slowCallNanos ? SLOW : 0));
+    }
+
+    /**
+     * Release a permit whose call ended without saying anything about the endpoint
+     * (e.g. it was cancelled)
+     */
+    public void onIgnored() {
+        if (state.get() == State.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    private synchronized void record(int outcome) {
+        State current = state.get();
+        if (current == State.OPEN) {
+            // Outcome of a call admitted before the circuit opened
+            return;
+        }
+        if (count == windowSize) {
+            int evicted = outcomes[position];
+            failures -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            count++;
+        }
+        outcomes[position] = (byte) outcome;
+        position = (position + 1) % windowSize;
+        failures += outcome & FAILURE;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (current == State.HALF_OPEN) {
+            if (count >= halfOpenCalls) {
+                if (thresholdReached()) {
+                    open();
+                } else if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                    resetWindow();
+                }
+            }
+        } else if (count >= minimumCalls && thresholdReached()) {
+            open();
+        }
+    }
+
+    private boolean thresholdReached() {
+        return failures * 100 >= failureRateThreshold * count
+            || slowCalls * 100 >= slowCallRateThreshold * count;
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        state.set(State.OPEN);
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        position = 0;
+        count = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Get how long the circuit stays open before trial calls are allowed
+     */
+    public Duration getRemainingOpenTime() {
+        if (state.get() != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - (clock.getAsLong() - openedAt)));
+    }
+
+    public static class Builder {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 100;
+        private Duration slowCallDuration = Duration.ofSeconds(60);
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+        private LongSupplier clock = System::nanoTime;
+
+        /**
+         * Number of most recent calls the rates are computed over
+         */
+        public Builder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Number of calls the window must hold before the circuit can open
+         */
+        public Builder minimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Failure rate, in percent, at which the circuit opens
+         */
+        public Builder failureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Slow-call rate, in percent, at which the circuit opens
+         */
+        public Builder slowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * Duration from which a call counts as slow
+         */
+        public Builder slowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        /**
+         * Time the circuit stays open before trial calls are allowed
+         */
+        public Builder openDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Number of trial calls allowed while half-open
+         */
+        public Builder halfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        Builder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        Settings settings() {
+            return new Settings(windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                slowCallDuration, openDuration, halfOpenCalls);
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+    }
+
+    /**
+     * The settings that decide when the circuit opens and closes, which a breaker is shared by
+     */
+    private static final class Settings {
+
+        private final int windowSize;
+        private final int minimumCalls;
+        private final int failureRateThreshold;
+        private final int slowCallRateThreshold;
+        private final Duration slowCallDuration;
+        private final Duration openDuration;
+        private final int halfOpenCalls;
+
+        private Settings(int windowSize, int minimumCalls, int failureRateThreshold, int slowCallRateThreshold,
+                         Duration slowCallDuration, Duration openDuration, int halfOpenCalls) {
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.slowCallDuration = slowCallDuration;
+            this.openDuration = openDuration;
+            this.halfOpenCalls = halfOpenCalls;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Settings)) {
+                return false;
+            }
+            Settings that = (Settings) other;
+            return windowSize == that.windowSize
+                && minimumCalls == that.minimumCalls
+                && failureRateThreshold == that.failureRateThreshold
+                && slowCallRateThreshold == that.slowCallRateThreshold
+                && slowCallDuration.equals(that.slowCallDuration)
+                && openDuration.equals(that.openDuration)
+                && halfOpenCalls == that.halfOpenCalls;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                slowCallDuration, openDuration, halfOpenCalls);
+        }
+
+        @Override
+        public String toString() {
+            return "a window of " + windowSize + " calls (minimum " + minimumCalls + "), failure rate "
+                + failureRateThreshold + "%, slow-call rate " + slowCallRateThreshold + "% over " + slowCallDuration
+                + ", open for " + openDuration + ", " + halfOpenCalls + " half-open calls";
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.mulemind.resilience;
+
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.streaming.CompletionStream;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provider client that fails fast with a {@link CircuitOpenException} while
+ * the {@link CircuitBreaker} of its endpoint is open.
+ *
+ * Server errors (5xx), request timeouts (408) and I/O failures count as
+ * failures; other client errors show that the endpoint is responding and
+ * count as successes. For streams, the call ends when the provider accepts
+ * the request.
+ */
+public class CircuitBreakerProviderClient extends DelegatingProviderClient {
+
+    private final CircuitBreaker breaker;
+
+    public CircuitBreakerProviderClient(LlmProviderClient delegate, CircuitBreaker breaker) {
+        super(delegate);
+        this.breaker = breaker;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        return Futures.await(completeAsync(request), providerName());
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(rejected());
+        }
+        long start = System.nanoTime();
+        CompletableFuture<CompletionResponse> call;
+        try {
+            call = delegate.completeAsync(request);
+        } catch (RuntimeException e) {
+            breaker.onIgnored();
+            throw e;
+        }
+        call.whenComplete((response, error) -> record(start, error));
+        return call;
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        if (!breaker.tryAcquire()) {
+            throw rejected();
+        }
+        long start = System.nanoTime();
+        try {
+            CompletionStream stream = delegate.stream(request);
+            record(start, null);
+            return stream;
+        } catch (LlmProviderException | RuntimeException e) {
+            record(start, e);
+            throw e;
+        }
+    }
+
+    private void record(long start, Throwable error) {
+        long duration = System.nanoTime() - start;
+        Throwable cause = error != null ? Futures.unwrap(error) : null;
+        if (cause == null) {
+            breaker.onSuccess(duration);
+        } else if (cause instanceof CancellationException) {
+            breaker.onIgnored();
+        } else if (isEndpointFailure(cause)) {
+            breaker.onFailure(duration);
+        } else {
+            breaker.onSuccess(duration);
+        }
+    }
+
+    static boolean isEndpointFailure(Throwable error) {
+        if (!(error instanceof LlmProviderException)) {
+            return true;
+        }
+        int statusCode = ((LlmProviderException) error).getStatusCode();
+        if (statusCode > 0) {
+            return statusCode >= 500 || statusCode == 408;
+        }
+        return error.getCause() instanceof IOException;
+    }
+
+    private CircuitOpenException rejected() {
+        return new CircuitOpenException(
+            "Circuit breaker for " + providerName() + " (" + getConfiguration().getApiBaseUrl() + ") is open",
+            providerName(),
+            breaker.getRemainingOpenTime()
+        );
+    }
+
+    private String providerName() {
+        return getConfiguration().getProvider().getDisplayName();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+}
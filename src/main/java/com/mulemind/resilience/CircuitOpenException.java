@@ -0,0 +1,15 @@
+package com.mulemind.resilience;
+
+import com.mulemind.provider.LlmProviderException;
+
+import java.time.Duration;
+
+/**
+ * Thrown without contacting the provider while its circuit breaker is open
+ */
+public class CircuitOpenException extends LlmProviderException {
+
+    public CircuitOpenException(String message, String provider, Duration retryAfter) {
+        super(message, -1, provider, retryAfter);
+    }
+}
@@ -0,0 +1,225 @@
+package com.mulemind.resilience;
+
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.streaming.CompletionStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Provider client that cuts tail latency by hedging slow requests.
+ *
+ * If a call has not completed after the hedge delay (for streams: has not
+ * produced its first text), an identical second call is sent and whichever
+ * succeeds first wins; the other is cancelled, or closed if it is a stream.
+ * The delay is either fixed or the observed p95 latency, so roughly one call
+ * in twenty is hedged. Hedges draw from a budget that earns a configured
+ * percentage of a hedge per request, which bounds the extra cost.
+ */
+public class HedgingProviderClient extends DelegatingProviderClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgingProviderClient.class);
+
+    private static final int MINIMUM_SAMPLES = 20;
+    private static final long HEDGE_COST = 1000;
+    private static final long MAX_CREDITS = 10 * HEDGE_COST;
+
+    // Streams are read with blocking I/O, so racing them needs threads
+    private static final ExecutorService STREAM_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mulemind-hedged-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long fixedDelayNanos;
+    private final long creditsPerRequest;
+    private final LatencyTracker latency = new LatencyTracker(0.95, MINIMUM_SAMPLES);
+    private final LatencyTracker firstTextLatency = new LatencyTracker(0.95, MINIMUM_SAMPLES);
+    private final AtomicLong credits = new AtomicLong();
+    private final LongAdder hedgeCount = new LongAdder();
+
+    /**
+     * @param delegate the client to forward to
+     * @param hedgeDelay wait before hedging; zero to use the observed p95 latency
+     * @param maxHedgeRatePercent maximum percentage of requests that are hedged
+     */
+    public HedgingProviderClient(LlmProviderClient delegate, Duration hedgeDelay, int maxHedgeRatePercent) {
+        super(delegate);
+        this.fixedDelayNanos = hedgeDelay.toNanos();
+        this.creditsPerRequest = HEDGE_COST * maxHedgeRatePercent / 100;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        return Futures.await(completeAsync(request), providerName());
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        AtomicInteger calls = new AtomicInteger();
+        return hedge(
+            () -> delegate.completeAsync(calls.getAndIncrement() == 0 ? request : request.copy()),
+            latency,
+            true,
+            response -> { }
+        );
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        if (delayNanos(firstTextLatency) < 0) {
+            // Not enough samples yet: measure the time to first text without hedging
+            long start = System.nanoTime();
+            CompletionStream stream = delegate.stream(request);
+            try {
+                stream.awaitText();
+                firstTextLatency.record(System.nanoTime() - start);
+            } catch (IOException e) {
+                // Surfaced again to the reader of the stream
+            }
+            return stream;
+        }
+        AtomicInteger calls = new AtomicInteger();
+        return Futures.await(hedge(
+            () -> CompletableFuture.supplyAsync(() -> open(calls.getAndIncrement() == 0 ? request : request.copy()), STREAM_EXECUTOR),
+            firstTextLatency,
+            false,
+            HedgingProviderClient::closeQuietly
+        ), providerName());
+    }
+
+    private CompletionStream open(CompletionRequest request) {
+        try {
+            CompletionStream stream = delegate.stream(request);
+            try {
+                stream.awaitText();
+            } catch (IOException e) {
+                closeQuietly(stream);
+                throw new CompletionException(new LlmProviderException(
+                    "Stream failed before producing text: " + e.getMessage(), e, providerName()));
+            }
+            return stream;
+        } catch (LlmProviderException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Race a call against a delayed hedge of the same call
+     *
+     * @param call starts one call
+     * @param tracker the latency the hedge delay is derived from
+     * @param cancelLoser whether the losing call is cancelled; otherwise it is discarded when it completes
+     * @param discard releases the result of a losing call
+     */
+    private <T> CompletableFuture<T> hedge(Supplier<CompletableFuture<T>> call, LatencyTracker tracker,
+                                           boolean cancelLoser, Consumer<T> discard) {
+        credits.accumulateAndGet(creditsPerRequest, (current, earned) -> Math.min(MAX_CREDITS, current + earned));
+        long delay = delayNanos(tracker);
+        long start = System.nanoTime();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicReference<CompletableFuture<T>> hedge = new AtomicReference<>();
+
+        CompletableFuture<T> primary = call.get();
+        watch(primary, result, pending, tracker, start, discard);
+
+        if (delay >= 0) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+                if (result.isDone() || !tryAcquireHedge()) {
+                    return;
+                }
+                pending.incrementAndGet();
+                hedgeCount.increment();
+                LOGGER.debug("No response after {} ms, sending hedged request", TimeUnit.NANOSECONDS.toMillis(delay));
+                CompletableFuture<T> second = call.get();
+                hedge.set(second);
+                watch(second, result, pending, tracker, start, discard);
+                if (result.isDone() && cancelLoser) {
+                    second.cancel(true);
+                }
+            });
+        }
+
+        result.whenComplete((value, error) -> {
+            if (cancelLoser) {
+                primary.cancel(true);
+                CompletableFuture<T> second = hedge.get();
+                if (second != null) {
+                    second.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    private <T> void watch(CompletableFuture<T> call, CompletableFuture<T> result, AtomicInteger pending,
+                           LatencyTracker tracker, long start, Consumer<T> discard) {
+        call.whenComplete((value, error) -> {
+            if (error == null) {
+                if (result.complete(value)) {
+                    tracker.record(System.nanoTime() - start);
+                } else {
+                    discard.accept(value);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                // Only fail once every call has failed
+                result.completeExceptionally(Futures.unwrap(error));
+            }
+        });
+    }
+
+    private long delayNanos(LatencyTracker tracker) {
+        return fixedDelayNanos > 0 ? fixedDelayNanos : tracker.get();
+    }
+
+    private boolean tryAcquireHedge() {
+        while (true) {
+            long current = credits.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+            if (credits.compareAndSet(current, current - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+
+    private static void closeQuietly(CompletionStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close losing stream", e);
+        }
+    }
+
+    private String providerName() {
+        return getConfiguration().getProvider().getDisplayName();
+    }
+
+    /**
+     * Get the number of hedged requests sent so far
+     */
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+}
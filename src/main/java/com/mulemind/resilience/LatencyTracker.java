@@ -0,0 +1,57 @@
+package com.mulemind.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentile of the most recent call latencies.
+ *
+ * Samples are written to a ring buffer without locking; the percentile is
+ * recomputed from a snapshot every few samples and read from a volatile
+ * field in between, so reading it costs nothing on the request path.
+ */
+class LatencyTracker {
+
+    private static final int CAPACITY = 256;
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final AtomicLongArray samples = new AtomicLongArray(CAPACITY);
+    private final AtomicLong count = new AtomicLong();
+    private final double percentile;
+    private final int minimumSamples;
+    private volatile long value = -1;
+
+    /**
+     * @param percentile the percentile to track, between 0 and 1
+     * @param minimumSamples samples needed before the percentile is reported
+     */
+    LatencyTracker(double percentile, int minimumSamples) {
+        this.percentile = percentile;
+        this.minimumSamples = Math.min(minimumSamples, CAPACITY);
+    }
+
+    void record(long nanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % CAPACITY), nanos);
+        if (n + 1 == minimumSamples || (n + 1 > minimumSamples && (n + 1) % RECOMPUTE_INTERVAL == 0)) {
+            recompute((int) Math.min(n + 1, CAPACITY));
+        }
+    }
+
+    /**
+     * Get the tracked percentile in nanos, or -1 until enough samples were recorded
+     */
+    long get() {
+        return value;
+    }
+
+    private void recompute(int size) {
+        long[] snapshot = new long[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        value = snapshot[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+    }
+}
@@ -0,0 +1,157 @@
+package com.mulemind.resilience;
+
+import com.mulemind.model.RateLimits;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Requests-per-minute and tokens-per-minute budget of one provider model.
+ *
+ * Limits that are not configured are learned from the rate-limit headers of
+ * the provider responses; until then that budget is not enforced. Limiters are
+ * shared by every configuration that uses the same provider account and model
+ * with the same limits, so flows sharing a quota also share its budget.
+ */
+public class RateLimiter {
+
+    private static final SharedInstances<Limits, RateLimiter> SHARED = new SharedInstances<>("Rate limiter");
+
+    private final TokenBucket requests;
+    private final TokenBucket tokens;
+    private final boolean learnRequestLimit;
+    private final boolean learnTokenLimit;
+    private final AtomicLong pausedUntil;
+    private final LongSupplier clock;
+
+    public RateLimiter(long requestsPerMinute, long tokensPerMinute) {
+        this(requestsPerMinute, tokensPerMinute, System::nanoTime);
+    }
+
+    RateLimiter(long requestsPerMinute, long tokensPerMinute, LongSupplier clock) {
+        long now = clock.getAsLong();
+        this.requests = new TokenBucket(requestsPerMinute, now);
+        this.tokens = new TokenBucket(tokensPerMinute, now);
+        this.learnRequestLimit = requestsPerMinute <= 0;
+        this.learnTokenLimit = tokensPerMinute <= 0;
+        this.pausedUntil = new AtomicLong(now);
+        this.clock = clock;
+    }
+
+    /**
+     * Get the limiter shared under a quota and limits, creating it on first use
+     *
+     * @param quota the values identifying the quota, such as the provider, account and model
+     */
+    public static RateLimiter shared(List<?> quota, long requestsPerMinute, long tokensPerMinute) {
+        return SHARED.get(quota, new Limits(requestsPerMinute, tokensPerMinute),
+            () -> new RateLimiter(requestsPerMinute, tokensPerMinute));
+    }
+
+    /**
+     * Reserve one request and an estimated number of tokens
+     *
+     * @param estimatedTokens tokens the request is expected to consume
+     * @param maxWait the longest acceptable wait
+     * @return the wait before the request may be sent, or null if it would exceed
+     *         the maximum (nothing is reserved in that case)
+     */
+    public Duration acquire(long estimatedTokens, Duration maxWait) {
+        long now = clock.getAsLong();
+        long maxWaitNanos = maxWait.toNanos();
+        long pause = Math.max(0, pausedUntil.get() - now);
+        if (pause > maxWaitNanos) {
+            return null;
+        }
+        long requestWait = requests.reserve(1, now, maxWaitNanos);
+        if (requestWait < 0) {
+            return null;
+        }
+        long tokenWait = tokens.reserve(estimatedTokens, now, maxWaitNanos);
+        if (tokenWait < 0) {
+            requests.refund(1);
+            return null;
+        }
+        return Duration.ofNanos(Math.max(pause, Math.max(requestWait, tokenWait)));
+    }
+
+    /**
+     * Correct the token reservation once the actual usage is known
+     *
+     * @param delta actual minus estimated tokens; negative values are refunded
+     */
+    public void adjustTokens(long delta) {
+        tokens.refund(-delta);
+    }
+
+    /**
+     * Apply the rate-limit state reported by the provider
+     */
+    public void update(RateLimits limits) {
+        if (limits == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        if (learnRequestLimit && limits.getRequestLimit() != null && limits.getRequestLimit() > 0) {
+            requests.setLimitPerMinute(limits.getRequestLimit());
+        }
+        if (learnTokenLimit && limits.getTokenLimit() != null && limits.getTokenLimit() > 0) {
+            tokens.setLimitPerMinute(limits.getTokenLimit());
+        }
+        if (limits.getRequestsRemaining() != null) {
+            requests.sync(limits.getRequestsRemaining(), now);
+        }
+        if (limits.getTokensRemaining() != null) {
+            tokens.sync(limits.getTokensRemaining(), now);
+        }
+    }
+
+    /**
+     * Hold every request until the provider's retry-after has passed
+     */
+    public void pause(Duration duration) {
+        long until = clock.getAsLong() + duration.toNanos();
+        pausedUntil.accumulateAndGet(until, Math::max);
+    }
+
+    public long getRequestsPerMinute() {
+        return requests.getLimitPerMinute();
+    }
+
+    public long getTokensPerMinute() {
+        return tokens.getLimitPerMinute();
+    }
+
+    /**
+     * Configured limits, the settings a limiter is shared by
+     */
+    private static final class Limits {
+
+        private final long requestsPerMinute;
+        private final long tokensPerMinute;
+
+        private Limits(long requestsPerMinute, long tokensPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.tokensPerMinute = tokensPerMinute;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Limits
+                && ((Limits) other).requestsPerMinute == requestsPerMinute
+                && ((Limits) other).tokensPerMinute == tokensPerMinute;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(requestsPerMinute) * 31 + Long.hashCode(tokensPerMinute);
+        }
+
+        @Override
+        public String toString() {
+            return requestsPerMinute + " requests and " + tokensPerMinute + " tokens per minute";
+        }
+    }
+}
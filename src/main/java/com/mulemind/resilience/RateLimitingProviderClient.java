@@ -0,0 +1,170 @@
+package com.mulemind.resilience;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.Message;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.streaming.CompletionStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provider client that keeps requests within the provider's per-model
+ * request and token budgets.
+ *
+ * Each request reserves one request and an estimate of its tokens (prompt
+ * characters / 4 plus max tokens) on the {@link RateLimiter} of its model.
+ * The reservation is corrected with the actual usage once the response
+ * arrives, and the limiter learns the budgets from the response headers.
+ * When the budget is exhausted the request waits up to the configured
+ * maximum without holding a thread, or fails fast if the maximum is zero.
+ */
+public class RateLimitingProviderClient extends DelegatingProviderClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimitingProviderClient.class);
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int TOKENS_PER_MESSAGE = 4;
+
+    private final long requestsPerMinute;
+    private final long tokensPerMinute;
+    private final Duration maxWait;
+
+    /**
+     * @param delegate the client to forward to
+     * @param requestsPerMinute request budget; 0 to learn it from the provider
+     * @param tokensPerMinute token budget; 0 to learn it from the provider
+     * @param maxWait longest time a request waits for budget; zero to fail fast
+     */
+    public RateLimitingProviderClient(LlmProviderClient delegate, long requestsPerMinute, long tokensPerMinute, Duration maxWait) {
+        super(delegate);
+        this.requestsPerMinute = requestsPerMinute;
+        this.tokensPerMinute = tokensPerMinute;
+        this.maxWait = maxWait;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        return Futures.await(completeAsync(request), providerName());
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        RateLimiter limiter = limiterFor(request);
+        long estimatedTokens = estimateTokens(request);
+        Duration wait = limiter.acquire(estimatedTokens, maxWait);
+        if (wait == null) {
+            return CompletableFuture.failedFuture(rejected());
+        }
+        
+        CompletableFuture<CompletionResponse> call;
+        if (wait.isZero()) {
+            call = delegate.completeAsync(request);
+        } else {
+            LOGGER.debug("Rate limit reached, delaying request by {} ms", wait.toMillis());
+            call = CompletableFuture.supplyAsync(() -> request,
+                    CompletableFuture.delayedExecutor(wait.toNanos(), TimeUnit.NANOSECONDS))
+                .thenCompose(delegate::completeAsync);
+        }
+        
+        CompletableFuture<CompletionResponse> result = call.whenComplete((response, error) -> {
+            if (error == null) {
+                record(limiter, response, estimatedTokens);
+            } else {
+                // The tokens of a failed request were not consumed
+                limiter.adjustTokens(-estimatedTokens);
+                Throwable cause = Futures.unwrap(error);
+                if (cause instanceof LlmProviderException && ((LlmProviderException) cause).getStatusCode() == 429
+                        && ((LlmProviderException) cause).getRetryAfter() != null) {
+                    limiter.pause(((LlmProviderException) cause).getRetryAfter());
+                }
+            }
+        });
+        // Abort the call when the caller cancels
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        RateLimiter limiter = limiterFor(request);
+        Duration wait = limiter.acquire(estimateTokens(request), maxWait);
+        if (wait == null) {
+            throw rejected();
+        }
+        if (!wait.isZero()) {
+            try {
+                Thread.sleep(wait.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LlmProviderException("Interrupted while waiting for rate limit", e, providerName());
+            }
+        }
+        CompletionStream stream = delegate.stream(request);
+        limiter.update(stream.getResponse().getRateLimits());
+        return stream;
+    }
+
+    private void record(RateLimiter limiter, CompletionResponse response, long estimatedTokens) {
+        if (response.isCached()) {
+            limiter.adjustTokens(-estimatedTokens);
+            return;
+        }
+        if (response.getUsage() != null && response.getUsage().getTotalTokens() != null) {
+            limiter.adjustTokens(response.getUsage().getTotalTokens() - estimatedTokens);
+        }
+        limiter.update(response.getRateLimits());
+    }
+
+    private RateLimiter limiterFor(CompletionRequest request) {
+        LlmConfiguration configuration = getConfiguration();
+        String model = request.getModel() != null ? request.getModel() : configuration.getEffectiveModel();
+        String account = configuration.getApiKey() != null ? Integer.toHexString(configuration.getApiKey().hashCode()) : "";
+        return RateLimiter.shared(Arrays.asList(configuration.getProvider(), account, model), requestsPerMinute, tokensPerMinute);
+    }
+
+    /**
+     * Estimate the tokens of a request: prompt characters / 4 plus the completion budget
+     */
+    static long estimateTokens(CompletionRequest request) {
+        long characters = 0;
+        int messages = 0;
+        if (request.getMessages() != null) {
+            for (Message message : request.getMessages()) {
+                if (message.getContent() != null) {
+                    characters += message.getContent().length();
+                }
+                messages++;
+            }
+        }
+        long tokens = (characters + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN + (long) messages * TOKENS_PER_MESSAGE;
+        if (request.getMaxTokens() != null) {
+            tokens += request.getMaxTokens();
+        }
+        return tokens;
+    }
+
+    private LlmProviderException rejected() {
+        return new LlmProviderException(
+            "Client-side rate limit reached for " + providerName() + "; no budget within " + maxWait.toMillis() + " ms",
+            providerName()
+        );
+    }
+
+    private String providerName() {
+        return getConfiguration().getProvider().getDisplayName();
+    }
+}
@@ -0,0 +1,104 @@
+package com.mulemind.resilience;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.mulemind.provider.LlmProviderException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed provider call is retried and how long to wait.
+ *
+ * Rate-limit hints returned by the provider are honoured exactly, so the retry
+ * lands when capacity returns. Without a hint the wait is drawn uniformly
+ * between zero and an exponentially growing cap ("full jitter"), which keeps
+ * concurrent clients from retrying in lockstep.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Set<Integer> retryableStatusCodes;
+
+    /**
+     * @param maxAttempts total number of attempts, including the first call
+     * @param initialBackoff cap of the wait before the first retry
+     * @param maxBackoff longest wait between attempts; a longer provider hint is not waited for
+     * @param retryableStatusCodes HTTP status codes that are retried
+     */
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, Set<Integer> retryableStatusCodes) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retryableStatusCodes = Collections.unmodifiableSet(new HashSet<>(retryableStatusCodes));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Whether the failure is transient: a retryable status code, or an I/O
+     * error other than a (de)serialization failure
+     */
+    public boolean isRetryable(Throwable error) {
+        if (!(error instanceof LlmProviderException)) {
+            return false;
+        }
+        LlmProviderException providerError = (LlmProviderException) error;
+        if (providerError.getStatusCode() > 0) {
+            return retryableStatusCodes.contains(providerError.getStatusCode());
+        }
+        Throwable cause = providerError.getCause();
+        return cause instanceof IOException && !(cause instanceof JsonProcessingException);
+    }
+
+    /**
+     * Get the wait before the next attempt
+     *
+     * @param error the failure of the attempt that just ended
+     * @param attempt the number of attempts made so far
+     * @return the wait, or null if the call must not be retried
+     */
+    public Duration retryDelay(Throwable error, int attempt) {
+        if (attempt >= maxAttempts || !isRetryable(error)) {
+            return null;
+        }
+        Duration hint = ((LlmProviderException) error).getRetryAfter();
+        if (hint != null) {
+            return hint.compareTo(maxBackoff) <= 0 ? hint : null;
+        }
+        return backoff(attempt);
+    }
+
+    /**
+     * Full-jitter backoff: uniform in [0, min(maxBackoff, initialBackoff * 2^(attempt - 1))]
+     */
+    Duration backoff(int attempt) {
+        long cap = initialBackoff.toMillis() << Math.min(attempt - 1, 30);
+        if (cap <= 0 || cap > maxBackoff.toMillis()) {
+            cap = maxBackoff.toMillis();
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+    }
+
+    /**
+     * Parse a comma-separated list of status codes, e.g. {@code 429,500,503}
+     */
+    public static Set<Integer> parseStatusCodes(String statusCodes) {
+        Set<Integer> codes = new HashSet<>();
+        if (statusCodes != null) {
+            for (String code : statusCodes.split(",")) {
+                if (!code.trim().isEmpty()) {
+                    codes.add(Integer.parseInt(code.trim()));
+                }
+            }
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mulemind.resilience;
+
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.streaming.CompletionStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provider client that retries transient failures according to a {@link RetryPolicy}.
+ *
+ * Async calls wait on a delayed executor, so no thread is held during the
+ * backoff. Streams are only retried until the provider accepts the request;
+ * a stream that fails part-way through is not replayed.
+ */
+public class RetryingProviderClient extends DelegatingProviderClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryingProviderClient.class);
+
+    private final RetryPolicy policy;
+
+    public RetryingProviderClient(LlmProviderClient delegate, RetryPolicy policy) {
+        super(delegate);
+        this.policy = policy;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        return Futures.await(completeAsync(request), getConfiguration().getProvider().getDisplayName());
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        CompletableFuture<CompletionResponse> result = new CompletableFuture<>();
+        attempt(request, 1, result);
+        return result;
+    }
+
+    private void attempt(CompletionRequest request, int attempt, CompletableFuture<CompletionResponse> result) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<CompletionResponse> call = delegate.completeAsync(request);
+        // Abort the attempt in flight when the caller cancels
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        call.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+                return;
+            }
+            Throwable cause = Futures.unwrap(error);
+            Duration delay = policy.retryDelay(cause, attempt);
+            if (delay == null) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            LOGGER.debug("Attempt {} failed ({}), retrying in {} ms", attempt, cause.getMessage(), delay.toMillis());
+            CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> attempt(request, attempt + 1, result));
+        });
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return delegate.stream(request);
+            } catch (LlmProviderException e) {
+                Duration delay = policy.retryDelay(e, attempt);
+                if (delay == null) {
+                    throw e;
+                }
+                LOGGER.debug("Stream attempt {} failed ({}), retrying in {} ms", attempt, e.getMessage(), delay.toMillis());
+                try {
+                    Thread.sleep(delay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public RetryPolicy getPolicy() {
+        return policy;
+    }
+}
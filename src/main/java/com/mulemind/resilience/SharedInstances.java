@@ -0,0 +1,50 @@
+package com.mulemind.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Instances shared between configurations, by the scope they guard and their settings.
+ *
+ * Configurations with equal settings for the same scope, such as a provider
+ * account or endpoint, share one instance. A configuration with other
+ * settings for that scope gets its own instance rather than silently using
+ * the first one's; this is logged, since the scope is then no longer guarded
+ * as a whole.
+ *
+ * @param <S> the settings, compared with equals
+ * @param <T> the shared instance
+ */
+final class SharedInstances<S, T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedInstances.class);
+
+    private final String kind;
+    private final Map<List<?>, Map<S, T>> instances = new ConcurrentHashMap<>();
+
+    /**
+     * @param kind what is shared, for the log
+     */
+    SharedInstances(String kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Get the instance shared under a scope and settings, creating it on first use
+     */
+    T get(List<?> scope, S settings, Supplier<T> create) {
+        Map<S, T> bySettings = instances.computeIfAbsent(scope, k -> new ConcurrentHashMap<>());
+        return bySettings.computeIfAbsent(settings, k -> {
+            if (!bySettings.isEmpty()) {
+                LOGGER.warn("{} settings for {} differ between configurations; the one with {} is not shared with the others",
+                    kind, scope, settings);
+            }
+            return create.get();
+        });
+    }
+}
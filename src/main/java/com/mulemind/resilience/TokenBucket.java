@@ -0,0 +1,98 @@
+package com.mulemind.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that refills a per-minute budget continuously.
+ *
+ * Implemented as a generic cell rate algorithm: the only state is the time
+ * at which everything reserved so far is covered by the refill, advanced with
+ * a compare-and-set by the cost of every reservation. While that time lies
+ * in the past the bucket has budget left (a full bucket is one window behind
+ * the clock). A reservation may be granted ahead of capacity, in which case
+ * the caller is told how long to wait before using it.
+ */
+final class TokenBucket {
+
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong availableAt;
+    private volatile long limitPerMinute;
+
+    /**
+     * @param limitPerMinute the budget per minute; 0 for unlimited
+     * @param now the current time in nanos
+     */
+    TokenBucket(long limitPerMinute, long now) {
+        this.limitPerMinute = limitPerMinute;
+        this.availableAt = new AtomicLong(now - WINDOW_NANOS);
+    }
+
+    /**
+     * Reserve permits
+     *
+     * @param permits the number of permits
+     * @param now the current time in nanos
+     * @param maxWaitNanos the longest acceptable wait
+     * @return the wait in nanos before the permits may be used, or -1 if it exceeds the maximum
+     *         (nothing is reserved in that case)
+     */
+    long reserve(long permits, long now, long maxWaitNanos) {
+        long limit = limitPerMinute;
+        if (limit <= 0 || permits <= 0) {
+            return 0;
+        }
+        // A request larger than the whole budget is admitted once the bucket is full
+        long cost = cost(Math.min(permits, limit), limit);
+        while (true) {
+            long current = availableAt.get();
+            long next = Math.max(current, now - WINDOW_NANOS) + cost;
+            long wait = Math.max(0, next - now);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (availableAt.compareAndSet(current, next)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Return permits that were reserved but not used, or charge extra ones when
+     * the count is negative
+     */
+    void refund(long permits) {
+        long limit = limitPerMinute;
+        if (limit <= 0 || permits == 0) {
+            return;
+        }
+        availableAt.addAndGet(-cost(permits, limit));
+    }
+
+    /**
+     * Align the bucket with the remaining budget reported by the provider;
+     * the bucket is only ever drained, never refilled, by this call
+     */
+    void sync(long remaining, long now) {
+        long limit = limitPerMinute;
+        if (limit <= 0) {
+            return;
+        }
+        long used = Math.max(0, limit - Math.max(0, remaining));
+        long reported = now - WINDOW_NANOS + cost(used, limit);
+        availableAt.accumulateAndGet(reported, Math::max);
+    }
+
+    long getLimitPerMinute() {
+        return limitPerMinute;
+    }
+
+    void setLimitPerMinute(long limitPerMinute) {
+        this.limitPerMinute = limitPerMinute;
+    }
+
+    private static long cost(long permits, long limit) {
+        return permits * (WINDOW_NANOS / limit);
+    }
+}
@@ -0,0 +1,199 @@
+package com.mulemind.routing;
+
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.DelegatingProviderClient;
+import com.mulemind.provider.Futures;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.streaming.CompletionStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Provider client that sends each request to an ordered list of targets,
+ * moving on to the next target when one fails, has an open circuit or does
+ * not respond within the latency budget.
+ *
+ * Every target has its own provider client, which translates the request
+ * to its vendor's format. Each attempt works on a copy of the request so the
+ * defaults applied by one provider do not leak into the next; failover
+ * targets use their own model. The target that served the response is
+ * reported in {@link CompletionResponse#getServedBy()}.
+ */
+public class FailoverProviderClient extends DelegatingProviderClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FailoverProviderClient.class);
+
+    /**
+     * A named provider client to route to
+     */
+    public static final class Target {
+        private final String name;
+        private final LlmProviderClient client;
+
+        public Target(String name, LlmProviderClient client) {
+            this.name = name;
+            this.client = client;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LlmProviderClient getClient() {
+            return client;
+        }
+    }
+
+    private final List<Target> targets;
+    private final Duration targetTimeout;
+
+    /**
+     * @param targets the targets in order of preference; the first one is the configured provider
+     * @param targetTimeout time each target has to respond; zero for no budget
+     */
+    public FailoverProviderClient(List<Target> targets, Duration targetTimeout) {
+        super(targets.get(0).getClient());
+        this.targets = List.copyOf(targets);
+        this.targetTimeout = targetTimeout;
+    }
+
+    @Override
+    public CompletionResponse complete(CompletionRequest request) throws LlmProviderException {
+        return Futures.await(completeAsync(request), getConfiguration().getProvider().getDisplayName());
+    }
+
+    @Override
+    public CompletableFuture<CompletionResponse> completeAsync(CompletionRequest request) {
+        CompletableFuture<CompletionResponse> result = new CompletableFuture<>();
+        attempt(request, 0, new ArrayList<>(), result);
+        return result;
+    }
+
+    private void attempt(CompletionRequest request, int index, List<Throwable> errors,
+                         CompletableFuture<CompletionResponse> result) {
+        Target target = targets.get(index);
+        CompletableFuture<CompletionResponse> call;
+        try {
+            call = target.getClient().completeAsync(requestFor(request, index));
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<CompletionResponse> pending = call;
+        
+        AtomicBoolean timedOut = new AtomicBoolean();
+        if (!targetTimeout.isZero()) {
+            CompletableFuture.delayedExecutor(targetTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (!pending.isDone() && timedOut.compareAndSet(false, true)) {
+                    pending.cancel(true);
+                }
+            });
+        }
+        // Abort the attempt in flight when the caller cancels
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                pending.cancel(true);
+            }
+        });
+        
+        pending.whenComplete((response, error) -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (error == null) {
+                response.setServedBy(target.getName());
+                result.complete(response);
+                return;
+            }
+            Throwable cause = Futures.unwrap(error);
+            if (cause instanceof CancellationException) {
+                if (!timedOut.get()) {
+                    return;
+                }
+                cause = new LlmProviderException(
+                    target.getName() + " did not respond within " + targetTimeout.toMillis() + " ms",
+                    target.getClient().getConfiguration().getProvider().getDisplayName()
+                );
+            }
+            errors.add(cause);
+            if (index + 1 < targets.size()) {
+                LOGGER.warn("Routing target {} failed ({}), failing over to {}",
+                    target.getName(), cause.getMessage(), targets.get(index + 1).getName());
+                attempt(request, index + 1, errors, result);
+            } else {
+                result.completeExceptionally(allFailed(errors));
+            }
+        });
+    }
+
+    @Override
+    public CompletionStream stream(CompletionRequest request) throws LlmProviderException {
+        List<Throwable> errors = new ArrayList<>();
+        for (int index = 0; index < targets.size(); index++) {
+            Target target = targets.get(index);
+            try {
+                CompletionStream stream = target.getClient().stream(requestFor(request, index));
+                stream.getResponse().setServedBy(target.getName());
+                return stream;
+            } catch (LlmProviderException | RuntimeException e) {
+                errors.add(e);
+                if (index + 1 < targets.size()) {
+                    LOGGER.warn("Routing target {} failed ({}), failing over to {}",
+                        target.getName(), e.getMessage(), targets.get(index + 1).getName());
+                }
+            }
+        }
+        throw allFailed(errors);
+    }
+
+    private static CompletionRequest requestFor(CompletionRequest request, int index) {
+        CompletionRequest copy = request.copy();
+        if (index > 0) {
+            // A model chosen for the primary provider means nothing to the others
+            copy.setModel(null);
+        }
+        return copy;
+    }
+
+    private LlmProviderException allFailed(List<Throwable> errors) {
+        Throwable last = errors.get(errors.size() - 1);
+        if (errors.size() == 1 && last instanceof LlmProviderException) {
+            return (LlmProviderException) last;
+        }
+        int statusCode = last instanceof LlmProviderException ? ((LlmProviderException) last).getStatusCode() : -1;
+        LlmProviderException error = new LlmProviderException(
+            "All " + errors.size() + " routing targets failed; last error: " + last.getMessage(),
+            statusCode,
+            last,
+            getConfiguration().getProvider().getDisplayName()
+        );
+        for (Throwable earlier : errors.subList(0, errors.size() - 1)) {
+            error.addSuppressed(earlier);
+        }
+        return error;
+    }
+
+    @Override
+    public void close() {
+        for (Target target : targets) {
+            try {
+                target.getClient().close();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to close routing target {}", target.getName(), e);
+            }
+        }
+    }
+
+    public List<Target> getTargets() {
+        return targets;
+    }
+}
@@ -0,0 +1,84 @@
+package com.mulemind.session;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded pool of fixed-size pages carved out of direct byte buffers.
+ *
+ * Slabs are allocated off-heap on demand, up to the pool capacity, and never
+ * released; freed pages are reused through a free list. Pages are addressed
+ * by id and read and written with absolute bulk operations, so the pool
+ * holds no per-page objects. Not thread-safe.
+ */
+final class PagePool {
+
+    static final int PAGE_SIZE = 1024;
+    private static final int PAGES_PER_SLAB = 1024;
+
+    private final int capacity;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int[] free = new int[64];
+    private int freeCount;
+    private int allocated;
+
+    PagePool(long maxBytes) {
+        this.capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBytes / PAGE_SIZE));
+    }
+
+    /**
+     * Take a page
+     *
+     * @return the page id, or -1 if the pool is exhausted
+     */
+    int allocate() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        if (allocated == capacity) {
+            return -1;
+        }
+        int page = allocated++;
+        if (page / PAGES_PER_SLAB == slabs.size()) {
+            int pages = Math.min(PAGES_PER_SLAB, capacity - page);
+            slabs.add(ByteBuffer.allocateDirect(pages * PAGE_SIZE));
+        }
+        return page;
+    }
+
+    void release(int page) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = page;
+    }
+
+    /**
+     * Number of pages that can still be taken
+     */
+    int available() {
+        return freeCount + capacity - allocated;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void write(int page, int offset, byte[] source, int from, int length) {
+        slab(page).put(position(page) + offset, source, from, length);
+    }
+
+    void read(int page, int offset, byte[] target, int from, int length) {
+        slab(page).get(position(page) + offset, target, from, length);
+    }
+
+    private ByteBuffer slab(int page) {
+        return slabs.get(page / PAGES_PER_SLAB);
+    }
+
+    private static int position(int page) {
+        return (page % PAGES_PER_SLAB) * PAGE_SIZE;
+    }
+}
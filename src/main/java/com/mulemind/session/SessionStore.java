@@ -0,0 +1,568 @@
+package com.mulemind.session;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.SessionSettings;
+import com.mulemind.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Conversation transcripts kept by the connector, keyed by session id.
+ *
+ * Transcripts are stored as compact binary records (role code, varint
+ * length, UTF-8 content) in pages of an off-heap {@link PagePool}, so a
+ * session costs its encoded size plus one small object on the heap, and a
+ * turn appends only the new messages. Sessions that are not used for the
+ * idle timeout are discarded. When the pool is full, the least recently used
+ * sessions are evicted, or written to a spill directory if one is configured
+ * and read back when the session is next used; spilled sessions survive
+ * restarts until they idle out, and the spill directory is swept for idle
+ * sessions as part of expiry. A session that does not fit in the pool by
+ * itself loses its oldest turns.
+ *
+ * Turns of the same session that run concurrently are appended in the order
+ * they complete.
+ *
+ * Spill file layout: magic (4) | crc32 (4) | records
+ */
+public final class SessionStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionStore.class);
+
+    private static final Map<String, SessionStore> SHARED = new ConcurrentHashMap<>();
+
+    static final String SPILL_SUFFIX = ".session";
+    private static final int MAGIC = 0x4D4D5353;
+    private static final int SPILL_HEADER_LENGTH = 8;
+    private static final long MAX_SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final byte SYSTEM = 0;
+    private static final byte USER = 1;
+    private static final byte ASSISTANT = 2;
+    private static final byte OTHER = 3;
+
+    private final PagePool pool;
+    private final long idleMillis;
+    private final Path spillDirectory;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private long nextSweep;
+
+    /**
+     * @param maxBytes off-heap memory for transcripts
+     * @param idleTimeoutSeconds time after which an unused session is discarded, or 0 to keep sessions until evicted
+     * @param spillDirectory directory evicted sessions are written to, or null to discard them
+     */
+    public SessionStore(long maxBytes, long idleTimeoutSeconds, Path spillDirectory) {
+        this(maxBytes, idleTimeoutSeconds, spillDirectory, System::currentTimeMillis);
+    }
+
+    SessionStore(long maxBytes, long idleTimeoutSeconds, Path spillDirectory, LongSupplier clock) {
+        this.pool = new PagePool(maxBytes);
+        this.idleMillis = idleTimeoutSeconds > 0 ? TimeUnit.SECONDS.toMillis(idleTimeoutSeconds) : Long.MAX_VALUE;
+        this.clock = clock;
+        this.spillDirectory = spillDirectory != null ? openSpillDirectory(spillDirectory) : null;
+    }
+
+    /**
+     * Get the store of a configuration, creating it on first use
+     */
+    public static SessionStore forConfiguration(LlmConfiguration configuration) {
+        String configName = configuration.getConfigName() != null ? configuration.getConfigName() : "default";
+        return SHARED.computeIfAbsent(configName, name -> {
+            SessionSettings settings = configuration.getSession();
+            if (settings == null) {
+                return new SessionStore(64L * 1024 * 1024, 1800, null);
+            }
+            Path directory = null;
+            if (settings.isSessionDiskSpillEnabled()) {
+                directory = settings.getSessionDiskDirectory() != null && !settings.getSessionDiskDirectory().isEmpty()
+                    ? Paths.get(settings.getSessionDiskDirectory())
+                    : Paths.get(System.getProperty("mule.home", System.getProperty("java.io.tmpdir")),
+                        ".mulemind", "sessions", name);
+            }
+            return new SessionStore(settings.getSessionMaxMemoryMb() * 1024L * 1024L,
+                settings.getSessionIdleTimeoutSeconds(), directory);
+        });
+    }
+
+    /**
+     * Get the transcript of a session
+     *
+     * @return the messages of the session, empty for a new or expired session
+     */
+    public List<Message> load(String sessionId) {
+        byte[] records;
+        synchronized (sessions) {
+            long now = clock.getAsLong();
+            expireIdle(now);
+            Session session = sessions.get(sessionId);
+            if (session == null) {
+                session = restore(sessionId, now);
+                if (session == null) {
+                    return new ArrayList<>();
+                }
+            }
+            session.lastAccess = now;
+            records = read(session);
+        }
+        return decode(records, 0, records.length);
+    }
+
+    /**
+     * Append messages to a session, creating it if needed
+     */
+    public void append(String sessionId, List<Message> messages) {
+        byte[] records = encode(messages);
+        synchronized (sessions) {
+            long now = clock.getAsLong();
+            expireIdle(now);
+            Session session = sessions.get(sessionId);
+            if (session == null) {
+                session = restore(sessionId, now);
+            }
+            if (session == null) {
+                session = new Session();
+                sessions.put(sessionId, session);
+            }
+            session.lastAccess = now;
+            if (!reserve(sessionId, session, session.length + records.length)) {
+                trim(sessionId, session, records);
+                return;
+            }
+            write(session, records, 0, records.length);
+        }
+    }
+
+    /**
+     * Discard a session, including its spill file
+     *
+     * @return true if the session existed
+     */
+    public boolean remove(String sessionId) {
+        boolean removed;
+        synchronized (sessions) {
+            Session session = sessions.remove(sessionId);
+            removed = session != null;
+            if (session != null) {
+                release(session);
+            }
+        }
+        if (spillDirectory != null) {
+            try {
+                removed |= Files.deleteIfExists(spillFile(sessionId));
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete spilled session file", e);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Number of sessions held in memory
+     */
+    public int size() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    /**
+     * Off-heap bytes held by the sessions in memory, in whole pages
+     */
+    public long getUsedBytes() {
+        synchronized (sessions) {
+            return (long) (pool.capacity() - pool.available()) * PagePool.PAGE_SIZE;
+        }
+    }
+
+    /**
+     * Number of sessions evicted from memory for lack of room
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Number of evicted sessions written to disk
+     */
+    public long getSpillCount() {
+        return spills.sum();
+    }
+
+    /**
+     * Make room for a session to grow to a length, evicting other sessions as needed
+     *
+     * @return false if the session cannot grow that large even with every other session evicted
+     */
+    private boolean reserve(String sessionId, Session session, int length) {
+        if (pagesFor(length) > pool.capacity()) {
+            return false;
+        }
+        int needed = pagesFor(length) - session.pageCount;
+        while (pool.available() < needed) {
+            if (!evictEldest(sessionId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rewrite a session that is too large with its most recent turns, starting at a user message
+     */
+    private void trim(String sessionId, Session session, byte[] appended) {
+        byte[] existing = read(session);
+        byte[] records = new byte[existing.length + appended.length];
+        System.arraycopy(existing, 0, records, 0, existing.length);
+        System.arraycopy(appended, 0, records, existing.length, appended.length);
+        release(session);
+        while (pool.available() < pool.capacity() && evictEldest(sessionId)) {
+            // Give the session the whole pool
+        }
+
+        int limit = pool.available() * PagePool.PAGE_SIZE;
+        int start = 0;
+        while (records.length - start > limit || (start > 0 && start < records.length && records[start] != USER)) {
+            start = nextRecord(records, start);
+        }
+        LOGGER.warn("Session transcript exceeds the session memory, dropping its oldest {} bytes", start);
+        write(session, records, start, records.length - start);
+    }
+
+    private boolean evictEldest(String except) {
+        Iterator<Map.Entry<String, Session>> iterator = sessions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Session> eldest = iterator.next();
+            if (eldest.getKey().equals(except)) {
+                continue;
+            }
+            iterator.remove();
+            if (spillDirectory != null) {
+                spill(eldest.getKey(), read(eldest.getValue()));
+            }
+            release(eldest.getValue());
+            evictions.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void expireIdle(long now) {
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session eldest = iterator.next();
+            if (now - eldest.lastAccess < idleMillis) {
+                break;
+            }
+            iterator.remove();
+            release(eldest);
+        }
+        if (spillDirectory != null && idleMillis != Long.MAX_VALUE && now - nextSweep >= 0) {
+            try {
+                sweep(spillDirectory, now);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to sweep idle sessions from {}", spillDirectory, e);
+            }
+        }
+    }
+
+    /**
+     * Delete spilled sessions that idled out without being used again
+     */
+    private void sweep(Path directory, long now) throws IOException {
+        nextSweep = now + Math.min(idleMillis, MAX_SWEEP_INTERVAL_MILLIS);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SPILL_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    if (now - Files.getLastModifiedTime(file).toMillis() >= idleMillis) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Restored or removed meanwhile
+                }
+            }
+        }
+    }
+
+    private void write(Session session, byte[] source, int from, int length) {
+        int offset = session.length;
+        int end = from + length;
+        while (from < end) {
+            int pageIndex = offset / PagePool.PAGE_SIZE;
+            if (pageIndex == session.pageCount) {
+                session.addPage(pool.allocate());
+            }
+            int inPage = offset % PagePool.PAGE_SIZE;
+            int chunk = Math.min(end - from, PagePool.PAGE_SIZE - inPage);
+            pool.write(session.pages[pageIndex], inPage, source, from, chunk);
+            from += chunk;
+            offset += chunk;
+        }
+        session.length = offset;
+    }
+
+    private byte[] read(Session session) {
+        byte[] records = new byte[session.length];
+        for (int offset = 0; offset < session.length; offset += PagePool.PAGE_SIZE) {
+            int chunk = Math.min(PagePool.PAGE_SIZE, session.length - offset);
+            pool.read(session.pages[offset / PagePool.PAGE_SIZE], 0, records, offset, chunk);
+        }
+        return records;
+    }
+
+    private void release(Session session) {
+        for (int i = 0; i < session.pageCount; i++) {
+            pool.release(session.pages[i]);
+        }
+        session.pageCount = 0;
+        session.length = 0;
+    }
+
+    private static int pagesFor(int length) {
+        return (length + PagePool.PAGE_SIZE - 1) / PagePool.PAGE_SIZE;
+    }
+
+    private Path openSpillDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            // Delete sessions that idled out while the application was down
+            sweep(directory, clock.getAsLong());
+            return directory;
+        } catch (IOException e) {
+            LOGGER.warn("Session spill directory {} is unavailable, evicted sessions will be discarded", directory, e);
+            return null;
+        }
+    }
+
+    private void spill(String sessionId, byte[] records) {
+        Path file = spillFile(sessionId);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        crc.update(records);
+        ByteBuffer header = ByteBuffer.allocate(SPILL_HEADER_LENGTH).putInt(MAGIC).putInt((int) crc.getValue());
+        byte[] content = new byte[SPILL_HEADER_LENGTH + records.length];
+        System.arraycopy(header.array(), 0, content, 0, SPILL_HEADER_LENGTH);
+        System.arraycopy(records, 0, content, SPILL_HEADER_LENGTH, records.length);
+        try {
+            Files.write(temp, content);
+            // The idle time of a spilled session is measured from its modification time
+            Files.setLastModifiedTime(temp, FileTime.fromMillis(clock.getAsLong()));
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            spills.increment();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to spill session to {}, discarding it", file, e);
+        }
+    }
+
+    /**
+     * Read a spilled session back into memory, deleting its file
+     *
+     * @return the session, or null if it was not spilled or has idled out
+     */
+    private Session restore(String sessionId, long now) {
+        if (spillDirectory == null) {
+            return null;
+        }
+        Path file = spillFile(sessionId);
+        byte[] content;
+        try {
+            if (now - Files.getLastModifiedTime(file).toMillis() >= idleMillis) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            content = Files.readAllBytes(file);
+            Files.deleteIfExists(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read spilled session {}", file, e);
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.wrap(content);
+        CRC32 crc = new CRC32();
+        if (content.length >= SPILL_HEADER_LENGTH) {
+            crc.update(content, SPILL_HEADER_LENGTH, content.length - SPILL_HEADER_LENGTH);
+        }
+        if (content.length < SPILL_HEADER_LENGTH || header.getInt() != MAGIC || header.getInt() != (int) crc.getValue()) {
+            LOGGER.warn("Spilled session {} is corrupt, starting the session over", file);
+            return null;
+        }
+        Session session = new Session();
+        sessions.put(sessionId, session);
+        session.lastAccess = now;
+        byte[] records = new byte[content.length - SPILL_HEADER_LENGTH];
+        System.arraycopy(content, SPILL_HEADER_LENGTH, records, 0, records.length);
+        if (reserve(sessionId, session, records.length)) {
+            write(session, records, 0, records.length);
+        } else {
+            trim(sessionId, session, records);
+        }
+        return session;
+    }
+
+    private Path spillFile(String sessionId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sessionId.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + SPILL_SUFFIX.length());
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return spillDirectory.resolve(name.append(SPILL_SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static byte[] encode(List<Message> messages) {
+        int size = 0;
+        for (Message message : messages) {
+            size += 1 + 5 + 3 * length(message.getContent());
+            if (roleCode(message.getRole()) == OTHER) {
+                size += 5 + 3 * length(message.getRole());
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Message message : messages) {
+            byte role = roleCode(message.getRole());
+            buffer.put(role);
+            if (role == OTHER) {
+                putString(buffer, message.getRole());
+            }
+            putString(buffer, message.getContent());
+        }
+        byte[] records = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, records, 0, records.length);
+        return records;
+    }
+
+    static List<Message> decode(byte[] records, int from, int to) {
+        List<Message> messages = new ArrayList<>();
+        int[] position = {from};
+        while (position[0] < to) {
+            byte code = records[position[0]++];
+            String role = switch (code) {
+                case SYSTEM -> "system";
+                case USER -> "user";
+                case ASSISTANT -> "assistant";
+                default -> getString(records, position);
+            };
+            messages.add(new Message(role, getString(records, position)));
+        }
+        return messages;
+    }
+
+    /**
+     * Find the start of the record after the one at a position
+     */
+    private static int nextRecord(byte[] records, int position) {
+        int[] cursor = {position};
+        if (records[cursor[0]++] == OTHER) {
+            skipString(records, cursor);
+        }
+        skipString(records, cursor);
+        return cursor[0];
+    }
+
+    private static byte roleCode(String role) {
+        if ("system".equals(role)) {
+            return SYSTEM;
+        }
+        if ("user".equals(role)) {
+            return USER;
+        }
+        if ("assistant".equals(role)) {
+            return ASSISTANT;
+        }
+        return OTHER;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            buffer.put((byte) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(byte[] records, int[] position) {
+        int length = readLength(records, position);
+        String value = new String(records, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+
+    private static void skipString(byte[] records, int[] position) {
+        int length = readLength(records, position);
+        position[0] += length;
+    }
+
+    private static int readLength(byte[] records, int[] position) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = records[position[0]++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return length;
+    }
+
+    /**
+     * Pages and length of one transcript
+     */
+    private static final class Session {
+        private int[] pages = new int[4];
+        private int pageCount;
+        private int length;
+        private long lastAccess;
+
+        void addPage(int page) {
+            if (pageCount == pages.length) {
+                int[] grown = new int[pages.length * 2];
+                System.arraycopy(pages, 0, grown, 0, pageCount);
+                pages = grown;
+            }
+            pages[pageCount++] = page;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.mulemind.streaming;
+
+import com.mulemind.model.CompletionResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming completion exposed as an InputStream of UTF-8 text.
+ *
+ * Each server-sent event is decoded by the provider-specific subclass into a
+ * text delta, which is handed to the reader as soon as it arrives. Metadata
+ * (id, model, finish reason and usage) is assembled into {@link #getResponse()}
+ * while the stream is consumed and is complete once the stream has ended.
+ * The generated text itself is not buffered in the response.
+ */
+public abstract class CompletionStream extends InputStream {
+
+    private final ServerSentEventReader eventReader;
+    private final Closeable resource;
+    private final CompletionResponse response = new CompletionResponse();
+
+    private byte[] chunk = new byte[0];
+    private int position;
+    private boolean complete;
+    private boolean closed;
+    private boolean textSeen;
+    private boolean ended;
+    private final List<Listener> listeners = new ArrayList<>(1);
+
+    protected CompletionStream(InputStream body, Closeable resource) {
+        this.eventReader = new ServerSentEventReader(body);
+        this.resource = resource;
+    }
+
+    /**
+     * Decode a single event
+     *
+     * @param event the server-sent event
+     * @return the text delta carried by the event, or null if there is none
+     * @throws IOException if the event reports an error or cannot be parsed
+     */
+    protected abstract String onEvent(ServerSentEvent event) throws IOException;
+
+    /**
+     * Mark the stream as finished; no further events are read
+     */
+    protected void complete() {
+        this.complete = true;
+    }
+
+    /**
+     * Get the response metadata assembled so far
+     */
+    public CompletionResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Whether the provider signalled the end of the generation
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Register a listener for the first text and the end of the stream
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Block until the first text is available to read or the stream has ended
+     *
+     * @return true if text is available
+     * @throws IOException if the stream fails
+     */
+    public boolean awaitText() throws IOException {
+        return fill();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return chunk.length - position;
+    }
+
+    private boolean fill() throws IOException {
+        while (position >= chunk.length) {
+            if (complete || closed) {
+                end(null);
+                return false;
+            }
+            String delta;
+            try {
+                ServerSentEvent event = eventReader.next();
+                if (event == null) {
+                    complete();
+                    continue;
+                }
+                delta = onEvent(event);
+            } catch (IOException e) {
+                end(e);
+                throw e;
+            }
+            if (delta != null && !delta.isEmpty()) {
+                chunk = delta.getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                if (!textSeen) {
+                    textSeen = true;
+                    for (Listener listener : listeners) {
+                        listener.onFirstText(this);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void end(IOException error) {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        for (Listener listener : listeners) {
+            listener.onEnd(this, error);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        end(null);
+        if (!complete) {
+            // Abandoned mid-generation: discard the connection rather than
+            // draining the rest of the body when the reader is closed
+            try {
+                resource.close();
+            } finally {
+                eventReader.close();
+            }
+            return;
+        }
+        try {
+            eventReader.close();
+        } finally {
+            resource.close();
+        }
+    }
+
+    /**
+     * Observer of a stream's progress, notified on the reading thread
+     */
+    public interface Listener {
+
+        /**
+         * Called when the first text delta arrives
+         */
+        default void onFirstText(CompletionStream stream) {
+        }
+
+        /**
+         * Called once when the stream ends, fails or is closed; {@link #isComplete()}
+         * tells a finished generation from an abandoned one
+         *
+         * @param error the failure that ended the stream, or null
+         */
+        default void onEnd(CompletionStream stream, IOException error) {
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.mulemind.streaming;
+
+/**
+ * A single server-sent event
+ */
+public class ServerSentEvent {
+
+    private final String event;
+    private final String data;
+
+    public ServerSentEvent(String event, String data) {
+        this.event = event;
+        this.data = data;
+    }
+
+    /**
+     * Get the event name, or "message" when the server did not send one
+     */
+    public String getEvent() {
+        return event;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerSentEvent{" +
+                "event='" + event + '\'' +
+                ", data='" + data + '\'' +
+                '}';
+    }
+}
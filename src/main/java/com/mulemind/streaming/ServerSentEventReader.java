@@ -0,0 +1,81 @@
+package com.mulemind.streaming;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental reader for a text/event-stream body.
+ *
+ * Events are parsed one at a time as bytes arrive, so callers can act on each
+ * event without waiting for the end of the response.
+ */
+public class ServerSentEventReader implements Closeable {
+
+    private static final String DEFAULT_EVENT = "message";
+
+    private final BufferedReader reader;
+    private final StringBuilder data = new StringBuilder();
+
+    public ServerSentEventReader(InputStream inputStream) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the next event, blocking until it is complete
+     *
+     * @return the next event, or null at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    public ServerSentEvent next() throws IOException {
+        String event = null;
+        data.setLength(0);
+        boolean hasData = false;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (hasData) {
+                    return new ServerSentEvent(event != null ? event : DEFAULT_EVENT, data.toString());
+                }
+                event = null;
+                continue;
+            }
+            if (line.charAt(0) == ':') {
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = "";
+            if (colon >= 0) {
+                int start = colon + 1;
+                if (start < line.length() && line.charAt(start) == ' ') {
+                    start++;
+                }
+                value = line.substring(start);
+            }
+
+            if ("data".equals(field)) {
+                if (hasData) {
+                    data.append('\n');
+                }
+                data.append(value);
+                hasData = true;
+            } else if ("event".equals(field)) {
+                event = value;
+            }
+        }
+
+        // Dispatch a trailing event that was not terminated by a blank line
+        return hasData ? new ServerSentEvent(event != null ? event : DEFAULT_EVENT, data.toString()) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
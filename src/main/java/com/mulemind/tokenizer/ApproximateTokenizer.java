@@ -0,0 +1,62 @@
+package com.mulemind.tokenizer;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Estimates token counts for models whose vocabulary is not available
+ * locally, such as Claude models.
+ *
+ * The text is split like cl100k_base does and each piece is counted as one
+ * token per four ASCII characters or three bytes of other UTF-8 text, which
+ * is close to how the BPE vocabularies of current models split English text
+ * and code.
+ */
+final class ApproximateTokenizer implements Tokenizer {
+
+    static final String ENCODING = "approximate";
+
+    private final Pattern pattern;
+
+    ApproximateTokenizer(Pattern pattern) {
+        this.pattern = pattern;
+    }
+
+    @Override
+    public int countTokens(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        Matcher matcher = pattern.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            int ascii = 0;
+            int other = 0;
+            for (int i = matcher.start(); i < matcher.end(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    ascii++;
+                } else if (c < 0x800) {
+                    other += 2;
+                } else if (!Character.isLowSurrogate(c)) {
+                    other += 3;
+                } else {
+                    other++;
+                }
+            }
+            // ascii / 4 + other / 3, rounded
+            count += Math.max(1, (3 * ascii + 4 * other + 6) / 12);
+        }
+        return count;
+    }
+
+    @Override
+    public String getEncoding() {
+        return ENCODING;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+}
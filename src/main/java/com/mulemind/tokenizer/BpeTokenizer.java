@@ -0,0 +1,248 @@
+package com.mulemind.tokenizer;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-pair encoding tokenizer compatible with OpenAI's tiktoken.
+ *
+ * The text is split into pieces by the encoding's pre-tokenization pattern,
+ * each piece is encoded to UTF-8 and its bytes are merged pairwise, lowest
+ * rank first, until no adjacent pair is a token. Pieces that are tokens as a
+ * whole, which is most words, are counted with a single lookup. Merging
+ * works on per-thread scratch arrays, a linked list of parts and a heap of
+ * candidate pairs, so counting allocates nothing beyond the regex matcher and
+ * stays linear-logarithmic on long pieces.
+ */
+final class BpeTokenizer implements Tokenizer {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final String encoding;
+    private final BpeVocabulary vocabulary;
+    private final Pattern pattern;
+
+    BpeTokenizer(String encoding, BpeVocabulary vocabulary, Pattern pattern) {
+        this.encoding = encoding;
+        this.vocabulary = vocabulary;
+        this.pattern = pattern;
+    }
+
+    @Override
+    public int countTokens(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        Scratch scratch = SCRATCH.get();
+        Matcher matcher = pattern.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            int length = scratch.encode(text, matcher.start(), matcher.end());
+            count += merge(scratch, length);
+        }
+        return count;
+    }
+
+    /**
+     * Encode a text to token ranks
+     */
+    int[] encode(CharSequence text) {
+        Scratch scratch = SCRATCH.get();
+        Matcher matcher = pattern.matcher(text);
+        int[] tokens = new int[16];
+        int count = 0;
+        while (matcher.find()) {
+            int length = scratch.encode(text, matcher.start(), matcher.end());
+            int parts = merge(scratch, length);
+            if (count + parts > tokens.length) {
+                tokens = Arrays.copyOf(tokens, Math.max(tokens.length * 2, count + parts));
+            }
+            if (parts == 1) {
+                tokens[count++] = vocabulary.rank(scratch.bytes, 0, length);
+                continue;
+            }
+            for (int part = 0; part < length; part = scratch.next[part]) {
+                tokens[count++] = vocabulary.rank(scratch.bytes, part, scratch.next[part]);
+            }
+        }
+        return Arrays.copyOf(tokens, count);
+    }
+
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+
+    /**
+     * Merge the bytes of a piece in the scratch buffer
+     *
+     * @return the number of tokens; when greater than one, the parts are left
+     *         in the scratch as a linked list starting at 0
+     */
+    private int merge(Scratch scratch, int length) {
+        byte[] bytes = scratch.bytes;
+        if (length <= 1 || vocabulary.rank(bytes, 0, length) >= 0) {
+            return Math.min(length, 1);
+        }
+        scratch.ensureParts(length);
+        int[] next = scratch.next;
+        int[] prev = scratch.prev;
+        int[] pairRank = scratch.pairRank;
+        for (int i = 0; i < length; i++) {
+            next[i] = i + 1;
+            prev[i] = i - 1;
+        }
+        int heapSize = 0;
+        for (int i = 0; i < length; i++) {
+            pairRank[i] = i + 1 < length ? vocabulary.rank(bytes, i, i + 2) : -1;
+            if (pairRank[i] >= 0) {
+                heapSize = scratch.push(heapSize, pairRank[i], i);
+            }
+        }
+        int parts = length;
+        while (heapSize > 0) {
+            long top = scratch.heap[0];
+            heapSize = scratch.pop(heapSize);
+            int rank = (int) (top >>> 32);
+            int part = (int) top;
+            if (pairRank[part] != rank) {
+                // Superseded by an earlier merge
+                continue;
+            }
+            int merged = next[part];
+            next[part] = next[merged];
+            if (next[merged] < length) {
+                prev[next[merged]] = part;
+            }
+            pairRank[merged] = -2;
+            parts--;
+            pairRank[part] = pairRank(bytes, next, part, length);
+            if (pairRank[part] >= 0) {
+                heapSize = scratch.push(heapSize, pairRank[part], part);
+            }
+            int previous = prev[part];
+            if (previous >= 0) {
+                pairRank[previous] = pairRank(bytes, next, previous, length);
+                if (pairRank[previous] >= 0) {
+                    heapSize = scratch.push(heapSize, pairRank[previous], previous);
+                }
+            }
+        }
+        return parts;
+    }
+
+    private int pairRank(byte[] bytes, int[] next, int part, int length) {
+        int second = next[part];
+        if (second >= length) {
+            return -1;
+        }
+        return vocabulary.rank(bytes, part, next[second]);
+    }
+
+    /**
+     * Per-thread buffers reused across calls
+     */
+    private static final class Scratch {
+        byte[] bytes = new byte[256];
+        int[] next = new int[256];
+        int[] prev = new int[256];
+        int[] pairRank = new int[256];
+        long[] heap = new long[768];
+
+        /**
+         * Encode a slice of a text to UTF-8 into the byte buffer
+         *
+         * @return the number of bytes
+         */
+        int encode(CharSequence text, int start, int end) {
+            if ((end - start) * 3 > bytes.length) {
+                bytes = new byte[(end - start) * 3];
+            }
+            byte[] out = bytes;
+            int length = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    out[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    out[length++] = (byte) (0xC0 | (c >> 6));
+                    out[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    out[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    out[length++] = '?';
+                } else {
+                    out[length++] = (byte) (0xE0 | (c >> 12));
+                    out[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    out[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return length;
+        }
+
+        void ensureParts(int length) {
+            if (length > next.length) {
+                next = new int[length];
+                prev = new int[length];
+                pairRank = new int[length];
+                heap = new long[length * 3];
+            }
+        }
+
+        /**
+         * Push a pair onto the min-heap, ordered by rank and then by position
+         *
+         * @return the new heap size
+         */
+        int push(int size, int rank, int part) {
+            long key = ((long) rank << 32) | part;
+            int i = size;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= key) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = key;
+            return size + 1;
+        }
+
+        /**
+         * Remove the smallest pair from the heap
+         *
+         * @return the new heap size
+         */
+        int pop(int size) {
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return size;
+        }
+    }
+}
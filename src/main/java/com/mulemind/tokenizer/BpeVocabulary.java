@@ -0,0 +1,122 @@
+package com.mulemind.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Byte-pair encoding ranks of a tiktoken vocabulary.
+ *
+ * The token bytes are packed end to end into a single array and indexed by
+ * an open-addressing hash table of token indexes, so a vocabulary of 200k
+ * tokens takes a few megabytes in four arrays instead of a map of boxed
+ * entries, and a rank is looked up from a slice of a buffer without
+ * allocating.
+ */
+final class BpeVocabulary {
+
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final int[] ranks;
+    private final int[] table;
+    private final int mask;
+
+    private BpeVocabulary(byte[] bytes, int[] offsets, int[] ranks, int size) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.ranks = ranks;
+        int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(table, -1);
+        for (int token = 0; token < size; token++) {
+            int slot = hash(bytes, offsets[token], offsets[token + 1]) & mask;
+            while (table[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = token;
+        }
+    }
+
+    /**
+     * Read a vocabulary in the tiktoken format: one line per token with the
+     * base64 encoded token bytes and the rank, separated by a space
+     */
+    static BpeVocabulary read(InputStream input) throws IOException {
+        byte[] bytes = new byte[1 << 20];
+        int[] offsets = new int[1 << 16];
+        int[] ranks = new int[1 << 16];
+        int size = 0;
+        int length = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.US_ASCII));
+        Base64.Decoder decoder = Base64.getDecoder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            if (space < 0) {
+                throw new IOException("Malformed vocabulary line: " + line);
+            }
+            byte[] token = decoder.decode(line.substring(0, space));
+            int rank;
+            try {
+                rank = Integer.parseInt(line.substring(space + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed vocabulary line: " + line, e);
+            }
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                ranks = Arrays.copyOf(ranks, ranks.length * 2);
+            }
+            if (length + token.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + token.length));
+            }
+            System.arraycopy(token, 0, bytes, length, token.length);
+            offsets[size] = length;
+            ranks[size] = rank;
+            length += token.length;
+            size++;
+        }
+        offsets[size] = length;
+        return new BpeVocabulary(Arrays.copyOf(bytes, length), Arrays.copyOf(offsets, size + 1),
+            Arrays.copyOf(ranks, size), size);
+    }
+
+    /**
+     * Get the rank of the token made of a slice of a buffer
+     *
+     * @return the rank, or -1 if the bytes are not a token
+     */
+    int rank(byte[] buffer, int from, int to) {
+        int slot = hash(buffer, from, to) & mask;
+        int length = to - from;
+        int token;
+        while ((token = table[slot]) != -1) {
+            int start = offsets[token];
+            if (offsets[token + 1] - start == length
+                    && Arrays.equals(bytes, start, start + length, buffer, from, to)) {
+                return ranks[token];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    int size() {
+        return ranks.length;
+    }
+
+    private static int hash(byte[] buffer, int from, int to) {
+        int hash = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ buffer[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
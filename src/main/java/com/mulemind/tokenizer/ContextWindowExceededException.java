@@ -0,0 +1,30 @@
+package com.mulemind.tokenizer;
+
+import com.mulemind.provider.LlmProviderException;
+
+/**
+ * Thrown without contacting the provider when a request does not fit in the
+ * model's context window
+ */
+public class ContextWindowExceededException extends LlmProviderException {
+
+    private final int promptTokens;
+    private final int contextWindow;
+
+    public ContextWindowExceededException(String message, String provider, int promptTokens, int contextWindow) {
+        super(message, provider);
+        this.promptTokens = promptTokens;
+        this.contextWindow = contextWindow;
+    }
+
+    /**
+     * Get the counted, or estimated, number of prompt tokens
+     */
+    public int getPromptTokens() {
+        return promptTokens;
+    }
+
+    public int getContextWindow() {
+        return contextWindow;
+    }
+}
@@ -0,0 +1,40 @@
+package com.mulemind.tokenizer;
+
+/**
+ * Context window sizes of known models, in tokens
+ */
+public final class ContextWindows {
+
+    // Most specific prefix first
+    private static final String[] PREFIXES = {
+        "gpt-4.1", "gpt-4.5", "gpt-4o", "chatgpt-4o", "gpt-4-turbo", "gpt-4-vision-preview", "gpt-4-1106", "gpt-4-0125",
+        "gpt-4-32k", "gpt-4", "gpt-3.5-turbo-instruct", "gpt-3.5-turbo", "gpt-5", "o1-mini", "o1", "o3", "o4",
+        "text-embedding-3", "text-embedding-ada-002", "claude-", "anthropic.claude-"
+    };
+    private static final int[] WINDOWS = {
+        1_047_576, 128_000, 128_000, 128_000, 128_000, 128_000, 128_000, 128_000,
+        32_768, 8_192, 4_096, 16_385, 400_000, 128_000, 200_000, 200_000, 200_000,
+        8_191, 8_191, 200_000, 200_000
+    };
+
+    private ContextWindows() {
+    }
+
+    /**
+     * Get the context window of a model
+     *
+     * @param model the model name
+     * @return the number of tokens shared by the prompt and the completion, or 0 if unknown
+     */
+    public static int forModel(String model) {
+        if (model == null) {
+            return 0;
+        }
+        for (int i = 0; i < PREFIXES.length; i++) {
+            if (model.startsWith(PREFIXES[i])) {
+                return WINDOWS[i];
+            }
+        }
+        return 0;
+    }
+}
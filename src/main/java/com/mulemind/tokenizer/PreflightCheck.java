@@ -0,0 +1,70 @@
+package com.mulemind.tokenizer;
+
+import com.mulemind.config.ContextWindowSettings;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.MaxTokensAction;
+import com.mulemind.model.CompletionRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks a request against the model's context window before it is sent.
+ *
+ * A prompt that leaves no room for the completion is rejected; when the
+ * prompt fits but the requested max tokens does not, max tokens is lowered
+ * to the room left, or the request is rejected, as configured. Prompt tokens
+ * are counted locally, exactly for models with a vocabulary and approximately
+ * otherwise.
+ */
+public final class PreflightCheck {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreflightCheck.class);
+
+    private PreflightCheck() {
+    }
+
+    /**
+     * Check a request, lowering its max tokens if configured to
+     *
+     * @param request the request to check
+     * @param configuration the configuration it is sent with
+     * @throws ContextWindowExceededException if the request does not fit
+     */
+    public static void apply(CompletionRequest request, LlmConfiguration configuration) throws ContextWindowExceededException {
+        ContextWindowSettings settings = configuration.getContextWindow();
+        if (settings == null || !settings.isPreflightCheckEnabled() || request.getMessages() == null) {
+            return;
+        }
+        String model = request.getModel() != null ? request.getModel() : configuration.getEffectiveModel();
+        int contextWindow = settings.getContextWindowTokens() > 0
+            ? settings.getContextWindowTokens()
+            : ContextWindows.forModel(model);
+        if (contextWindow <= 0) {
+            return;
+        }
+
+        Tokenizer tokenizer = Tokenizers.forModel(model);
+        int promptTokens = Tokenizers.countTokens(tokenizer, request.getMessages());
+        String provider = configuration.getProvider().getDisplayName();
+        if (promptTokens >= contextWindow) {
+            throw new ContextWindowExceededException(
+                "Prompt of " + promptTokens + (tokenizer.isExact() ? "" : " estimated") + " tokens does not fit in the "
+                    + contextWindow + " token context window of " + model,
+                provider, promptTokens, contextWindow);
+        }
+
+        Integer maxTokens = request.getMaxTokens() != null ? request.getMaxTokens() : configuration.getMaxTokens();
+        if (maxTokens == null || promptTokens + maxTokens <= contextWindow) {
+            return;
+        }
+        int available = contextWindow - promptTokens;
+        if (settings.getMaxTokensAction() == MaxTokensAction.REJECT) {
+            throw new ContextWindowExceededException(
+                "Prompt of " + promptTokens + (tokenizer.isExact() ? "" : " estimated") + " tokens leaves room for "
+                    + available + " of the " + maxTokens + " max tokens in the context window of " + model,
+                provider, promptTokens, contextWindow);
+        }
+        LOGGER.debug("Lowering max tokens from {} to {} to fit the context window of {}", maxTokens, available, model);
+        request.setMaxTokens(available);
+    }
+}
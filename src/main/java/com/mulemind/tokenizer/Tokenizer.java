@@ -0,0 +1,25 @@
+package com.mulemind.tokenizer;
+
+/**
+ * Counts the tokens of text as a model's tokenizer would
+ */
+public interface Tokenizer {
+
+    /**
+     * Count the tokens of a text, without special tokens
+     *
+     * @param text the text
+     * @return the number of tokens
+     */
+    int countTokens(CharSequence text);
+
+    /**
+     * Get the name of the encoding, e.g. cl100k_base
+     */
+    String getEncoding();
+
+    /**
+     * Whether counts are exact for the model rather than an estimate
+     */
+    boolean isExact();
+}
@@ -0,0 +1,133 @@
+package com.mulemind.tokenizer;
+
+import com.mulemind.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizers of the supported models.
+ *
+ * OpenAI models are counted exactly with their tiktoken encoding when its
+ * vocabulary file ({@code cl100k_base.tiktoken} or {@code o200k_base.tiktoken})
+ * is found, either in the directory named by the
+ * {@value #DIRECTORY_PROPERTY} system property or on the classpath under
+ * {@code mulemind/tokenizer/}. Vocabularies are loaded on first use and
+ * shared. Other models, and OpenAI models without a vocabulary, get an
+ * approximate count.
+ */
+public final class Tokenizers {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Tokenizers.class);
+
+    public static final String DIRECTORY_PROPERTY = "mulemind.tokenizer.directory";
+
+    static final String CL100K_BASE = "cl100k_base";
+    static final String O200K_BASE = "o200k_base";
+
+    static final Pattern CL100K_PATTERN = Pattern.compile(
+        "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*"
+            + "|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+        Pattern.UNICODE_CHARACTER_CLASS);
+
+    static final Pattern O200K_PATTERN = Pattern.compile(
+        "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]*[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]+(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+            + "|[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]+[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]*(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+            + "|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n/]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+        Pattern.UNICODE_CHARACTER_CLASS);
+
+    // Tokens added by the chat format around every message and before the reply
+    private static final int TOKENS_PER_MESSAGE = 3;
+    private static final int TOKENS_PER_REPLY = 3;
+
+    private static final Tokenizer APPROXIMATE = new ApproximateTokenizer(CL100K_PATTERN);
+    private static final Map<String, Optional<Tokenizer>> ENCODINGS = new ConcurrentHashMap<>();
+
+    private Tokenizers() {
+    }
+
+    /**
+     * Get the tokenizer of a model, loading its vocabulary on first use
+     */
+    public static Tokenizer forModel(String model) {
+        String encoding = encodingFor(model);
+        if (encoding == null) {
+            return APPROXIMATE;
+        }
+        return ENCODINGS.computeIfAbsent(encoding, Tokenizers::load).orElse(APPROXIMATE);
+    }
+
+    /**
+     * Count the tokens of a conversation, including the chat format overhead
+     */
+    public static int countTokens(Tokenizer tokenizer, List<Message> messages) {
+        int count = TOKENS_PER_REPLY;
+        for (Message message : messages) {
+            count += countTokens(tokenizer, message);
+        }
+        return count;
+    }
+
+    /**
+     * Count the tokens of a single message, including the chat format overhead
+     */
+    public static int countTokens(Tokenizer tokenizer, Message message) {
+        return TOKENS_PER_MESSAGE + tokenizer.countTokens(message.getRole()) + tokenizer.countTokens(message.getContent());
+    }
+
+    static String encodingFor(String model) {
+        if (model == null) {
+            return null;
+        }
+        if (model.startsWith("gpt-4o") || model.startsWith("chatgpt-4o") || model.startsWith("gpt-4.1")
+                || model.startsWith("gpt-4.5") || model.startsWith("gpt-5") || model.startsWith("o1")
+                || model.startsWith("o3") || model.startsWith("o4")) {
+            return O200K_BASE;
+        }
+        if (model.startsWith("gpt-4") || model.startsWith("gpt-3.5") || model.startsWith("text-embedding-3")
+                || model.startsWith("text-embedding-ada-002")) {
+            return CL100K_BASE;
+        }
+        return null;
+    }
+
+    private static Optional<Tokenizer> load(String encoding) {
+        Pattern pattern = O200K_BASE.equals(encoding) ? O200K_PATTERN : CL100K_PATTERN;
+        String fileName = encoding + ".tiktoken";
+        try {
+            String directory = System.getProperty(DIRECTORY_PROPERTY);
+            if (directory != null && !directory.isEmpty()) {
+                Path file = Paths.get(directory, fileName);
+                if (Files.isReadable(file)) {
+                    try (InputStream input = Files.newInputStream(file)) {
+                        return Optional.of(loaded(encoding, BpeVocabulary.read(input), pattern));
+                    }
+                }
+            }
+            try (InputStream input = Tokenizers.class.getClassLoader().getResourceAsStream("mulemind/tokenizer/" + fileName)) {
+                if (input != null) {
+                    return Optional.of(loaded(encoding, BpeVocabulary.read(input), pattern));
+                }
+            }
+            LOGGER.info("Vocabulary {} not found, token counts for its models are approximate", fileName);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to load vocabulary {}, token counts for its models are approximate", fileName, e);
+        }
+        return Optional.empty();
+    }
+
+    private static Tokenizer loaded(String encoding, BpeVocabulary vocabulary, Pattern pattern) {
+        LOGGER.debug("Loaded vocabulary {} with {} tokens", encoding, vocabulary.size());
+        return new BpeTokenizer(encoding, vocabulary, pattern);
+    }
+}
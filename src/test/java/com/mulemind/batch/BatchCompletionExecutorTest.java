@@ -0,0 +1,85 @@
+package com.mulemind.batch;
+
+import com.mulemind.model.BatchItemResult;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.Message;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the batch completion executor
+ */
+class BatchCompletionExecutorTest {
+
+    @Test
+    void testResultsKeepInputOrderAndCapConcurrency() throws Exception {
+        List<CompletableFuture<CompletionResponse>> pending = new ArrayList<>();
+        LlmProviderClient client = mock(LlmProviderClient.class);
+        when(client.completeAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<CompletionResponse> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+
+        CompletableFuture<List<BatchItemResult>> batch =
+            BatchCompletionExecutor.execute(client, requests(5), 2);
+        assertEquals(2, pending.size());
+
+        // Complete out of order; each completion frees a slot for the next request
+        pending.get(1).complete(response("second"));
+        assertEquals(3, pending.size());
+        pending.get(0).complete(response("first"));
+        pending.get(2).completeExceptionally(new LlmProviderException("Rate limited", 429, "OpenAI"));
+        pending.get(4).complete(response("fifth"));
+        pending.get(3).complete(response("fourth"));
+
+        List<BatchItemResult> results = batch.get(1, TimeUnit.SECONDS);
+        assertEquals(5, results.size());
+        assertEquals("first", results.get(0).getContent());
+        assertEquals("second", results.get(1).getContent());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(429, results.get(2).getStatusCode());
+        assertEquals(2, results.get(2).getIndex());
+        assertEquals("fourth", results.get(3).getContent());
+        assertEquals("fifth", results.get(4).getContent());
+    }
+
+    @Test
+    void testSynchronousCompletionsDrainTheBatch() throws Exception {
+        LlmProviderClient client = mock(LlmProviderClient.class);
+        when(client.completeAsync(any())).thenReturn(CompletableFuture.completedFuture(response("cached")));
+
+        List<BatchItemResult> results = BatchCompletionExecutor.execute(client, requests(1000), 1)
+            .get(1, TimeUnit.SECONDS);
+
+        assertEquals(1000, results.size());
+        assertTrue(results.stream().allMatch(BatchItemResult::isSuccess));
+        verify(client, times(1000)).completeAsync(any());
+    }
+
+    private static List<CompletionRequest> requests(int count) {
+        List<CompletionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(CompletionRequest.builder().addUserMessage("Prompt " + i).build());
+        }
+        return requests;
+    }
+
+    private static CompletionResponse response(String content) {
+        CompletionResponse response = new CompletionResponse();
+        CompletionResponse.Choice choice = new CompletionResponse.Choice();
+        choice.setMessage(Message.assistant(content));
+        response.setChoices(List.of(choice));
+        return response;
+    }
+}
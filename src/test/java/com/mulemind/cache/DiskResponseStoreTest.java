@@ -0,0 +1,102 @@
+package com.mulemind.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for the persistent response store
+ */
+class DiskResponseStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEntriesSurviveReopen() throws Exception {
+        try (DiskResponseStore store = new DiskResponseStore(directory, 64 * 1024, 3600)) {
+            store.put(key("a"), bytes("first"));
+            store.put(key("b"), bytes("second"));
+            store.put(key("a"), bytes("updated"));
+        }
+
+        try (DiskResponseStore store = new DiskResponseStore(directory, 64 * 1024, 3600)) {
+            assertEquals(2, store.size());
+            assertEquals("updated", string(store.get(key("a"))));
+            assertEquals("second", string(store.get(key("b"))));
+        }
+    }
+
+    @Test
+    void testExpiredEntriesAreDropped() throws Exception {
+        AtomicLong now = new AtomicLong(1_000_000);
+        try (DiskResponseStore store = new DiskResponseStore(directory, 64 * 1024, 10, now::get)) {
+            store.put(key("a"), bytes("value"));
+            now.addAndGet(11_000);
+            assertNull(store.get(key("a")));
+        }
+    }
+
+    @Test
+    void testCompactionKeepsNewestEntriesWithinCap() throws Exception {
+        int capacity = 4096;
+        try (DiskResponseStore store = new DiskResponseStore(directory, capacity, 3600)) {
+            for (int i = 0; i < 100; i++) {
+                store.put(key("k" + i), new byte[200]);
+            }
+            assertTrue(store.getLiveBytes() <= capacity);
+            assertNotNull(store.get(key("k99")));
+            assertNull(store.get(key("k0")));
+        }
+
+        try (DiskResponseStore store = new DiskResponseStore(directory, capacity, 3600)) {
+            assertNotNull(store.get(key("k99")));
+        }
+    }
+
+    @Test
+    void testCorruptRecordTruncatesScan() throws Exception {
+        try (DiskResponseStore store = new DiskResponseStore(directory, 64 * 1024, 3600)) {
+            store.put(key("a"), bytes("first"));
+            store.put(key("b"), bytes("second"));
+        }
+
+        // Flip a byte in the value of the second record
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(DiskResponseStore.SEGMENT_FILE).toFile(), "rw")) {
+            long offset = 52 + 5 + 52;
+            file.seek(offset);
+            file.write(file.read() ^ 0xFF);
+        }
+
+        try (DiskResponseStore store = new DiskResponseStore(directory, 64 * 1024, 3600)) {
+            assertEquals("first", string(store.get(key("a"))));
+            assertNull(store.get(key("b")));
+        }
+    }
+
+    @Test
+    void testDirectoryCannotBeOpenedTwice() throws Exception {
+        try (DiskResponseStore store = new DiskResponseStore(directory, 64 * 1024, 3600)) {
+            assertThrows(IOException.class, () -> new DiskResponseStore(directory, 64 * 1024, 3600));
+        }
+    }
+
+    private static CacheKey key(String name) throws Exception {
+        return CacheKey.fromBytes(MessageDigest.getInstance("SHA-256").digest(bytes(name)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
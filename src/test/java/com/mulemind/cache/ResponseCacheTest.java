@@ -0,0 +1,175 @@
+package com.mulemind.cache;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.Message;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for the response cache
+ */
+class ResponseCacheTest {
+
+    private LlmConfiguration configuration;
+
+    @BeforeEach
+    void setUp() {
+        configuration = mock(LlmConfiguration.class);
+        when(configuration.getProvider()).thenReturn(LlmProvider.OPENAI);
+        when(configuration.getEffectiveModel()).thenReturn("gpt-4");
+        when(configuration.getTemperature()).thenReturn(0.0);
+    }
+
+    @Test
+    void testCacheKeyAppliesConfigurationDefaults() {
+        CompletionRequest implicit = CompletionRequest.builder().addUserMessage("Classify this").build();
+        CompletionRequest explicit = CompletionRequest.builder()
+            .model("gpt-4")
+            .temperature(0.0)
+            .addUserMessage("Classify this")
+            .build();
+        CompletionRequest different = CompletionRequest.builder().addUserMessage("Classify that").build();
+
+        assertEquals(CacheKey.of(configuration, implicit), CacheKey.of(configuration, explicit));
+        assertNotEquals(CacheKey.of(configuration, implicit), CacheKey.of(configuration, different));
+        assertEquals(64, CacheKey.of(configuration, implicit).toString().length());
+    }
+
+    @Test
+    void testMemoryStoreEvictsLeastRecentlyUsed() {
+        MemoryResponseStore store = new MemoryResponseStore(2, 1024, 60);
+        CacheKey a = key("a");
+        CacheKey b = key("b");
+        CacheKey c = key("c");
+
+        store.put(a, new byte[10]);
+        store.put(b, new byte[10]);
+        assertNotNull(store.get(a));
+        store.put(c, new byte[10]);
+
+        assertNotNull(store.get(a));
+        assertNull(store.get(b));
+        assertNotNull(store.get(c));
+        assertEquals(1, store.getEvictionCount());
+    }
+
+    @Test
+    void testMemoryStoreEnforcesByteLimitAndTtl() {
+        AtomicLong now = new AtomicLong();
+        MemoryResponseStore store = new MemoryResponseStore(100, 25, 10, now::get);
+
+        store.put(key("a"), new byte[10]);
+        store.put(key("b"), new byte[10]);
+        store.put(key("c"), new byte[10]);
+        assertEquals(2, store.size());
+        assertEquals(20, store.getTotalBytes());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        assertNull(store.get(key("c")));
+    }
+
+    @Test
+    void testCachingClientServesHitsWithoutCallingProvider() throws Exception {
+        LlmProviderClient provider = mock(LlmProviderClient.class);
+        when(provider.getConfiguration()).thenReturn(configuration);
+        when(provider.complete(any())).thenReturn(response("positive"));
+
+        CachingProviderClient client = new CachingProviderClient(provider, new MemoryResponseStore(10, 1024 * 1024, 60), false);
+
+        CompletionResponse first = client.complete(CompletionRequest.builder().addUserMessage("Classify").build());
+        CompletionResponse second = client.complete(CompletionRequest.builder().addUserMessage("Classify").build());
+
+        assertFalse(first.isCached());
+        assertTrue(second.isCached());
+        assertEquals("positive", second.getContent());
+        verify(provider, times(1)).complete(any());
+        assertEquals(1, client.getHitCount());
+        assertEquals(1, client.getMissCount());
+    }
+
+    @Test
+    void testNonZeroTemperatureIsNotCachedByDefault() throws Exception {
+        LlmProviderClient provider = mock(LlmProviderClient.class);
+        when(provider.getConfiguration()).thenReturn(configuration);
+        when(provider.complete(any())).thenReturn(response("creative"));
+
+        CachingProviderClient client = new CachingProviderClient(provider, new MemoryResponseStore(10, 1024 * 1024, 60), false);
+
+        client.complete(CompletionRequest.builder().temperature(0.9).addUserMessage("Write a poem").build());
+        client.complete(CompletionRequest.builder().temperature(0.9).addUserMessage("Write a poem").build());
+
+        verify(provider, times(2)).complete(any());
+    }
+
+    @Test
+    void testConcurrentIdenticalRequestsShareOneCall() throws Exception {
+        LlmProviderClient provider = mock(LlmProviderClient.class);
+        when(provider.getConfiguration()).thenReturn(configuration);
+        CompletableFuture<CompletionResponse> upstream = new CompletableFuture<>();
+        when(provider.completeAsync(any())).thenReturn(upstream);
+
+        CoalescingProviderClient client = new CoalescingProviderClient(provider, false);
+        CompletableFuture<CompletionResponse> first = client.completeAsync(CompletionRequest.builder().addUserMessage("Classify").build());
+        CompletableFuture<CompletionResponse> second = client.completeAsync(CompletionRequest.builder().addUserMessage("Classify").build());
+        assertEquals(1, client.getInFlightCount());
+
+        // Cancelling one caller leaves the shared call running for the others
+        second.cancel(true);
+        CompletableFuture<CompletionResponse> third = client.completeAsync(CompletionRequest.builder().addUserMessage("Classify").build());
+        upstream.complete(response("positive"));
+
+        assertEquals("positive", first.get(1, TimeUnit.SECONDS).getContent());
+        assertSame(first.get(), third.get(1, TimeUnit.SECONDS));
+        verify(provider, times(1)).completeAsync(any());
+        assertEquals(2, client.getCoalescedCount());
+        assertEquals(0, client.getInFlightCount());
+    }
+
+    @Test
+    void testCoalescedCallersShareTheError() {
+        LlmProviderClient provider = mock(LlmProviderClient.class);
+        when(provider.getConfiguration()).thenReturn(configuration);
+        CompletableFuture<CompletionResponse> upstream = new CompletableFuture<>();
+        when(provider.completeAsync(any())).thenReturn(upstream);
+
+        CoalescingProviderClient client = new CoalescingProviderClient(provider, false);
+        CompletableFuture<CompletionResponse> first = client.completeAsync(CompletionRequest.builder().addUserMessage("Classify").build());
+        CompletableFuture<CompletionResponse> second = client.completeAsync(CompletionRequest.builder().addUserMessage("Classify").build());
+        upstream.completeExceptionally(new LlmProviderException("Service unavailable", 503, "OpenAI"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+        assertEquals(503, ((LlmProviderException) error.getCause()).getStatusCode());
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals(0, client.getInFlightCount());
+    }
+
+    private CacheKey key(String content) {
+        return CacheKey.of(configuration, CompletionRequest.builder().addUserMessage(content).build());
+    }
+
+    private static CompletionResponse response(String content) {
+        CompletionResponse.Choice choice = new CompletionResponse.Choice();
+        choice.setIndex(0);
+        choice.setMessage(Message.assistant(content));
+        choice.setFinishReason("stop");
+
+        CompletionResponse response = new CompletionResponse();
+        response.setId("resp-1");
+        response.setChoices(List.of(choice));
+        return response;
+    }
+}
@@ -0,0 +1,219 @@
+package com.mulemind.cache;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for the vector index and the semantic response cache
+ */
+class SemanticCacheTest {
+
+    private static final Map<String, float[]> VECTORS = Map.of(
+        "How do I reset my password?", new float[] {1f, 0f, 0f},
+        "how can i reset my password", new float[] {0.98f, 0.1f, 0f},
+        "What are your opening hours?", new float[] {0f, 1f, 0f}
+    );
+
+    private final AtomicLong clock = new AtomicLong();
+    private LlmProviderClient provider;
+
+    @BeforeEach
+    void setUp() throws LlmProviderException {
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getProvider()).thenReturn(LlmProvider.OPENAI);
+        when(configuration.getEffectiveModel()).thenReturn("gpt-4");
+        when(configuration.getTemperature()).thenReturn(0.0);
+        provider = mock(LlmProviderClient.class);
+        when(provider.getConfiguration()).thenReturn(configuration);
+        when(provider.embedAsync(any())).thenAnswer(invocation -> {
+            EmbeddingRequest request = invocation.getArgument(0);
+            float[] vector = VECTORS.get(request.getInput().get(0));
+            return CompletableFuture.completedFuture(new EmbeddingResponse(request.getModel(), List.of(vector)));
+        });
+        when(provider.complete(any())).thenAnswer(invocation -> {
+            CompletionRequest request = invocation.getArgument(0);
+            CompletionResponse response = new CompletionResponse();
+            response.setId(request.getMessages().get(request.getMessages().size() - 1).getContent());
+            return response;
+        });
+        when(provider.completeAsync(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(new CompletionResponse()));
+    }
+
+    @Test
+    void testIndexFindsNearestNeighbours() {
+        Random random = new Random(42);
+        HnswIndex index = new HnswIndex(8, 64, 32, random);
+        float[][] vectors = new float[2000][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random, 16);
+            assertEquals(i, index.add(vectors[i]));
+        }
+
+        assertEquals(100, found(index, vectors, random, 0, 100), 5);
+
+        // Removing half the nodes keeps the rest reachable and never returns a removed node
+        for (int i = 0; i < vectors.length; i += 2) {
+            index.remove(i);
+        }
+        assertEquals(1000, index.size());
+        Set<Integer> returned = new HashSet<>();
+        for (int i = 0; i < vectors.length; i += 2) {
+            returned.add(index.nearest(vectors[i]).id);
+        }
+        assertTrue(returned.stream().allMatch(id -> id % 2 == 1));
+        assertEquals(100, found(index, vectors, random, 1, 100), 5);
+
+        // Freed ids are reused
+        assertEquals(0, index.add(vectors[0]) % 2);
+    }
+
+    @Test
+    void testSimilarQuestionIsServedFromCache() throws Exception {
+        SemanticCachingProviderClient client = client(100);
+
+        CompletionResponse first = client.complete(question("How do I reset my password?"));
+        assertFalse(first.isCached());
+
+        CompletionResponse similar = client.completeAsync(question("how can i reset my password")).get(5, TimeUnit.SECONDS);
+        assertTrue(similar.isCached());
+        assertEquals("How do I reset my password?", similar.getId());
+
+        CompletionResponse other = client.complete(question("What are your opening hours?"));
+        assertFalse(other.isCached());
+        assertEquals("What are your opening hours?", other.getId());
+
+        verify(provider, times(2)).complete(any());
+        assertEquals(1, client.getHitCount());
+        assertEquals(2, client.size());
+    }
+
+    @Test
+    void testContextsDoNotShareAnswers() throws LlmProviderException {
+        SemanticCachingProviderClient client = client(100);
+        client.complete(CompletionRequest.builder()
+            .addSystemMessage("You are a banking assistant")
+            .addUserMessage("How do I reset my password?")
+            .build());
+
+        CompletionResponse other = client.complete(CompletionRequest.builder()
+            .addSystemMessage("You are a game support agent")
+            .addUserMessage("How do I reset my password?")
+            .build());
+        assertFalse(other.isCached());
+
+        // Streaming requests and requests not ending with a user message are never cached
+        client.complete(CompletionRequest.builder().addUserMessage("How do I reset my password?").stream(true).build());
+        client.complete(CompletionRequest.builder()
+            .addUserMessage("How do I reset my password?")
+            .addAssistantMessage("Use the link")
+            .build());
+        verify(provider, times(4)).complete(any());
+        verify(provider, times(2)).embedAsync(any());
+    }
+
+    @Test
+    void testInternalRequestsDoNotShareAnswers() throws LlmProviderException {
+        SemanticCachingProviderClient client = client(100);
+
+        // Two similar transcripts, as summarized for two conversations
+        CompletionResponse first = client.complete(summary("How do I reset my password?"));
+        CompletionResponse second = client.complete(summary("how can i reset my password"));
+
+        assertFalse(second.isCached());
+        assertEquals("How do I reset my password?", first.getId());
+        assertEquals("how can i reset my password", second.getId());
+        verify(provider, times(2)).complete(any());
+        verify(provider, never()).embedAsync(any());
+        assertEquals(0, client.size());
+    }
+
+    @Test
+    void testEntriesAreEvictedAndExpire() throws LlmProviderException {
+        SemanticCachingProviderClient client = client(1);
+        client.complete(question("How do I reset my password?"));
+        client.complete(question("What are your opening hours?"));
+        assertEquals(1, client.size());
+        assertFalse(client.complete(question("how can i reset my password")).isCached());
+
+        assertTrue(client.complete(question("How do I reset my password?")).isCached());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertFalse(client.complete(question("How do I reset my password?")).isCached());
+    }
+
+    @Test
+    void testEmbeddingFailureSendsRequestUncached() throws Exception {
+        doReturn(CompletableFuture.failedFuture(new LlmProviderException("Embeddings are not supported", "Anthropic")))
+            .when(provider).embedAsync(any());
+        SemanticCachingProviderClient client = client(100);
+
+        client.complete(question("How do I reset my password?"));
+        CompletionResponse response = client.completeAsync(question("How do I reset my password?")).get(5, TimeUnit.SECONDS);
+
+        assertFalse(response.isCached());
+        verify(provider, times(1)).complete(any());
+        verify(provider, times(1)).completeAsync(any());
+        assertEquals(0, client.size());
+    }
+
+    private SemanticCachingProviderClient client(int maxEntries) {
+        return new SemanticCachingProviderClient(provider, "text-embedding-3-small", 0.95, maxEntries, 60, clock::get);
+    }
+
+    private static CompletionRequest question(String text) {
+        return CompletionRequest.builder().addUserMessage(text).build();
+    }
+
+    private static CompletionRequest summary(String transcript) {
+        return CompletionRequest.builder()
+            .addSystemMessage("Summarize the conversation")
+            .addUserMessage(transcript)
+            .internal(true)
+            .build();
+    }
+
+    /**
+     * Count how many of a sample of stored vectors are found from a slightly perturbed query
+     */
+    private static int found(HnswIndex index, float[][] vectors, Random random, int first, int samples) {
+        int found = 0;
+        for (int i = 0; i < samples; i++) {
+            int target = first + 2 * random.nextInt(vectors.length / 2);
+            float[] query = vectors[target].clone();
+            for (int d = 0; d < query.length; d++) {
+                query[d] += (float) random.nextGaussian() * 0.01f;
+            }
+            if (index.nearest(query).id == target) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static float[] randomVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,450 @@
+package com.mulemind.connection;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import com.mulemind.streaming.ServerSentEventReader;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for HTTP/2 multiplexing and the fallback to HTTP/1.1
+ */
+class AsyncTransportTest {
+
+    @Test
+    void testRequestsAreMultiplexedOverOneConnection() throws Exception {
+        Set<SocketAddress> connections = ConcurrentHashMap.newKeySet();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        HttpAsyncServer server = H2ServerBootstrap.bootstrap()
+            .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+            .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+                @Override
+                public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request,
+                        org.apache.hc.core5.http.EntityDetails entityDetails, HttpContext context) {
+                    return new BasicRequestConsumer<>(new StringAsyncEntityConsumer());
+                }
+
+                @Override
+                public void handle(Message<HttpRequest, String> message, ResponseTrigger responseTrigger, HttpContext context) {
+                    connections.add(HttpCoreContext.adapt(context).getEndpointDetails().getRemoteAddress());
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    scheduler.schedule(() -> {
+                        active.decrementAndGet();
+                        try {
+                            responseTrigger.submitResponse(AsyncResponseBuilder.create(200)
+                                .setEntity("{\"id\":\"chatcmpl-1\"}", ContentType.APPLICATION_JSON)
+                                .build(), context);
+                        } catch (HttpException | IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, 20, TimeUnit.MILLISECONDS);
+                }
+            })
+            .create();
+        CloseableHttpAsyncClient http1Client = mock(CloseableHttpAsyncClient.class);
+        CloseableHttpAsyncClient http2Client = HttpAsyncClients.customHttp2()
+            .setH2Config(H2Config.custom().setPushEnabled(false).build())
+            .build();
+        try {
+            server.start();
+            ListenerEndpoint listener = server.listen(new InetSocketAddress("localhost", 0), URIScheme.HTTP).get();
+            int port = ((InetSocketAddress) listener.getAddress()).getPort();
+            http2Client.start();
+            AsyncTransport transport = new AsyncTransport(http1Client, http2Client, 10, true);
+            // Requests issued while the first connection is still being set up may open another
+            String uri = "http://localhost:" + port + "/v1/chat/completions";
+            assertEquals(200, transport.execute(request(uri), null).get(10, TimeUnit.SECONDS).getCode());
+            maxActive.set(0);
+
+            List<Future<SimpleHttpResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                responses.add(transport.execute(request(uri), null));
+            }
+            for (Future<SimpleHttpResponse> response : responses) {
+                assertEquals(200, response.get(10, TimeUnit.SECONDS).getCode());
+            }
+
+            assertEquals(1, connections.size());
+            assertTrue(maxActive.get() > 1, "requests were not multiplexed");
+            assertTrue(maxActive.get() <= 10, "more streams than allowed: " + maxActive.get());
+            verifyNoInteractions(http1Client);
+        } finally {
+            http2Client.close(CloseMode.IMMEDIATE);
+            server.close(CloseMode.IMMEDIATE);
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRequestsWaitForAFreeStream() throws Exception {
+        CloseableHttpAsyncClient http1Client = mock(CloseableHttpAsyncClient.class);
+        CloseableHttpAsyncClient http2Client = mock(CloseableHttpAsyncClient.class);
+        List<FutureCallback<SimpleHttpResponse>> inFlight = new ArrayList<>();
+        doAnswer(invocation -> {
+            inFlight.add(invocation.getArgument(1));
+            return new BasicFuture<SimpleHttpResponse>(null);
+        }).when(http2Client).execute(any(SimpleHttpRequest.class), any());
+        AsyncTransport transport = new AsyncTransport(http1Client, http2Client, 2);
+
+        List<Future<SimpleHttpResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(transport.execute(request("https://api.openai.com/v1/chat/completions"), null));
+        }
+        assertEquals(2, inFlight.size());
+
+        // A request cancelled while waiting is never sent
+        responses.get(3).cancel(true);
+        inFlight.get(0).completed(SimpleHttpResponse.create(200, "{}", ContentType.APPLICATION_JSON));
+        assertEquals(200, responses.get(0).get(1, TimeUnit.SECONDS).getCode());
+        assertEquals(3, inFlight.size());
+        inFlight.get(1).failed(new IOException("Connection reset"));
+        inFlight.get(2).completed(SimpleHttpResponse.create(200, "{}", ContentType.APPLICATION_JSON));
+        assertEquals(3, inFlight.size());
+        assertTrue(responses.get(3).isCancelled());
+        assertEquals(200, responses.get(2).get(1, TimeUnit.SECONDS).getCode());
+
+        // Other failures are not taken for a protocol problem
+        assertFalse(transport.isHttp1Fallback("https://api.openai.com"));
+        verifyNoInteractions(http1Client);
+    }
+
+    @Test
+    void testEventStreamsAreMultiplexedOverOneConnection() throws Exception {
+        Set<SocketAddress> connections = ConcurrentHashMap.newKeySet();
+        BlockingQueue<EventSource> sources = new LinkedBlockingQueue<>();
+        HttpAsyncServer server = H2ServerBootstrap.bootstrap()
+            .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+            .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+                @Override
+                public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request,
+                        org.apache.hc.core5.http.EntityDetails entityDetails, HttpContext context) {
+                    return new BasicRequestConsumer<>(new StringAsyncEntityConsumer());
+                }
+
+                @Override
+                public void handle(Message<HttpRequest, String> message, ResponseTrigger responseTrigger, HttpContext context)
+                        throws HttpException, IOException {
+                    connections.add(HttpCoreContext.adapt(context).getEndpointDetails().getRemoteAddress());
+                    EventSource source = new EventSource();
+                    responseTrigger.submitResponse(new BasicResponseProducer(200, source), context);
+                    sources.add(source);
+                }
+            })
+            .create();
+        CloseableHttpAsyncClient http1Client = mock(CloseableHttpAsyncClient.class);
+        CloseableHttpAsyncClient http2Client = HttpAsyncClients.customHttp2()
+            .setH2Config(H2Config.custom().setPushEnabled(false).build())
+            .build();
+        try {
+            server.start();
+            ListenerEndpoint listener = server.listen(new InetSocketAddress("localhost", 0), URIScheme.HTTP).get();
+            String uri = "http://localhost:" + ((InetSocketAddress) listener.getAddress()).getPort() + "/v1/chat/completions";
+            http2Client.start();
+            AsyncTransport transport = new AsyncTransport(http1Client, http2Client, 3, true);
+
+            List<StreamedResponse> responses = new ArrayList<>();
+            List<ServerSentEventReader> readers = new ArrayList<>();
+            List<EventSource> streamSources = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                StreamedResponse response = transport.stream(request(uri), null).get(10, TimeUnit.SECONDS);
+                assertEquals(200, response.getCode());
+                responses.add(response);
+                readers.add(new ServerSentEventReader(response.getBody()));
+                streamSources.add(sources.poll(10, TimeUnit.SECONDS));
+            }
+
+            // Events are read as they are sent, while every stream is still open
+            for (int i = 0; i < 3; i++) {
+                streamSources.get(i).send("data: first " + i + "\n\n");
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals("first " + i, readers.get(i).next().getData());
+            }
+
+            // An abandoned stream is discarded as it arrives without disturbing the others
+            responses.get(0).close();
+            streamSources.get(0).send("data: dropped\n\n");
+            streamSources.get(0).end();
+            for (int i = 1; i < 3; i++) {
+                streamSources.get(i).send("data: last " + i + "\n\n");
+                streamSources.get(i).end();
+                assertEquals("last " + i, readers.get(i).next().getData());
+                assertNull(readers.get(i).next());
+            }
+
+            // The streams have been given back to the limit
+            StreamedResponse next = transport.stream(request(uri), null).get(10, TimeUnit.SECONDS);
+            EventSource nextSource = sources.poll(10, TimeUnit.SECONDS);
+            nextSource.send("data: again\n\n");
+            nextSource.end();
+            assertEquals("again", new ServerSentEventReader(next.getBody()).next().getData());
+
+            assertEquals(1, connections.size());
+            verifyNoInteractions(http1Client);
+        } finally {
+            http2Client.close(CloseMode.IMMEDIATE);
+            server.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    @Test
+    void testAbandonedStreamReleasesItsWindowWithoutBlocking() throws Exception {
+        @SuppressWarnings("unchecked")
+        FutureCallback<StreamedResponse> head = mock(FutureCallback.class);
+        StreamedResponse.Exchange exchange = new StreamedResponse.Exchange(head, true);
+        CapacityChannel capacityChannel = mock(CapacityChannel.class);
+        exchange.consumeResponse(new BasicHttpResponse(200), mock(EntityDetails.class), null, mock(FutureCallback.class));
+        exchange.updateCapacity(capacityChannel);
+        exchange.consume(ByteBuffer.wrap("data: one\n\n".getBytes(StandardCharsets.UTF_8)));
+        ArgumentCaptor<StreamedResponse> delivered = ArgumentCaptor.forClass(StreamedResponse.class);
+        verify(head).completed(delivered.capture());
+        StreamedResponse response = delivered.getValue();
+
+        // A reader waiting on an empty buffer while the stream is abandoned
+        CompletableFuture<Integer> reader = CompletableFuture.supplyAsync(() -> {
+            try {
+                response.getBody().readNBytes(11);
+                return response.getBody().read();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        response.close();
+        assertEquals(-1, reader.get(1, TimeUnit.SECONDS));
+        verify(capacityChannel, atLeastOnce()).update(intThat(increment -> increment >= 11));
+
+        // The rest of the body is discarded as it arrives, with its window handed back
+        exchange.consume(ByteBuffer.wrap(new byte[100]));
+        verify(capacityChannel).update(100);
+    }
+
+    @Test
+    void testEndpointWithoutHttp2FallsBackToHttp1() throws Exception {
+        CloseableHttpAsyncClient http1Client = mock(CloseableHttpAsyncClient.class);
+        CloseableHttpAsyncClient http2Client = mock(CloseableHttpAsyncClient.class);
+        doAnswer(invocation -> {
+            FutureCallback<SimpleHttpResponse> callback = invocation.getArgument(1);
+            callback.failed(new ProtocolNegotiationException("ALPN: api.anthropic.com selected http/1.1"));
+            return new BasicFuture<SimpleHttpResponse>(null);
+        }).when(http2Client).execute(any(SimpleHttpRequest.class), any());
+        doAnswer(invocation -> {
+            BasicFuture<SimpleHttpResponse> future = new BasicFuture<>(invocation.getArgument(1));
+            future.completed(SimpleHttpResponse.create(200, "{}", ContentType.APPLICATION_JSON));
+            return future;
+        }).when(http1Client).execute(any(SimpleHttpRequest.class), any());
+        AsyncTransport transport = new AsyncTransport(http1Client, http2Client, 100);
+
+        // The request that found out is sent again over HTTP/1.1
+        assertEquals(200, transport.execute(request("https://api.anthropic.com/v1/messages"), null).get(1, TimeUnit.SECONDS).getCode());
+        assertTrue(transport.isHttp1Fallback("https://api.anthropic.com"));
+        verify(http2Client, times(1)).execute(any(SimpleHttpRequest.class), any());
+        verify(http1Client, times(1)).execute(any(SimpleHttpRequest.class), any());
+
+        assertEquals(200, transport.execute(request("https://api.anthropic.com/v1/messages"), null).get(1, TimeUnit.SECONDS).getCode());
+        // Plain http endpoints cannot negotiate HTTP/2 and always use HTTP/1.1
+        transport.execute(request("http://localhost:8080/v1/messages"), null);
+        verify(http2Client, times(1)).execute(any(SimpleHttpRequest.class), any());
+        verify(http1Client, times(3)).execute(any(SimpleHttpRequest.class), any());
+    }
+
+    @Test
+    void testConnectionsRequireH2FromAlpn() {
+        TransportSecurityLayer http1 = mock(TransportSecurityLayer.class);
+        when(http1.getTlsDetails()).thenReturn(new TlsDetails(null, "http/1.1"));
+        TransportSecurityLayer http2 = mock(TransportSecurityLayer.class);
+        when(http2.getTlsDetails()).thenReturn(new TlsDetails(null, "h2"));
+        TlsStrategy tlsStrategy = AsyncTransport.requireHttp2(new TlsStrategy() {
+            @Override
+            public boolean upgrade(TransportSecurityLayer session, org.apache.hc.core5.http.HttpHost host,
+                                   SocketAddress localAddress, SocketAddress remoteAddress, Object attachment, Timeout timeout) {
+                return true;
+            }
+
+            @Override
+            public void upgrade(TransportSecurityLayer session, NamedEndpoint endpoint, Object attachment,
+                                Timeout timeout, FutureCallback<TransportSecurityLayer> callback) {
+                callback.completed(session);
+            }
+        });
+
+        AtomicReference<Object> outcome = new AtomicReference<>();
+        FutureCallback<TransportSecurityLayer> callback = new FutureCallback<TransportSecurityLayer>() {
+            @Override
+            public void completed(TransportSecurityLayer layer) {
+                outcome.set(layer);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                outcome.set(e);
+            }
+
+            @Override
+            public void cancelled() {
+                outcome.set(null);
+            }
+        };
+        NamedEndpoint endpoint = new org.apache.hc.core5.http.HttpHost("https", "api.openai.com", 443);
+
+        tlsStrategy.upgrade(http1, endpoint, null, Timeout.ofSeconds(5), callback);
+        assertInstanceOf(ProtocolNegotiationException.class, outcome.get());
+        tlsStrategy.upgrade(http2, endpoint, null, Timeout.ofSeconds(5), callback);
+        assertSame(http2, outcome.get());
+    }
+
+    /**
+     * Event stream body written as the test sends events
+     */
+    private static final class EventSource implements AsyncEntityProducer {
+
+        private static final String END = "";
+
+        private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+        private volatile DataStreamChannel channel;
+
+        void send(String event) {
+            pending.add(event);
+            wake();
+        }
+
+        void end() {
+            pending.add(END);
+            wake();
+        }
+
+        private void wake() {
+            DataStreamChannel current = channel;
+            if (current != null) {
+                current.requestOutput();
+            }
+        }
+
+        @Override
+        public int available() {
+            return channel == null || !pending.isEmpty() ? 1 : 0;
+        }
+
+        @Override
+        public void produce(DataStreamChannel channel) throws IOException {
+            this.channel = channel;
+            String event;
+            while ((event = pending.poll()) != null) {
+                if (event == END) {
+                    channel.endStream();
+                    return;
+                }
+                ByteBuffer data = ByteBuffer.wrap(event.getBytes(StandardCharsets.UTF_8));
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public void failed(Exception cause) {
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/event-stream";
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public boolean isChunked() {
+            return true;
+        }
+
+        @Override
+        public Set<String> getTrailerNames() {
+            return null;
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+    }
+
+    private static SimpleHttpRequest request(String uri) {
+        return SimpleRequestBuilder.post(uri)
+            .setBody("{\"model\":\"gpt-4\"}", ContentType.APPLICATION_JSON)
+            .build();
+    }
+}
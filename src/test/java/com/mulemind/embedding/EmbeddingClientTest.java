@@ -0,0 +1,116 @@
+package com.mulemind.embedding;
+
+import com.mulemind.cache.MemoryResponseStore;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for embedding micro-batching and caching
+ */
+class EmbeddingClientTest {
+
+    private LlmProviderClient provider;
+
+    @BeforeEach
+    void setUp() {
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getProvider()).thenReturn(LlmProvider.OPENAI);
+        provider = mock(LlmProviderClient.class);
+        when(provider.getConfiguration()).thenReturn(configuration);
+        // Each text embeds as a vector of its length
+        when(provider.embedAsync(any())).thenAnswer(invocation -> {
+            EmbeddingRequest request = invocation.getArgument(0);
+            List<float[]> vectors = new ArrayList<>();
+            for (String text : request.getInput()) {
+                vectors.add(new float[] {text.length(), 1f});
+            }
+            return CompletableFuture.completedFuture(new EmbeddingResponse(request.getModel(), vectors));
+        });
+    }
+
+    @Test
+    void testConcurrentCallsShareOneRequest() throws Exception {
+        MicroBatchingProviderClient client = new MicroBatchingProviderClient(provider, 10, Duration.ofMillis(50));
+
+        CompletableFuture<EmbeddingResponse> a = client.embedAsync(request("a"));
+        CompletableFuture<EmbeddingResponse> bb = client.embedAsync(request("bb"));
+        CompletableFuture<EmbeddingResponse> again = client.embedAsync(request("a"));
+
+        assertArrayEquals(new float[] {1f, 1f}, a.get(5, TimeUnit.SECONDS).getEmbeddings().get(0));
+        assertArrayEquals(new float[] {2f, 1f}, bb.get(5, TimeUnit.SECONDS).getEmbeddings().get(0));
+        assertArrayEquals(new float[] {1f, 1f}, again.get(5, TimeUnit.SECONDS).getEmbeddings().get(0));
+
+        ArgumentCaptor<EmbeddingRequest> sent = ArgumentCaptor.forClass(EmbeddingRequest.class);
+        verify(provider, times(1)).embedAsync(sent.capture());
+        assertEquals(List.of("a", "bb"), sent.getValue().getInput());
+    }
+
+    @Test
+    void testFullBatchIsSentWithoutLingering() throws Exception {
+        MicroBatchingProviderClient client = new MicroBatchingProviderClient(provider, 2, Duration.ofMinutes(1));
+
+        CompletableFuture<EmbeddingResponse> first = client.embedAsync(request("a"));
+        CompletableFuture<EmbeddingResponse> second = client.embedAsync(request("b"));
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        verify(provider, times(1)).embedAsync(any());
+    }
+
+    @Test
+    void testFailedBatchFailsEveryCall() {
+        LlmProviderException failure = new LlmProviderException("Overloaded", 503, "OpenAI");
+        doReturn(CompletableFuture.failedFuture(failure)).when(provider).embedAsync(any());
+        MicroBatchingProviderClient client = new MicroBatchingProviderClient(provider, 2, Duration.ofMinutes(1));
+
+        CompletableFuture<EmbeddingResponse> first = client.embedAsync(request("a"));
+        CompletableFuture<EmbeddingResponse> second = client.embedAsync(request("b"));
+
+        assertSame(failure, assertThrows(ExecutionException.class, first::get).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, second::get).getCause());
+    }
+
+    @Test
+    void testCacheSendsOnlyMisses() throws Exception {
+        CachingEmbeddingProviderClient client = new CachingEmbeddingProviderClient(provider,
+            new MemoryResponseStore(100, 1024 * 1024, 3600));
+
+        client.embedAsync(new EmbeddingRequest("m", List.of("one", "three"))).get();
+        EmbeddingResponse response = client.embedAsync(new EmbeddingRequest("m", List.of("three", "four", "one"))).get();
+
+        assertArrayEquals(new float[] {5f, 1f}, response.getEmbeddings().get(0));
+        assertArrayEquals(new float[] {4f, 1f}, response.getEmbeddings().get(1));
+        assertArrayEquals(new float[] {3f, 1f}, response.getEmbeddings().get(2));
+        assertFalse(response.isCached());
+
+        ArgumentCaptor<EmbeddingRequest> sent = ArgumentCaptor.forClass(EmbeddingRequest.class);
+        verify(provider, times(2)).embedAsync(sent.capture());
+        assertEquals(List.of("four"), sent.getValue().getInput());
+
+        assertTrue(client.embedAsync(request("four")).get().isCached());
+        // Another model does not share vectors
+        client.embedAsync(new EmbeddingRequest("other", List.of("four"))).get();
+        verify(provider, times(3)).embedAsync(any());
+        assertEquals(3, client.getHitCount());
+    }
+
+    private static EmbeddingRequest request(String text) {
+        return new EmbeddingRequest("m", List.of(text));
+    }
+}
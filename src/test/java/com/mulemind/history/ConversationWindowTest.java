@@ -0,0 +1,166 @@
+package com.mulemind.history;
+
+import com.mulemind.config.HistoryMode;
+import com.mulemind.config.HistorySettings;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.Message;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.tokenizer.Tokenizers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit tests for conversation history windowing
+ */
+class ConversationWindowTest {
+
+    private static final String MODEL = "claude-3-5-sonnet-20241022";
+
+    @BeforeEach
+    void clearState() {
+        ConversationWindow.clear();
+    }
+
+    @Test
+    void testFullModeSendsEverything() {
+        LlmConfiguration configuration = configuration(HistoryMode.FULL, 50);
+        CompletionRequest request = conversation(20);
+
+        assertSame(request, ConversationWindow.apply(request, configuration, mock(LlmProviderClient.class)).join());
+    }
+
+    @Test
+    void testWindowKeepsRecentTurnsWithinBudget() {
+        LlmConfiguration configuration = configuration(HistoryMode.WINDOW, 150);
+        CompletionRequest request = conversation(20);
+
+        CompletionRequest windowed = ConversationWindow.apply(request, configuration, mock(LlmProviderClient.class)).join();
+
+        List<Message> messages = windowed.getMessages();
+        assertTrue(messages.size() < request.getMessages().size());
+        assertEquals("system", messages.get(0).getRole());
+        assertEquals("user", messages.get(1).getRole());
+        assertSame(last(request), last(windowed));
+        assertTrue(Tokenizers.countTokens(Tokenizers.forModel(MODEL), messages) <= 150);
+        assertEquals(22, request.getMessages().size());
+
+        // The next turn keeps the same start while it still fits
+        CompletionRequest next = conversation(21);
+        CompletionRequest nextWindowed = ConversationWindow.apply(next, configuration, mock(LlmProviderClient.class)).join();
+        assertEquals(messages.get(1).getContent(), nextWindowed.getMessages().get(1).getContent());
+        assertEquals(messages.size() + 1, nextWindowed.getMessages().size());
+    }
+
+    @Test
+    void testSummarizesOnlyNewlyDroppedTurns() {
+        LlmConfiguration configuration = configuration(HistoryMode.SUMMARIZE, 200);
+        LlmProviderClient client = mock(LlmProviderClient.class);
+        when(client.completeAsync(any()))
+            .thenReturn(CompletableFuture.completedFuture(response("Turns 0 to 5")))
+            .thenReturn(CompletableFuture.completedFuture(response("Turns 0 to 12")));
+
+        CompletionRequest windowed = ConversationWindow.apply(conversation(20), configuration, client).join();
+        String system = windowed.getMessages().get(0).getContent();
+        assertTrue(system.startsWith("Be brief."));
+        assertTrue(system.endsWith(ConversationWindow.SUMMARY_HEADER + "Turns 0 to 5"));
+
+        // Under budget again: the summary is reused without another call
+        ConversationWindow.apply(conversation(21), configuration, client).join();
+        verify(client, times(1)).completeAsync(any());
+
+        // Over budget again: only the newly dropped turns are summarized, with the previous summary
+        CompletionRequest later = ConversationWindow.apply(conversation(40), configuration, client).join();
+        ArgumentCaptor<CompletionRequest> summaryRequests = ArgumentCaptor.forClass(CompletionRequest.class);
+        verify(client, times(2)).completeAsync(summaryRequests.capture());
+        String transcript = last(summaryRequests.getAllValues().get(1)).getContent();
+        assertTrue(transcript.startsWith("Previous summary:\nTurns 0 to 5"));
+        assertFalse(transcript.contains("message 0 "));
+        assertTrue(later.getMessages().get(0).getContent().endsWith("Turns 0 to 12"));
+    }
+
+    @Test
+    void testConversationsWithTheSameOpeningKeepTheirOwnSummaries() {
+        LlmConfiguration configuration = configuration(HistoryMode.SUMMARIZE, 200);
+        LlmProviderClient client = mock(LlmProviderClient.class);
+        when(client.completeAsync(any()))
+            .thenReturn(CompletableFuture.completedFuture(response("First 0 to 5")))
+            .thenReturn(CompletableFuture.completedFuture(response("Second 0 to 5")))
+            .thenReturn(CompletableFuture.completedFuture(response("First 0 to 12")))
+            .thenReturn(CompletableFuture.completedFuture(response("Second 0 to 12")));
+
+        // Both open with the same system prompt and first message, then go apart
+        ConversationWindow.apply(conversation("with", 20), configuration, client).join();
+        ConversationWindow.apply(conversation("for", 20), configuration, client).join();
+        CompletionRequest first = ConversationWindow.apply(conversation("with", 40), configuration, client).join();
+        CompletionRequest second = ConversationWindow.apply(conversation("for", 40), configuration, client).join();
+
+        ArgumentCaptor<CompletionRequest> summaryRequests = ArgumentCaptor.forClass(CompletionRequest.class);
+        verify(client, times(4)).completeAsync(summaryRequests.capture());
+        List<String> transcripts = new ArrayList<>();
+        for (CompletionRequest summaryRequest : summaryRequests.getAllValues()) {
+            transcripts.add(last(summaryRequest).getContent());
+        }
+        assertFalse(transcripts.get(1).startsWith("Previous summary:"));
+        assertTrue(transcripts.get(2).startsWith("Previous summary:\nFirst 0 to 5"));
+        assertTrue(transcripts.get(3).startsWith("Previous summary:\nSecond 0 to 5"));
+        assertFalse(transcripts.get(2).contains("message 0 "));
+        assertFalse(transcripts.get(3).contains("message 0 "));
+        assertTrue(first.getMessages().get(0).getContent().endsWith("First 0 to 12"));
+        assertTrue(second.getMessages().get(0).getContent().endsWith("Second 0 to 12"));
+    }
+
+    private static LlmConfiguration configuration(HistoryMode mode, int budget) {
+        HistorySettings settings = mock(HistorySettings.class);
+        when(settings.getHistoryMode()).thenReturn(mode);
+        when(settings.getHistoryTokenBudget()).thenReturn(budget);
+        when(settings.getHistorySummaryMaxTokens()).thenReturn(20);
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getHistory()).thenReturn(settings);
+        when(configuration.getConfigName()).thenReturn("history-test");
+        when(configuration.getEffectiveModel()).thenReturn(MODEL);
+        return configuration;
+    }
+
+    /**
+     * A system prompt, alternating user and assistant history and a new user message
+     */
+    private static CompletionRequest conversation(int historySize) {
+        return conversation("with", historySize);
+    }
+
+    /**
+     * A conversation whose history after the first message has the given word in each message
+     */
+    private static CompletionRequest conversation(String word, int historySize) {
+        List<Message> messages = new ArrayList<>();
+        messages.add(Message.system("Be brief."));
+        for (int i = 0; i < historySize; i++) {
+            String content = "message " + i + " " + (i == 0 ? "with" : word) + " a few more words";
+            messages.add(new Message(i % 2 == 0 ? "user" : "assistant", content));
+        }
+        messages.add(Message.user("message " + historySize + " is the new question"));
+        return new CompletionRequest(null, messages);
+    }
+
+    private static Message last(CompletionRequest request) {
+        return request.getMessages().get(request.getMessages().size() - 1);
+    }
+
+    private static CompletionResponse response(String content) {
+        CompletionResponse.Choice choice = new CompletionResponse.Choice();
+        choice.setMessage(Message.assistant(content));
+        CompletionResponse response = new CompletionResponse();
+        response.setChoices(List.of(choice));
+        return response;
+    }
+}
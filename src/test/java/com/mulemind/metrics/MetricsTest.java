@@ -0,0 +1,203 @@
+package com.mulemind.metrics;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.streaming.CompletionStream;
+import com.mulemind.streaming.ServerSentEvent;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit tests for the metrics histograms and recording client
+ */
+class MetricsTest {
+
+    @Test
+    void testHistogramPercentilesWithinRelativeError() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(50_000.5, snapshot.getMean(), 0.01);
+        assertEquals(50_000, snapshot.getPercentile(50), 50_000 * 0.0625);
+        assertEquals(99_000, snapshot.getPercentile(99), 99_000 * 0.0625);
+        assertEquals(100_000, snapshot.getPercentile(100));
+        assertEquals(100_000, snapshot.getMax());
+    }
+
+    @Test
+    void testHistogramBucketsCoverTheirValues() {
+        for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789L, Histogram.MAX_VALUE}) {
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(bucket < Histogram.BUCKETS);
+            assertTrue(Histogram.highestValueOf(bucket) >= value);
+            assertTrue(bucket == 0 || Histogram.highestValueOf(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    void testRecordsCompletionsAndErrorsByStatus() throws Exception {
+        ProviderMetrics metrics = new ProviderMetrics("OpenAI", "gpt-4");
+        LlmProviderClient delegate = client();
+        CompletionResponse response = response(10, 20);
+        when(delegate.complete(any()))
+            .thenReturn(response)
+            .thenThrow(new LlmProviderException("Rate limit exceeded", 429, "OpenAI"));
+        when(delegate.completeAsync(any()))
+            .thenReturn(CompletableFuture.failedFuture(new LlmProviderException("Service unavailable", 503, "OpenAI")));
+
+        MetricsProviderClient client = new MetricsProviderClient(delegate, model -> metrics);
+        CompletionRequest request = CompletionRequest.builder().addUserMessage("Hello").build();
+
+        assertSame(response, client.complete(request));
+        assertThrows(LlmProviderException.class, () -> client.complete(request));
+        assertTrue(client.completeAsync(request).isCompletedExceptionally());
+
+        assertEquals(3, metrics.getRequestCount());
+        assertEquals(2, metrics.getErrorCount());
+        assertEquals(0, metrics.getInFlight());
+        assertEquals(10, metrics.getPromptTokens());
+        assertEquals(20, metrics.getCompletionTokens());
+        assertEquals(Map.of("429", 1L, "503", 1L), metrics.getErrorsByStatus());
+        assertEquals(1, metrics.getLatency().getCount());
+        assertEquals(1, metrics.getTokensPerSecond().getCount());
+    }
+
+    @Test
+    void testRecordsStreamTimeToFirstToken() throws Exception {
+        ProviderMetrics metrics = new ProviderMetrics("OpenAI", "gpt-4");
+        LlmProviderClient delegate = client();
+        when(delegate.stream(any())).thenReturn(new TestStream("data: Hello\n\ndata: world\n\n"));
+
+        MetricsProviderClient client = new MetricsProviderClient(delegate, model -> metrics);
+        try (CompletionStream stream = client.stream(CompletionRequest.builder().addUserMessage("Hello").build())) {
+            assertTrue(stream.awaitText());
+            assertEquals(1, metrics.getTimeToFirstToken().getCount());
+            assertEquals(1, metrics.getInFlight());
+            stream.readAllBytes();
+        }
+
+        assertEquals(0, metrics.getInFlight());
+        assertEquals(1, metrics.getLatency().getCount());
+        assertEquals(5, metrics.getCompletionTokens());
+        assertEquals(0, metrics.getErrorCount());
+    }
+
+    @Test
+    void testAbandonedStreamCountsAsCancelled() throws Exception {
+        ProviderMetrics metrics = new ProviderMetrics("OpenAI", "gpt-4");
+        LlmProviderClient delegate = client();
+        when(delegate.stream(any())).thenReturn(new TestStream("data: Hello\n\ndata: world\n\n"));
+
+        MetricsProviderClient client = new MetricsProviderClient(delegate, model -> metrics);
+        CompletionStream stream = client.stream(CompletionRequest.builder().addUserMessage("Hello").build());
+        stream.read();
+        stream.close();
+
+        assertEquals(0, metrics.getInFlight());
+        assertEquals(0, metrics.getLatency().getCount());
+        assertEquals(0, metrics.getErrorCount());
+    }
+
+    @Test
+    void testPublishedOverJmx() throws Exception {
+        ProviderMetrics metrics = ConnectorMetrics.forModel("jmx-test", "OpenAI", "gpt-4o:latest", true, false);
+        assertSame(metrics, ConnectorMetrics.forModel("jmx-test", "OpenAI", "gpt-4o:latest", true, false));
+        long start = metrics.recordStart();
+        metrics.recordSuccess(start, 0, response(1, 1));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(
+            "com.mulemind:type=ProviderMetrics,config=jmx-test,provider=OpenAI,model=" + ObjectName.quote("gpt-4o:latest"));
+        assertEquals(1L, server.getAttribute(name, "RequestCount"));
+        CompositeData latency = (CompositeData) server.getAttribute(name, "Latency");
+        assertEquals(1L, latency.get("count"));
+    }
+
+    @Test
+    void testReleasedWhenConfigurationIsDisposed() throws Exception {
+        ProviderMetrics metrics = ConnectorMetrics.forModel("dispose-test", "OpenAI", "gpt-4o", true, true);
+        metrics.recordFailure(metrics.recordStart(), new LlmProviderException("Rate limited", 429, "OpenAI"));
+        LlmConnection connection = new LlmConnection(null, null, null, null);
+        ConnectionPoolMetrics pool = ConnectorMetrics.forPool("dispose-test", connection, true, true);
+        ConnectorMetrics.forCompression("dispose-test", true, true);
+        ConnectorMetrics.forModel("other-config", "OpenAI", "gpt-4o", true, true);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("com.mulemind:config=dispose-test,*");
+        assertEquals(3, server.queryNames(pattern, null).size());
+        assertFalse(Metrics.globalRegistry.find("mulemind.errors").tag("config", "dispose-test").meters().isEmpty());
+
+        ConnectorMetrics.connectionClosed(connection);
+        assertEquals(0, pool.getMaxConnections());
+
+        ConnectorMetrics.release("dispose-test");
+        assertTrue(server.queryNames(pattern, null).isEmpty());
+        assertTrue(Metrics.globalRegistry.find("mulemind.requests").tag("config", "dispose-test").meters().isEmpty());
+        assertTrue(Metrics.globalRegistry.find("mulemind.errors").tag("config", "dispose-test").meters().isEmpty());
+        assertFalse(Metrics.globalRegistry.find("mulemind.requests").tag("config", "other-config").meters().isEmpty());
+        assertEquals(1, server.queryNames(new ObjectName("com.mulemind:config=other-config,*"), null).size());
+        // A late error of a released configuration publishes nothing
+        metrics.recordFailure(metrics.recordStart(), new LlmProviderException("Server error", 500, "OpenAI"));
+        assertTrue(Metrics.globalRegistry.find("mulemind.errors").tag("config", "dispose-test").meters().isEmpty());
+        assertNotSame(metrics, ConnectorMetrics.forModel("dispose-test", "OpenAI", "gpt-4o", false, false));
+        ConnectorMetrics.release("dispose-test");
+        ConnectorMetrics.release("other-config");
+    }
+
+    private static LlmProviderClient client() {
+        LlmProviderClient client = mock(LlmProviderClient.class);
+        when(client.getConfiguration()).thenReturn(mock(LlmConfiguration.class));
+        return client;
+    }
+
+    private static CompletionResponse response(int promptTokens, int completionTokens) {
+        CompletionResponse.Usage usage = new CompletionResponse.Usage();
+        usage.setPromptTokens(promptTokens);
+        usage.setCompletionTokens(completionTokens);
+        CompletionResponse response = new CompletionResponse();
+        response.setUsage(usage);
+        return response;
+    }
+
+    /**
+     * Stream whose events carry plain text and which reports 5 completion tokens at the end
+     */
+    private static final class TestStream extends CompletionStream {
+
+        TestStream(String body) {
+            super(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), () -> { });
+        }
+
+        @Override
+        protected String onEvent(ServerSentEvent event) throws IOException {
+            return event.getData();
+        }
+
+        @Override
+        protected void complete() {
+            getResponse().setUsage(response(0, 5).getUsage());
+            super.complete();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.mulemind.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mulemind.batch.BatchResultReader;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.model.BatchItemResult;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the batch job result decoders
+ */
+class BatchResultReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testOpenAiResultsAcrossOutputAndErrorFiles() throws IOException {
+        Map<String, String> files = Map.of(
+            "file-out",
+            "{\"custom_id\":\"request-1\",\"response\":{\"status_code\":200,\"body\":{\"id\":\"chatcmpl-1\",\"model\":\"gpt-4\"," +
+                "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"Paris\"},\"finish_reason\":\"stop\"}]}},\"error\":null}\n\n",
+            "file-err",
+            "{\"custom_id\":\"request-0\",\"response\":{\"status_code\":400,\"body\":{\"error\":{\"message\":\"Invalid model\"}}},\"error\":null}\n");
+
+        OpenAiProvider provider = new OpenAiProvider(configuration(), mock(LlmConnection.class));
+        BatchResultReader reader = new BatchResultReader(List.of("file-out", "file-err"),
+            location -> toStream(files.get(location)), provider::decodeBatchResult, objectMapper);
+
+        BatchItemResult first = reader.next();
+        assertTrue(first.isSuccess());
+        assertEquals(1, first.getIndex());
+        assertEquals("Paris", first.getContent());
+
+        BatchItemResult second = reader.next();
+        assertFalse(second.isSuccess());
+        assertEquals("request-0", second.getCustomId());
+        assertEquals(0, second.getIndex());
+        assertEquals(400, second.getStatusCode());
+        assertEquals("Invalid model", second.getErrorMessage());
+
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    void testAnthropicResults() throws IOException {
+        String results =
+            "{\"custom_id\":\"request-0\",\"result\":{\"type\":\"succeeded\",\"message\":{\"id\":\"msg_1\",\"model\":\"claude-3-5-sonnet-20241022\"," +
+                "\"content\":[{\"type\":\"text\",\"text\":\"Bonjour\"}],\"stop_reason\":\"end_turn\",\"usage\":{\"input_tokens\":8,\"output_tokens\":2}}}}\n" +
+            "{\"custom_id\":\"request-1\",\"result\":{\"type\":\"errored\",\"error\":{\"type\":\"error\",\"error\":{\"type\":\"invalid_request_error\",\"message\":\"max_tokens too large\"}}}}\n" +
+            "{\"custom_id\":\"request-2\",\"result\":{\"type\":\"expired\"}}\n";
+
+        AnthropicProvider provider = new AnthropicProvider(configuration(), mock(LlmConnection.class));
+        BatchResultReader reader = new BatchResultReader(List.of("https://results"),
+            location -> toStream(results), provider::decodeBatchResult, objectMapper);
+
+        BatchItemResult succeeded = reader.next();
+        assertTrue(succeeded.isSuccess());
+        assertEquals("Bonjour", succeeded.getContent());
+        assertEquals(10, succeeded.getResponse().getUsage().getTotalTokens());
+
+        BatchItemResult errored = reader.next();
+        assertFalse(errored.isSuccess());
+        assertEquals(1, errored.getIndex());
+        assertEquals("max_tokens too large", errored.getErrorMessage());
+
+        BatchItemResult expired = reader.next();
+        assertFalse(expired.isSuccess());
+        assertEquals(2, expired.getIndex());
+
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    private static LlmConfiguration configuration() {
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getTimeoutSeconds()).thenReturn(30);
+        return configuration;
+    }
+
+    private static ByteArrayInputStream toStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
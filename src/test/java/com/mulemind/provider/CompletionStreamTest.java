@@ -0,0 +1,86 @@
+package com.mulemind.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.streaming.CompletionStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests for the streaming response decoders
+ */
+class CompletionStreamTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testOpenAiStreamDecoding() throws IOException {
+        String body =
+            "data: {\"id\":\"chatcmpl-1\",\"model\":\"gpt-4\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"\"}}]}\n\n" +
+            "data: {\"id\":\"chatcmpl-1\",\"model\":\"gpt-4\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"Hello\"}}]}\n\n" +
+            ": keep-alive\n\n" +
+            "data: {\"id\":\"chatcmpl-1\",\"model\":\"gpt-4\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\" world\"},\"finish_reason\":\"stop\"}]}\n\n" +
+            "data: {\"id\":\"chatcmpl-1\",\"model\":\"gpt-4\",\"choices\":[],\"usage\":{\"prompt_tokens\":10,\"completion_tokens\":2,\"total_tokens\":12}}\n\n" +
+            "data: [DONE]\n\n";
+
+        CompletionStream stream = new OpenAiCompletionStream(toStream(body), () -> { }, objectMapper);
+
+        assertEquals("Hello world", readAll(stream));
+        assertTrue(stream.isComplete());
+
+        CompletionResponse response = stream.getResponse();
+        assertEquals("chatcmpl-1", response.getId());
+        assertEquals("gpt-4", response.getModel());
+        assertEquals("stop", response.getChoices().get(0).getFinishReason());
+        assertEquals(12, response.getUsage().getTotalTokens());
+    }
+
+    @Test
+    void testAnthropicStreamDecoding() throws IOException {
+        String body =
+            "event: message_start\n" +
+            "data: {\"type\":\"message_start\",\"message\":{\"id\":\"msg_1\",\"model\":\"claude-3-5-sonnet-20241022\",\"usage\":{\"input_tokens\":25,\"output_tokens\":1}}}\n\n" +
+            "event: ping\ndata: {\"type\":\"ping\"}\n\n" +
+            "event: content_block_delta\n" +
+            "data: {\"type\":\"content_block_delta\",\"index\":0,\"delta\":{\"type\":\"text_delta\",\"text\":\"Grüße\"}}\n\n" +
+            "event: message_delta\n" +
+            "data: {\"type\":\"message_delta\",\"delta\":{\"stop_reason\":\"end_turn\"},\"usage\":{\"output_tokens\":15}}\n\n" +
+            "event: message_stop\ndata: {\"type\":\"message_stop\"}\n\n";
+
+        CompletionStream stream = new AnthropicCompletionStream(toStream(body), () -> { }, objectMapper);
+
+        assertEquals("Grüße", readAll(stream));
+
+        CompletionResponse response = stream.getResponse();
+        assertEquals("msg_1", response.getId());
+        assertEquals("end_turn", response.getChoices().get(0).getFinishReason());
+        assertEquals(25, response.getUsage().getPromptTokens());
+        assertEquals(15, response.getUsage().getCompletionTokens());
+        assertEquals(40, response.getUsage().getTotalTokens());
+    }
+
+    @Test
+    void testAnthropicStreamError() {
+        String body = "event: error\ndata: {\"type\":\"error\",\"error\":{\"type\":\"overloaded_error\",\"message\":\"Overloaded\"}}\n\n";
+
+        CompletionStream stream = new AnthropicCompletionStream(toStream(body), () -> { }, objectMapper);
+
+        IOException error = assertThrows(IOException.class, () -> readAll(stream));
+        assertTrue(error.getMessage().contains("Overloaded"));
+    }
+
+    private static InputStream toStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readAll(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
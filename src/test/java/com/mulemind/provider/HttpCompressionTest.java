@@ -0,0 +1,146 @@
+package com.mulemind.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mulemind.config.CompressionCodec;
+import com.mulemind.metrics.CompressionMetrics;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Unit tests for request compression and response decoding
+ */
+class HttpCompressionTest {
+
+    private static final String LARGE = "{\"content\":\"" + "lorem ipsum dolor sit amet ".repeat(400) + "\"}";
+
+    private final CompressionMetrics metrics = new CompressionMetrics();
+
+    @Test
+    void testAsyncBodiesAboveThresholdAreCompressed() throws IOException {
+        HttpCompression compression = new HttpCompression(CompressionCodec.GZIP, 1024, true, metrics);
+
+        SimpleHttpRequest small = prepare(compression, "{\"content\":\"hi\"}");
+        assertNull(small.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("{\"content\":\"hi\"}", small.getBodyText());
+        assertTrue(small.getFirstHeader(HttpHeaders.ACCEPT_ENCODING).getValue().endsWith("gzip"));
+
+        SimpleHttpRequest large = prepare(compression, LARGE);
+        assertEquals("gzip", large.getFirstHeader(HttpHeaders.CONTENT_ENCODING).getValue());
+        assertEquals(LARGE, gunzip(large.getBodyBytes()));
+
+        assertEquals(1, metrics.getCompressedRequests());
+        assertEquals(LARGE.length(), metrics.getRequestBytes());
+        assertEquals(large.getBodyBytes().length, metrics.getRequestBytesSent());
+        assertTrue(metrics.getRequestBytesSaved() > LARGE.length() / 2);
+    }
+
+    @Test
+    void testBlockingBodiesAreCompressedWhileWritten() throws IOException {
+        HttpCompression compression = new HttpCompression(CompressionCodec.GZIP, 1024, true, metrics);
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonEntity entity = new JsonEntity(objectMapper.getFactory(),
+            generator -> generator.writeTree(objectMapper.readTree(LARGE)));
+
+        HttpPost post = new HttpPost("http://localhost/v1/chat/completions");
+        compression.prepare(post, entity, LARGE.length());
+        HttpEntity sent = post.getEntity();
+        assertEquals("gzip", sent.getContentEncoding());
+        assertTrue(sent.isChunked());
+
+        // Repeatable, as retries write the entity again
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            sent.writeTo(out);
+            assertEquals(LARGE, gunzip(out.toByteArray()));
+            assertEquals(attempt, metrics.getCompressedRequests());
+        }
+
+        HttpPost small = new HttpPost("http://localhost/v1/chat/completions");
+        compression.prepare(small, entity, 10);
+        assertSame(entity, small.getEntity());
+
+        RequestConfig config = compression.requestConfig(RequestConfig.DEFAULT);
+        assertFalse(config.isContentCompressionEnabled());
+        HttpCompression passive = new HttpCompression(CompressionCodec.NONE, 0, false, metrics);
+        assertSame(RequestConfig.DEFAULT, passive.requestConfig(RequestConfig.DEFAULT));
+    }
+
+    @Test
+    void testResponsesAreDecodedAsTheyAreRead() throws IOException {
+        HttpCompression compression = new HttpCompression(CompressionCodec.NONE, 0, true, metrics);
+        byte[] compressed = gzip(LARGE);
+
+        BasicHttpResponse response = new BasicHttpResponse(200);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (InputStream body = compression.decode(response, new ByteArrayInputStream(compressed))) {
+            byte[] start = body.readNBytes(100);
+            assertEquals(LARGE.substring(0, 100), new String(start, StandardCharsets.UTF_8));
+            assertEquals(100, metrics.getResponseBytesDecoded());
+            assertTrue(metrics.getResponseBytesReceived() < compressed.length + 1);
+            body.readAllBytes();
+        }
+        assertEquals(1, metrics.getCompressedResponses());
+        assertEquals(compressed.length, metrics.getResponseBytesReceived());
+        assertEquals(LARGE.length(), metrics.getResponseBytesDecoded());
+        assertEquals(LARGE, compression.toString(response, compressed));
+
+        // Uncompressed bodies pass through uncounted
+        BasicHttpResponse plain = new BasicHttpResponse(200);
+        assertEquals("{}", compression.toString(plain, "{}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, metrics.getCompressedResponses());
+
+        BasicHttpResponse unknown = new BasicHttpResponse(200);
+        unknown.setHeader(HttpHeaders.CONTENT_ENCODING, "br");
+        assertThrows(IOException.class, () -> compression.decode(unknown, new byte[0]));
+    }
+
+    @Test
+    void testZstdRoundTrip() throws IOException {
+        assumeTrue(ZstdCodec.isAvailable(), "zstd-jni is not available");
+        HttpCompression compression = new HttpCompression(CompressionCodec.ZSTD, 1024, true, metrics);
+
+        SimpleHttpRequest request = prepare(compression, LARGE);
+        assertEquals("zstd", request.getFirstHeader(HttpHeaders.CONTENT_ENCODING).getValue());
+        assertEquals("zstd, gzip", request.getFirstHeader(HttpHeaders.ACCEPT_ENCODING).getValue());
+
+        BasicHttpResponse response = new BasicHttpResponse(200);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "zstd");
+        assertEquals(LARGE, compression.toString(response, request.getBodyBytes()));
+    }
+
+    private static SimpleHttpRequest prepare(HttpCompression compression, String json) throws IOException {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.post("http://localhost/v1/chat/completions");
+        compression.prepare(builder, json.getBytes(StandardCharsets.UTF_8));
+        return builder.build();
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
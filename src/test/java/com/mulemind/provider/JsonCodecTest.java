@@ -0,0 +1,58 @@
+package com.mulemind.provider;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests for the streaming request and response codecs
+ */
+class JsonCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testJsonEntityWritesSameBodyOnEveryWrite() throws IOException {
+        CompletionRequest request = CompletionRequest.builder()
+            .model("gpt-4")
+            .addSystemMessage("Be brief")
+            .addUserMessage("Héllo")
+            .build();
+        JsonEntity entity = new JsonEntity(objectMapper.getFactory(), generator -> objectMapper.writeValue(generator, request));
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        entity.writeTo(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        entity.writeTo(second);
+
+        assertEquals(objectMapper.writeValueAsString(request), first.toString(StandardCharsets.UTF_8));
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+        assertTrue(entity.isRepeatable());
+        assertEquals(-1, entity.getContentLength());
+    }
+
+    @Test
+    void testAnthropicResponseParsedTokenByToken() throws IOException {
+        String body = "{\"id\":\"msg_1\",\"type\":\"message\",\"role\":\"assistant\",\"model\":\"claude-3-5-sonnet-20241022\"," +
+            "\"content\":[{\"type\":\"text\",\"text\":\"Bonjour\",\"citations\":[{\"cited_text\":\"x\"}]},{\"type\":\"text\",\"text\":\"ignored\"}]," +
+            "\"stop_reason\":\"end_turn\",\"stop_sequence\":null,\"usage\":{\"input_tokens\":8,\"output_tokens\":2,\"service_tier\":\"standard\"}}";
+
+        CompletionResponse response;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            response = AnthropicProvider.convertFromAnthropicFormat(parser);
+        }
+
+        assertEquals("msg_1", response.getId());
+        assertEquals("claude-3-5-sonnet-20241022", response.getModel());
+        assertEquals("Bonjour", response.getContent());
+        assertEquals("end_turn", response.getChoices().get(0).getFinishReason());
+        assertEquals(10, response.getUsage().getTotalTokens());
+    }
+}
@@ -0,0 +1,157 @@
+package com.mulemind.provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.config.PromptCacheMode;
+import com.mulemind.config.PromptCacheSettings;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Unit tests for prompt cache breakpoints and cached token usage
+ */
+class PromptCachingTest {
+
+    private static final String SYSTEM = "You are a support agent. ".repeat(10);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testAutoMarksRepeatedPrefixes() throws IOException {
+        AnthropicProvider provider = new AnthropicProvider(configuration(PromptCacheMode.AUTO, 10, null),
+            new LlmConnection(null, null, null, null));
+        PromptCaching caching = new PromptCaching(provider.getConfiguration());
+
+        CompletionRequest first = CompletionRequest.builder()
+            .addSystemMessage(SYSTEM)
+            .addUserMessage("Where is my order?")
+            .build();
+        JsonNode written = write(provider, first, caching.plan(first));
+        assertTrue(written.get("system").isTextual());
+        assertTrue(written.get("messages").get(0).get("content").isTextual());
+
+        // The next turn repeats the system prompt and extends the previous prompt
+        CompletionRequest second = CompletionRequest.builder()
+            .addSystemMessage(SYSTEM)
+            .addUserMessage("Where is my order?")
+            .addAssistantMessage("It ships tomorrow.")
+            .addUserMessage("Thanks, and the invoice?")
+            .build();
+        written = write(provider, second, caching.plan(second));
+        assertEquals("ephemeral", written.at("/system/0/cache_control/type").asText());
+        assertEquals(SYSTEM, written.at("/system/0/text").asText());
+        JsonNode messages = written.get("messages");
+        assertTrue(messages.get(0).get("content").isTextual());
+        assertEquals("It ships tomorrow.", messages.at("/1/content/0/text").asText());
+        assertEquals("ephemeral", messages.at("/1/content/0/cache_control/type").asText());
+        assertTrue(messages.get(2).get("content").isTextual());
+
+        // A different conversation with the same system prompt only shares the system prompt
+        CompletionRequest other = CompletionRequest.builder()
+            .addSystemMessage(SYSTEM)
+            .addUserMessage("Hi")
+            .addAssistantMessage("Hello")
+            .addUserMessage("Bye")
+            .build();
+        PromptCaching.Plan plan = caching.plan(other);
+        assertTrue(plan.isCacheSystem());
+        assertFalse(plan.isBreakpoint(2));
+    }
+
+    @Test
+    void testMinimumSizeAndModes() {
+        CompletionRequest request = CompletionRequest.builder()
+            .addSystemMessage("Be brief")
+            .addUserMessage("Hi")
+            .addAssistantMessage("Hello")
+            .addUserMessage("Bye")
+            .build();
+
+        PromptCaching always = new PromptCaching(configuration(PromptCacheMode.ALWAYS, 1, null));
+        assertTrue(always.plan(request).isCacheSystem());
+        assertTrue(always.plan(request).isBreakpoint(2));
+
+        PromptCaching small = new PromptCaching(configuration(PromptCacheMode.ALWAYS, 1024, null));
+        assertFalse(small.plan(request).isCacheSystem());
+        assertFalse(small.plan(request).isBreakpoint(2));
+        assertNull(small.cacheKey(request));
+
+        PromptCaching off = new PromptCaching(configuration(PromptCacheMode.OFF, 1, null));
+        off.plan(request);
+        assertSame(PromptCaching.Plan.NONE, off.plan(request));
+        assertNull(off.cacheKey(request));
+    }
+
+    @Test
+    void testCacheKeys() {
+        CompletionRequest request = CompletionRequest.builder()
+            .addSystemMessage(SYSTEM)
+            .addUserMessage("Hi")
+            .build();
+        CompletionRequest other = CompletionRequest.builder()
+            .addSystemMessage(SYSTEM)
+            .addUserMessage("Bye")
+            .build();
+
+        PromptCaching derived = new PromptCaching(configuration(PromptCacheMode.AUTO, 10, null));
+        assertTrue(derived.cacheKey(request).startsWith("mulemind-"));
+        assertEquals(derived.cacheKey(request), derived.cacheKey(other));
+
+        PromptCaching configured = new PromptCaching(configuration(PromptCacheMode.AUTO, 10, "support-bot"));
+        assertEquals("support-bot", configured.cacheKey(request));
+    }
+
+    @Test
+    void testCachedTokenUsage() throws IOException {
+        String anthropic = "{\"id\":\"msg_1\",\"model\":\"claude-3-5-sonnet-20241022\",\"content\":[{\"type\":\"text\",\"text\":\"Hi\"}]," +
+            "\"usage\":{\"input_tokens\":20,\"cache_creation_input_tokens\":1500,\"cache_read_input_tokens\":3000,\"output_tokens\":5}}";
+        CompletionResponse response;
+        try (JsonParser parser = objectMapper.getFactory().createParser(anthropic)) {
+            response = AnthropicProvider.convertFromAnthropicFormat(parser);
+        }
+        assertEquals(4520, response.getUsage().getPromptTokens());
+        assertEquals(3000, response.getUsage().getCacheReadTokens());
+        assertEquals(1500, response.getUsage().getCacheWriteTokens());
+        assertEquals(4525, response.getUsage().getTotalTokens());
+
+        String openAi = "{\"prompt_tokens\":2006,\"completion_tokens\":300,\"total_tokens\":2306," +
+            "\"prompt_tokens_details\":{\"cached_tokens\":1920,\"audio_tokens\":0}}";
+        CompletionResponse.Usage usage = objectMapper.readValue(openAi, CompletionResponse.Usage.class);
+        assertEquals(2006, usage.getPromptTokens());
+        assertEquals(1920, usage.getCacheReadTokens());
+        assertNull(usage.getCacheWriteTokens());
+    }
+
+    private JsonNode write(AnthropicProvider provider, CompletionRequest request, PromptCaching.Plan plan) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            provider.writeAnthropicRequest(generator, request, false, plan);
+        }
+        return objectMapper.readTree(out.toString());
+    }
+
+    private static LlmConfiguration configuration(PromptCacheMode mode, int minTokens, String key) {
+        PromptCacheSettings settings = mock(PromptCacheSettings.class);
+        when(settings.getPromptCacheMode()).thenReturn(mode);
+        when(settings.getPromptCacheMinTokens()).thenReturn(minTokens);
+        when(settings.getPromptCacheKey()).thenReturn(key);
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getPromptCache()).thenReturn(settings);
+        when(configuration.getProvider()).thenReturn(LlmProvider.ANTHROPIC);
+        when(configuration.getEffectiveModel()).thenReturn("claude-3-5-sonnet-20241022");
+        when(configuration.getTemperature()).thenReturn(0.7);
+        when(configuration.getTimeoutSeconds()).thenReturn(30);
+        return configuration;
+    }
+}
@@ -0,0 +1,119 @@
+package com.mulemind.resilience;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for the circuit breaker
+ */
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private CircuitBreaker.Builder builder() {
+        return CircuitBreaker.builder()
+            .windowSize(10)
+            .minimumCalls(4)
+            .failureRateThreshold(50)
+            .slowCallRateThreshold(75)
+            .slowCallDuration(Duration.ofSeconds(5))
+            .openDuration(Duration.ofSeconds(30))
+            .halfOpenCalls(2)
+            .clock(clock::get);
+    }
+
+    @Test
+    void testOpensOnFailureRateAndRecoversThroughHalfOpen() {
+        CircuitBreaker breaker = builder().build();
+        breaker.onSuccess(0);
+        breaker.onFailure(0);
+        breaker.onSuccess(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure(0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        // Only the configured number of trial calls is let through
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testOpensOnSlowCallsAndReopensOnFailedTrial() {
+        CircuitBreaker breaker = builder().build();
+        long slow = Duration.ofSeconds(6).toNanos();
+        breaker.onSuccess(slow);
+        breaker.onSuccess(slow);
+        breaker.onSuccess(0);
+        breaker.onSuccess(slow);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure(0);
+        breaker.onSuccess(0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testOpenCircuitFailsFastWithoutCallingProvider() {
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getProvider()).thenReturn(LlmProvider.OPENAI);
+        when(configuration.getApiBaseUrl()).thenReturn("https://api.openai.com/v1");
+
+        LlmProviderClient delegate = mock(LlmProviderClient.class);
+        when(delegate.getConfiguration()).thenReturn(configuration);
+        when(delegate.completeAsync(any())).thenReturn(
+            CompletableFuture.failedFuture(new LlmProviderException("Bad gateway", 502, "OpenAI")));
+
+        CircuitBreakerProviderClient client = new CircuitBreakerProviderClient(delegate, builder().build());
+        CompletionRequest request = CompletionRequest.builder().addUserMessage("Hello").build();
+        for (int i = 0; i < 4; i++) {
+            client.completeAsync(request);
+        }
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> client.completeAsync(request).get());
+        assertInstanceOf(CircuitOpenException.class, error.getCause());
+        assertEquals(Duration.ofSeconds(30), ((CircuitOpenException) error.getCause()).getRetryAfter());
+        verify(delegate, times(4)).completeAsync(any());
+    }
+
+    @Test
+    void testSharedOnlyBetweenEqualSettings() {
+        CircuitBreaker breaker = CircuitBreaker.shared(List.of("OPENAI", "https://shared-test"), CircuitBreaker.builder().failureRateThreshold(50));
+
+        assertSame(breaker, CircuitBreaker.shared(List.of("OPENAI", "https://shared-test"), CircuitBreaker.builder().failureRateThreshold(50)));
+        // A configuration with another threshold gets its own breaker instead of silently using the first one's
+        assertNotSame(breaker, CircuitBreaker.shared(List.of("OPENAI", "https://shared-test"), CircuitBreaker.builder().failureRateThreshold(80)));
+        assertNotSame(breaker, CircuitBreaker.shared(List.of("OPENAI", "https://other-test"), CircuitBreaker.builder().failureRateThreshold(50)));
+    }
+
+    @Test
+    void testClientErrorsDoNotCountAsEndpointFailures() {
+        assertFalse(CircuitBreakerProviderClient.isEndpointFailure(new LlmProviderException("Bad request", 400, "OpenAI")));
+        assertFalse(CircuitBreakerProviderClient.isEndpointFailure(new LlmProviderException("Rate limited", 429, "OpenAI")));
+        assertTrue(CircuitBreakerProviderClient.isEndpointFailure(new LlmProviderException("Unavailable", 503, "OpenAI")));
+    }
+}
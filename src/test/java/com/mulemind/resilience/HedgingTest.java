@@ -0,0 +1,73 @@
+package com.mulemind.resilience;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.LlmProviderClient;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for hedged requests
+ */
+class HedgingTest {
+
+    @Test
+    void testSlowCallIsHedgedAndLoserCancelled() throws Exception {
+        CompletableFuture<CompletionResponse> slow = new CompletableFuture<>();
+        CompletionResponse fast = new CompletionResponse();
+        LlmProviderClient delegate = client();
+        when(delegate.completeAsync(any())).thenReturn(slow, CompletableFuture.completedFuture(fast));
+
+        HedgingProviderClient hedging = new HedgingProviderClient(delegate, Duration.ofMillis(20), 100);
+        CompletionResponse response = hedging.completeAsync(CompletionRequest.builder().addUserMessage("Hello").build())
+            .get(1, TimeUnit.SECONDS);
+
+        assertSame(fast, response);
+        assertTrue(slow.isCancelled());
+        assertEquals(1, hedging.getHedgeCount());
+    }
+
+    @Test
+    void testHedgeRateIsCapped() throws Exception {
+        LlmProviderClient delegate = client();
+        CompletableFuture<CompletionResponse> slow = new CompletableFuture<>();
+        when(delegate.completeAsync(any())).thenReturn(slow);
+
+        // 10% earns a tenth of a hedge per request, so the first request is not hedged
+        HedgingProviderClient hedging = new HedgingProviderClient(delegate, Duration.ofMillis(5), 10);
+        CompletableFuture<CompletionResponse> result = hedging.completeAsync(CompletionRequest.builder().addUserMessage("Hello").build());
+        Thread.sleep(50);
+        slow.complete(new CompletionResponse());
+
+        assertNotNull(result.get(1, TimeUnit.SECONDS));
+        assertEquals(0, hedging.getHedgeCount());
+        verify(delegate, times(1)).completeAsync(any());
+    }
+
+    @Test
+    void testLatencyPercentile() {
+        LatencyTracker tracker = new LatencyTracker(0.95, 20);
+        for (int i = 1; i < 20; i++) {
+            tracker.record(i);
+        }
+        assertEquals(-1, tracker.get());
+        tracker.record(20);
+        assertEquals(19, tracker.get());
+    }
+
+    private static LlmProviderClient client() {
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getProvider()).thenReturn(LlmProvider.OPENAI);
+        LlmProviderClient client = mock(LlmProviderClient.class);
+        when(client.getConfiguration()).thenReturn(configuration);
+        return client;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mulemind.resilience;
+
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.RateLimits;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for the client-side rate limiter
+ */
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void testRequestBudgetRefillsContinuously() {
+        RateLimiter limiter = new RateLimiter(2, 0, clock::get);
+
+        assertEquals(Duration.ZERO, limiter.acquire(0, Duration.ZERO));
+        assertEquals(Duration.ZERO, limiter.acquire(0, Duration.ZERO));
+        // Fail fast when the budget is exhausted
+        assertNull(limiter.acquire(0, Duration.ZERO));
+        // Or reserve the next slot, which frees up after half a minute
+        assertEquals(Duration.ofSeconds(30), limiter.acquire(0, Duration.ofMinutes(1)));
+
+        clock.addAndGet(Duration.ofSeconds(60).toNanos());
+        assertEquals(Duration.ZERO, limiter.acquire(0, Duration.ZERO));
+    }
+
+    @Test
+    void testTokenEstimateIsCorrectedWithActualUsage() {
+        RateLimiter limiter = new RateLimiter(0, 100, clock::get);
+
+        assertEquals(Duration.ZERO, limiter.acquire(80, Duration.ZERO));
+        assertNull(limiter.acquire(40, Duration.ZERO));
+
+        // The request only used 20 of the 80 estimated tokens
+        limiter.adjustTokens(20 - 80);
+        assertEquals(Duration.ZERO, limiter.acquire(40, Duration.ZERO));
+    }
+
+    @Test
+    void testLimitsAreLearnedFromProviderHeaders() {
+        RateLimiter limiter = new RateLimiter(0, 0, clock::get);
+        assertEquals(Duration.ZERO, limiter.acquire(1_000_000, Duration.ZERO));
+
+        RateLimits limits = new RateLimits();
+        limits.setRequestLimit(60L);
+        limits.setRequestsRemaining(0L);
+        limiter.update(limits);
+
+        assertEquals(60, limiter.getRequestsPerMinute());
+        assertEquals(Duration.ofSeconds(1), limiter.acquire(0, Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void testPauseHoldsRequests() {
+        RateLimiter limiter = new RateLimiter(0, 0, clock::get);
+        limiter.pause(Duration.ofSeconds(3));
+
+        assertNull(limiter.acquire(0, Duration.ofSeconds(1)));
+        assertEquals(Duration.ofSeconds(3), limiter.acquire(0, Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void testSharedOnlyBetweenEqualLimits() {
+        RateLimiter limiter = RateLimiter.shared(List.of("OPENAI", "shared-test", "gpt-4"), 60, 0);
+
+        assertSame(limiter, RateLimiter.shared(List.of("OPENAI", "shared-test", "gpt-4"), 60, 0));
+        // A configuration with other limits keeps its own budget instead of silently using the first one's
+        RateLimiter other = RateLimiter.shared(List.of("OPENAI", "shared-test", "gpt-4"), 120, 0);
+        assertNotSame(limiter, other);
+        assertEquals(120, other.getRequestsPerMinute());
+        assertNotSame(limiter, RateLimiter.shared(List.of("OPENAI", "shared-test", "gpt-4o"), 60, 0));
+    }
+
+    @Test
+    void testTokenEstimate() {
+        CompletionRequest request = CompletionRequest.builder()
+            .addSystemMessage("Be brief")
+            .addUserMessage("What is the capital of France?")
+            .maxTokens(100)
+            .build();
+
+        // 38 characters -> 10 tokens, plus 4 per message and the completion budget
+        assertEquals(10 + 8 + 100, RateLimitingProviderClient.estimateTokens(request));
+    }
+}
@@ -0,0 +1,105 @@
+package com.mulemind.resilience;
+
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.provider.RateLimitHeaders;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the retry layer
+ */
+class RetryTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofSeconds(1), Set.of(429, 503));
+
+    @Test
+    void testTransientFailuresAreRetried() throws Exception {
+        CompletionResponse response = new CompletionResponse();
+        LlmProviderClient delegate = mock(LlmProviderClient.class);
+        when(delegate.completeAsync(any())).thenReturn(
+            CompletableFuture.failedFuture(new LlmProviderException("Rate limited", 429, "OpenAI", Duration.ofMillis(5))),
+            CompletableFuture.failedFuture(new LlmProviderException("Timeout", new SocketTimeoutException(), "OpenAI")),
+            CompletableFuture.completedFuture(response));
+
+        RetryingProviderClient client = new RetryingProviderClient(delegate, policy);
+
+        assertSame(response, client.completeAsync(request()).get(1, TimeUnit.SECONDS));
+        verify(delegate, times(3)).completeAsync(any());
+    }
+
+    @Test
+    void testPermanentFailuresAreNotRetried() {
+        LlmProviderClient delegate = mock(LlmProviderClient.class);
+        when(delegate.completeAsync(any())).thenReturn(
+            CompletableFuture.failedFuture(new LlmProviderException("Bad request", 400, "OpenAI")));
+
+        RetryingProviderClient client = new RetryingProviderClient(delegate, policy);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> client.completeAsync(request()).get(1, TimeUnit.SECONDS));
+        assertEquals(400, ((LlmProviderException) error.getCause()).getStatusCode());
+        verify(delegate, times(1)).completeAsync(any());
+    }
+
+    @Test
+    void testRetryDelayHonoursHintsAndLimits() {
+        assertEquals(Duration.ofMillis(250),
+            policy.retryDelay(new LlmProviderException("Slow down", 429, "OpenAI", Duration.ofMillis(250)), 1));
+        // A hint longer than the max backoff is not waited for
+        assertNull(policy.retryDelay(new LlmProviderException("Slow down", 429, "OpenAI", Duration.ofMinutes(5)), 1));
+        assertNull(policy.retryDelay(new LlmProviderException("Unavailable", 503, "OpenAI"), 3));
+        assertNull(policy.retryDelay(new LlmProviderException("Bad JSON",
+            new com.fasterxml.jackson.core.JsonParseException(null, "bad"), "OpenAI"), 1));
+        assertNotNull(policy.retryDelay(new LlmProviderException("Reset", new IOException(), "OpenAI"), 1));
+
+        for (int attempt = 1; attempt <= 40; attempt++) {
+            Duration backoff = policy.backoff(attempt);
+            assertFalse(backoff.isNegative());
+            assertTrue(backoff.compareTo(Duration.ofSeconds(1)) <= 0);
+        }
+    }
+
+    @Test
+    void testRateLimitHeaderParsing() {
+        Instant now = Instant.parse("2024-05-01T12:00:00Z");
+
+        BasicHttpResponse retryAfter = new BasicHttpResponse(429);
+        retryAfter.addHeader("Retry-After", "7");
+        assertEquals(Duration.ofSeconds(7), RateLimitHeaders.retryAfter(retryAfter, now));
+
+        BasicHttpResponse openAi = new BasicHttpResponse(429);
+        openAi.addHeader("x-ratelimit-remaining-requests", "12");
+        openAi.addHeader("x-ratelimit-reset-requests", "1s");
+        openAi.addHeader("x-ratelimit-remaining-tokens", "0");
+        openAi.addHeader("x-ratelimit-reset-tokens", "1m2.5s");
+        assertEquals(Duration.ofMillis(62_500), RateLimitHeaders.retryAfter(openAi, now));
+
+        BasicHttpResponse anthropic = new BasicHttpResponse(429);
+        anthropic.addHeader("anthropic-ratelimit-requests-remaining", "0");
+        anthropic.addHeader("anthropic-ratelimit-requests-reset", "2024-05-01T12:00:03Z");
+        anthropic.addHeader("anthropic-ratelimit-tokens-remaining", "5000");
+        anthropic.addHeader("anthropic-ratelimit-tokens-reset", "2024-05-01T12:00:40Z");
+        assertEquals(Duration.ofSeconds(3), RateLimitHeaders.retryAfter(anthropic, now));
+
+        assertNull(RateLimitHeaders.retryAfter(new BasicHttpResponse(500), now));
+    }
+
+    private static CompletionRequest request() {
+        return CompletionRequest.builder().addUserMessage("Hello").build();
+    }
+}
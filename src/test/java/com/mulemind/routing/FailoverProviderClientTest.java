@@ -0,0 +1,95 @@
+package com.mulemind.routing;
+
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for failover routing
+ */
+class FailoverProviderClientTest {
+
+    @Test
+    void testFailsOverAndReportsServingTarget() throws Exception {
+        LlmProviderClient primary = client(LlmProvider.OPENAI);
+        when(primary.completeAsync(any())).thenReturn(
+            CompletableFuture.failedFuture(new LlmProviderException("Service unavailable", 503, "OpenAI")));
+        LlmProviderClient secondary = client(LlmProvider.ANTHROPIC);
+        when(secondary.completeAsync(any())).thenReturn(CompletableFuture.completedFuture(new CompletionResponse()));
+
+        FailoverProviderClient router = new FailoverProviderClient(List.of(
+            new FailoverProviderClient.Target("OpenAI:gpt-4", primary),
+            new FailoverProviderClient.Target("Anthropic:claude-3-5-sonnet-20241022", secondary)), Duration.ZERO);
+
+        CompletionRequest request = CompletionRequest.builder().model("gpt-4").addUserMessage("Hello").build();
+        CompletionResponse response = router.completeAsync(request).get(1, TimeUnit.SECONDS);
+
+        assertEquals("Anthropic:claude-3-5-sonnet-20241022", response.getServedBy());
+        // The failover target gets its own copy without the primary's model
+        ArgumentCaptor<CompletionRequest> sent = ArgumentCaptor.forClass(CompletionRequest.class);
+        verify(secondary).completeAsync(sent.capture());
+        assertNull(sent.getValue().getModel());
+        assertEquals("gpt-4", request.getModel());
+    }
+
+    @Test
+    void testLatencyBudgetTriggersFailover() throws Exception {
+        LlmProviderClient primary = client(LlmProvider.OPENAI);
+        CompletableFuture<CompletionResponse> hanging = new CompletableFuture<>();
+        when(primary.completeAsync(any())).thenReturn(hanging);
+        LlmProviderClient secondary = client(LlmProvider.ANTHROPIC);
+        when(secondary.completeAsync(any())).thenReturn(CompletableFuture.completedFuture(new CompletionResponse()));
+
+        FailoverProviderClient router = new FailoverProviderClient(List.of(
+            new FailoverProviderClient.Target("primary", primary),
+            new FailoverProviderClient.Target("secondary", secondary)), Duration.ofMillis(20));
+
+        CompletionResponse response = router.completeAsync(CompletionRequest.builder().addUserMessage("Hello").build())
+            .get(1, TimeUnit.SECONDS);
+
+        assertEquals("secondary", response.getServedBy());
+        assertTrue(hanging.isCancelled());
+    }
+
+    @Test
+    void testAllTargetsFailing() {
+        LlmProviderClient primary = client(LlmProvider.OPENAI);
+        when(primary.completeAsync(any())).thenReturn(
+            CompletableFuture.failedFuture(new LlmProviderException("Service unavailable", 503, "OpenAI")));
+        LlmProviderClient secondary = client(LlmProvider.ANTHROPIC);
+        when(secondary.completeAsync(any())).thenReturn(
+            CompletableFuture.failedFuture(new LlmProviderException("Overloaded", 529, "Anthropic")));
+
+        FailoverProviderClient router = new FailoverProviderClient(List.of(
+            new FailoverProviderClient.Target("primary", primary),
+            new FailoverProviderClient.Target("secondary", secondary)), Duration.ZERO);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> router.completeAsync(CompletionRequest.builder().addUserMessage("Hello").build()).get(1, TimeUnit.SECONDS));
+        LlmProviderException cause = (LlmProviderException) error.getCause();
+        assertEquals(529, cause.getStatusCode());
+        assertEquals(1, cause.getSuppressed().length);
+    }
+
+    private static LlmProviderClient client(LlmProvider provider) {
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getProvider()).thenReturn(provider);
+        LlmProviderClient client = mock(LlmProviderClient.class);
+        when(client.getConfiguration()).thenReturn(configuration);
+        return client;
+    }
+}
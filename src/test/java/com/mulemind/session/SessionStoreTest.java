@@ -0,0 +1,132 @@
+package com.mulemind.session;
+
+import com.mulemind.model.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the session store
+ */
+class SessionStoreTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendsAndLoadsTurns() {
+        SessionStore store = new SessionStore(64 * 1024, 60, null, clock::get);
+
+        assertTrue(store.load("s1").isEmpty());
+        store.append("s1", List.of(Message.user("Héllo 😀"), Message.assistant("Hi")));
+        store.append("s1", List.of(Message.user("x".repeat(3000)), new Message("tool", "42")));
+
+        List<Message> messages = store.load("s1");
+        assertEquals(4, messages.size());
+        assertEquals("Héllo 😀", messages.get(0).getContent());
+        assertEquals("assistant", messages.get(1).getRole());
+        assertEquals(3000, messages.get(2).getContent().length());
+        assertEquals("tool", messages.get(3).getRole());
+        assertEquals(3 * PagePool.PAGE_SIZE, store.getUsedBytes());
+
+        assertTrue(store.remove("s1"));
+        assertEquals(0, store.getUsedBytes());
+        assertFalse(store.remove("s1"));
+    }
+
+    @Test
+    void testIdleSessionsExpire() {
+        SessionStore store = new SessionStore(64 * 1024, 60, null, clock::get);
+        store.append("old", List.of(Message.user("a")));
+        clock.addAndGet(30_000);
+        store.append("recent", List.of(Message.user("b")));
+
+        clock.addAndGet(40_000);
+        assertTrue(store.load("old").isEmpty());
+        assertEquals(1, store.load("recent").size());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        SessionStore store = new SessionStore(2 * PagePool.PAGE_SIZE, 60, null, clock::get);
+        store.append("a", List.of(Message.user("a")));
+        store.append("b", List.of(Message.user("b")));
+        store.load("a");
+
+        store.append("c", List.of(Message.user("c")));
+
+        assertEquals(1, store.load("a").size());
+        assertTrue(store.load("b").isEmpty());
+        assertEquals(1, store.getEvictionCount());
+    }
+
+    @Test
+    void testOversizedSessionKeepsRecentTurns() {
+        SessionStore store = new SessionStore(2 * PagePool.PAGE_SIZE, 60, null, clock::get);
+        for (int i = 0; i < 10; i++) {
+            store.append("s", List.of(Message.user("question " + i + " " + "q".repeat(300)),
+                Message.assistant("answer " + i)));
+        }
+
+        List<Message> messages = store.load("s");
+        assertTrue(messages.size() < 20);
+        assertEquals("user", messages.get(0).getRole());
+        assertEquals("answer 9", messages.get(messages.size() - 1).getContent());
+    }
+
+    @Test
+    void testEvictedSessionsSpillToDisk() throws IOException {
+        SessionStore store = new SessionStore(PagePool.PAGE_SIZE, 60, directory, clock::get);
+        store.append("a", List.of(Message.user("first"), Message.assistant("reply")));
+        store.append("b", List.of(Message.user("other")));
+
+        assertEquals(1, store.getSpillCount());
+        assertEquals(1, files());
+
+        // Reading the spilled session back evicts the other one in turn
+        List<Message> restored = store.load("a");
+        assertEquals(2, restored.size());
+        assertEquals("reply", restored.get(1).getContent());
+        assertEquals(1, files());
+
+        // A new store over the same directory resumes spilled sessions, unless they idled out
+        SessionStore reopened = new SessionStore(PagePool.PAGE_SIZE, 60, directory, clock::get);
+        assertEquals("other", reopened.load("b").get(0).getContent());
+        assertEquals(0, files());
+
+        assertTrue(store.remove("a"));
+    }
+
+    @Test
+    void testSpilledSessionsIdleOut() throws IOException {
+        SessionStore store = new SessionStore(PagePool.PAGE_SIZE, 60, directory, clock::get);
+        store.append("a", List.of(Message.user("first")));
+        store.append("b", List.of(Message.user("other")));
+        assertEquals(1, files());
+
+        // Swept on expiry without the spilled session ever being used again
+        clock.addAndGet(30_000);
+        store.append("b", List.of(Message.user("again")));
+        assertEquals(1, files());
+        clock.addAndGet(31_000);
+        store.append("b", List.of(Message.user("once more")));
+        assertEquals(0, files());
+        assertTrue(store.load("a").isEmpty());
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(SessionStore.SPILL_SUFFIX)).count();
+        }
+    }
+}
@@ -0,0 +1,741 @@
+package com.mulemind.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.luben.zstd.ZstdInputStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embeddable HTTP server that speaks enough of the OpenAI and Anthropic APIs
+ * to load-test the connector offline.
+ *
+ * Serves chat completions and messages, both buffered and as SSE streams,
+ * OpenAI embeddings, and the OpenAI Batch and Anthropic Message Batches
+ * endpoints. Each completion
+ * waits for a sampled latency before the first token and then emits tokens
+ * at a configured rate. Failures are injected at configured rates: 429s with
+ * a Retry-After hint, and server errors with configured status codes. When
+ * request or token budgets are set, the server enforces them per minute and
+ * reports them in each vendor's rate-limit headers. Compressed request bodies
+ * are decoded, and responses can be gzipped for clients that accept it.
+ *
+ * Both APIs are served under {@code /v1}, so {@link #getBaseUrl()} works as
+ * the base URL of either provider.
+ */
+public final class StubLlmServer implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int EMBEDDING_DIMENSIONS = 8;
+
+    private final Builder settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random;
+    private final String[] words;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong compressedRequests = new AtomicLong();
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    private final Object windowLock = new Object();
+    private long windowStart;
+    private long windowRequests;
+    private long windowTokens;
+
+    private StubLlmServer(Builder settings) throws IOException {
+        this.settings = settings;
+        this.random = settings.seed != null ? new Random(settings.seed) : new Random();
+        this.words = settings.responseText.split(" ");
+        this.windowStart = System.nanoTime();
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = settings.threads > 0
+            ? Executors.newFixedThreadPool(settings.threads, StubLlmServer::daemon)
+            : Executors.newCachedThreadPool(StubLlmServer::daemon);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the base URL to configure for either provider, e.g. http://127.0.0.1:50123/v1
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    /**
+     * Get the number of completion requests received, including failed ones
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of completion requests answered with an injected or enforced error
+     */
+    public long getErrorCount() {
+        return injectedErrors.get();
+    }
+
+    /**
+     * Get the number of requests received with a gzip or zstd compressed body
+     */
+    public long getCompressedRequestCount() {
+        return compressedRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath().substring("/v1".length());
+            byte[] body = readBody(exchange);
+
+            if ("POST".equals(method) && path.equals("/chat/completions")) {
+                complete(exchange, OBJECT_MAPPER.readTree(body), false);
+            } else if ("POST".equals(method) && path.equals("/messages")) {
+                complete(exchange, OBJECT_MAPPER.readTree(body), true);
+            } else if ("POST".equals(method) && path.equals("/embeddings")) {
+                embed(exchange, OBJECT_MAPPER.readTree(body));
+            } else if ("POST".equals(method) && path.equals("/files")) {
+                String id = "file-" + ids.incrementAndGet();
+                files.put(id, body);
+                sendJson(exchange, 200, object().put("id", id).put("object", "file").put("purpose", "batch"));
+            } else if ("GET".equals(method) && path.matches("/files/[^/]+/content")) {
+                byte[] content = files.get(path.split("/")[2]);
+                send(exchange, content != null ? 200 : 404, "application/jsonl", content != null ? content : new byte[0]);
+            } else if ("POST".equals(method) && path.equals("/batches")) {
+                createOpenAiBatch(exchange, OBJECT_MAPPER.readTree(body));
+            } else if ("GET".equals(method) && path.startsWith("/batches/")) {
+                Batch batch = batches.get(path.substring("/batches/".length()));
+                sendBatch(exchange, batch, batch != null ? openAiBatch(batch) : null);
+            } else if ("POST".equals(method) && path.equals("/messages/batches")) {
+                createAnthropicBatch(exchange, OBJECT_MAPPER.readTree(body));
+            } else if ("GET".equals(method) && path.matches("/messages/batches/[^/]+/results")) {
+                Batch batch = batches.get(path.split("/")[3]);
+                if (batch == null || !batch.isDone(settings.batchProcessingNanos)) {
+                    sendError(exchange, 404, "not_found_error", "Results are not available");
+                } else {
+                    send(exchange, 200, "application/x-jsonl", batch.results);
+                }
+            } else if ("GET".equals(method) && path.startsWith("/messages/batches/")) {
+                Batch batch = batches.get(path.substring("/messages/batches/".length()));
+                sendBatch(exchange, batch, batch != null ? anthropicBatch(batch) : null);
+            } else {
+                sendError(exchange, 404, "not_found_error", "Unknown endpoint " + method + " " + path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | IOException e) {
+            sendError(exchange, 500, "api_error", String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Serve a chat completion (OpenAI) or message (Anthropic), buffered or streamed
+     */
+    private void complete(HttpExchange exchange, JsonNode request, boolean anthropic) throws IOException, InterruptedException {
+        requests.incrementAndGet();
+        String model = request.path("model").asText("stub-model");
+        boolean stream = request.path("stream").asBoolean(false);
+        int promptTokens = estimatePromptTokens(request);
+        int completionTokens = words.length;
+
+        // Enforced budgets first, then randomly injected failures
+        Duration retryAfter = consumeBudget(promptTokens + completionTokens);
+        if (retryAfter == null && chance(settings.rateLimitRate)) {
+            retryAfter = settings.retryAfter;
+        }
+        if (retryAfter != null) {
+            injectedErrors.incrementAndGet();
+            addRateLimitHeaders(exchange.getResponseHeaders(), anthropic);
+            exchange.getResponseHeaders().set("retry-after", Long.toString(Math.max(1, retryAfter.getSeconds())));
+            sendError(exchange, 429, "rate_limit_error", "Rate limit exceeded");
+            return;
+        }
+        if (chance(settings.errorRate)) {
+            injectedErrors.incrementAndGet();
+            int status = settings.errorStatuses[random.nextInt(settings.errorStatuses.length)];
+            sendError(exchange, status, status == 529 ? "overloaded_error" : "api_error", "Injected failure");
+            return;
+        }
+
+        sleepNanos(settings.latency.sampleNanos(random));
+        addRateLimitHeaders(exchange.getResponseHeaders(), anthropic);
+        String id = (anthropic ? "msg_stub_" : "chatcmpl-stub-") + ids.incrementAndGet();
+        if (stream) {
+            streamCompletion(exchange, id, model, promptTokens, anthropic);
+        } else {
+            sleepNanos(tokenIntervalNanos() * completionTokens);
+            ObjectNode response = anthropic
+                ? anthropicMessage(id, model, promptTokens)
+                : openAiCompletion(id, model, promptTokens);
+            sendJson(exchange, 200, response);
+        }
+    }
+
+    /**
+     * Serve embeddings: a small vector derived from each text's hash, in base64 or as numbers
+     */
+    private void embed(HttpExchange exchange, JsonNode request) throws IOException {
+        requests.incrementAndGet();
+        boolean base64 = "base64".equals(request.path("encoding_format").asText());
+        ObjectNode response = object().put("object", "list").put("model", request.path("model").asText("stub-embedding"));
+        ArrayNode data = response.putArray("data");
+        int index = 0;
+        long chars = 0;
+        for (JsonNode input : request.path("input")) {
+            float[] vector = embedding(input.asText());
+            ObjectNode item = data.addObject().put("object", "embedding").put("index", index++);
+            if (base64) {
+                ByteBuffer bytes = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                bytes.asFloatBuffer().put(vector);
+                item.put("embedding", Base64.getEncoder().encodeToString(bytes.array()));
+            } else {
+                ArrayNode values = item.putArray("embedding");
+                for (float value : vector) {
+                    values.add(value);
+                }
+            }
+            chars += input.asText().length();
+        }
+        int tokens = (int) Math.max(1, chars / 4);
+        response.set("usage", object().put("prompt_tokens", tokens).put("total_tokens", tokens));
+        sendJson(exchange, 200, response);
+    }
+
+    /**
+     * Deterministic unit vector of a text
+     */
+    public static float[] embedding(String text) {
+        Random seeded = new Random(text.hashCode());
+        float[] vector = new float[EMBEDDING_DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) seeded.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    private void streamCompletion(HttpExchange exchange, String id, String model, int promptTokens, boolean anthropic)
+            throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        boolean gzip = acceptsGzip(exchange);
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, 0);
+        // Sync flush sends every event as soon as it is written
+        OutputStream out = gzip
+            ? new GZIPOutputStream(exchange.getResponseBody(), true)
+            : exchange.getResponseBody();
+        long interval = tokenIntervalNanos();
+        long created = Instant.now().getEpochSecond();
+
+        if (anthropic) {
+            ObjectNode message = object().put("id", id).put("type", "message").put("role", "assistant").put("model", model);
+            message.putArray("content");
+            message.set("usage", object().put("input_tokens", promptTokens).put("output_tokens", 1));
+            event(out, "message_start", object().put("type", "message_start").set("message", message));
+            event(out, "content_block_start", object().put("type", "content_block_start").put("index", 0)
+                .set("content_block", object().put("type", "text").put("text", "")));
+        }
+        for (int i = 0; i < words.length; i++) {
+            String text = i == 0 ? words[i] : " " + words[i];
+            if (anthropic) {
+                event(out, "content_block_delta", object().put("type", "content_block_delta").put("index", 0)
+                    .set("delta", object().put("type", "text_delta").put("text", text)));
+            } else {
+                event(out, null, openAiChunk(id, model, created, object().put("content", text), null));
+            }
+            if (i < words.length - 1) {
+                sleepNanos(interval);
+            }
+        }
+        if (anthropic) {
+            event(out, "content_block_stop", object().put("type", "content_block_stop").put("index", 0));
+            event(out, "message_delta", object().put("type", "message_delta")
+                .<ObjectNode>set("delta", object().put("stop_reason", "end_turn"))
+                .set("usage", object().put("output_tokens", words.length)));
+            event(out, "message_stop", object().put("type", "message_stop"));
+        } else {
+            event(out, null, openAiChunk(id, model, created, object(), "stop"));
+            ObjectNode usage = openAiChunk(id, model, created, null, null);
+            usage.set("usage", openAiUsage(promptTokens));
+            event(out, null, usage);
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+        out.close();
+    }
+
+    private void createOpenAiBatch(HttpExchange exchange, JsonNode request) throws IOException {
+        byte[] input = files.get(request.path("input_file_id").asText());
+        if (input == null) {
+            sendError(exchange, 400, "invalid_request_error", "Unknown input file");
+            return;
+        }
+        // The multipart upload is stored as is; the JSONL lines are the ones that parse as objects
+        StringBuilder output = new StringBuilder();
+        int count = 0;
+        for (String line : new String(input, StandardCharsets.UTF_8).split("\r?\n")) {
+            if (!line.startsWith("{")) {
+                continue;
+            }
+            JsonNode item = OBJECT_MAPPER.readTree(line);
+            JsonNode body = item.path("body");
+            ObjectNode result = object().put("id", "batch_req_" + ids.incrementAndGet()).put("custom_id", item.path("custom_id").asText());
+            result.set("response", object().put("status_code", 200).<ObjectNode>put("request_id", "req_" + ids.incrementAndGet())
+                .set("body", openAiCompletion("chatcmpl-stub-" + ids.incrementAndGet(),
+                    body.path("model").asText("stub-model"), estimatePromptTokens(body))));
+            result.putNull("error");
+            output.append(OBJECT_MAPPER.writeValueAsString(result)).append('\n');
+            count++;
+        }
+        String outputId = "file-" + ids.incrementAndGet();
+        files.put(outputId, output.toString().getBytes(StandardCharsets.UTF_8));
+        Batch batch = new Batch("batch_" + ids.incrementAndGet(), count, outputId, null);
+        batches.put(batch.id, batch);
+        sendJson(exchange, 200, openAiBatch(batch));
+    }
+
+    private void createAnthropicBatch(HttpExchange exchange, JsonNode request) throws IOException {
+        StringBuilder output = new StringBuilder();
+        int count = 0;
+        for (JsonNode item : request.path("requests")) {
+            JsonNode params = item.path("params");
+            ObjectNode result = object().put("custom_id", item.path("custom_id").asText());
+            result.set("result", object().put("type", "succeeded")
+                .set("message", anthropicMessage("msg_stub_" + ids.incrementAndGet(),
+                    params.path("model").asText("stub-model"), estimatePromptTokens(params))));
+            output.append(OBJECT_MAPPER.writeValueAsString(result)).append('\n');
+            count++;
+        }
+        Batch batch = new Batch("msgbatch_stub_" + ids.incrementAndGet(), count, null, output.toString().getBytes(StandardCharsets.UTF_8));
+        batches.put(batch.id, batch);
+        sendJson(exchange, 200, anthropicBatch(batch));
+    }
+
+    private void sendBatch(HttpExchange exchange, Batch batch, ObjectNode body) throws IOException {
+        if (batch == null) {
+            sendError(exchange, 404, "not_found_error", "Unknown batch");
+        } else {
+            sendJson(exchange, 200, body);
+        }
+    }
+
+    private ObjectNode openAiBatch(Batch batch) {
+        boolean done = batch.isDone(settings.batchProcessingNanos);
+        ObjectNode node = object().put("id", batch.id).put("object", "batch").put("endpoint", "/v1/chat/completions")
+            .put("status", done ? "completed" : "in_progress")
+            .put("output_file_id", done ? batch.outputFileId : null);
+        node.putNull("error_file_id");
+        node.set("request_counts", object().put("total", batch.count).put("completed", done ? batch.count : 0).put("failed", 0));
+        return node;
+    }
+
+    private ObjectNode anthropicBatch(Batch batch) {
+        boolean done = batch.isDone(settings.batchProcessingNanos);
+        ObjectNode node = object().put("id", batch.id).put("type", "message_batch")
+            .put("processing_status", done ? "ended" : "in_progress")
+            .put("results_url", done ? getBaseUrl() + "/messages/batches/" + batch.id + "/results" : null);
+        node.set("request_counts", object().put("processing", done ? 0 : batch.count).put("succeeded", done ? batch.count : 0)
+            .put("errored", 0).put("canceled", 0).put("expired", 0));
+        return node;
+    }
+
+    private ObjectNode openAiCompletion(String id, String model, int promptTokens) {
+        ObjectNode response = object().put("id", id).put("object", "chat.completion")
+            .put("created", Instant.now().getEpochSecond()).put("model", model);
+        ObjectNode choice = response.putArray("choices").addObject().put("index", 0);
+        choice.set("message", object().put("role", "assistant").put("content", settings.responseText));
+        choice.put("finish_reason", "stop");
+        response.set("usage", openAiUsage(promptTokens));
+        return response;
+    }
+
+    private ObjectNode openAiChunk(String id, String model, long created, ObjectNode delta, String finishReason) {
+        ObjectNode chunk = object().put("id", id).put("object", "chat.completion.chunk").put("created", created).put("model", model);
+        ArrayNode choices = chunk.putArray("choices");
+        if (delta != null) {
+            choices.addObject().put("index", 0).put("finish_reason", finishReason).set("delta", delta);
+        }
+        return chunk;
+    }
+
+    private ObjectNode openAiUsage(int promptTokens) {
+        return object().put("prompt_tokens", promptTokens).put("completion_tokens", words.length)
+            .put("total_tokens", promptTokens + words.length);
+    }
+
+    private ObjectNode anthropicMessage(String id, String model, int promptTokens) {
+        ObjectNode message = object().put("id", id).put("type", "message").put("role", "assistant").put("model", model);
+        message.putArray("content").addObject().put("type", "text").put("text", settings.responseText);
+        message.put("stop_reason", "end_turn").putNull("stop_sequence");
+        message.set("usage", object().put("input_tokens", promptTokens).put("output_tokens", words.length));
+        return message;
+    }
+
+    /**
+     * Count a request against the per-minute budgets
+     *
+     * @return the time until the budget resets if the request exceeds it, otherwise null
+     */
+    private Duration consumeBudget(long tokens) {
+        if (settings.requestsPerMinute <= 0 && settings.tokensPerMinute <= 0) {
+            return null;
+        }
+        synchronized (windowLock) {
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.MINUTES.toNanos(1)) {
+                windowStart = now;
+                windowRequests = 0;
+                windowTokens = 0;
+            }
+            boolean overRequests = settings.requestsPerMinute > 0 && windowRequests + 1 > settings.requestsPerMinute;
+            boolean overTokens = settings.tokensPerMinute > 0 && windowTokens + tokens > settings.tokensPerMinute;
+            if (overRequests || overTokens) {
+                return Duration.ofNanos(windowStart + TimeUnit.MINUTES.toNanos(1) - now);
+            }
+            windowRequests++;
+            windowTokens += tokens;
+            return null;
+        }
+    }
+
+    private void addRateLimitHeaders(Headers headers, boolean anthropic) {
+        if (settings.requestsPerMinute <= 0 && settings.tokensPerMinute <= 0) {
+            return;
+        }
+        long requestsRemaining;
+        long tokensRemaining;
+        long resetNanos;
+        synchronized (windowLock) {
+            requestsRemaining = Math.max(0, settings.requestsPerMinute - windowRequests);
+            tokensRemaining = Math.max(0, settings.tokensPerMinute - windowTokens);
+            resetNanos = Math.max(0, windowStart + TimeUnit.MINUTES.toNanos(1) - System.nanoTime());
+        }
+        if (anthropic) {
+            String reset = Instant.now().plusNanos(resetNanos).toString();
+            if (settings.requestsPerMinute > 0) {
+                headers.set("anthropic-ratelimit-requests-limit", Long.toString(settings.requestsPerMinute));
+                headers.set("anthropic-ratelimit-requests-remaining", Long.toString(requestsRemaining));
+                headers.set("anthropic-ratelimit-requests-reset", reset);
+            }
+            if (settings.tokensPerMinute > 0) {
+                headers.set("anthropic-ratelimit-tokens-limit", Long.toString(settings.tokensPerMinute));
+                headers.set("anthropic-ratelimit-tokens-remaining", Long.toString(tokensRemaining));
+                headers.set("anthropic-ratelimit-tokens-reset", reset);
+            }
+        } else {
+            String reset = TimeUnit.NANOSECONDS.toMillis(resetNanos) + "ms";
+            if (settings.requestsPerMinute > 0) {
+                headers.set("x-ratelimit-limit-requests", Long.toString(settings.requestsPerMinute));
+                headers.set("x-ratelimit-remaining-requests", Long.toString(requestsRemaining));
+                headers.set("x-ratelimit-reset-requests", reset);
+            }
+            if (settings.tokensPerMinute > 0) {
+                headers.set("x-ratelimit-limit-tokens", Long.toString(settings.tokensPerMinute));
+                headers.set("x-ratelimit-remaining-tokens", Long.toString(tokensRemaining));
+                headers.set("x-ratelimit-reset-tokens", reset);
+            }
+        }
+    }
+
+    /**
+     * Approximate the prompt tokens as a quarter of the message characters
+     */
+    private static int estimatePromptTokens(JsonNode request) {
+        long chars = request.path("system").asText("").length();
+        for (JsonNode message : request.path("messages")) {
+            chars += message.path("content").asText("").length();
+        }
+        return (int) Math.max(1, chars / 4);
+    }
+
+    private long tokenIntervalNanos() {
+        return settings.tokensPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / settings.tokensPerSecond) : 0;
+    }
+
+    private boolean chance(double rate) {
+        return rate > 0 && random.nextDouble() < rate;
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    private static void event(OutputStream out, String name, ObjectNode data) throws IOException {
+        StringBuilder event = new StringBuilder();
+        if (name != null) {
+            event.append("event: ").append(name).append('\n');
+        }
+        event.append("data: ").append(OBJECT_MAPPER.writeValueAsString(data)).append("\n\n");
+        out.write(event.toString().getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendError(HttpExchange exchange, int status, String type, String message) throws IOException {
+        ObjectNode body = object();
+        body.put("type", "error").set("error", object().put("type", type).put("message", message));
+        sendJson(exchange, status, body);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, ObjectNode body) throws IOException {
+        send(exchange, status, "application/json", OBJECT_MAPPER.writeValueAsBytes(body));
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if (body.length > 0 && acceptsGzip(exchange)) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            in = new GZIPInputStream(in);
+            compressedRequests.incrementAndGet();
+        } else if ("zstd".equalsIgnoreCase(encoding)) {
+            in = new ZstdInputStream(in);
+            compressedRequests.incrementAndGet();
+        }
+        try (InputStream body = in) {
+            return body.readAllBytes();
+        }
+    }
+
+    /**
+     * Whether responses are compressed and the client accepts gzip
+     */
+    private boolean acceptsGzip(HttpExchange exchange) {
+        String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return settings.compressResponses && accepted != null && accepted.toLowerCase().contains("gzip");
+    }
+
+    private static ObjectNode object() {
+        return OBJECT_MAPPER.createObjectNode();
+    }
+
+    private static Thread daemon(Runnable runnable) {
+        Thread thread = new Thread(runnable, "stub-llm-server");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Batch {
+        private final String id;
+        private final int count;
+        private final String outputFileId;
+        private final byte[] results;
+        private final long createdAt = System.nanoTime();
+
+        private Batch(String id, int count, String outputFileId, byte[] results) {
+            this.id = id;
+            this.count = count;
+            this.outputFileId = outputFileId;
+            this.results = results;
+        }
+
+        private boolean isDone(long processingNanos) {
+            return System.nanoTime() - createdAt >= processingNanos;
+        }
+    }
+
+    /**
+     * Distribution of the time to first token
+     */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+
+        long sampleNanos(Random random);
+
+        static LatencyDistribution fixed(Duration latency) {
+            long nanos = latency.toNanos();
+            return random -> nanos;
+        }
+
+        static LatencyDistribution uniform(Duration min, Duration max) {
+            long low = min.toNanos();
+            long span = max.toNanos() - low;
+            return random -> low + (long) (random.nextDouble() * span);
+        }
+
+        /**
+         * Log-normal latency with the given median and 99th percentile, the
+         * long-tailed shape typical of LLM APIs
+         */
+        static LatencyDistribution logNormal(Duration median, Duration p99) {
+            double mu = Math.log(median.toNanos());
+            double sigma = (Math.log(p99.toNanos()) - mu) / 2.326;
+            return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+        }
+    }
+
+    public static final class Builder {
+        private LatencyDistribution latency = LatencyDistribution.fixed(Duration.ZERO);
+        private double tokensPerSecond;
+        private String responseText = "This is a response from the stub server.";
+        private double errorRate;
+        private int[] errorStatuses = {500, 502, 503};
+        private double rateLimitRate;
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private long requestsPerMinute;
+        private long tokensPerMinute;
+        private long batchProcessingNanos;
+        private Long seed;
+        private int threads;
+        private boolean compressResponses;
+
+        private Builder() {
+        }
+
+        /**
+         * Time to first token; for buffered responses the generation time is added to it
+         */
+        public Builder latency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Rate at which tokens are generated (0 = all at once)
+         */
+        public Builder tokensPerSecond(double tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+            return this;
+        }
+
+        /**
+         * Text of every completion; each space-separated word is one token
+         */
+        public Builder responseText(String responseText) {
+            this.responseText = responseText;
+            return this;
+        }
+
+        /**
+         * Fail this fraction of completions with one of the given statuses (default 500, 502, 503)
+         */
+        public Builder errorRate(double errorRate, int... statuses) {
+            this.errorRate = errorRate;
+            if (statuses.length > 0) {
+                this.errorStatuses = statuses.clone();
+            }
+            return this;
+        }
+
+        /**
+         * Reject this fraction of completions with 429 and the given Retry-After
+         */
+        public Builder rateLimitRate(double rateLimitRate, Duration retryAfter) {
+            this.rateLimitRate = rateLimitRate;
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        /**
+         * Enforce and report per-minute request and token budgets (0 = unlimited)
+         */
+        public Builder rateLimits(long requestsPerMinute, long tokensPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.tokensPerMinute = tokensPerMinute;
+            return this;
+        }
+
+        /**
+         * Time before a submitted batch reports completion
+         */
+        public Builder batchProcessingTime(Duration batchProcessingTime) {
+            this.batchProcessingNanos = batchProcessingTime.toNanos();
+            return this;
+        }
+
+        /**
+         * Seed the random latencies and failures, for repeatable runs
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Number of handler threads (0 = one per open request)
+         */
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Gzip response bodies, streams included, for clients that accept gzip
+         */
+        public Builder compressResponses(boolean compressResponses) {
+            this.compressResponses = compressResponses;
+            return this;
+        }
+
+        public StubLlmServer start() throws IOException {
+            return new StubLlmServer(this);
+        }
+    }
+}
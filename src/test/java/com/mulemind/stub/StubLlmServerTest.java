@@ -0,0 +1,237 @@
+package com.mulemind.stub;
+
+import com.mulemind.batch.BatchResultReader;
+import com.mulemind.config.CompressionCodec;
+import com.mulemind.config.CompressionSettings;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.config.MetricsSettings;
+import com.mulemind.connection.LlmConnection;
+import com.mulemind.metrics.CompressionMetrics;
+import com.mulemind.metrics.ConnectorMetrics;
+import com.mulemind.model.BatchItemResult;
+import com.mulemind.model.BatchJob;
+import com.mulemind.model.CompletionRequest;
+import com.mulemind.model.CompletionResponse;
+import com.mulemind.model.EmbeddingRequest;
+import com.mulemind.model.EmbeddingResponse;
+import com.mulemind.provider.AnthropicProvider;
+import com.mulemind.provider.BatchCapable;
+import com.mulemind.provider.LlmProviderClient;
+import com.mulemind.provider.LlmProviderException;
+import com.mulemind.provider.OpenAiProvider;
+import com.mulemind.resilience.RetryPolicy;
+import com.mulemind.resilience.RetryingProviderClient;
+import com.mulemind.streaming.CompletionStream;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the providers against the stub server over real HTTP
+ */
+class StubLlmServerTest {
+
+    private LlmConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create().build();
+        PoolingAsyncClientConnectionManager asyncConnectionManager = PoolingAsyncClientConnectionManagerBuilder.create().build();
+        // Without automatic retries, as configured by the connection provider
+        CloseableHttpAsyncClient asyncClient = HttpAsyncClients.custom()
+            .setConnectionManager(asyncConnectionManager)
+            .disableAutomaticRetries()
+            .build();
+        asyncClient.start();
+        connection = new LlmConnection(
+            HttpClients.custom().setConnectionManager(connectionManager).disableAutomaticRetries().build(),
+            connectionManager, asyncClient, asyncConnectionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connection.close();
+    }
+
+    @Test
+    void testOpenAiCompletionAndStream() throws Exception {
+        try (StubLlmServer server = StubLlmServer.builder()
+                .responseText("Paris is the capital")
+                .tokensPerSecond(1000)
+                .rateLimits(100, 100_000)
+                .start()) {
+            OpenAiProvider provider = new OpenAiProvider(configuration(LlmProvider.OPENAI, server), connection);
+
+            CompletionResponse response = provider.complete(request());
+            assertEquals("Paris is the capital", response.getContent());
+            assertEquals(100L, response.getRateLimits().getRequestLimit());
+            assertEquals(99L, response.getRateLimits().getRequestsRemaining());
+
+            assertEquals("Paris is the capital", provider.completeAsync(request()).get(5, TimeUnit.SECONDS).getContent());
+
+            try (CompletionStream stream = provider.stream(request())) {
+                assertEquals("Paris is the capital", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+                assertEquals("stop", stream.getResponse().getChoices().get(0).getFinishReason());
+                assertEquals(4, stream.getResponse().getUsage().getCompletionTokens());
+            }
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void testAnthropicStream() throws Exception {
+        try (StubLlmServer server = StubLlmServer.builder().responseText("Bonjour tout le monde").start()) {
+            AnthropicProvider provider = new AnthropicProvider(configuration(LlmProvider.ANTHROPIC, server), connection);
+
+            assertEquals("Bonjour tout le monde", provider.complete(request()).getContent());
+            try (CompletionStream stream = provider.stream(request())) {
+                assertEquals("Bonjour tout le monde", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+                assertEquals("end_turn", stream.getResponse().getChoices().get(0).getFinishReason());
+                assertEquals(4, stream.getResponse().getUsage().getCompletionTokens());
+            }
+        }
+    }
+
+    @Test
+    void testOpenAiEmbeddings() throws Exception {
+        try (StubLlmServer server = StubLlmServer.builder().start()) {
+            OpenAiProvider provider = new OpenAiProvider(configuration(LlmProvider.OPENAI, server), connection);
+
+            EmbeddingResponse response = provider.embedAsync(new EmbeddingRequest("text-embedding-3-small",
+                List.of("first", "second"))).get(5, TimeUnit.SECONDS);
+            assertEquals(2, response.getEmbeddings().size());
+            assertArrayEquals(StubLlmServer.embedding("first"), response.getEmbeddings().get(0));
+            assertArrayEquals(StubLlmServer.embedding("second"), response.getEmbeddings().get(1));
+            assertEquals("text-embedding-3-small", response.getModel());
+            assertEquals(2, response.getPromptTokens());
+        }
+    }
+
+    @Test
+    void testCompressedRequestsAndResponses() throws Exception {
+        CompletionRequest large = CompletionRequest.builder()
+            .addSystemMessage("Answer from the context")
+            .addUserMessage("Context: " + "The quarterly revenue grew in every region. ".repeat(500))
+            .build();
+        try (StubLlmServer server = StubLlmServer.builder().responseText("Revenue grew").compressResponses(true).start()) {
+            LlmConfiguration openAiConfiguration = compressed(configuration(LlmProvider.OPENAI, server));
+            OpenAiProvider openAi = new OpenAiProvider(openAiConfiguration, connection);
+            AnthropicProvider anthropic = new AnthropicProvider(compressed(configuration(LlmProvider.ANTHROPIC, server)), connection);
+
+            assertEquals("Revenue grew", openAi.complete(large.copy()).getContent());
+            assertEquals("Revenue grew", openAi.completeAsync(large.copy()).get(5, TimeUnit.SECONDS).getContent());
+            try (CompletionStream stream = openAi.stream(large.copy())) {
+                assertEquals("Revenue grew", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+                assertEquals(2, stream.getResponse().getUsage().getCompletionTokens());
+            }
+            assertEquals("Revenue grew", anthropic.completeAsync(large.copy()).get(5, TimeUnit.SECONDS).getContent());
+            try (CompletionStream stream = anthropic.stream(large.copy())) {
+                assertEquals("Revenue grew", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            // Below the threshold
+            assertEquals("Revenue grew", openAi.complete(request()).getContent());
+
+            assertEquals(5, server.getCompressedRequestCount());
+            CompressionMetrics metrics = ConnectorMetrics.forCompression("compression-test", false, false);
+            assertEquals(5, metrics.getCompressedRequests());
+            assertTrue(metrics.getRequestBytesSent() * 10 < metrics.getRequestBytes());
+            assertEquals(6, metrics.getCompressedResponses());
+            assertTrue(metrics.getResponseBytesDecoded() > 0);
+        }
+    }
+
+    @Test
+    void testInjectedFailuresAreRetried() throws Exception {
+        try (StubLlmServer server = StubLlmServer.builder().errorRate(1.0, 503).start()) {
+            LlmProviderClient client = new RetryingProviderClient(
+                new OpenAiProvider(configuration(LlmProvider.OPENAI, server), connection),
+                new RetryPolicy(3, Duration.ofMillis(1), Duration.ofSeconds(1), Set.of(503)));
+
+            LlmProviderException error = assertThrows(LlmProviderException.class, () -> client.complete(request()));
+            assertEquals(503, error.getStatusCode());
+            assertEquals(3, server.getRequestCount());
+            assertEquals(3, server.getErrorCount());
+        }
+    }
+
+    @Test
+    void testEnforcedRateLimitCarriesRetryHint() throws Exception {
+        try (StubLlmServer server = StubLlmServer.builder().rateLimits(1, 0).start()) {
+            OpenAiProvider provider = new OpenAiProvider(configuration(LlmProvider.OPENAI, server), connection);
+
+            provider.complete(request());
+            LlmProviderException error = assertThrows(LlmProviderException.class, () -> provider.complete(request()));
+            assertEquals(429, error.getStatusCode());
+            assertNotNull(error.getRetryAfter());
+        }
+    }
+
+    @Test
+    void testBatchRoundTrip() throws Exception {
+        try (StubLlmServer server = StubLlmServer.builder().responseText("Done").start()) {
+            for (LlmProvider vendor : List.of(LlmProvider.OPENAI, LlmProvider.ANTHROPIC)) {
+                LlmConfiguration configuration = configuration(vendor, server);
+                BatchCapable provider = vendor == LlmProvider.OPENAI
+                    ? new OpenAiProvider(configuration, connection)
+                    : new AnthropicProvider(configuration, connection);
+
+                BatchJob submitted = provider.submitBatch(List.of(request(), request()).iterator());
+                BatchJob job = provider.getBatch(submitted.getId());
+                assertEquals(BatchJob.Status.COMPLETED, job.getStatus(), vendor.name());
+                assertEquals(2, job.getSucceededCount());
+
+                try (BatchResultReader reader = provider.openBatchResults(job)) {
+                    BatchItemResult first = reader.next();
+                    assertEquals(0, first.getIndex());
+                    assertEquals("Done", first.getContent());
+                    assertEquals(1, reader.next().getIndex());
+                    assertNull(reader.next());
+                }
+            }
+        }
+    }
+
+    private static CompletionRequest request() {
+        return CompletionRequest.builder().addSystemMessage("Be brief").addUserMessage("What is the capital of France?").build();
+    }
+
+    private static LlmConfiguration compressed(LlmConfiguration configuration) {
+        CompressionSettings compression = mock(CompressionSettings.class);
+        when(compression.getRequestCompression()).thenReturn(CompressionCodec.GZIP);
+        when(compression.getRequestCompressionThresholdBytes()).thenReturn(4096);
+        when(compression.isResponseCompressionEnabled()).thenReturn(true);
+        MetricsSettings metrics = mock(MetricsSettings.class);
+        when(metrics.isMetricsEnabled()).thenReturn(true);
+        when(configuration.getCompression()).thenReturn(compression);
+        when(configuration.getMetrics()).thenReturn(metrics);
+        when(configuration.getConfigName()).thenReturn("compression-test");
+        return configuration;
+    }
+
+    private static LlmConfiguration configuration(LlmProvider provider, StubLlmServer server) {
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getProvider()).thenReturn(provider);
+        when(configuration.getApiKey()).thenReturn("stub-key");
+        when(configuration.getApiBaseUrl()).thenReturn(server.getBaseUrl());
+        when(configuration.getEffectiveModel()).thenReturn(provider.getDefaultModel());
+        when(configuration.getTimeoutSeconds()).thenReturn(10);
+        return configuration;
+    }
+}
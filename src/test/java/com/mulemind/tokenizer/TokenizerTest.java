@@ -0,0 +1,145 @@
+package com.mulemind.tokenizer;
+
+import com.mulemind.config.ContextWindowSettings;
+import com.mulemind.config.LlmConfiguration;
+import com.mulemind.config.LlmProvider;
+import com.mulemind.config.MaxTokensAction;
+import com.mulemind.model.CompletionRequest;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Unit tests for the tokenizers and the pre-flight context window check
+ */
+class TokenizerTest {
+
+    @Test
+    void testMergesLowestRankFirst() throws IOException {
+        BpeTokenizer tokenizer = tokenizer("bc", "ab", "abcd", "cd");
+
+        // "bc" (256) wins over "ab" (257), leaving nothing to merge with "a"
+        assertArrayEquals(new int[] {'a', 256}, tokenizer.encode("abc"));
+        // A whole-piece match is a single token
+        assertArrayEquals(new int[] {258}, tokenizer.encode("abcd"));
+        assertEquals(3, tokenizer.countTokens("abce"));
+    }
+
+    @Test
+    void testSplitsOnPreTokenizationPattern() throws IOException {
+        BpeTokenizer tokenizer = tokenizer("he", "ll", "hell", "hello", " w", "or", " wor", " world");
+
+        assertArrayEquals(new int[] {259, 263}, tokenizer.encode("hello world"));
+        assertEquals(2, tokenizer.countTokens("hello world"));
+        assertEquals(0, tokenizer.countTokens(""));
+    }
+
+    @Test
+    void testEncodesUtf8Bytes() throws IOException {
+        BpeTokenizer tokenizer = tokenizer();
+
+        assertArrayEquals(new int[] {0xC3, 0xA9}, tokenizer.encode("é"));
+        assertEquals(4, tokenizer.countTokens("😀"));
+    }
+
+    @Test
+    void testLongPieces() throws IOException {
+        BpeTokenizer tokenizer = tokenizer("aa", "aaaa");
+
+        assertEquals(1250, tokenizer.countTokens("a".repeat(5000)));
+        assertEquals(1251, tokenizer.countTokens("a".repeat(5001)));
+    }
+
+    @Test
+    void testModelEncodings() {
+        assertEquals(Tokenizers.O200K_BASE, Tokenizers.encodingFor("gpt-4o-mini"));
+        assertEquals(Tokenizers.CL100K_BASE, Tokenizers.encodingFor("gpt-4-turbo-preview"));
+        assertNull(Tokenizers.encodingFor("claude-3-5-sonnet-20241022"));
+
+        Tokenizer claude = Tokenizers.forModel("claude-3-5-sonnet-20241022");
+        assertFalse(claude.isExact());
+        assertEquals(3, claude.countTokens("Hello world"));
+
+        assertEquals(128_000, ContextWindows.forModel("gpt-4o-2024-08-06"));
+        assertEquals(8_192, ContextWindows.forModel("gpt-4-0613"));
+        assertEquals(0, ContextWindows.forModel("my-fine-tune"));
+    }
+
+    @Test
+    void testEveryTokenizedModelHasAContextWindow() {
+        // One model of every family Tokenizers.encodingFor recognises
+        String[] models = {
+            "gpt-4o-mini", "chatgpt-4o-latest", "gpt-4.1-mini", "gpt-4.5-preview", "gpt-5-mini", "o1-preview",
+            "o3-mini", "o4-mini", "gpt-4-vision-preview", "gpt-4-turbo", "gpt-4-0613", "gpt-3.5-turbo",
+            "text-embedding-3-small", "text-embedding-ada-002"
+        };
+        for (String model : models) {
+            assertNotNull(Tokenizers.encodingFor(model), model);
+            assertTrue(ContextWindows.forModel(model) > 0, model);
+        }
+        assertEquals(128_000, ContextWindows.forModel("gpt-4.5-preview"));
+        assertEquals(128_000, ContextWindows.forModel("gpt-4-vision-preview"));
+        assertEquals(8_192, ContextWindows.forModel("gpt-4"));
+    }
+
+    @Test
+    void testPreflightClampsMaxTokens() throws Exception {
+        LlmConfiguration configuration = configuration(100, MaxTokensAction.CLAMP);
+        CompletionRequest request = CompletionRequest.builder().addUserMessage("Hello world").maxTokens(1000).build();
+        int promptTokens = Tokenizers.countTokens(Tokenizers.forModel("claude-3-5-sonnet-20241022"), request.getMessages());
+
+        PreflightCheck.apply(request, configuration);
+
+        assertEquals(100 - promptTokens, request.getMaxTokens());
+    }
+
+    @Test
+    void testPreflightRejects() {
+        LlmConfiguration configuration = configuration(100, MaxTokensAction.REJECT);
+        CompletionRequest request = CompletionRequest.builder().addUserMessage("Hello world").maxTokens(1000).build();
+
+        ContextWindowExceededException error = assertThrows(ContextWindowExceededException.class,
+            () -> PreflightCheck.apply(request, configuration));
+        assertEquals(100, error.getContextWindow());
+        assertEquals(1000, request.getMaxTokens());
+
+        CompletionRequest oversized = CompletionRequest.builder().addUserMessage("word ".repeat(200)).build();
+        assertThrows(ContextWindowExceededException.class,
+            () -> PreflightCheck.apply(oversized, configuration(100, MaxTokensAction.CLAMP)));
+    }
+
+    private static LlmConfiguration configuration(int contextWindow, MaxTokensAction action) {
+        ContextWindowSettings settings = mock(ContextWindowSettings.class);
+        when(settings.isPreflightCheckEnabled()).thenReturn(true);
+        when(settings.getContextWindowTokens()).thenReturn(contextWindow);
+        when(settings.getMaxTokensAction()).thenReturn(action);
+        LlmConfiguration configuration = mock(LlmConfiguration.class);
+        when(configuration.getContextWindow()).thenReturn(settings);
+        when(configuration.getProvider()).thenReturn(LlmProvider.ANTHROPIC);
+        when(configuration.getEffectiveModel()).thenReturn("claude-3-5-sonnet-20241022");
+        return configuration;
+    }
+
+    /**
+     * Build a tokenizer over the 256 single bytes followed by the given merges, ranked in order
+     */
+    private static BpeTokenizer tokenizer(String... merges) throws IOException {
+        StringBuilder vocabulary = new StringBuilder();
+        Base64.Encoder encoder = Base64.getEncoder();
+        for (int b = 0; b < 256; b++) {
+            vocabulary.append(encoder.encodeToString(new byte[] {(byte) b})).append(' ').append(b).append('\n');
+        }
+        for (int i = 0; i < merges.length; i++) {
+            vocabulary.append(encoder.encodeToString(merges[i].getBytes(StandardCharsets.UTF_8)))
+                .append(' ').append(256 + i).append('\n');
+        }
+        BpeVocabulary read = BpeVocabulary.read(
+            new ByteArrayInputStream(vocabulary.toString().getBytes(StandardCharsets.US_ASCII)));
+        return new BpeTokenizer("test", read, Tokenizers.CL100K_PATTERN);
+    }
+}